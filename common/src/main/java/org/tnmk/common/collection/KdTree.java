@@ -0,0 +1,260 @@
+package org.tnmk.common.collection;
+
+import java.util.Arrays;
+
+/**
+ * A bounded k-dimensional tree of points, each point has a double value (e.g. a guess factor).<br/>
+ * Points, values and tree links are stored in arrays indexed by point index, so no object is created when adding points or searching.
+ * <p/>
+ * New points are inserted as leaves, so the tree is not always balanced, but it's good enough when points come in a random order.
+ * When the tree is full, the oldest half of points is dropped and the tree is rebuilt balanced (split by the median of each dimension),
+ * so the cost of adding a point is still O(log n) on average.
+ * <p/>
+ * {@link #findNearest(double[], int, int[], double[])} only visits the branches which could contain a closer point than the found ones, so it's about O(log n) for small k.
+ */
+public class KdTree {
+    private static final int NONE = -1;
+
+    private final int dimensions;
+    private final int capacity;
+
+    /**
+     * Index: pointIndex * dimensions + dimension. Points are kept in the added order, the oldest one is at index 0.
+     */
+    private final double[] coordinates;
+    private final double[] values;
+    private final int[] lefts;
+    private final int[] rights;
+    /**
+     * The dimension which each node uses to split its children.
+     */
+    private final int[] splitDimensions;
+    private int root = NONE;
+    private int size = 0;
+    /**
+     * Reused when rebuilding the tree.
+     */
+    private final int[] buildingIndexes;
+
+    /**
+     * @param dimensions the number of dimensions of each point.
+     * @param capacity   the maximum number of points, must be at least 2.
+     */
+    public KdTree(int dimensions, int capacity) {
+        if (dimensions <= 0 || capacity < 2) {
+            throw new IllegalArgumentException("dimensions must be greater than 0 and capacity must be at least 2: " + dimensions + ", " + capacity);
+        }
+        this.dimensions = dimensions;
+        this.capacity = capacity;
+        this.coordinates = new double[capacity * dimensions];
+        this.values = new double[capacity];
+        this.lefts = new int[capacity];
+        this.rights = new int[capacity];
+        this.splitDimensions = new int[capacity];
+        this.buildingIndexes = new int[capacity];
+    }
+
+    /**
+     * @param point the coordinates of the point, its length must be {@link #getDimensions()}. It's copied, so the caller can reuse the array.
+     * @param value
+     */
+    public void add(double[] point, double value) {
+        if (point.length != dimensions) {
+            throw new IllegalArgumentException("The point must have " + dimensions + " dimensions: " + point.length);
+        }
+        if (size == capacity) {
+            dropOldestHalf();
+        }
+        int index = size;
+        System.arraycopy(point, 0, coordinates, index * dimensions, dimensions);
+        values[index] = value;
+        lefts[index] = NONE;
+        rights[index] = NONE;
+        size++;
+        if (root == NONE) {
+            root = index;
+            splitDimensions[index] = 0;
+            return;
+        }
+        int node = root;
+        while (true) {
+            int splitDimension = splitDimensions[node];
+            if (point[splitDimension] < coordinates[node * dimensions + splitDimension]) {
+                if (lefts[node] == NONE) {
+                    lefts[node] = index;
+                    break;
+                }
+                node = lefts[node];
+            } else {
+                if (rights[node] == NONE) {
+                    rights[node] = index;
+                    break;
+                }
+                node = rights[node];
+            }
+        }
+        splitDimensions[index] = (splitDimensions[node] + 1) % dimensions;
+    }
+
+    private void dropOldestHalf() {
+        int dropped = size / 2;
+        int kept = size - dropped;
+        System.arraycopy(coordinates, dropped * dimensions, coordinates, 0, kept * dimensions);
+        System.arraycopy(values, dropped, values, 0, kept);
+        size = kept;
+        for (int i = 0; i < size; i++) {
+            buildingIndexes[i] = i;
+        }
+        root = build(0, size, 0);
+    }
+
+    /**
+     * Build a balanced subtree from buildingIndexes[from, to).
+     *
+     * @return the root of the subtree.
+     */
+    private int build(int from, int to, int depth) {
+        if (from >= to) {
+            return NONE;
+        }
+        int splitDimension = depth % dimensions;
+        int middle = (from + to) >>> 1;
+        select(from, to - 1, middle, splitDimension);
+        int node = buildingIndexes[middle];
+        splitDimensions[node] = splitDimension;
+        lefts[node] = build(from, middle, depth + 1);
+        rights[node] = build(middle + 1, to, depth + 1);
+        return node;
+    }
+
+    /**
+     * Quickselect: after this method, buildingIndexes[k] is the point which would be there if [left, right] was sorted by the dimension,
+     * points before it are smaller or equal and points after it are bigger or equal.<br/>
+     * Equal points on both sides are fine for searching because the distance to the split plane is still a lower bound of the distance to any point on the other side.
+     */
+    private void select(int left, int right, int k, int dimension) {
+        while (left < right) {
+            double pivot = coordinates[buildingIndexes[(left + right) >>> 1] * dimensions + dimension];
+            int i = left;
+            int j = right;
+            while (i <= j) {
+                while (coordinates[buildingIndexes[i] * dimensions + dimension] < pivot) {
+                    i++;
+                }
+                while (coordinates[buildingIndexes[j] * dimensions + dimension] > pivot) {
+                    j--;
+                }
+                if (i <= j) {
+                    int temp = buildingIndexes[i];
+                    buildingIndexes[i] = buildingIndexes[j];
+                    buildingIndexes[j] = temp;
+                    i++;
+                    j--;
+                }
+            }
+            if (k <= j) {
+                right = j;
+            } else if (k >= i) {
+                left = i;
+            } else {
+                break;
+            }
+        }
+    }
+
+    /**
+     * Find the k nearest points (Euclidean distance).
+     *
+     * @param point             the query point.
+     * @param k                 the maximum number of result points.
+     * @param resultIndexes     at least k items, the indexes of found points sorted from the nearest, view {@link #getValue(int)} and {@link #getCoordinate(int, int)}.
+     * @param resultDistancesSq at least k items, the squared distances of found points.
+     * @return the number of found points: min(k, {@link #size()}).
+     */
+    public int findNearest(double[] point, int k, int[] resultIndexes, double[] resultDistancesSq) {
+        if (point.length != dimensions) {
+            throw new IllegalArgumentException("The point must have " + dimensions + " dimensions: " + point.length);
+        }
+        if (k <= 0) {
+            return 0;
+        }
+        return search(root, point, k, resultIndexes, resultDistancesSq, 0);
+    }
+
+    private int search(int node, double[] point, int k, int[] resultIndexes, double[] resultDistancesSq, int count) {
+        if (node == NONE) {
+            return count;
+        }
+        int offset = node * dimensions;
+        double distanceSq = 0;
+        for (int i = 0; i < dimensions; i++) {
+            double delta = point[i] - coordinates[offset + i];
+            distanceSq += delta * delta;
+        }
+        if (count < k || distanceSq < resultDistancesSq[k - 1]) {
+            /** Insert the node into the sorted result, the farthest one is dropped if the result is full. */
+            int index = Math.min(count, k - 1);
+            while (index > 0 && resultDistancesSq[index - 1] > distanceSq) {
+                resultDistancesSq[index] = resultDistancesSq[index - 1];
+                resultIndexes[index] = resultIndexes[index - 1];
+                index--;
+            }
+            resultDistancesSq[index] = distanceSq;
+            resultIndexes[index] = node;
+            count = Math.min(count + 1, k);
+        }
+        int splitDimension = splitDimensions[node];
+        double splitDelta = point[splitDimension] - coordinates[offset + splitDimension];
+        int nearChild = splitDelta < 0 ? lefts[node] : rights[node];
+        int farChild = splitDelta < 0 ? rights[node] : lefts[node];
+        count = search(nearChild, point, k, resultIndexes, resultDistancesSq, count);
+        if (count < k || splitDelta * splitDelta < resultDistancesSq[k - 1]) {
+            count = search(farChild, point, k, resultIndexes, resultDistancesSq, count);
+        }
+        return count;
+    }
+
+    public double getValue(int index) {
+        return values[index];
+    }
+
+    public double getCoordinate(int index, int dimension) {
+        return coordinates[index * dimensions + dimension];
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public int capacity() {
+        return capacity;
+    }
+
+    public int getDimensions() {
+        return dimensions;
+    }
+
+    /**
+     * @return the depth of the deepest leaf, 0 if the tree is empty. It's only used to check the balance of the tree.
+     */
+    public int reckonDepth() {
+        return reckonDepth(root);
+    }
+
+    private int reckonDepth(int node) {
+        if (node == NONE) {
+            return 0;
+        }
+        return 1 + Math.max(reckonDepth(lefts[node]), reckonDepth(rights[node]));
+    }
+
+    /**
+     * Remove all points.
+     */
+    public void clear() {
+        size = 0;
+        root = NONE;
+        Arrays.fill(lefts, NONE);
+        Arrays.fill(rights, NONE);
+    }
+}
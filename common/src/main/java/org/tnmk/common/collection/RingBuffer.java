@@ -0,0 +1,129 @@
+package org.tnmk.common.collection;
+
+import java.util.AbstractList;
+import java.util.List;
+import java.util.RandomAccess;
+
+/**
+ * A fixed-capacity list backed by a circular array.<br/>
+ * The items are viewed in newest-first order: index 0 is the latest added item, index {@link #size()} - 1 is the oldest one.<br/>
+ * When the buffer is full, adding a new item will overwrite the oldest item.
+ * <p/>
+ * Compare to a {@link java.util.LinkedList}:
+ * <ul>
+ * <li>{@link #add(Object)} doesn't allocate any new object.</li>
+ * <li>{@link #get(int)} is O(1).</li>
+ * <li>{@link #subList(int, int)} is a view (no copy) and its {@link #get(int)} is also O(1).</li>
+ * </ul>
+ * Note: the view from {@link #subList(int, int)} is fail-fast: after adding new items, don't use the old view anymore, get a new one instead.
+ *
+ * @param <T> the type of items. Null items are not allowed.
+ */
+public class RingBuffer<T> extends AbstractList<T> implements RandomAccess {
+    private final Object[] elements;
+    /**
+     * The index of the slot which will be written by the next {@link #add(Object)}.
+     */
+    private int head = 0;
+    private int size = 0;
+
+    public RingBuffer(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Capacity must be greater than 0: " + capacity);
+        }
+        this.elements = new Object[capacity];
+    }
+
+    /**
+     * Add the item as the newest item. If the buffer is full, the oldest item will be removed.
+     *
+     * @param item must be not null
+     * @return always true
+     */
+    @Override
+    public boolean add(T item) {
+        elements[head] = item;
+        head = nextIndex(head);
+        if (size < elements.length) {
+            size++;
+        }
+        modCount++;
+        return true;
+    }
+
+    /**
+     * This method has the same result as calling {@link #add(Object)} for each item in order (so the last item in the list will become the newest item).<br/>
+     * However, it only writes the items which will still be kept after adding (at most {@link #capacity()} items), and don't trim the buffer one by one.
+     *
+     * @param items the items in the order from oldest to newest.
+     */
+    public void addAllInOrder(List<? extends T> items) {
+        int itemsCount = items.size();
+        if (itemsCount == 0) {
+            return;
+        }
+        int capacity = elements.length;
+        int firstKeptIndex = Math.max(0, itemsCount - capacity);
+        int writeIndex = head;
+        for (int i = firstKeptIndex; i < itemsCount; i++) {
+            elements[writeIndex] = items.get(i);
+            writeIndex = nextIndex(writeIndex);
+        }
+        head = writeIndex;
+        size = Math.min(capacity, size + itemsCount);
+        modCount++;
+    }
+
+    /**
+     * @param ageIndex 0 is the newest item.
+     * @return the item at ageIndex in O(1).
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    public T get(int ageIndex) {
+        if (ageIndex < 0 || ageIndex >= size) {
+            throw new IndexOutOfBoundsException("ageIndex: " + ageIndex + ", size: " + size);
+        }
+        int index = head - 1 - ageIndex;
+        if (index < 0) {
+            index += elements.length;
+        }
+        return (T) elements[index];
+    }
+
+    /**
+     * @param count the expected number of items. If it's bigger than the current size, all items will be included.
+     * @return a view (no copy) of the latest items, newest-first.
+     */
+    public List<T> latest(int count) {
+        return subList(0, Math.min(Math.max(count, 0), size));
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    public int capacity() {
+        return elements.length;
+    }
+
+    public boolean isFull() {
+        return size == elements.length;
+    }
+
+    @Override
+    public void clear() {
+        for (int i = 0; i < elements.length; i++) {
+            elements[i] = null;
+        }
+        head = 0;
+        size = 0;
+        modCount++;
+    }
+
+    private int nextIndex(int index) {
+        int next = index + 1;
+        return next == elements.length ? 0 : next;
+    }
+}
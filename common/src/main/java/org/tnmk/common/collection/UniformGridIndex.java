@@ -0,0 +1,313 @@
+package org.tnmk.common.collection;
+
+import java.util.Arrays;
+
+/**
+ * A spatial index of points which are identified by dense int ids (e.g. enemies' ids).<br/>
+ * The area is split into square cells with the same size, each cell keeps a linked list of the points inside it (stored in int arrays, no object is created when adding/moving/removing a point).
+ * <p/>
+ * Queries only visit the cells which overlap the query area instead of all points:
+ * <ul>
+ * <li>{@link #findNearest(double, double, int, int[])}: k-nearest points, the cells are visited ring by ring around the query point.</li>
+ * <li>{@link #findInRadius(double, double, double, int[])}</li>
+ * <li>{@link #countInRectangle(double, double, double, double)}: cells which are fully inside the rectangle are counted without checking their points.</li>
+ * </ul>
+ * Points outside the area are still supported: they are put into the nearest border cells.
+ */
+public class UniformGridIndex {
+    private static final int NONE = -1;
+
+    private final double minX;
+    private final double minY;
+    private final double cellSize;
+    private final int columns;
+    private final int rows;
+
+    /**
+     * The first point id of each cell, or {@link #NONE}.
+     */
+    private final int[] cellHeads;
+    private final int[] cellCounts;
+
+    /**
+     * Per-point data, indexed by point id.
+     */
+    private double[] xs = new double[0];
+    private double[] ys = new double[0];
+    private int[] cellOfPoints = new int[0];
+    private int[] nextPoints = new int[0];
+    private int[] previousPoints = new int[0];
+
+    private int size = 0;
+    /**
+     * Reused by {@link #findNearest(double, double, int, int[])} to store distances of found points.
+     */
+    private double[] nearestDistancesSq = new double[0];
+
+    /**
+     * @param cellSize the size of each (square) cell. It should be about the average distance between points, or the usual radius of queries.
+     */
+    public UniformGridIndex(double minX, double minY, double width, double height, double cellSize) {
+        if (cellSize <= 0 || width <= 0 || height <= 0) {
+            throw new IllegalArgumentException("Width, height and cellSize must be greater than 0: " + width + ", " + height + ", " + cellSize);
+        }
+        this.minX = minX;
+        this.minY = minY;
+        this.cellSize = cellSize;
+        this.columns = Math.max(1, (int) Math.ceil(width / cellSize));
+        this.rows = Math.max(1, (int) Math.ceil(height / cellSize));
+        this.cellHeads = new int[columns * rows];
+        this.cellCounts = new int[columns * rows];
+        Arrays.fill(cellHeads, NONE);
+    }
+
+    /**
+     * Add a new point or move an existing point to a new position.
+     *
+     * @param id must be not negative
+     */
+    public void put(int id, double x, double y) {
+        ensureCapacity(id + 1);
+        int cell = cellIndex(columnOf(x), rowOf(y));
+        int oldCell = cellOfPoints[id];
+        xs[id] = x;
+        ys[id] = y;
+        if (oldCell == cell) {
+            return;
+        }
+        if (oldCell != NONE) {
+            unlink(id);
+        } else {
+            size++;
+        }
+        link(id, cell);
+    }
+
+    /**
+     * @return true if the point existed and was removed.
+     */
+    public boolean remove(int id) {
+        if (!contains(id)) {
+            return false;
+        }
+        unlink(id);
+        cellOfPoints[id] = NONE;
+        size--;
+        return true;
+    }
+
+    public boolean contains(int id) {
+        return id >= 0 && id < cellOfPoints.length && cellOfPoints[id] != NONE;
+    }
+
+    public void clear() {
+        Arrays.fill(cellHeads, NONE);
+        Arrays.fill(cellCounts, 0);
+        Arrays.fill(cellOfPoints, NONE);
+        size = 0;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public double getX(int id) {
+        return xs[id];
+    }
+
+    public double getY(int id) {
+        return ys[id];
+    }
+
+    /**
+     * @param resultIds the array to store the result, the nearest point first. Its length is the maximum number of results.
+     * @param k         the expected number of nearest points.
+     * @return the number of points written into resultIds (less than k if there are not enough points).
+     */
+    public int findNearest(double x, double y, int k, int[] resultIds) {
+        int limit = Math.min(Math.min(k, resultIds.length), size);
+        if (limit <= 0) {
+            return 0;
+        }
+        if (nearestDistancesSq.length < limit) {
+            nearestDistancesSq = new double[limit];
+        }
+        double[] resultDistancesSq = nearestDistancesSq;
+        int found = 0;
+        int centerColumn = columnOf(x);
+        int centerRow = rowOf(y);
+        int maxRing = Math.max(Math.max(centerColumn, columns - 1 - centerColumn), Math.max(centerRow, rows - 1 - centerRow));
+        for (int ring = 0; ring <= maxRing; ring++) {
+            for (int column = centerColumn - ring; column <= centerColumn + ring; column++) {
+                if (column < 0 || column >= columns) {
+                    continue;
+                }
+                boolean isBorderColumn = column == centerColumn - ring || column == centerColumn + ring;
+                int rowStep = isBorderColumn ? 1 : 2 * ring;
+                for (int row = centerRow - ring; row <= centerRow + ring; row += rowStep) {
+                    if (row >= 0 && row < rows) {
+                        found = collectNearest(cellIndex(column, row), x, y, resultIds, resultDistancesSq, found, limit);
+                    }
+                }
+            }
+            /** Any point in the next rings is at least (ring * cellSize) far from the query point. */
+            if (found == limit) {
+                double ringDistance = ring * cellSize;
+                if (resultDistancesSq[found - 1] <= ringDistance * ringDistance) {
+                    break;
+                }
+            }
+        }
+        return found;
+    }
+
+    /**
+     * Insert points of a cell into the sorted result (insertion sort, k is usually small).
+     */
+    private int collectNearest(int cell, double x, double y, int[] resultIds, double[] resultDistancesSq, int found, int limit) {
+        for (int id = cellHeads[cell]; id != NONE; id = nextPoints[id]) {
+            double dx = xs[id] - x;
+            double dy = ys[id] - y;
+            double distanceSq = dx * dx + dy * dy;
+            if (found == limit && distanceSq >= resultDistancesSq[found - 1]) {
+                continue;
+            }
+            int position = found == limit ? found - 1 : found;
+            while (position > 0 && resultDistancesSq[position - 1] > distanceSq) {
+                resultDistancesSq[position] = resultDistancesSq[position - 1];
+                resultIds[position] = resultIds[position - 1];
+                position--;
+            }
+            resultDistancesSq[position] = distanceSq;
+            resultIds[position] = id;
+            if (found < limit) {
+                found++;
+            }
+        }
+        return found;
+    }
+
+    /**
+     * @param resultIds the array to store the result (not sorted). If its length is less than the number of points in radius, only the first points are written.
+     * @return the number of points written into resultIds.
+     */
+    public int findInRadius(double x, double y, double radius, int[] resultIds) {
+        int fromColumn = columnOf(x - radius);
+        int toColumn = columnOf(x + radius);
+        int fromRow = rowOf(y - radius);
+        int toRow = rowOf(y + radius);
+        double radiusSq = radius * radius;
+        int found = 0;
+        for (int column = fromColumn; column <= toColumn; column++) {
+            for (int row = fromRow; row <= toRow; row++) {
+                for (int id = cellHeads[cellIndex(column, row)]; id != NONE; id = nextPoints[id]) {
+                    double dx = xs[id] - x;
+                    double dy = ys[id] - y;
+                    if (dx * dx + dy * dy <= radiusSq) {
+                        if (found == resultIds.length) {
+                            return found;
+                        }
+                        resultIds[found] = id;
+                        found++;
+                    }
+                }
+            }
+        }
+        return found;
+    }
+
+    /**
+     * @return the number of points inside the rectangle (including points on the edges).
+     */
+    public int countInRectangle(double rectMinX, double rectMinY, double rectMaxX, double rectMaxY) {
+        int fromColumn = columnOf(rectMinX);
+        int toColumn = columnOf(rectMaxX);
+        int fromRow = rowOf(rectMinY);
+        int toRow = rowOf(rectMaxY);
+        int count = 0;
+        for (int column = fromColumn; column <= toColumn; column++) {
+            for (int row = fromRow; row <= toRow; row++) {
+                int cell = cellIndex(column, row);
+                if (isCellInside(column, row, rectMinX, rectMinY, rectMaxX, rectMaxY)) {
+                    count += cellCounts[cell];
+                    continue;
+                }
+                for (int id = cellHeads[cell]; id != NONE; id = nextPoints[id]) {
+                    if (xs[id] >= rectMinX && xs[id] <= rectMaxX && ys[id] >= rectMinY && ys[id] <= rectMaxY) {
+                        count++;
+                    }
+                }
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Border cells also contain points outside the area, so they're never considered fully inside a rectangle.
+     */
+    private boolean isCellInside(int column, int row, double rectMinX, double rectMinY, double rectMaxX, double rectMaxY) {
+        if (column == 0 || row == 0 || column == columns - 1 || row == rows - 1) {
+            return false;
+        }
+        double cellMinX = minX + column * cellSize;
+        double cellMinY = minY + row * cellSize;
+        return cellMinX >= rectMinX && cellMinX + cellSize <= rectMaxX && cellMinY >= rectMinY && cellMinY + cellSize <= rectMaxY;
+    }
+
+    private void link(int id, int cell) {
+        int head = cellHeads[cell];
+        nextPoints[id] = head;
+        previousPoints[id] = NONE;
+        if (head != NONE) {
+            previousPoints[head] = id;
+        }
+        cellHeads[cell] = id;
+        cellOfPoints[id] = cell;
+        cellCounts[cell]++;
+    }
+
+    private void unlink(int id) {
+        int cell = cellOfPoints[id];
+        int previous = previousPoints[id];
+        int next = nextPoints[id];
+        if (previous != NONE) {
+            nextPoints[previous] = next;
+        } else {
+            cellHeads[cell] = next;
+        }
+        if (next != NONE) {
+            previousPoints[next] = previous;
+        }
+        cellCounts[cell]--;
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (cellOfPoints.length >= capacity) {
+            return;
+        }
+        int oldCapacity = cellOfPoints.length;
+        int newCapacity = Math.max(capacity, oldCapacity * 2);
+        xs = Arrays.copyOf(xs, newCapacity);
+        ys = Arrays.copyOf(ys, newCapacity);
+        nextPoints = Arrays.copyOf(nextPoints, newCapacity);
+        previousPoints = Arrays.copyOf(previousPoints, newCapacity);
+        cellOfPoints = Arrays.copyOf(cellOfPoints, newCapacity);
+        Arrays.fill(cellOfPoints, oldCapacity, newCapacity, NONE);
+    }
+
+    private int columnOf(double x) {
+        return clamp((int) Math.floor((x - minX) / cellSize), columns);
+    }
+
+    private int rowOf(double y) {
+        return clamp((int) Math.floor((y - minY) / cellSize), rows);
+    }
+
+    private static int clamp(int index, int count) {
+        return index < 0 ? 0 : (index >= count ? count - 1 : index);
+    }
+
+    private int cellIndex(int column, int row) {
+        return row * columns + column;
+    }
+}
@@ -0,0 +1,143 @@
+package org.tnmk.common.math;
+
+/**
+ * Keep the latest samples of a value and answer mean/variance of any window of latest samples in O(1).
+ * <p/>
+ * It keeps prefix sums (and prefix sums of squares) of the samples in circular arrays, so adding a sample is O(1) and doesn't allocate any object.<br/>
+ * The mean of a window is the difference of two prefix sums divided by the window size.
+ * <p/>
+ * Note: the variance is the mean of squares minus the square of the mean, which loses precision when both of them are big. So:
+ * <ul>
+ * <li>All samples are shifted, so the sums are sums of deviations instead of raw values. The shift starts with the first added sample.</li>
+ * <li>The prefix sums would grow forever, so every {@link #capacity()} samples they're re-based on the oldest kept sample,
+ * and the shift is moved to the mean of the kept samples (view {@link #rebase()}). So the subtracted values stay in the range of the latest {@link #capacity()} samples.</li>
+ * </ul>
+ * <p/>
+ * Similar to {@link org.tnmk.common.collection.RingBuffer}, samples are accessed by ageIndex: 0 is the latest sample.
+ */
+public class RollingStatistics {
+    private final int capacity;
+    /**
+     * cumulativeSums[k % (capacity + 1)] is the sum of the first k (shifted) samples.
+     */
+    private final double[] cumulativeSums;
+    private final double[] cumulativeSquareSums;
+
+    private long totalCount = 0;
+    /**
+     * All samples are shifted by this value before being added to cumulative sums.
+     */
+    private double shift = 0;
+
+    public RollingStatistics(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Capacity must be greater than 0: " + capacity);
+        }
+        this.capacity = capacity;
+        this.cumulativeSums = new double[capacity + 1];
+        this.cumulativeSquareSums = new double[capacity + 1];
+    }
+
+    public void add(double value) {
+        if (totalCount == 0) {
+            shift = value;
+        }
+        double shiftedValue = value - shift;
+        int previousIndex = cumulativeIndex(totalCount);
+        totalCount++;
+        int index = cumulativeIndex(totalCount);
+        cumulativeSums[index] = cumulativeSums[previousIndex] + shiftedValue;
+        cumulativeSquareSums[index] = cumulativeSquareSums[previousIndex] + shiftedValue * shiftedValue;
+        if (totalCount % capacity == 0) {
+            rebase();
+        }
+    }
+
+    /**
+     * Make the prefix sums start from the oldest kept sample, and move the shift to the mean of the kept samples.<br/>
+     * With the shift delta d, the j-th prefix sums are changed as: sum(v - d) = sum(v) - j * d, sum((v - d)^2) = sum(v^2) - 2 * d * sum(v) + j * d^2.
+     * <p/>
+     * It's only called when all capacity + 1 prefix sums are in use, so it's O(capacity) once per {@link #capacity()} samples: O(1) per sample on average.
+     */
+    private void rebase() {
+        long oldestCount = totalCount - capacity;
+        int oldestIndex = cumulativeIndex(oldestCount);
+        double baseSum = cumulativeSums[oldestIndex];
+        double baseSquareSum = cumulativeSquareSums[oldestIndex];
+        double shiftDelta = (cumulativeSums[cumulativeIndex(totalCount)] - baseSum) / capacity;
+        for (int j = 0; j <= capacity; j++) {
+            int index = cumulativeIndex(oldestCount + j);
+            double sum = cumulativeSums[index] - baseSum;
+            double squareSum = cumulativeSquareSums[index] - baseSquareSum;
+            cumulativeSums[index] = sum - j * shiftDelta;
+            cumulativeSquareSums[index] = squareSum - 2 * shiftDelta * sum + j * shiftDelta * shiftDelta;
+        }
+        shift += shiftDelta;
+    }
+
+    /**
+     * @param newestAgeIndex the ageIndex of the newest sample in the window (0 is the latest sample).
+     * @param windowSize     the expected number of samples in the window. If there are not enough samples, use all available samples.
+     * @return the actual number of samples in the window.
+     */
+    public int countWindow(int newestAgeIndex, int windowSize) {
+        return Math.max(0, Math.min(windowSize, size() - newestAgeIndex));
+    }
+
+    /**
+     * @param newestAgeIndex view {@link #countWindow(int, int)}
+     * @param windowSize     view {@link #countWindow(int, int)}
+     * @return the mean of samples in the window. If there's no sample in the window, return 0.
+     */
+    public double mean(int newestAgeIndex, int windowSize) {
+        int count = countWindow(newestAgeIndex, windowSize);
+        if (count == 0) {
+            return 0;
+        }
+        return shift + windowSum(cumulativeSums, newestAgeIndex, count) / count;
+    }
+
+    /**
+     * @param newestAgeIndex view {@link #countWindow(int, int)}
+     * @param windowSize     view {@link #countWindow(int, int)}
+     * @return the population variance of samples in the window. If there's no sample in the window, return 0.
+     */
+    public double variance(int newestAgeIndex, int windowSize) {
+        int count = countWindow(newestAgeIndex, windowSize);
+        if (count == 0) {
+            return 0;
+        }
+        double shiftedMean = windowSum(cumulativeSums, newestAgeIndex, count) / count;
+        double shiftedSquareMean = windowSum(cumulativeSquareSums, newestAgeIndex, count) / count;
+        return Math.max(0, shiftedSquareMean - shiftedMean * shiftedMean);
+    }
+
+    public double mean(int windowSize) {
+        return mean(0, windowSize);
+    }
+
+    public double variance(int windowSize) {
+        return variance(0, windowSize);
+    }
+
+    /**
+     * @return the number of samples which are still kept (at most {@link #capacity()}).
+     */
+    public int size() {
+        return (int) Math.min(totalCount, capacity);
+    }
+
+    public int capacity() {
+        return capacity;
+    }
+
+    private double windowSum(double[] sums, int newestAgeIndex, int count) {
+        long end = totalCount - newestAgeIndex;
+        long start = end - count;
+        return sums[cumulativeIndex(end)] - sums[cumulativeIndex(start)];
+    }
+
+    private int cumulativeIndex(long count) {
+        return (int) (count % (capacity + 1));
+    }
+}
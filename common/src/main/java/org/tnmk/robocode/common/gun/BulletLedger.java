@@ -0,0 +1,370 @@
+package org.tnmk.robocode.common.gun;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import org.tnmk.robocode.common.model.enemy.EnemyRegistry;
+import robocode.Bullet;
+import robocode.Rules;
+
+/**
+ * Remember which {@link GunStrategy} fired each real bullet, so that the outcome of the bullet (hit, missed, hit another bullet) can be counted for that strategy.
+ * <p/>
+ * Flying bullets are kept in an open-addressed map keyed by {@link Bullet#hashCode()} and {@link Bullet#equals(Object)} (both are based on the bullet's id,
+ * the bullet of an event is not always the same instance which was returned when firing):
+ * linear probing on parallel arrays, and removing by shifting the following entries back, so there's no tombstone and no object is created per bullet.
+ * <p/>
+ * Resolved bullets are counted in windows of the latest {@link #WINDOW_SIZE} outcomes, both per strategy and per (enemy, strategy).
+ * Each window keeps its running sums, so the hit rate and the damage per energy are read in O(1).<br/>
+ * The windows are static so that they're kept through all rounds. The enemy's windows are found by its name only once per round,
+ * after that they're found by the enemy's id (view {@link EnemyRegistry}).<br/>
+ * Bullets which hit another bullet are removed without being counted: they tell nothing about the aiming.
+ */
+public class BulletLedger {
+    public static final int WINDOW_SIZE = 32;
+    private static final int INITIAL_CAPACITY = 16;
+    private static final int STRATEGIES_COUNT = GunStrategy.values().length;
+
+    /**
+     * The identity map of flying bullets, the capacity is always a power of 2.
+     */
+    private Bullet[] bullets = new Bullet[INITIAL_CAPACITY];
+    private GunStrategy[] bulletStrategies = new GunStrategy[INITIAL_CAPACITY];
+    private String[] bulletTargetNames = new String[INITIAL_CAPACITY];
+    private int[] bulletTargetIndexes = new int[INITIAL_CAPACITY];
+    private long[] bulletFireTimes = new long[INITIAL_CAPACITY];
+    private int flyingBulletsCount = 0;
+
+    /**
+     * Index: the enemy's id of this round. The value is the enemy's index in {@link #enemyIndexes}, -1 if it's not known yet.
+     */
+    private int[] enemyIndexesById = new int[0];
+    private String[] enemyNamesById = new String[0];
+
+    /**
+     * The index of each enemy's windows: the windows of (enemyIndex, strategy) are at the cell STRATEGIES_COUNT * (enemyIndex + 1) + strategy.ordinal().<br/>
+     * The first STRATEGIES_COUNT cells are the windows of strategies against all enemies.
+     */
+    private static final Map<String, Integer> enemyIndexes = new HashMap<>();
+    /**
+     * Index: cell * WINDOW_SIZE + (the number of outcomes of the cell % WINDOW_SIZE).
+     */
+    private static boolean[] outcomeHits = new boolean[0];
+    private static double[] outcomeDamages = new double[0];
+    private static double[] outcomePowers = new double[0];
+    /**
+     * Index: cell.
+     */
+    private static long[] cellOutcomesCounts = new long[0];
+    private static int[] cellHits = new int[0];
+    private static double[] cellDamages = new double[0];
+    private static double[] cellPowers = new double[0];
+
+    static {
+        ensureCellCapacity(STRATEGIES_COUNT);
+    }
+
+    /**
+     * Same as {@link #recordFiredBullet(Bullet, GunStrategy, String, int, long)} when the enemy's id is not known.
+     */
+    public void recordFiredBullet(Bullet bullet, GunStrategy gunStrategy, String targetName, long fireTime) {
+        recordFiredBullet(bullet, gunStrategy, targetName, EnemyRegistry.NO_ID, fireTime);
+    }
+
+    /**
+     * @param bullet      the bullet which was fired, view {@link robocode.AdvancedRobot#setFireBullet(double)}. Nothing happens if it's null (the gun couldn't fire).
+     * @param gunStrategy the strategy which aimed the bullet.
+     * @param targetName  the aimed enemy.
+     * @param targetId    the id of the aimed enemy in this round, or {@link EnemyRegistry#NO_ID}.
+     * @param fireTime
+     */
+    public void recordFiredBullet(Bullet bullet, GunStrategy gunStrategy, String targetName, int targetId, long fireTime) {
+        if (bullet == null) {
+            return;
+        }
+        if (gunStrategy == null || targetName == null) {
+            throw new IllegalArgumentException("A fired bullet must have a gun strategy and a target: " + gunStrategy + ", " + targetName);
+        }
+        if ((flyingBulletsCount + 1) * 2 > bullets.length) {
+            rehash(bullets.length * 2);
+        }
+        int slot = findSlot(bullet);
+        if (bullets[slot] == null) {
+            flyingBulletsCount++;
+        }
+        bullets[slot] = bullet;
+        bulletStrategies[slot] = gunStrategy;
+        bulletTargetNames[slot] = targetName;
+        bulletTargetIndexes[slot] = getOrCreateEnemyIndex(targetName, targetId);
+        bulletFireTimes[slot] = fireTime;
+    }
+
+    /**
+     * @param bullet     view {@link robocode.BulletHitEvent#getBullet()}
+     * @param victimName the robot which was hit, it's counted as a hit only when it's the aimed enemy.
+     * @return false if the bullet was not recorded.
+     */
+    public boolean resolveHit(Bullet bullet, String victimName) {
+        int slot = findSlot(bullet);
+        if (bullets[slot] == null) {
+            return false;
+        }
+        boolean hitTarget = bulletTargetNames[slot].equals(victimName);
+        addOutcome(bulletStrategies[slot], bulletTargetIndexes[slot], hitTarget, Rules.getBulletDamage(bullet.getPower()), bullet.getPower());
+        remove(slot);
+        return true;
+    }
+
+    /**
+     * @param bullet view {@link robocode.BulletMissedEvent#getBullet()}
+     * @return false if the bullet was not recorded.
+     */
+    public boolean resolveMissed(Bullet bullet) {
+        int slot = findSlot(bullet);
+        if (bullets[slot] == null) {
+            return false;
+        }
+        addOutcome(bulletStrategies[slot], bulletTargetIndexes[slot], false, 0, bullet.getPower());
+        remove(slot);
+        return true;
+    }
+
+    /**
+     * The bullet is removed without being counted.
+     *
+     * @param bullet view {@link robocode.BulletHitBulletEvent#getBullet()}
+     * @return false if the bullet was not recorded.
+     */
+    public boolean resolveHitBullet(Bullet bullet) {
+        int slot = findSlot(bullet);
+        if (bullets[slot] == null) {
+            return false;
+        }
+        remove(slot);
+        return true;
+    }
+
+    /**
+     * @return the slot of the bullet, or the empty slot where it should be put.
+     */
+    private int findSlot(Bullet bullet) {
+        int mask = bullets.length - 1;
+        int slot = mix(bullet.hashCode()) & mask;
+        while (bullets[slot] != null && !bullets[slot].equals(bullet)) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    /**
+     * Shift back the following entries of the same probing chain, so that they can still be found without tombstones.
+     */
+    private void remove(int slot) {
+        int mask = bullets.length - 1;
+        int emptySlot = slot;
+        int nextSlot = (slot + 1) & mask;
+        while (bullets[nextSlot] != null) {
+            int homeSlot = mix(bullets[nextSlot].hashCode()) & mask;
+            /** The entry can move to the empty slot only if its home slot is not in (emptySlot, nextSlot], cyclically.*/
+            if (((nextSlot - homeSlot) & mask) >= ((nextSlot - emptySlot) & mask)) {
+                moveEntry(nextSlot, emptySlot);
+                emptySlot = nextSlot;
+            }
+            nextSlot = (nextSlot + 1) & mask;
+        }
+        bullets[emptySlot] = null;
+        bulletStrategies[emptySlot] = null;
+        bulletTargetNames[emptySlot] = null;
+        flyingBulletsCount--;
+    }
+
+    private void moveEntry(int fromSlot, int toSlot) {
+        bullets[toSlot] = bullets[fromSlot];
+        bulletStrategies[toSlot] = bulletStrategies[fromSlot];
+        bulletTargetNames[toSlot] = bulletTargetNames[fromSlot];
+        bulletTargetIndexes[toSlot] = bulletTargetIndexes[fromSlot];
+        bulletFireTimes[toSlot] = bulletFireTimes[fromSlot];
+    }
+
+    private void rehash(int newCapacity) {
+        Bullet[] oldBullets = bullets;
+        GunStrategy[] oldStrategies = bulletStrategies;
+        String[] oldTargetNames = bulletTargetNames;
+        int[] oldTargetIndexes = bulletTargetIndexes;
+        long[] oldFireTimes = bulletFireTimes;
+        bullets = new Bullet[newCapacity];
+        bulletStrategies = new GunStrategy[newCapacity];
+        bulletTargetNames = new String[newCapacity];
+        bulletTargetIndexes = new int[newCapacity];
+        bulletFireTimes = new long[newCapacity];
+        for (int i = 0; i < oldBullets.length; i++) {
+            if (oldBullets[i] != null) {
+                int slot = findSlot(oldBullets[i]);
+                bullets[slot] = oldBullets[i];
+                bulletStrategies[slot] = oldStrategies[i];
+                bulletTargetNames[slot] = oldTargetNames[i];
+                bulletTargetIndexes[slot] = oldTargetIndexes[i];
+                bulletFireTimes[slot] = oldFireTimes[i];
+            }
+        }
+    }
+
+    /**
+     * Spread the hash codes (bullet ids are sequential) so that the low bits used by the mask are well distributed.
+     */
+    private static int mix(int hash) {
+        hash *= 0x9E3779B9;
+        return hash ^ (hash >>> 16);
+    }
+
+    private static void addOutcome(GunStrategy gunStrategy, int enemyIndex, boolean hit, double damage, double power) {
+        addOutcome(gunStrategy.ordinal(), hit, damage, power);
+        addOutcome(STRATEGIES_COUNT * (enemyIndex + 1) + gunStrategy.ordinal(), hit, damage, power);
+    }
+
+    private static void addOutcome(int cell, boolean hit, double damage, double power) {
+        int index = cell * WINDOW_SIZE + (int) (cellOutcomesCounts[cell] % WINDOW_SIZE);
+        if (cellOutcomesCounts[cell] >= WINDOW_SIZE) {
+            /** Remove the oldest outcome which is replaced. */
+            cellHits[cell] -= outcomeHits[index] ? 1 : 0;
+            cellDamages[cell] -= outcomeDamages[index];
+            cellPowers[cell] -= outcomePowers[index];
+        }
+        outcomeHits[index] = hit;
+        outcomeDamages[index] = damage;
+        outcomePowers[index] = power;
+        cellHits[cell] += hit ? 1 : 0;
+        cellDamages[cell] += damage;
+        cellPowers[cell] += power;
+        cellOutcomesCounts[cell]++;
+    }
+
+    /**
+     * @param enemyId the name is looked up only when this id is seen the first time, or when it's {@link EnemyRegistry#NO_ID}.
+     */
+    private int getOrCreateEnemyIndex(String enemyName, int enemyId) {
+        if (enemyId == EnemyRegistry.NO_ID) {
+            return getOrCreateEnemyIndex(enemyName);
+        }
+        if (enemyId >= enemyIndexesById.length) {
+            int oldLength = enemyIndexesById.length;
+            enemyIndexesById = Arrays.copyOf(enemyIndexesById, Math.max(enemyId + 1, oldLength * 2));
+            Arrays.fill(enemyIndexesById, oldLength, enemyIndexesById.length, -1);
+            enemyNamesById = Arrays.copyOf(enemyNamesById, enemyIndexesById.length);
+        }
+        /** An id is reused by another enemy after the old one was evicted. */
+        if (enemyIndexesById[enemyId] < 0 || !enemyName.equals(enemyNamesById[enemyId])) {
+            enemyIndexesById[enemyId] = getOrCreateEnemyIndex(enemyName);
+            enemyNamesById[enemyId] = enemyName;
+        }
+        return enemyIndexesById[enemyId];
+    }
+
+    private static int getOrCreateEnemyIndex(String enemyName) {
+        Integer enemyIndex = enemyIndexes.get(enemyName);
+        if (enemyIndex == null) {
+            enemyIndex = enemyIndexes.size();
+            enemyIndexes.put(enemyName, enemyIndex);
+            ensureCellCapacity(STRATEGIES_COUNT * (enemyIndex + 2));
+        }
+        return enemyIndex;
+    }
+
+    /**
+     * @return -1 if the enemy has no resolved bullet.
+     */
+    private static int findEnemyCell(String enemyName, GunStrategy gunStrategy) {
+        Integer enemyIndex = enemyIndexes.get(enemyName);
+        if (enemyIndex == null) {
+            return -1;
+        }
+        return STRATEGIES_COUNT * (enemyIndex + 1) + gunStrategy.ordinal();
+    }
+
+    private static void ensureCellCapacity(int cellsCount) {
+        if (cellsCount <= cellOutcomesCounts.length) {
+            return;
+        }
+        int newCellsCount = Math.max(cellsCount, cellOutcomesCounts.length * 2);
+        outcomeHits = Arrays.copyOf(outcomeHits, newCellsCount * WINDOW_SIZE);
+        outcomeDamages = Arrays.copyOf(outcomeDamages, newCellsCount * WINDOW_SIZE);
+        outcomePowers = Arrays.copyOf(outcomePowers, newCellsCount * WINDOW_SIZE);
+        cellOutcomesCounts = Arrays.copyOf(cellOutcomesCounts, newCellsCount);
+        cellHits = Arrays.copyOf(cellHits, newCellsCount);
+        cellDamages = Arrays.copyOf(cellDamages, newCellsCount);
+        cellPowers = Arrays.copyOf(cellPowers, newCellsCount);
+    }
+
+    private static int countWindow(int cell) {
+        return cell < 0 ? 0 : (int) Math.min(WINDOW_SIZE, cellOutcomesCounts[cell]);
+    }
+
+    private static double reckonHitRate(int cell) {
+        int count = countWindow(cell);
+        return count == 0 ? 0 : (double) cellHits[cell] / count;
+    }
+
+    private static double reckonDamagePerEnergy(int cell) {
+        return countWindow(cell) == 0 || cellPowers[cell] <= 0 ? 0 : cellDamages[cell] / cellPowers[cell];
+    }
+
+    /**
+     * @return the number of resolved bullets in the window of the strategy (at most {@link #WINDOW_SIZE}).
+     */
+    public int countResolvedBullets(GunStrategy gunStrategy) {
+        return countWindow(gunStrategy.ordinal());
+    }
+
+    public int countResolvedBullets(String enemyName, GunStrategy gunStrategy) {
+        return countWindow(findEnemyCell(enemyName, gunStrategy));
+    }
+
+    /**
+     * @return the ratio of bullets which hit their targets in the window, 0 if there's no resolved bullet.
+     */
+    public double getHitRate(GunStrategy gunStrategy) {
+        return reckonHitRate(gunStrategy.ordinal());
+    }
+
+    public double getHitRate(String enemyName, GunStrategy gunStrategy) {
+        return reckonHitRate(findEnemyCell(enemyName, gunStrategy));
+    }
+
+    /**
+     * @return the total damage divided by the total bullet power in the window, 0 if there's no resolved bullet.
+     */
+    public double getDamagePerEnergy(GunStrategy gunStrategy) {
+        return reckonDamagePerEnergy(gunStrategy.ordinal());
+    }
+
+    public double getDamagePerEnergy(String enemyName, GunStrategy gunStrategy) {
+        return reckonDamagePerEnergy(findEnemyCell(enemyName, gunStrategy));
+    }
+
+    /**
+     * @return the time when the flying bullet was fired, -1 if the bullet was not recorded or was already resolved.
+     */
+    public long getFireTime(Bullet bullet) {
+        int slot = findSlot(bullet);
+        return bullets[slot] == null ? -1 : bulletFireTimes[slot];
+    }
+
+    public int countFlyingBullets() {
+        return flyingBulletsCount;
+    }
+
+    /**
+     * Remove the outcomes of all rounds, it's only used to start a new battle (e.g. in tests).
+     */
+    static void clearOutcomes() {
+        enemyIndexes.clear();
+        outcomeHits = new boolean[0];
+        outcomeDamages = new double[0];
+        outcomePowers = new double[0];
+        cellOutcomesCounts = new long[0];
+        cellHits = new int[0];
+        cellDamages = new double[0];
+        cellPowers = new double[0];
+        ensureCellCapacity(STRATEGIES_COUNT);
+    }
+}
@@ -0,0 +1,135 @@
+package org.tnmk.robocode.common.gun;
+
+import java.awt.geom.Point2D;
+import java.awt.geom.Rectangle2D;
+import org.tnmk.common.math.AngleUtils;
+import org.tnmk.robocode.common.gun.pattern.EnemyMovePattern;
+import org.tnmk.robocode.common.helper.Move2DUtils;
+import org.tnmk.robocode.common.helper.prediction.EnemyPrediction;
+
+/**
+ * The closed-form trajectory of an enemy which moves with a pattern: {@link EnemyMovePattern#LINEAR}, {@link EnemyMovePattern#CIRCULAR} or {@link EnemyMovePattern#STAY_STILL}.<br/>
+ * All parameters (velocity components, circle center...) are calculated once when the trajectory is created,
+ * so getting a position at any time only needs one pair of sin/cos (circular) or none (linear, stay still).
+ * <p/>
+ * The formulas are the same as {@link org.tnmk.robocode.common.gun.pattern.PatternPredictionUtils}: https://www.ibm.com/developerworks/library/j-circular/index.html
+ */
+public class EnemyTrajectory {
+    /**
+     * If the average changing heading is not greater than this value, the enemy is considered moving on a straight line.
+     */
+    private static final double MIN_CIRCULAR_CHANGE_HEADING_RADIAN = 0.00001;
+    /**
+     * If the enemy is moving on a straight line with average velocity less than this value, it's considered staying still.
+     */
+    private static final double MIN_MOVING_VELOCITY = 1;
+
+    private final EnemyMovePattern enemyMovePattern;
+    private final double startX;
+    private final double startY;
+    private final long startTime;
+    private final double avgVelocity;
+    private final double avgChangeHeadingRadian;
+    private final Rectangle2D enemyMovementArea;
+
+    /**
+     * Linear: the velocity components. Circular: not used.
+     */
+    private final double velocityX;
+    private final double velocityY;
+    /**
+     * Circular: the circle center, radius and the heading at startTime. Linear: not used.
+     */
+    private final double centerX;
+    private final double centerY;
+    private final double radius;
+    private final double startHeadingRadian;
+
+    /**
+     * @param enemyX                 latest x of the enemy in history
+     * @param enemyY                 latest y of the enemy in history
+     * @param enemyHeading           latest heading (degree) of the enemy in history
+     * @param enemyVelocity          latest velocity of the enemy in history
+     * @param enemyTime              the time of the latest data in history
+     * @param avgVelocity            the average velocity of enemy
+     * @param avgChangeHeadingRadian average changing heading of the enemy based recent history items.
+     * @param enemyMovementArea      the area enemy always moving inside. It never move to outside this area (usually the battle field).
+     */
+    public EnemyTrajectory(double enemyX, double enemyY, double enemyHeading, double enemyVelocity, long enemyTime, double avgVelocity, double avgChangeHeadingRadian, Rectangle2D enemyMovementArea) {
+        this.startX = enemyX;
+        this.startY = enemyY;
+        this.startTime = enemyTime;
+        this.avgVelocity = avgVelocity;
+        this.avgChangeHeadingRadian = avgChangeHeadingRadian;
+        this.enemyMovementArea = enemyMovementArea;
+        this.startHeadingRadian = AngleUtils.toRadian(enemyHeading);
+        if (Math.abs(avgChangeHeadingRadian) > MIN_CIRCULAR_CHANGE_HEADING_RADIAN) {
+            this.enemyMovePattern = EnemyMovePattern.CIRCULAR;
+            this.radius = avgVelocity / avgChangeHeadingRadian;
+            this.centerX = enemyX + Math.cos(startHeadingRadian) * radius;
+            this.centerY = enemyY - Math.sin(startHeadingRadian) * radius;
+            this.velocityX = 0;
+            this.velocityY = 0;
+        } else {
+            this.radius = 0;
+            this.centerX = enemyX;
+            this.centerY = enemyY;
+            if (avgVelocity < MIN_MOVING_VELOCITY) {
+                this.enemyMovePattern = EnemyMovePattern.STAY_STILL;
+                this.velocityX = 0;
+                this.velocityY = 0;
+            } else {
+                this.enemyMovePattern = EnemyMovePattern.LINEAR;
+                this.velocityX = Math.sin(startHeadingRadian) * enemyVelocity;
+                this.velocityY = Math.cos(startHeadingRadian) * enemyVelocity;
+            }
+        }
+    }
+
+    /**
+     * @param time it could be a fraction of tick.
+     * @return the position of the enemy at the time (always inside {@link #enemyMovementArea} if the start position is inside it).
+     */
+    public Point2D reckonPosition(double time) {
+        double diff = time - startTime;
+        double newX, newY;
+        switch (enemyMovePattern) {
+            case CIRCULAR:
+                double headingRadian = startHeadingRadian + diff * avgChangeHeadingRadian;
+                newX = centerX - Math.cos(headingRadian) * radius;
+                newY = centerY + Math.sin(headingRadian) * radius;
+                break;
+            case LINEAR:
+                newX = startX + velocityX * diff;
+                newY = startY + velocityY * diff;
+                break;
+            default:
+                return new Point2D.Double(startX, startY);
+        }
+        return Move2DUtils.reckonMaximumDestination(new Point2D.Double(startX, startY), new Point2D.Double(newX, newY), enemyMovementArea);
+    }
+
+    /**
+     * @param predictionTime
+     * @return the prediction of the enemy at the predictionTime.
+     */
+    public EnemyPrediction predict(long predictionTime) {
+        return new EnemyPrediction(enemyMovePattern, predictionTime, reckonPosition(predictionTime), avgChangeHeadingRadian, avgVelocity);
+    }
+
+    public boolean isStayStill() {
+        return enemyMovePattern == EnemyMovePattern.STAY_STILL;
+    }
+
+    public EnemyMovePattern getEnemyMovePattern() {
+        return enemyMovePattern;
+    }
+
+    public long getStartTime() {
+        return startTime;
+    }
+
+    public Rectangle2D getEnemyMovementArea() {
+        return enemyMovementArea;
+    }
+}
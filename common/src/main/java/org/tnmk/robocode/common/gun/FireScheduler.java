@@ -0,0 +1,212 @@
+package org.tnmk.robocode.common.gun;
+
+import java.awt.geom.Point2D;
+import java.util.Collection;
+import org.tnmk.robocode.common.gun.pattern.BulletPowerHelper;
+import org.tnmk.robocode.common.gun.virtual.VirtualGunArena;
+import org.tnmk.robocode.common.model.enemy.Enemy;
+import robocode.Rules;
+import robocode.util.Utils;
+
+/**
+ * Choose which enemy the gun should aim at in melee, so that the gun doesn't turn to a different enemy on each scan and throw the turning work away.
+ * <p/>
+ * Each enemy is scored by its expected damage: the hit probability (view {@link VirtualGunArena}) * the bullet damage (limited by the enemy's energy),
+ * reduced by the age of its data and by the ticks which the gun would still need to turn to it after the gun is cool (view {@link #reckonScore(Enemy, double, double, double, double, int, long, long)}).
+ * <p/>
+ * The gun can turn 180 degrees in {@link #MAX_GUN_TURN_TICKS} ticks. So when the gun will be cool within {@link #COMMIT_TICKS} ticks, the best target is committed:
+ * it's kept until the bullet is fired, so the gun has enough time to be aligned exactly when the heat reaches 0.<br/>
+ * Before that, the planned target is only changed when the input changes meaningfully (view {@link #plan(long, double, double, double, double, double, double, int, Collection)}),
+ * scores are not recomputed on every scan.
+ */
+public class FireScheduler {
+    /**
+     * The number of ticks for the gun to turn 180 degrees.
+     */
+    public static final int MAX_GUN_TURN_TICKS = (int) Math.ceil(Math.PI / Rules.GUN_TURN_RATE_RADIANS);
+    /**
+     * Commit one more tick than the worst turn, because the gun turns and fires in different ticks.
+     */
+    public static final int COMMIT_TICKS = MAX_GUN_TURN_TICKS + 1;
+    /**
+     * If the target's data is older than this, the target should be changed.
+     */
+    private static final long MAX_TARGET_AGE = 8;
+    /**
+     * An enemy scanned this number of ticks ago has a half of the score of an enemy which was just scanned.
+     */
+    private static final double FRESHNESS_TICKS = 8;
+    /**
+     * The hit probability when there's not enough virtual waves: 1 if the robot's width covers the whole escape angle.
+     */
+    private static final double HALF_ROBOT_SIZE = 18;
+
+    private final VirtualGunArena virtualGunArena;
+
+    private String targetName = null;
+    private double targetScore = 0;
+    private boolean committed = false;
+    /**
+     * The time when the gun is planned to fire at the target. It's only meaningful when {@link #committed}.
+     */
+    private long plannedFireTime = -1;
+    private long plannedTime = -1;
+    private double lastGunHeat = 0;
+    private int lastEnemiesCount = 0;
+    private int countPlans = 0;
+
+    public FireScheduler(VirtualGunArena virtualGunArena) {
+        this.virtualGunArena = virtualGunArena;
+    }
+
+    /**
+     * Update the plan, nothing happens if it was already done at this time.<br/>
+     * The target is chosen again only when:
+     * <ul>
+     * <li>there's no target, or the target is dead or its data is outdated.</li>
+     * <li>the gun has just fired (a new cooling cycle starts).</li>
+     * <li>the number of enemies is changed.</li>
+     * <li>the gun will be cool soon and the target is not committed yet.</li>
+     * </ul>
+     *
+     * @param time              the current time.
+     * @param robotX            our robot's position.
+     * @param robotY
+     * @param gunHeadingRadians
+     * @param gunHeat
+     * @param gunCoolingRate    view {@link robocode.Robot#getGunCoolingRate()}
+     * @param energy            our robot's energy.
+     * @param others            the number of remaining enemies.
+     * @param enemies           alive enemies.
+     */
+    public void plan(long time, double robotX, double robotY, double gunHeadingRadians, double gunHeat, double gunCoolingRate, double energy, int others, Collection<Enemy> enemies) {
+        if (time == plannedTime) {
+            return;
+        }
+        plannedTime = time;
+        boolean fired = gunHeat > lastGunHeat;
+        lastGunHeat = gunHeat;
+        long ticksUntilCool = reckonTicksUntilCool(gunHeat, gunCoolingRate);
+
+        Enemy target = findEnemy(enemies, targetName);
+        boolean outdated = target == null || time - target.getTime() > MAX_TARGET_AGE;
+        boolean enemiesChanged = enemies.size() != lastEnemiesCount;
+        lastEnemiesCount = enemies.size();
+        if (fired || outdated || enemiesChanged) {
+            committed = false;
+            chooseTarget(time, robotX, robotY, gunHeadingRadians, energy, others, ticksUntilCool, enemies);
+        }
+        if (!committed && ticksUntilCool <= COMMIT_TICKS) {
+            chooseTarget(time, robotX, robotY, gunHeadingRadians, energy, others, ticksUntilCool, enemies);
+            if (targetName != null) {
+                committed = true;
+                target = findEnemy(enemies, targetName);
+                plannedFireTime = time + Math.max(ticksUntilCool, reckonGunTurnTicks(robotX, robotY, gunHeadingRadians, target));
+            }
+        }
+    }
+
+    private void chooseTarget(long time, double robotX, double robotY, double gunHeadingRadians, double energy, int others, long ticksUntilCool, Collection<Enemy> enemies) {
+        countPlans++;
+        targetName = null;
+        targetScore = 0;
+        for (Enemy enemy : enemies) {
+            double score = reckonScore(enemy, robotX, robotY, gunHeadingRadians, energy, others, ticksUntilCool, time);
+            if (score > targetScore) {
+                targetScore = score;
+                targetName = enemy.getName();
+            }
+        }
+    }
+
+    /**
+     * @return the expected damage of a bullet fired at the enemy, adjusted by the data's age and the gun's turning time.
+     */
+    double reckonScore(Enemy enemy, double robotX, double robotY, double gunHeadingRadians, double energy, int others, long ticksUntilCool, long time) {
+        double distance = enemy.getPosition().distance(robotX, robotY);
+        double bulletPower = BulletPowerHelper.reckonBulletPower(distance, others, energy);
+        if (bulletPower <= 0) {
+            return 0;
+        }
+        double hitProbability = reckonHitProbability(enemy.getName(), distance, bulletPower);
+        /** The damage over the enemy's energy is wasted. */
+        double damage = Math.min(Rules.getBulletDamage(bulletPower), Math.max(enemy.getEnergy(), Rules.getBulletDamage(Rules.MIN_BULLET_POWER)));
+        double age = Math.max(0, time - enemy.getTime());
+        double freshness = FRESHNESS_TICKS / (FRESHNESS_TICKS + age);
+        long lateTicks = Math.max(0, reckonGunTurnTicks(robotX, robotY, gunHeadingRadians, enemy) - ticksUntilCool);
+        return hitProbability * damage * freshness / (1 + lateTicks);
+    }
+
+    /**
+     * @return the rolling hit rate of the best virtual gun. If there's not enough data, it's the ratio of the robot's width and the escape angle.
+     */
+    private double reckonHitProbability(String enemyName, double distance, double bulletPower) {
+        if (virtualGunArena.countScoredWaves(enemyName) >= VirtualGunArena.MIN_SCORED_WAVES) {
+            GunStrategy gunStrategy = virtualGunArena.selectGunStrategy(enemyName, GunStrategy.GFT);
+            return virtualGunArena.getHitRate(enemyName, gunStrategy);
+        }
+        double robotAngle = Math.atan(HALF_ROBOT_SIZE / Math.max(HALF_ROBOT_SIZE, distance));
+        return Math.min(1, robotAngle / MaxEscapeAngleService.reckonMaxEscapeAngle(GunUtils.reckonBulletVelocity(bulletPower)));
+    }
+
+    private static long reckonGunTurnTicks(double robotX, double robotY, double gunHeadingRadians, Enemy enemy) {
+        Point2D position = enemy.getPosition();
+        double bearing = Math.atan2(position.getX() - robotX, position.getY() - robotY);
+        return (long) Math.ceil(Math.abs(Utils.normalRelativeAngle(bearing - gunHeadingRadians)) / Rules.GUN_TURN_RATE_RADIANS);
+    }
+
+    private static long reckonTicksUntilCool(double gunHeat, double gunCoolingRate) {
+        if (gunHeat <= 0) {
+            return 0;
+        }
+        return (long) Math.ceil(gunHeat / gunCoolingRate);
+    }
+
+    private static Enemy findEnemy(Collection<Enemy> enemies, String enemyName) {
+        if (enemyName == null) {
+            return null;
+        }
+        for (Enemy enemy : enemies) {
+            if (enemyName.equals(enemy.getName())) {
+                return enemy;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * @return true if the gun should aim at the enemy: it's the target, or there's no target.
+     */
+    public boolean isTarget(String enemyName) {
+        return targetName == null || targetName.equals(enemyName);
+    }
+
+    /**
+     * @return null if there's no target.
+     */
+    public String getTargetName() {
+        return targetName;
+    }
+
+    public double getTargetScore() {
+        return targetScore;
+    }
+
+    public boolean isCommitted() {
+        return committed;
+    }
+
+    /**
+     * @return the time when the gun is planned to fire at the committed target, -1 if it was never committed.
+     */
+    public long getPlannedFireTime() {
+        return plannedFireTime;
+    }
+
+    /**
+     * @return the number of times targets were chosen, it's only used to check how often the plan is changed.
+     */
+    public int countPlans() {
+        return countPlans;
+    }
+}
@@ -1,5 +1,8 @@
 package org.tnmk.robocode.common.gun;
 
+import org.tnmk.robocode.common.model.enemy.EnemyRegistry;
+import robocode.Bullet;
+
 /**
  * This context can help different GunStrategies knows that the gun is aiming by some strategy.<br/>
  * So they shouldn't override aiming direction which set by other gun strategies.<br/>
@@ -18,17 +21,43 @@ public class GunStateContext {
      */
     private boolean isAiming;
     private String aimingEnemyName;
+    /**
+     * The dense id of {@link #aimingEnemyName} (view {@link EnemyRegistry}), so that per-tick loops don't need to look it up by name.
+     */
+    private int aimingEnemyId = EnemyRegistry.NO_ID;
+    /**
+     * All real bullets which were fired by strategies sharing this context.
+     */
+    private final BulletLedger bulletLedger = new BulletLedger();
 
     /**
      * This method should be trigger when the robot starts to aim (but not fire the bullet yet)
      * @param gunStrategy
      * @param bulletPower
      */
-    public void saveSateAimGun(GunStrategy gunStrategy, double bulletPower, String aimingEnemyName) {
+    public void saveSateAimGun(GunStrategy gunStrategy, double bulletPower, String aimingEnemyName, int aimingEnemyId) {
         this.gunStrategy = gunStrategy;
         this.bulletPower = bulletPower;
         this.isAiming = true;
         this.aimingEnemyName = aimingEnemyName;
+        this.aimingEnemyId = aimingEnemyId;
+    }
+
+    /**
+     * Same as {@link #saveSateAimGun(GunStrategy, double, String, int)} for strategies which don't know the enemy's id.
+     */
+    public void saveSateAimGun(GunStrategy gunStrategy, double bulletPower, String aimingEnemyName) {
+        saveSateAimGun(gunStrategy, bulletPower, aimingEnemyName, EnemyRegistry.NO_ID);
+    }
+
+    /**
+     * This method should be trigger right after firing a bullet, before {@link #saveStateFinishedAiming()}, so that the bullet is recorded with the aiming strategy and enemy.
+     *
+     * @param bullet   the result of {@link robocode.AdvancedRobot#setFireBullet(double)}, it's null if the gun couldn't fire.
+     * @param fireTime
+     */
+    public void saveStateFiredBullet(Bullet bullet, long fireTime) {
+        bulletLedger.recordFiredBullet(bullet, gunStrategy, aimingEnemyName, aimingEnemyId, fireTime);
     }
 
     /**
@@ -37,6 +66,7 @@ public class GunStateContext {
     public void saveStateFinishedAiming() {
         this.isAiming = false;
         this.aimingEnemyName = null;
+        this.aimingEnemyId = EnemyRegistry.NO_ID;
         /* After finish aiming, we don't reset the gunStrategy because the robot may still use the same strategy */
     }
 
@@ -56,4 +86,15 @@ public class GunStateContext {
     public String getAimingEnemyName() {
         return aimingEnemyName;
     }
+
+    /**
+     * @return {@link EnemyRegistry#NO_ID} if it's not aiming or the aiming strategy doesn't know the enemy's id.
+     */
+    public int getAimingEnemyId() {
+        return aimingEnemyId;
+    }
+
+    public BulletLedger getBulletLedger() {
+        return bulletLedger;
+    }
 }
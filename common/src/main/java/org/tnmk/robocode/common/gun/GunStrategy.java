@@ -1,5 +1,5 @@
 package org.tnmk.robocode.common.gun;
 
 public enum GunStrategy {
-    GFT, BLACK_PEARL, PATTERN_PREDICTION, FINISH_OFF
+    GFT, BLACK_PEARL, PATTERN_PREDICTION, FINISH_OFF, KNN
 }
@@ -18,6 +18,15 @@ public class GunUtils {
         return 20 - (3 * bulletPower);
     }
 
+    /**
+     * @param sourcePosition
+     * @param targetPosition
+     * @return the absolute bearing (radian, not normalized) from the sourcePosition to the targetPosition, 0 is the north (the same as robocode headings).
+     */
+    public static double reckonAbsoluteBearingRadian(Point2D sourcePosition, Point2D targetPosition) {
+        return Math.atan2(targetPosition.getX() - sourcePosition.getX(), targetPosition.getY() - sourcePosition.getY());
+    }
+
     /**
      * Reckon the angle to turn to gun to the enemyPosition
      * @param robotPosition the current position of our robot
@@ -53,7 +62,7 @@ public class GunUtils {
                 if (DoubleUtils.isConsideredZero(robot.getGunHeat())) {
                     String firingEnemyName = gunStateContext.getAimingEnemyName();
                     robot.setBulletColor(bulletColor);
-                    robot.setFire(gunStateContext.getBulletPower());
+                    gunStateContext.saveStateFiredBullet(robot.setFireBullet(gunStateContext.getBulletPower()), robot.getTime());
                     gunStateContext.saveStateFinishedAiming();
                     return Optional.of(firingEnemyName);
 //                LogHelper.logRobotMovement(robot, "Fire!!! " + gunStateContext.getBulletPower());
@@ -0,0 +1,33 @@
+package org.tnmk.robocode.common.gun;
+
+import java.awt.geom.Point2D;
+
+/**
+ * The result of {@link InterceptSolver}.
+ */
+public class InterceptSolution {
+    /**
+     * The time when the bullet reaches the enemy (it could be a fraction of tick).
+     */
+    private final double interceptTime;
+    private final Point2D interceptPosition;
+    private final int iterations;
+
+    public InterceptSolution(double interceptTime, Point2D interceptPosition, int iterations) {
+        this.interceptTime = interceptTime;
+        this.interceptPosition = interceptPosition;
+        this.iterations = iterations;
+    }
+
+    public double getInterceptTime() {
+        return interceptTime;
+    }
+
+    public Point2D getInterceptPosition() {
+        return interceptPosition;
+    }
+
+    public int getIterations() {
+        return iterations;
+    }
+}
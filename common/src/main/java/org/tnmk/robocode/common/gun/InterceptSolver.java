@@ -0,0 +1,108 @@
+package org.tnmk.robocode.common.gun;
+
+import java.awt.geom.Point2D;
+
+/**
+ * Find the time when a bullet reaches an enemy which moves on an {@link EnemyTrajectory}.
+ * <p/>
+ * With the bullet flight time T (ticks after firing), the error function is:<br/>
+ * <code>f(T) = distance(firePosition, enemyPosition(fireTime + T)) - bulletVelocity * T</code><br/>
+ * The solver starts with 2 fixed-point steps (T = distance / bulletVelocity), then uses the secant method until the flight time changes less than the tolerance.<br/>
+ * Because an enemy is always slower than a bullet, the fixed-point step always converges, so it's used as the fallback when a secant step is not usable.
+ * <p/>
+ * The number of iterations is kept as metrics: {@link #getLastIterations()}, {@link #getTotalIterations()}.
+ */
+public class InterceptSolver {
+    public static final double DEFAULT_TOLERANCE_TICKS = 0.01;
+    public static final int DEFAULT_MAX_ITERATIONS = 20;
+
+    private final double toleranceTicks;
+    private final int maxIterations;
+
+    private int lastIterations = 0;
+    private long totalIterations = 0;
+    private long totalSolves = 0;
+
+    public InterceptSolver() {
+        this(DEFAULT_TOLERANCE_TICKS, DEFAULT_MAX_ITERATIONS);
+    }
+
+    public InterceptSolver(double toleranceTicks, int maxIterations) {
+        if (toleranceTicks <= 0 || maxIterations <= 0) {
+            throw new IllegalArgumentException("toleranceTicks and maxIterations must be greater than 0: " + toleranceTicks + ", " + maxIterations);
+        }
+        this.toleranceTicks = toleranceTicks;
+        this.maxIterations = maxIterations;
+    }
+
+    /**
+     * @param trajectory     the trajectory of the enemy.
+     * @param firePosition   the position of our robot when firing the bullet.
+     * @param fireTime       the time when firing the bullet.
+     * @param bulletVelocity view {@link GunUtils#reckonBulletVelocity(double)}
+     * @return the time and the position where the bullet reaches the enemy.
+     */
+    public InterceptSolution solve(EnemyTrajectory trajectory, Point2D firePosition, double fireTime, double bulletVelocity) {
+        int iterations = 1;
+        double previousFlightTime = firePosition.distance(trajectory.reckonPosition(fireTime)) / bulletVelocity;
+        double solvedFlightTime = previousFlightTime;
+        Point2D interceptPosition = trajectory.reckonPosition(fireTime + solvedFlightTime);
+        if (!trajectory.isStayStill()) {
+            double previousError = firePosition.distance(interceptPosition) - bulletVelocity * previousFlightTime;
+            double flightTime = previousFlightTime + previousError / bulletVelocity;
+            while (iterations < maxIterations) {
+                iterations++;
+                interceptPosition = trajectory.reckonPosition(fireTime + flightTime);
+                solvedFlightTime = flightTime;
+                double error = firePosition.distance(interceptPosition) - bulletVelocity * flightTime;
+                if (Math.abs(flightTime - previousFlightTime) < toleranceTicks) {
+                    break;
+                }
+                double nextFlightTime = nextFlightTime(previousFlightTime, previousError, flightTime, error, bulletVelocity);
+                previousFlightTime = flightTime;
+                previousError = error;
+                flightTime = nextFlightTime;
+            }
+        }
+        lastIterations = iterations;
+        totalIterations += iterations;
+        totalSolves++;
+        return new InterceptSolution(fireTime + solvedFlightTime, interceptPosition, iterations);
+    }
+
+    /**
+     * @return the next flight time by the secant method. If it's not usable, use the fixed-point step instead.
+     */
+    private static double nextFlightTime(double previousFlightTime, double previousError, double flightTime, double error, double bulletVelocity) {
+        double deltaError = error - previousError;
+        if (Math.abs(deltaError) > 1e-9) {
+            double secantFlightTime = flightTime - error * (flightTime - previousFlightTime) / deltaError;
+            if (secantFlightTime >= 0) {
+                return secantFlightTime;
+            }
+        }
+        return flightTime + error / bulletVelocity;
+    }
+
+    /**
+     * @return the number of iterations (trajectory evaluations after the first one) of the latest {@link #solve(EnemyTrajectory, Point2D, double, double)}.
+     */
+    public int getLastIterations() {
+        return lastIterations;
+    }
+
+    public long getTotalIterations() {
+        return totalIterations;
+    }
+
+    public long getTotalSolves() {
+        return totalSolves;
+    }
+
+    /**
+     * @return the average iterations per solve, 0 if nothing was solved yet.
+     */
+    public double getAverageIterations() {
+        return totalSolves == 0 ? 0 : (double) totalIterations / totalSolves;
+    }
+}
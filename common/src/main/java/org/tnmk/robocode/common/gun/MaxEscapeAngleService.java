@@ -0,0 +1,219 @@
+package org.tnmk.robocode.common.gun;
+
+import java.util.Arrays;
+import org.tnmk.robocode.common.helper.prediction.MotionState;
+import org.tnmk.robocode.common.helper.prediction.PhysicsKernel;
+import robocode.Rules;
+import robocode.util.Utils;
+
+/**
+ * The precise maximum escape angle (MEA), view http://robowiki.net/wiki/Maximum_Escape_Angle
+ * <p/>
+ * The classic MEA asin(8 / bulletVelocity) assumes the enemy could move anywhere, so near walls a big part of the guess factor range is never visited.<br/>
+ * This service simulates the enemy orbiting our gun at full speed in both directions (view {@link PhysicsKernel}, the same physics as {@link org.tnmk.robocode.common.helper.prediction.RobotPredictionHelper})
+ * until the wave reaches it. The robot stops when hitting walls, so the result is clipped by the battle field.
+ * <p/>
+ * The simulation costs tens of ticks, so the results are memoized in a fixed-size cache.
+ * The inputs are quantized into a key: the enemy's position cell, the distance, the bearing and the bullet power
+ * (the bearing is needed too because the same position and distance from another side have different walls).
+ * The result of a key is always simulated from the center values of its buckets, so the result doesn't depend on which input was cached first.<br/>
+ * The buckets are coarse (a position cell is about the size of a robot) so that an enemy which moves around the same area keeps hitting the cache,
+ * the hit rate is available in {@link #getHitRate()}.<br/>
+ * When two keys are mapped into the same cache item, the newer one replaces the older one.
+ */
+public class MaxEscapeAngleService {
+    public static final int DEFAULT_CACHE_CAPACITY = 4096;
+    private static final double POSITION_CELL_SIZE = 40;
+    private static final double DISTANCE_BUCKET_SIZE = 25;
+    private static final int BEARING_BUCKETS = 64;
+    private static final double BULLET_POWER_BUCKET_SIZE = 0.25;
+    /**
+     * Stop the simulation after this number of ticks even if the wave doesn't reach the enemy (e.g. a very far enemy).
+     */
+    private static final int MAX_SIMULATION_TICKS = 150;
+    /**
+     * The same break distance as {@link org.tnmk.robocode.common.gun.wave.WaveTracker}.
+     */
+    private static final double BREAK_DISTANCE_OFFSET = 18;
+    private static final long NO_KEY = -1;
+
+    private double battleFieldWidth = Double.NaN;
+    private double battleFieldHeight = Double.NaN;
+
+    private final int cacheMask;
+    private final long[] cacheKeys;
+    /**
+     * Index: cacheIndex * 2 for the clockwise MEA, cacheIndex * 2 + 1 for the counter-clockwise MEA.
+     */
+    private final double[] cachedAngles;
+    private final MotionState motionState = new MotionState();
+
+    private long requests = 0;
+    private long hits = 0;
+
+    /**
+     * The battle field's size is not available before the robot runs, so it must be set later, view {@link #setBattleFieldSize(double, double)}.
+     */
+    public MaxEscapeAngleService() {
+        this.cacheMask = DEFAULT_CACHE_CAPACITY - 1;
+        this.cacheKeys = new long[DEFAULT_CACHE_CAPACITY];
+        this.cachedAngles = new double[DEFAULT_CACHE_CAPACITY * 2];
+        clear();
+    }
+
+    public MaxEscapeAngleService(double battleFieldWidth, double battleFieldHeight) {
+        this(battleFieldWidth, battleFieldHeight, DEFAULT_CACHE_CAPACITY);
+    }
+
+    /**
+     * @param cacheCapacity must be a power of 2.
+     */
+    public MaxEscapeAngleService(double battleFieldWidth, double battleFieldHeight, int cacheCapacity) {
+        if (cacheCapacity <= 0 || Integer.bitCount(cacheCapacity) != 1) {
+            throw new IllegalArgumentException("cacheCapacity must be a power of 2: " + cacheCapacity);
+        }
+        this.cacheMask = cacheCapacity - 1;
+        this.cacheKeys = new long[cacheCapacity];
+        this.cachedAngles = new double[cacheCapacity * 2];
+        setBattleFieldSize(battleFieldWidth, battleFieldHeight);
+    }
+
+    /**
+     * The cached results are removed if the size is changed.
+     */
+    public void setBattleFieldSize(double battleFieldWidth, double battleFieldHeight) {
+        if (battleFieldWidth <= 0 || battleFieldHeight <= 0) {
+            throw new IllegalArgumentException("Width and height must be greater than 0: " + battleFieldWidth + ", " + battleFieldHeight);
+        }
+        if (battleFieldWidth != this.battleFieldWidth || battleFieldHeight != this.battleFieldHeight) {
+            this.battleFieldWidth = battleFieldWidth;
+            this.battleFieldHeight = battleFieldHeight;
+            clear();
+        }
+    }
+
+    /**
+     * @return the classic MEA without walls.
+     */
+    public static double reckonMaxEscapeAngle(double bulletVelocity) {
+        return Math.asin(Rules.MAX_VELOCITY / bulletVelocity);
+    }
+
+    /**
+     * @param sourceX     the position of our gun.
+     * @param sourceY
+     * @param targetX     the position of the enemy.
+     * @param targetY
+     * @param bulletPower
+     * @param result      result[0] is the MEA (radian, not negative) when the enemy moves clockwise (lateral direction 1),
+     *                    result[1] is the MEA when it moves counter-clockwise (lateral direction -1).
+     */
+    public void reckonMaxEscapeAngles(double sourceX, double sourceY, double targetX, double targetY, double bulletPower, double[] result) {
+        if (Double.isNaN(battleFieldWidth)) {
+            throw new IllegalStateException("The battle field size must be set before reckoning escape angles");
+        }
+        requests++;
+        int column = toBucket(targetX, POSITION_CELL_SIZE, battleFieldWidth);
+        int row = toBucket(targetY, POSITION_CELL_SIZE, battleFieldHeight);
+        double deltaX = targetX - sourceX;
+        double deltaY = targetY - sourceY;
+        int distanceBucket = (int) (Math.sqrt(deltaX * deltaX + deltaY * deltaY) / DISTANCE_BUCKET_SIZE);
+        int bearingBucket = (int) Math.round(Utils.normalAbsoluteAngle(Math.atan2(deltaX, deltaY)) / (2 * Math.PI) * BEARING_BUCKETS) % BEARING_BUCKETS;
+        int bulletPowerBucket = (int) Math.round(Math.max(Rules.MIN_BULLET_POWER, Math.min(Rules.MAX_BULLET_POWER, bulletPower)) / BULLET_POWER_BUCKET_SIZE);
+
+        /** 12 bits for each position bucket, 16 bits for the distance bucket, 8 bits for the bearing bucket and the bullet power bucket. */
+        long key = ((long) column << 44) | ((long) row << 32) | ((long) distanceBucket << 16) | ((long) bearingBucket << 8) | bulletPowerBucket;
+        int cacheIndex = (int) (mix(key) & cacheMask);
+        if (cacheKeys[cacheIndex] != key) {
+            /** A robot's center is never closer to walls than a half of its size. */
+            double bucketTargetX = clamp((column + 0.5) * POSITION_CELL_SIZE, PhysicsKernel.HALF_ROBOT_SIZE, battleFieldWidth - PhysicsKernel.HALF_ROBOT_SIZE);
+            double bucketTargetY = clamp((row + 0.5) * POSITION_CELL_SIZE, PhysicsKernel.HALF_ROBOT_SIZE, battleFieldHeight - PhysicsKernel.HALF_ROBOT_SIZE);
+            double bucketDistance = (distanceBucket + 0.5) * DISTANCE_BUCKET_SIZE;
+            double bucketBearing = bearingBucket * 2 * Math.PI / BEARING_BUCKETS;
+            double bucketSourceX = bucketTargetX - Math.sin(bucketBearing) * bucketDistance;
+            double bucketSourceY = bucketTargetY - Math.cos(bucketBearing) * bucketDistance;
+            double bulletVelocity = GunUtils.reckonBulletVelocity(bulletPowerBucket * BULLET_POWER_BUCKET_SIZE);
+            cacheKeys[cacheIndex] = key;
+            cachedAngles[cacheIndex * 2] = simulateEscapeAngle(bucketSourceX, bucketSourceY, bucketTargetX, bucketTargetY, bulletVelocity, 1);
+            cachedAngles[cacheIndex * 2 + 1] = simulateEscapeAngle(bucketSourceX, bucketSourceY, bucketTargetX, bucketTargetY, bulletVelocity, -1);
+        } else {
+            hits++;
+        }
+        result[0] = cachedAngles[cacheIndex * 2];
+        result[1] = cachedAngles[cacheIndex * 2 + 1];
+    }
+
+    /**
+     * Simulate the enemy orbiting the source at full speed until the wave reaches it.
+     *
+     * @param orbitDirection 1: clockwise, -1: counter-clockwise.
+     * @return the biggest bearing offset (radian, not negative) in the orbit direction.
+     */
+    double simulateEscapeAngle(double sourceX, double sourceY, double targetX, double targetY, double bulletVelocity, int orbitDirection) {
+        double initialBearing = Math.atan2(targetX - sourceX, targetY - sourceY);
+        motionState.set(targetX, targetY, Utils.normalAbsoluteAngle(initialBearing + orbitDirection * Math.PI / 2), Rules.MAX_VELOCITY, Double.POSITIVE_INFINITY, 0, 0);
+        motionState.setMaxVelocity(Rules.MAX_VELOCITY);
+        motionState.setMaxTurnRateRadian(Rules.MAX_TURN_RATE_RADIANS);
+        motionState.setOverDriving(false);
+        double maxEscapeAngle = 0;
+        double waveDistance = 0;
+        for (int tick = 0; tick < MAX_SIMULATION_TICKS; tick++) {
+            double deltaX = motionState.getX() - sourceX;
+            double deltaY = motionState.getY() - sourceY;
+            double bearing = Math.atan2(deltaX, deltaY);
+            motionState.setTurnRemainingRadian(Utils.normalRelativeAngle(bearing + orbitDirection * Math.PI / 2 - motionState.getHeadingRadian()));
+            PhysicsKernel.step(motionState, battleFieldWidth, battleFieldHeight);
+            waveDistance += bulletVelocity;
+
+            deltaX = motionState.getX() - sourceX;
+            deltaY = motionState.getY() - sourceY;
+            double escapeAngle = orbitDirection * Utils.normalRelativeAngle(Math.atan2(deltaX, deltaY) - initialBearing);
+            maxEscapeAngle = Math.max(maxEscapeAngle, escapeAngle);
+            if (waveDistance > Math.sqrt(deltaX * deltaX + deltaY * deltaY) - BREAK_DISTANCE_OFFSET) {
+                break;
+            }
+        }
+        return maxEscapeAngle;
+    }
+
+    /**
+     * Spread the bits of the key so that neighbour keys are not mapped into neighbour cache items only.
+     */
+    private static long mix(long key) {
+        key ^= key >>> 33;
+        key *= 0xff51afd7ed558ccdL;
+        key ^= key >>> 33;
+        return key;
+    }
+
+    private static double clamp(double value, double min, double max) {
+        return Math.max(min, Math.min(max, value));
+    }
+
+    private static int toBucket(double value, double bucketSize, double max) {
+        int maxBucket = Math.max(0, (int) Math.ceil(max / bucketSize) - 1);
+        return Math.max(0, Math.min(maxBucket, (int) (value / bucketSize)));
+    }
+
+    /**
+     * Remove all cached results.
+     */
+    public void clear() {
+        Arrays.fill(cacheKeys, NO_KEY);
+    }
+
+    public long getRequests() {
+        return requests;
+    }
+
+    public long getHits() {
+        return hits;
+    }
+
+    /**
+     * @return the ratio of requests which were served from the cache, 0 if there's no request yet.
+     */
+    public double getHitRate() {
+        return requests == 0 ? 0 : (double) hits / requests;
+    }
+}
@@ -7,12 +7,14 @@ package org.tnmk.robocode.common.gun.blackpearl;
 import java.awt.Color;
 import java.awt.geom.Point2D;
 import java.awt.geom.Rectangle2D;
+import java.io.BufferedInputStream;
+import java.io.File;
 import java.io.FileInputStream;
 import java.io.IOException;
-import java.io.ObjectInputStream;
-import java.io.ObjectOutputStream;
-import java.util.zip.GZIPInputStream;
-import java.util.zip.GZIPOutputStream;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.HashMap;
+import java.util.Map;
 import org.tnmk.robocode.common.gun.GunStateContext;
 import org.tnmk.robocode.common.gun.GunStrategy;
 import org.tnmk.robocode.common.robot.InitiableRun;
@@ -35,7 +37,17 @@ public class BlackPearlGun implements InitiableRun, OnScannedRobotControl, OnHit
 	private static final double	WALL_CURVE_DISTANCE	= 180D;					//pixels
 	private static final int	CLOSE_IN		= -1;
 	private static final int	BACK_OFF		= 1;
+	private static final int[]	STAT_BUFFER_DIMENSIONS	= {5, 5, 5, 5, 5, (int) GUESS_FACTORS};
+	/**
+	 * The size budget of each target's data file, view {@link StatBufferCodec#encode(int[][][][][][], int)}.
+	 */
+	private static final int	MAX_DATA_FILE_BYTES	= 16 * 1024;
+	private static final String	DATA_FILE_EXTENSION	= ".gf";
 	private static Rectangle2D.Double field;
+	/**
+	 * The stat buffers of all targets, each one is loaded from its data file when scanning that target the first time.
+	 */
+	private static final Map<String, int[][][][][][]> statBuffers = new HashMap<>();
 	private static int statBuffer[][][][][][];
 	private static String targetName;
 	private static int hits;
@@ -113,8 +125,10 @@ public class BlackPearlGun implements InitiableRun, OnScannedRobotControl, OnHit
 
 		//Gun
 		//Initialize the statbuffer
+		statBuffer = statBuffers.get(targetName);
 		if (statBuffer == null) {
-			statBuffer = (int[][][][][][]) readObject(targetName);
+			statBuffer = readStatBuffer(targetName);
+			statBuffers.put(targetName, statBuffer);
 		}
 
 		//Retrieve the current stat segment to use
@@ -135,7 +149,7 @@ public class BlackPearlGun implements InitiableRun, OnScannedRobotControl, OnHit
 
 		if (firePower > 0) {
 			robot.setBulletColor(BULLET_COLOR);
-            robot.setFire(firePower);
+            gunStateContext.saveStateFiredBullet(robot.setFireBullet(firePower), robot.getTime());
 			gunStateContext.saveStateFinishedAiming();
 			Wave w = new Wave();
 			w.guessFactors = stats;
@@ -163,13 +177,22 @@ public class BlackPearlGun implements InitiableRun, OnScannedRobotControl, OnHit
 	// Save the data if I win the round
 	@Override
 	public void onWin(WinEvent winEvent) {
-		try {
-			ObjectOutputStream  oos = new ObjectOutputStream(new GZIPOutputStream(new RobocodeFileOutputStream(robot.getDataFile(targetName))));
-			oos.writeObject(statBuffer);
-			oos.close();
-		} catch (IOException ex) {
-			//Should do something here but alas it is too big
-			//e.printStackTrace();
+		for (Map.Entry<String, int[][][][][][]> entry : statBuffers.entrySet()) {
+			File dataFile = robot.getDataFile(entry.getKey() + DATA_FILE_EXTENSION);
+			/** The old content of the file is replaced, so its size is available again. */
+			int maxBytes = (int) Math.min(MAX_DATA_FILE_BYTES, robot.getDataQuotaAvailable() + dataFile.length());
+			byte[] bytes;
+			try {
+				bytes = StatBufferCodec.encode(entry.getValue(), maxBytes);
+			} catch (IllegalArgumentException ex) {
+				//Not enough quota, keep the old file instead of truncating it.
+				continue;
+			}
+			try (OutputStream outputStream = new RobocodeFileOutputStream(dataFile)) {
+				outputStream.write(bytes);
+			} catch (IOException ex) {
+				//The data of this round is lost, but it doesn't break the battle.
+			}
 		}
 	}
 
@@ -180,19 +203,17 @@ public class BlackPearlGun implements InitiableRun, OnScannedRobotControl, OnHit
 		return (guessIndex - MIDDLE_FACTOR) / MIDDLE_FACTOR * Math.asin(8.0 / bulletV(firePower)) * eDirection;
 	}
 
-	// Method to read data from disc. Taken from SandboxMini
-	Object readObject(String fileName) {
-		try {
-			ObjectInputStream ois = new ObjectInputStream(new GZIPInputStream(new FileInputStream(robot.getDataFile(fileName))));
-			Object o = ois.readObject();
-			ois.close();
-			return o;
-		} catch (Exception e) {
-			//int stats[] = statBuffer[getOutIndex()][lastLatVelIndex][latVelIndex][Math.min(4, ++ticksSinceReverse/5)][distanceIndex];
-			return new int[5][5][5][5][5][(int)GUESS_FACTORS];
-			//Should do something here but alas it is too big
-			//e.printStackTrace();
+	// Method to read data from disc, view StatBufferCodec for the format.
+	int[][][][][][] readStatBuffer(String targetName) {
+		File dataFile = robot.getDataFile(targetName + DATA_FILE_EXTENSION);
+		if (dataFile.length() > 0) {
+			try (InputStream inputStream = new BufferedInputStream(new FileInputStream(dataFile))) {
+				return StatBufferCodec.read(inputStream, STAT_BUFFER_DIMENSIONS);
+			} catch (IOException e) {
+				//The file is broken or has an old format, just start with empty data.
+			}
 		}
+		return new int[5][5][5][5][5][(int)GUESS_FACTORS];
 	}
 
 	//Retrieve the bullets velocity
@@ -0,0 +1,213 @@
+package org.tnmk.robocode.common.gun.blackpearl;
+
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * The binary format of {@link BlackPearlGun}'s stat buffer (<code>int[][][][][][]</code>).
+ * <p/>
+ * Format:<br/>
+ * <code>version (1 byte), number of dimensions (1 byte), each dimension length (varint), number of non-zero cells (varint),
+ * then for each non-zero cell: the number of zero cells skipped before it (varint), its count (varint)</code><br/>
+ * Varints are unsigned LEB128: 7 bits per byte, the highest bit means more bytes follow.
+ * <p/>
+ * Most cells of the stat buffer are zero, so the result is much smaller than Java serialization (no zip is needed) and it's fast to write and read.
+ */
+public class StatBufferCodec {
+	public static final int VERSION = 1;
+	private static final int DIMENSIONS = 6;
+
+	/**
+	 * If the data is larger than maxBytes, all counts of a copy of the statBuffer are halved until it fits, the statBuffer itself is never changed.<br/>
+	 * Halving keeps the ratios between guess factors, it only forgets a little old data.<br/>
+	 * So the caller can check the budget before opening (and truncating) the file.
+	 *
+	 * @param statBuffer
+	 * @param maxBytes   the size budget of the data.
+	 * @return the encoded data, its length is not greater than maxBytes.
+	 * @throws IllegalArgumentException if the budget is too small even for an empty stat buffer.
+	 */
+	public static byte[] encode(int[][][][][][] statBuffer, int maxBytes) {
+		byte[] bytes = encode(statBuffer);
+		int[][][][][][] halvedStatBuffer = null;
+		while (bytes.length > maxBytes) {
+			if (halvedStatBuffer == null) {
+				halvedStatBuffer = copy(statBuffer);
+			}
+			if (!halveCounts(halvedStatBuffer)) {
+				throw new IllegalArgumentException("The size budget " + maxBytes + " is too small even for an empty stat buffer (" + bytes.length + " bytes)");
+			}
+			bytes = encode(halvedStatBuffer);
+		}
+		return bytes;
+	}
+
+	/**
+	 * @param inputStream
+	 * @param expectedDimensions the expected length of each dimension, the data of another version or other dimensions is rejected.
+	 * @return the stat buffer
+	 * @throws IOException if the data is broken or it's not the expected version and dimensions.
+	 */
+	public static int[][][][][][] read(InputStream inputStream, int... expectedDimensions) throws IOException {
+		int version = readByte(inputStream);
+		if (version != VERSION) {
+			throw new IOException("Unsupported version " + version);
+		}
+		int dimensionsCount = readByte(inputStream);
+		if (dimensionsCount != DIMENSIONS || expectedDimensions.length != DIMENSIONS) {
+			throw new IOException("Unsupported number of dimensions " + dimensionsCount);
+		}
+		for (int i = 0; i < DIMENSIONS; i++) {
+			int dimension = readVarint(inputStream);
+			if (dimension != expectedDimensions[i]) {
+				throw new IOException("Dimension " + i + " is " + dimension + ", expected " + expectedDimensions[i]);
+			}
+		}
+		int[][][][][][] statBuffer = new int[expectedDimensions[0]][expectedDimensions[1]][expectedDimensions[2]][expectedDimensions[3]][expectedDimensions[4]][expectedDimensions[5]];
+		int rowLength = expectedDimensions[5];
+		int rowsCount = expectedDimensions[0] * expectedDimensions[1] * expectedDimensions[2] * expectedDimensions[3] * expectedDimensions[4];
+		long cellsCount = (long) rowsCount * rowLength;
+
+		int nonZeroCells = readVarint(inputStream);
+		long cellIndex = -1;
+		for (int i = 0; i < nonZeroCells; i++) {
+			cellIndex += readVarint(inputStream) + 1;
+			if (cellIndex >= cellsCount) {
+				throw new IOException("Cell index " + cellIndex + " is outside the stat buffer");
+			}
+			int rowIndex = (int) (cellIndex / rowLength);
+			getRow(statBuffer, expectedDimensions, rowIndex)[(int) (cellIndex % rowLength)] = readVarint(inputStream);
+		}
+		return statBuffer;
+	}
+
+	static byte[] encode(int[][][][][][] statBuffer) {
+		int[] dimensions = getDimensions(statBuffer);
+		ByteArrayOutputStream cellsStream = new ByteArrayOutputStream();
+		int nonZeroCells = 0;
+		int skippedZeroCells = 0;
+		for (int[][][][][] a : statBuffer) {
+			for (int[][][][] b : a) {
+				for (int[][][] c : b) {
+					for (int[][] d : c) {
+						for (int[] row : d) {
+							for (int count : row) {
+								if (count == 0) {
+									skippedZeroCells++;
+								} else {
+									writeVarint(cellsStream, skippedZeroCells);
+									writeVarint(cellsStream, count);
+									skippedZeroCells = 0;
+									nonZeroCells++;
+								}
+							}
+						}
+					}
+				}
+			}
+		}
+		ByteArrayOutputStream outputStream = new ByteArrayOutputStream(cellsStream.size() + 16);
+		outputStream.write(VERSION);
+		outputStream.write(DIMENSIONS);
+		for (int dimension : dimensions) {
+			writeVarint(outputStream, dimension);
+		}
+		writeVarint(outputStream, nonZeroCells);
+		byte[] cells = cellsStream.toByteArray();
+		outputStream.write(cells, 0, cells.length);
+		return outputStream.toByteArray();
+	}
+
+	/**
+	 * @return true if there was any non-zero count.
+	 */
+	static boolean halveCounts(int[][][][][][] statBuffer) {
+		boolean hasNonZero = false;
+		for (int[][][][][] a : statBuffer) {
+			for (int[][][][] b : a) {
+				for (int[][][] c : b) {
+					for (int[][] d : c) {
+						for (int[] row : d) {
+							for (int i = 0; i < row.length; i++) {
+								if (row[i] != 0) {
+									hasNonZero = true;
+									row[i] >>= 1;
+								}
+							}
+						}
+					}
+				}
+			}
+		}
+		return hasNonZero;
+	}
+
+	private static int[][][][][][] copy(int[][][][][][] statBuffer) {
+		int[][][][][][] result = new int[statBuffer.length][][][][][];
+		for (int i0 = 0; i0 < statBuffer.length; i0++) {
+			result[i0] = new int[statBuffer[i0].length][][][][];
+			for (int i1 = 0; i1 < statBuffer[i0].length; i1++) {
+				result[i0][i1] = new int[statBuffer[i0][i1].length][][][];
+				for (int i2 = 0; i2 < statBuffer[i0][i1].length; i2++) {
+					result[i0][i1][i2] = new int[statBuffer[i0][i1][i2].length][][];
+					for (int i3 = 0; i3 < statBuffer[i0][i1][i2].length; i3++) {
+						result[i0][i1][i2][i3] = new int[statBuffer[i0][i1][i2][i3].length][];
+						for (int i4 = 0; i4 < statBuffer[i0][i1][i2][i3].length; i4++) {
+							result[i0][i1][i2][i3][i4] = statBuffer[i0][i1][i2][i3][i4].clone();
+						}
+					}
+				}
+			}
+		}
+		return result;
+	}
+
+	private static int[] getDimensions(int[][][][][][] statBuffer) {
+		return new int[]{statBuffer.length, statBuffer[0].length, statBuffer[0][0].length, statBuffer[0][0][0].length, statBuffer[0][0][0][0].length, statBuffer[0][0][0][0][0].length};
+	}
+
+	private static int[] getRow(int[][][][][][] statBuffer, int[] dimensions, int rowIndex) {
+		int i4 = rowIndex % dimensions[4];
+		rowIndex /= dimensions[4];
+		int i3 = rowIndex % dimensions[3];
+		rowIndex /= dimensions[3];
+		int i2 = rowIndex % dimensions[2];
+		rowIndex /= dimensions[2];
+		int i1 = rowIndex % dimensions[1];
+		int i0 = rowIndex / dimensions[1];
+		return statBuffer[i0][i1][i2][i3][i4];
+	}
+
+	private static void writeVarint(ByteArrayOutputStream outputStream, int value) {
+		if (value < 0) {
+			throw new IllegalArgumentException("Negative value cannot be written: " + value);
+		}
+		while ((value & ~0x7F) != 0) {
+			outputStream.write((value & 0x7F) | 0x80);
+			value >>>= 7;
+		}
+		outputStream.write(value);
+	}
+
+	private static int readVarint(InputStream inputStream) throws IOException {
+		int value = 0;
+		for (int shift = 0; shift < 32; shift += 7) {
+			int b = readByte(inputStream);
+			value |= (b & 0x7F) << shift;
+			if ((b & 0x80) == 0) {
+				return value;
+			}
+		}
+		throw new IOException("Varint is too long");
+	}
+
+	private static int readByte(InputStream inputStream) throws IOException {
+		int b = inputStream.read();
+		if (b < 0) {
+			throw new EOFException();
+		}
+		return b;
+	}
+}
@@ -2,8 +2,7 @@ package org.tnmk.robocode.common.gun.finishoff;
 
 import java.awt.Color;
 import java.awt.geom.Point2D;
-import java.util.HashMap;
-import java.util.Map;
+import java.util.Arrays;
 import java.util.Optional;
 import org.tnmk.common.math.AngleUtils;
 import org.tnmk.robocode.common.constant.RobotPhysics;
@@ -13,6 +12,7 @@ import org.tnmk.robocode.common.gun.GunUtils;
 import org.tnmk.robocode.common.helper.prediction.RobotPrediction;
 import org.tnmk.robocode.common.helper.prediction.RobotPredictionHelper;
 import org.tnmk.robocode.common.model.enemy.Enemy;
+import org.tnmk.robocode.common.model.enemy.EnemyRegistry;
 import org.tnmk.robocode.common.radar.AllEnemiesObservationContext;
 import org.tnmk.robocode.common.robot.LoopableRun;
 import org.tnmk.robocode.common.robot.OnBulletHitControl;
@@ -28,15 +28,16 @@ public class FinishOffGun implements LoopableRun, OnScannedRobotControl, OnBulle
     private static final Color BULLET_COLOR = new Color(254, 255, 46);
     private static final int ENEMY_PREDICTION_TIMES = 3;
     private static final long FIRE_BULLET_AGAIN_PERIOD = 30;
+    private static final long NEVER_FIRED = Long.MIN_VALUE;
     private final AdvancedRobot robot;
     private final AllEnemiesObservationContext allEnemiesObservationContext;
     private final GunStateContext gunStateContext;
 
     /**
-     * key: enemyName
-     * value: time which we start to fired bullet to the enemy (Note: this is not the time the bullet reach the enemy)
+     * index: enemy's id (view {@link AllEnemiesObservationContext#getEnemyId(String)})
+     * value: time which we start to fired bullet to the enemy (Note: this is not the time the bullet reach the enemy), or {@link #NEVER_FIRED}.
      */
-    private Map<String, Long> firedEnemiesTime = new HashMap<>();
+    private long[] firedEnemiesTime = new long[0];
 
     public FinishOffGun(AdvancedRobot robot, AllEnemiesObservationContext allEnemiesObservationContext, GunStateContext gunStateContext) {
         this.robot = robot;
@@ -75,7 +76,7 @@ public class FinishOffGun implements LoopableRun, OnScannedRobotControl, OnBulle
 
             /**Turn the gun to the correct angle**/
             robot.setTurnGunLeftRadians(gunBearing);
-            gunStateContext.saveSateAimGun(GunStrategy.FINISH_OFF, bulletPower, enemy.getName());
+            gunStateContext.saveSateAimGun(GunStrategy.FINISH_OFF, bulletPower, enemy.getName(), allEnemiesObservationContext.getEnemyId(enemy.getName()));
             /** This code just aim the gun, don't fire it. The gun will be fired by loopRun() when finishing aiming.*/
         } else {
             /**
@@ -91,18 +92,37 @@ public class FinishOffGun implements LoopableRun, OnScannedRobotControl, OnBulle
      */
     @Override
     public void runLoop() {
-        String aimingEnemy = gunStateContext.getAimingEnemyName();
-        Long firedTime = firedEnemiesTime.get(aimingEnemy);
-        if (firedTime == null || robot.getTime() - firedTime > FIRE_BULLET_AGAIN_PERIOD) {
+        int aimingEnemyId = gunStateContext.getAimingEnemyId();
+        long firedTime = getFiredTime(aimingEnemyId);
+        if (firedTime == NEVER_FIRED || robot.getTime() - firedTime > FIRE_BULLET_AGAIN_PERIOD) {
             Optional<String> firedEnemy = GunUtils.fireBulletWhenFinishAiming(robot, gunStateContext, BULLET_COLOR);
             if (firedEnemy.isPresent()) {
-                firedEnemiesTime.put(firedEnemy.get(), robot.getTime());
+                setFiredTime(aimingEnemyId, robot.getTime());
             }
         }else{
             /** We've just fired this enemy recently, it certainty died now. We don't need to fire again.*/
         }
     }
 
+    private long getFiredTime(int enemyId) {
+        if (enemyId == EnemyRegistry.NO_ID || enemyId >= firedEnemiesTime.length) {
+            return NEVER_FIRED;
+        }
+        return firedEnemiesTime[enemyId];
+    }
+
+    private void setFiredTime(int enemyId, long time) {
+        if (enemyId == EnemyRegistry.NO_ID) {
+            return;
+        }
+        if (enemyId >= firedEnemiesTime.length) {
+            int oldLength = firedEnemiesTime.length;
+            firedEnemiesTime = Arrays.copyOf(firedEnemiesTime, enemyId + 1);
+            Arrays.fill(firedEnemiesTime, oldLength, firedEnemiesTime.length, NEVER_FIRED);
+        }
+        firedEnemiesTime[enemyId] = time;
+    }
+
     @Override
     public void onBulletHit(BulletHitEvent event) {
         if (isEnemyKilled(event)){
@@ -0,0 +1,130 @@
+package org.tnmk.robocode.common.gun.gft;
+
+import org.tnmk.robocode.common.gun.wave.WaveBreakListener;
+
+/**
+ * The GuessFactor statistics of one enemy, all segments are kept in one flat array: index = segmentIndex * bins + bin.<br/>
+ * It's created and evicted by {@link GuessFactorStatistics}.
+ * After being evicted, it ignores the breaks of its remaining waves.
+ */
+public class EnemyGuessFactorStats implements WaveBreakListener {
+    private final String enemyName;
+    private final GuessFactorStatistics guessFactorStatistics;
+    /**
+     * null when this object was evicted.
+     */
+    private double[] data;
+    private long lastUsedSequence;
+
+    EnemyGuessFactorStats(String enemyName, GuessFactorStatistics guessFactorStatistics, double[] data) {
+        this.enemyName = enemyName;
+        this.guessFactorStatistics = guessFactorStatistics;
+        this.data = data;
+    }
+
+    /**
+     * @param segmentIndex     view {@link GuessFactorStatistics#reckonSegmentIndex(double[])}
+     * @param lateralDirection the current lateral direction (1 or -1) of the enemy.
+     * @return the bearing offset (radian) from the current enemy's bearing to the most visited bin, using the fixed max escape angle of {@link GuessFactorStatistics}.
+     */
+    public double mostVisitedBearingOffset(int segmentIndex, double lateralDirection) {
+        return lateralDirection * mostVisitedGuessFactor(segmentIndex) * guessFactorStatistics.getMaxEscapeAngle();
+    }
+
+    /**
+     * @param segmentIndex view {@link GuessFactorStatistics#reckonSegmentIndex(double[])}
+     * @return the guess factor [-1, 1] of the most visited bin, 0 if this object was evicted.
+     */
+    public double mostVisitedGuessFactor(int segmentIndex) {
+        int bins = guessFactorStatistics.getBins();
+        int middleBin = (bins - 1) / 2;
+        int mostVisited = middleBin;
+        if (data != null) {
+            int offset = segmentIndex * bins;
+            for (int i = 0; i < bins; i++) {
+                if (data[offset + i] > data[offset + mostVisited]) {
+                    mostVisited = i;
+                }
+            }
+        }
+        return (mostVisited - middleBin) / (double) middleBin;
+    }
+
+    /**
+     * The bearing offset is converted into a guess factor with the fixed max escape angle of {@link GuessFactorStatistics}.
+     * Guns which know the precise max escape angle of each wave should use {@link #addGuessFactor(int, double)} instead.
+     */
+    @Override
+    public void onWaveBreak(int segmentIndex, double bearingOffsetRadian, double lateralDirection) {
+        addGuessFactor(segmentIndex, bearingOffsetRadian / (lateralDirection * guessFactorStatistics.getMaxEscapeAngle()));
+    }
+
+    /**
+     * @param segmentIndex view {@link GuessFactorStatistics#reckonSegmentIndex(double[])}
+     * @param guessFactor  the visited guess factor, it's clamped into [-1, 1].
+     */
+    public void addGuessFactor(int segmentIndex, double guessFactor) {
+        addGuessFactorRange(segmentIndex, guessFactor, guessFactor);
+    }
+
+    /**
+     * Add one visit into every bin which overlaps the range (view {@link org.tnmk.robocode.common.gun.wave.WaveIntersectionListener}).<br/>
+     * The whole range is one batch: the segment is decayed only once, so the cost is bounded by the number of bins.
+     *
+     * @param segmentIndex   view {@link GuessFactorStatistics#reckonSegmentIndex(double[])}
+     * @param minGuessFactor the range of visited guess factors, they're clamped into [-1, 1].
+     * @param maxGuessFactor
+     */
+    public void addGuessFactorRange(int segmentIndex, double minGuessFactor, double maxGuessFactor) {
+        if (data == null) {
+            return;
+        }
+        int bins = guessFactorStatistics.getBins();
+        int middleBin = (bins - 1) / 2;
+        int minBin = Math.max(0, Math.min(bins - 1, (int) Math.round(minGuessFactor * middleBin + middleBin)));
+        int maxBin = Math.max(0, Math.min(bins - 1, (int) Math.round(maxGuessFactor * middleBin + middleBin)));
+        int offset = segmentIndex * bins;
+        double decayRate = guessFactorStatistics.getDecayRate();
+        if (decayRate > 0) {
+            double keepRate = 1 - decayRate;
+            for (int i = offset; i < offset + bins; i++) {
+                data[i] *= keepRate;
+            }
+        }
+        for (int bin = minBin; bin <= maxBin; bin++) {
+            data[offset + bin]++;
+        }
+    }
+
+    /**
+     * @return the visits (maybe decayed) of the bin in the segment, 0 if this object was evicted.
+     */
+    public double getVisits(int segmentIndex, int bin) {
+        return data == null ? 0 : data[segmentIndex * guessFactorStatistics.getBins() + bin];
+    }
+
+    public boolean isEvicted() {
+        return data == null;
+    }
+
+    /**
+     * @return the data array so that it can be reused by another enemy.
+     */
+    double[] evict() {
+        double[] evictedData = data;
+        data = null;
+        return evictedData;
+    }
+
+    long getLastUsedSequence() {
+        return lastUsedSequence;
+    }
+
+    void setLastUsedSequence(long lastUsedSequence) {
+        this.lastUsedSequence = lastUsedSequence;
+    }
+
+    public String getEnemyName() {
+        return enemyName;
+    }
+}
@@ -0,0 +1,106 @@
+package org.tnmk.robocode.common.gun.gft;
+
+import java.util.Arrays;
+
+/**
+ * The segmentation of GuessFactor statistics: each dimension (e.g. distance, velocity...) is split into buckets by its boundaries.<br/>
+ * A value which is greater than the last boundary always falls into the last bucket, so there's no limit of values (e.g. distances on a big battle field).
+ * <p/>
+ * The segments of all dimensions are flattened into one segmentIndex, view {@link #reckonSegmentIndex(double[])}.
+ */
+public class GuessFactorSegmentation {
+    public static final int DEFAULT_DISTANCE_BUCKETS = 5;
+    /**
+     * Bucket boundaries of absolute velocity: [0, 2), [2, 4), [4, 6), [6, 8), [8, ...).
+     */
+    private static final double[] DEFAULT_VELOCITY_BOUNDARIES = {2, 4, 6, 8};
+
+    /**
+     * Index: dimension. Each array is sorted ascending.
+     */
+    private final double[][] boundaries;
+    private final int segmentsCount;
+
+    /**
+     * @param boundaries the bucket boundaries of each dimension, each array must be sorted ascending. A dimension with n boundaries has n + 1 buckets.
+     */
+    public GuessFactorSegmentation(double[]... boundaries) {
+        if (boundaries.length == 0) {
+            throw new IllegalArgumentException("There must be at least one dimension");
+        }
+        this.boundaries = new double[boundaries.length][];
+        int segmentsCount = 1;
+        for (int i = 0; i < boundaries.length; i++) {
+            double[] dimensionBoundaries = boundaries[i].clone();
+            for (int j = 1; j < dimensionBoundaries.length; j++) {
+                if (dimensionBoundaries[j] < dimensionBoundaries[j - 1]) {
+                    throw new IllegalArgumentException("Boundaries of dimension " + i + " must be sorted ascending: " + Arrays.toString(dimensionBoundaries));
+                }
+            }
+            this.boundaries[i] = dimensionBoundaries;
+            segmentsCount *= dimensionBoundaries.length + 1;
+        }
+        this.segmentsCount = segmentsCount;
+    }
+
+    /**
+     * The default segmentation: distance, absolute velocity, absolute last velocity.<br/>
+     * Distance buckets are split equally on the diagonal of the battle field.
+     *
+     * @param battleFieldWidth
+     * @param battleFieldHeight
+     * @param distanceBuckets   the number of distance buckets.
+     * @return
+     */
+    public static GuessFactorSegmentation ofBattleField(double battleFieldWidth, double battleFieldHeight, int distanceBuckets) {
+        if (distanceBuckets <= 0) {
+            throw new IllegalArgumentException("distanceBuckets must be greater than 0: " + distanceBuckets);
+        }
+        double diagonal = Math.hypot(battleFieldWidth, battleFieldHeight);
+        double[] distanceBoundaries = new double[distanceBuckets - 1];
+        for (int i = 0; i < distanceBoundaries.length; i++) {
+            distanceBoundaries[i] = diagonal * (i + 1) / distanceBuckets;
+        }
+        return new GuessFactorSegmentation(distanceBoundaries, DEFAULT_VELOCITY_BOUNDARIES, DEFAULT_VELOCITY_BOUNDARIES);
+    }
+
+    /**
+     * @param values the value of each dimension (the array could be reused by the caller to avoid creating new objects).
+     * @return the flattened index of the segment of all values.
+     */
+    public int reckonSegmentIndex(double[] values) {
+        if (values.length != boundaries.length) {
+            throw new IllegalArgumentException("Expected " + boundaries.length + " values but got " + values.length);
+        }
+        int segmentIndex = 0;
+        for (int i = 0; i < boundaries.length; i++) {
+            segmentIndex = segmentIndex * (boundaries[i].length + 1) + reckonBucketIndex(boundaries[i], values[i]);
+        }
+        return segmentIndex;
+    }
+
+    /**
+     * @return the number of boundaries which are less than or equals the value.
+     */
+    private static int reckonBucketIndex(double[] dimensionBoundaries, double value) {
+        int low = 0;
+        int high = dimensionBoundaries.length;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (dimensionBoundaries[middle] <= value) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    public int countDimensions() {
+        return boundaries.length;
+    }
+
+    public int countSegments() {
+        return segmentsCount;
+    }
+}
@@ -0,0 +1,134 @@
+package org.tnmk.robocode.common.gun.gft;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * The GuessFactor statistics of all enemies, view {@link EnemyGuessFactorStats}.
+ * <p/>
+ * The total memory is limited by maxTotalCells (the total items of all enemies' arrays).
+ * When a new enemy needs more cells than that limit, the least recently used enemy is evicted and its array is reused.
+ * <p/>
+ * The rolling decay is optional: when a wave breaks, all bins of its segment are multiplied by (1 - decayRate) before adding the new visit.
+ * With decayRate = 0, the bins are just visit counters.
+ */
+public class GuessFactorStatistics {
+    public static final int DEFAULT_BINS = 25;
+    public static final double DEFAULT_MAX_ESCAPE_ANGLE = 0.7;
+
+    private final GuessFactorSegmentation segmentation;
+    private final int bins;
+    private final double maxEscapeAngle;
+    private final double binWidthRadian;
+    private final double decayRate;
+    private final long maxTotalCells;
+    private final int cellsPerEnemy;
+
+    private final Map<String, EnemyGuessFactorStats> enemiesStats = new HashMap<>();
+    private long totalCells = 0;
+    private long usedSequence = 0;
+
+    /**
+     * @param segmentation
+     * @param bins            the number of GuessFactor bins, it should be odd so that there is a middle bin (GuessFactor 0).
+     * @param maxEscapeAngle  the bearing offset (radian) of the first and the last bins.
+     * @param decayRate       in [0, 1). 0 means no decay.
+     * @param maxTotalCells   the upper bound of the total items of all enemies' arrays.
+     */
+    public GuessFactorStatistics(GuessFactorSegmentation segmentation, int bins, double maxEscapeAngle, double decayRate, long maxTotalCells) {
+        if (bins < 3) {
+            throw new IllegalArgumentException("bins must be at least 3: " + bins);
+        }
+        if (decayRate < 0 || decayRate >= 1) {
+            throw new IllegalArgumentException("decayRate must be in [0, 1): " + decayRate);
+        }
+        this.segmentation = segmentation;
+        this.bins = bins;
+        this.maxEscapeAngle = maxEscapeAngle;
+        this.binWidthRadian = maxEscapeAngle / ((bins - 1) / 2);
+        this.decayRate = decayRate;
+        this.maxTotalCells = maxTotalCells;
+        this.cellsPerEnemy = segmentation.countSegments() * bins;
+        if (cellsPerEnemy > maxTotalCells) {
+            throw new IllegalArgumentException("maxTotalCells " + maxTotalCells + " is not enough for even one enemy (" + cellsPerEnemy + " cells)");
+        }
+    }
+
+    /**
+     * @param enemyName
+     * @return the statistics of the enemy, a new one is created if it doesn't exist (or was evicted).
+     */
+    public EnemyGuessFactorStats getEnemyStats(String enemyName) {
+        EnemyGuessFactorStats enemyStats = enemiesStats.get(enemyName);
+        if (enemyStats == null) {
+            double[] data = null;
+            while (totalCells + cellsPerEnemy > maxTotalCells) {
+                double[] evictedData = evictLeastRecentlyUsed();
+                if (data == null) {
+                    data = evictedData;
+                }
+            }
+            if (data == null) {
+                data = new double[cellsPerEnemy];
+            } else {
+                Arrays.fill(data, 0);
+            }
+            totalCells += cellsPerEnemy;
+            enemyStats = new EnemyGuessFactorStats(enemyName, this, data);
+            enemiesStats.put(enemyName, enemyStats);
+        }
+        enemyStats.setLastUsedSequence(++usedSequence);
+        return enemyStats;
+    }
+
+    private double[] evictLeastRecentlyUsed() {
+        EnemyGuessFactorStats leastRecentlyUsed = null;
+        for (EnemyGuessFactorStats enemyStats : enemiesStats.values()) {
+            if (leastRecentlyUsed == null || enemyStats.getLastUsedSequence() < leastRecentlyUsed.getLastUsedSequence()) {
+                leastRecentlyUsed = enemyStats;
+            }
+        }
+        if (leastRecentlyUsed == null) {
+            throw new IllegalStateException("There's no enemy to evict, totalCells: " + totalCells);
+        }
+        enemiesStats.remove(leastRecentlyUsed.getEnemyName());
+        totalCells -= cellsPerEnemy;
+        return leastRecentlyUsed.evict();
+    }
+
+    /**
+     * @param values view {@link GuessFactorSegmentation#reckonSegmentIndex(double[])}
+     */
+    public int reckonSegmentIndex(double[] values) {
+        return segmentation.reckonSegmentIndex(values);
+    }
+
+    public int countEnemies() {
+        return enemiesStats.size();
+    }
+
+    public long getTotalCells() {
+        return totalCells;
+    }
+
+    public int getBins() {
+        return bins;
+    }
+
+    public double getMaxEscapeAngle() {
+        return maxEscapeAngle;
+    }
+
+    public double getBinWidthRadian() {
+        return binWidthRadian;
+    }
+
+    public double getDecayRate() {
+        return decayRate;
+    }
+
+    public GuessFactorSegmentation getSegmentation() {
+        return segmentation;
+    }
+}
@@ -1,14 +1,26 @@
 package org.tnmk.robocode.common.gun.gft.oldalgorithm;
 
 import java.awt.Color;
-import java.awt.geom.Point2D;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
 import org.tnmk.common.math.GeoMathUtils;
 import org.tnmk.robocode.common.gun.GunStateContext;
 import org.tnmk.robocode.common.gun.GunStrategy;
+import org.tnmk.robocode.common.gun.MaxEscapeAngleService;
+import org.tnmk.robocode.common.gun.gft.EnemyGuessFactorStats;
+import org.tnmk.robocode.common.gun.gft.GuessFactorSegmentation;
+import org.tnmk.robocode.common.gun.gft.GuessFactorStatistics;
 import org.tnmk.robocode.common.gun.pattern.BulletPowerHelper;
+import org.tnmk.robocode.common.gun.virtual.VirtualGun;
+import org.tnmk.robocode.common.gun.wave.WaveIntersectionListener;
+import org.tnmk.robocode.common.gun.wave.WaveTracker;
 import org.tnmk.robocode.common.log.DebugHelper;
 import org.tnmk.robocode.common.log.LogHelper;
+import org.tnmk.robocode.common.model.enemy.EnemyRegistry;
+import org.tnmk.robocode.common.radar.AllEnemiesObservationContext;
 import org.tnmk.robocode.common.robot.OnScannedRobotControl;
+import org.tnmk.robocode.common.robot.state.AdvanceRobotState;
 import org.tnmk.robocode.common.robotdecorator.HiTechDecorator;
 import robocode.AdvancedRobot;
 import robocode.ScannedRobotEvent;
@@ -16,8 +28,18 @@ import robocode.util.Utils;
 
 /**
  * Copied from http://old.robowiki.net/robowiki?GFTargetingBot
+ * <p/>
+ * The waves are not custom events anymore, they're tracked by the shared {@link WaveTracker}
+ * and the {@link EnemyGuessFactorStats} of the target is notified with all bins which the target's bounding box covered when they passed it
+ * (view {@link org.tnmk.robocode.common.gun.wave.WaveIntersection}).<br/>
+ * The statistics are kept per enemy and segmented based on the battle field size, so there's no distance limit.
+ * The movement data which is used to segment (the lateral direction, the previous velocity) is kept per enemy too, view {@link EnemyData}.
+ * <p/>
+ * The bins are guess factors of the precise max escape angles (view {@link MaxEscapeAngleService}) instead of a constant angle,
+ * so near walls the bins are not wasted for the angles which the enemy can't reach.
+ * Each wave keeps its own escape angles in a pooled slot, the slot is the segmentIndex of the wave inside {@link WaveTracker}.
  */
-public class GFTAimGun implements OnScannedRobotControl {
+public class GFTAimGun implements OnScannedRobotControl, VirtualGun, WaveIntersectionListener {
     //TODO make dynamic bullet power based on the distance.
     private static final double BULLET_POWER = 1.9;
     /**
@@ -25,68 +47,288 @@ public class GFTAimGun implements OnScannedRobotControl {
      */
     private static final double MIN_BULLET_POWER = 1.0d;
 
-    private static double lateralDirection;
-    private static double lastEnemyVelocity;
+    /**
+     * The statistics of all enemies: 5 distance buckets * 5 velocity buckets * 5 last velocity buckets * 25 bins = 3125 cells (~25KB) per enemy.
+     */
+    private static final long MAX_TOTAL_CELLS = 3125 * 64;
+    private static final int INITIAL_WAVES_CAPACITY = 32;
+
+    /**
+     * It's static so that the data is kept through all rounds.
+     */
+    private static GuessFactorStatistics guessFactorStatistics;
+    private static final Map<String, EnemyData> enemiesData = new HashMap<>();
 
     private final AdvancedRobot robot;
+    /**
+     * The per-tick snapshot of our robot, it's refilled by the robot at the beginning of each turn.
+     */
+    private final AdvanceRobotState robotState;
+    private final AllEnemiesObservationContext allEnemiesObservationContext;
     private final GunStateContext gunStateContext;
+    private final WaveTracker waveTracker;
+    private final MaxEscapeAngleService maxEscapeAngleService;
+    /**
+     * Reused to avoid creating new arrays for each scan.
+     */
+    private final double[] segmentationValues = new double[3];
+    private final double[] maxEscapeAngles = new double[2];
+
+    /**
+     * Waves are pooled slots, the same as {@link org.tnmk.robocode.common.gun.virtual.VirtualGunArena}.
+     */
+    private int[] waveSegmentIndexes = new int[INITIAL_WAVES_CAPACITY];
+    private EnemyGuessFactorStats[] waveEnemyStats = new EnemyGuessFactorStats[INITIAL_WAVES_CAPACITY];
+    /**
+     * Index: slot * 2 for the max escape angle in the lateral direction of the wave, slot * 2 + 1 for the opposite direction.
+     */
+    private double[] waveMaxEscapeAngles = new double[INITIAL_WAVES_CAPACITY * 2];
+    private int[] freeSlots = new int[INITIAL_WAVES_CAPACITY];
+    private int freeSlotsCount = 0;
+    private int usedSlotsCount = 0;
 
-    public GFTAimGun(AdvancedRobot robot, GunStateContext gunStateContext) {
+    /**
+     * @param waveTracker its {@link WaveTracker#runLoop()} must be triggered by the owner of this gun.
+     */
+    public GFTAimGun(AdvancedRobot robot, AdvanceRobotState robotState, AllEnemiesObservationContext allEnemiesObservationContext, GunStateContext gunStateContext, WaveTracker waveTracker, MaxEscapeAngleService maxEscapeAngleService) {
         this.robot = robot;
+        this.robotState = robotState;
+        this.allEnemiesObservationContext = allEnemiesObservationContext;
         this.gunStateContext = gunStateContext;
+        this.waveTracker = waveTracker;
+        this.maxEscapeAngleService = maxEscapeAngleService;
     }
 
+    /**
+     * It's created lazily because the battle field's size is not available before the robot runs (this gun is created when the robot is constructed).
+     */
+    private GuessFactorStatistics getGuessFactorStatistics() {
+        if (guessFactorStatistics == null) {
+            GuessFactorSegmentation segmentation = GuessFactorSegmentation.ofBattleField(robotState.getBattleFieldWidth(), robotState.getBattleFieldHeight(), GuessFactorSegmentation.DEFAULT_DISTANCE_BUCKETS);
+            guessFactorStatistics = new GuessFactorStatistics(segmentation, GuessFactorStatistics.DEFAULT_BINS, GuessFactorStatistics.DEFAULT_MAX_ESCAPE_ANGLE, 0, MAX_TOTAL_CELLS);
+        }
+        return guessFactorStatistics;
+    }
+
+    /**
+     * Record the wave of this scan, then aim and fire.
+     */
     @Override
     public void onScannedRobot(ScannedRobotEvent scannedRobotEvent) {
-        double enemyAbsoluteBearing = robot.getHeadingRadians() + scannedRobotEvent.getBearingRadians();
-        double enemyDistance = scannedRobotEvent.getDistance();
-        double enemyVelocity = scannedRobotEvent.getVelocity();
+        double bulletPower = recordWave(scannedRobotEvent);
+        if (bulletPower <= 0) {
+            return;//if bulletPower is 0 (because low energy, or too risky), don't need to aim or fire bullet.
+        }
+        aim(scannedRobotEvent, bulletPower);
+    }
+
+    /**
+     * Aim and fire if no other gun is aiming. The wave of this scan must be already recorded by {@link #recordWave(ScannedRobotEvent)}.
+     */
+    public void aim(ScannedRobotEvent scannedRobotEvent, double bulletPower) {
+        if (!gunStateContext.isAiming() || gunStateContext.isStrategy(GunStrategy.GFT)) {
+            double firingAngle = reckonFiringAngle(scannedRobotEvent, bulletPower);
+            robot.setTurnGunRightRadians(Utils.normalRelativeAngle(firingAngle - robotState.getGunHeadingRadians()));
+            robot.setBulletColor(HiTechDecorator.BULLET_GFT_COLOR);
+            if (robotState.getGunHeat() == 0) {
+                robot.setGunColor(HiTechDecorator.ROBOT_GUN_COLOR);
+                gunStateContext.saveSateAimGun(GunStrategy.GFT, bulletPower, scannedRobotEvent.getName(), allEnemiesObservationContext.getEnemyId(scannedRobotEvent.getName()));
+                gunStateContext.saveStateFiredBullet(robot.setFireBullet(bulletPower), robotState.getTime());
+            } else {
+                robot.setGunColor(Color.LIGHT_GRAY);
+            }
+            gunStateContext.saveStateFinishedAiming();
+        }
+    }
 
-        if (enemyDistance > GFTWave.MAX_DISTANCE) {
-            robot.setGunColor(Color.BLACK);
-            /** Don't aim or shot in this case. Otherwise, there will be a bug ArrayOutOfBoundIndexException.*/
-            return;
-        } else {
-            robot.setGunColor(HiTechDecorator.ROBOT_GUN_COLOR);
+    /**
+     * Update the enemy's movement data and fire a wave without aiming, so that the statistics keep learning even when another gun is used.<br/>
+     * It must be called once for every scan, before {@link #aim(ScannedRobotEvent, double)}.
+     *
+     * @return the bullet power of the wave, 0 if no wave was fired.
+     */
+    public double recordWave(ScannedRobotEvent scannedRobotEvent) {
+        int enemyId = allEnemiesObservationContext.getEnemyId(scannedRobotEvent.getName());
+        if (enemyId == EnemyRegistry.NO_ID) {
+            return 0;
         }
+        double enemyAbsoluteBearing = robotState.getHeadingRadians() + scannedRobotEvent.getBearingRadians();
+        double enemyDistance = scannedRobotEvent.getDistance();
+        double enemyVelocity = scannedRobotEvent.getVelocity();
+        double gunX = robotState.getX();
+        double gunY = robotState.getY();
+        double targetX = gunX + Math.sin(enemyAbsoluteBearing) * enemyDistance;
+        double targetY = gunY + Math.cos(enemyAbsoluteBearing) * enemyDistance;
+        waveTracker.updateTargetPosition(enemyId, targetX, targetY);
 
+        EnemyData enemyData = getEnemyData(scannedRobotEvent.getName());
+        enemyData.update(reckonLateralDirection(scannedRobotEvent, enemyAbsoluteBearing, enemyData.lateralDirection), enemyVelocity, robotState.getTime());
 
-        double bulletPower = BulletPowerHelper.reckonBulletPower(enemyDistance, robot.getOthers(), robot.getEnergy());
+        double bulletPower = BulletPowerHelper.reckonBulletPower(enemyDistance, robotState.getOthers(), robotState.getEnergy());
         if (DebugHelper.isDebugGunStrategy()) {
-            LogHelper.logRobotMovement(robot, "Aim GFT. bulletPower: " + bulletPower + ", distance: " + enemyDistance);
+            LogHelper.logRobotMovement(robot, "Record GFT wave. bulletPower: " + bulletPower + ", distance: " + enemyDistance);
         }
         if (bulletPower <= 0) {
-            return;//if bulletPower is 0 (because low energy, or too risky), don't need to aim or fire bullet.
+            return 0;
         } else if (bulletPower < MIN_BULLET_POWER) {
             bulletPower = MIN_BULLET_POWER;
         }
+        if (robotState.getEnergy() >= bulletPower) {
+            double lateralDirection = enemyData.lateralDirection;
+            reckonMaxEscapeAngles(gunX, gunY, targetX, targetY, bulletPower, lateralDirection, maxEscapeAngles);
+            int slot = allocateSlot();
+            waveSegmentIndexes[slot] = reckonSegmentIndex(enemyDistance, enemyVelocity, enemyData.previousVelocity);
+            waveEnemyStats[slot] = getGuessFactorStatistics().getEnemyStats(scannedRobotEvent.getName());
+            waveMaxEscapeAngles[slot * 2] = maxEscapeAngles[0];
+            waveMaxEscapeAngles[slot * 2 + 1] = maxEscapeAngles[1];
+            waveTracker.addPreciseWave(enemyId, gunX, gunY, enemyAbsoluteBearing, lateralDirection, GFTUtils.bulletVelocity(bulletPower), slot, this);
+        }
+        return bulletPower;
+    }
 
-        if (enemyVelocity != 0) {
-            lateralDirection = GeoMathUtils.sign(enemyVelocity * Math.sin(scannedRobotEvent.getHeadingRadians() - enemyAbsoluteBearing));
+    /**
+     * @param result result[0]: the max escape angle in the lateral direction, result[1]: in the opposite direction.
+     */
+    private void reckonMaxEscapeAngles(double gunX, double gunY, double targetX, double targetY, double bulletPower, double lateralDirection, double[] result) {
+        maxEscapeAngleService.reckonMaxEscapeAngles(gunX, gunY, targetX, targetY, bulletPower, result);
+        if (lateralDirection < 0) {
+            double clockwiseMaxEscapeAngle = result[0];
+            result[0] = result[1];
+            result[1] = clockwiseMaxEscapeAngle;
         }
-        GFTWave wave = new GFTWave(robot);
-        wave.gunLocation = new Point2D.Double(robot.getX(), robot.getY());
-        GFTWave.targetLocation = GFTUtils.project(wave.gunLocation, enemyAbsoluteBearing, enemyDistance);
-        wave.lateralDirection = lateralDirection;
-        wave.bulletPower = bulletPower;
-
-        wave.setSegmentations(enemyDistance, enemyVelocity, lastEnemyVelocity);
-        lastEnemyVelocity = enemyVelocity;
-        wave.bearing = enemyAbsoluteBearing;
-        if (!gunStateContext.isAiming() || gunStateContext.isStrategy(GunStrategy.GFT)) {
-            robot.setTurnGunRightRadians(Utils.normalRelativeAngle(enemyAbsoluteBearing - robot.getGunHeadingRadians() + wave.mostVisitedBearingOffset()));
-            robot.setBulletColor(HiTechDecorator.BULLET_GFT_COLOR);
-            if (robot.getGunHeat() == 0) {
-                robot.setGunColor(HiTechDecorator.ROBOT_GUN_COLOR);
-                gunStateContext.saveSateAimGun(GunStrategy.GFT, wave.bulletPower, scannedRobotEvent.getName());
-                robot.setFire(wave.bulletPower);
-            } else {
-                robot.setGunColor(Color.LIGHT_GRAY);
-            }
-            gunStateContext.saveStateFinishedAiming();
-            if (robot.getEnergy() >= bulletPower) {
-                robot.addCustomEvent(wave);
+    }
+
+    private static double reckonBearingOffset(double guessFactor, double lateralDirection, double[] maxEscapeAngles) {
+        double maxEscapeAngle = guessFactor >= 0 ? maxEscapeAngles[0] : maxEscapeAngles[1];
+        return lateralDirection * guessFactor * maxEscapeAngle;
+    }
+
+    /**
+     * Convert the bearing offsets into guess factors with the escape angles of the wave.
+     */
+    @Override
+    public void onWavePassed(int slot, double minBearingOffsetRadian, double maxBearingOffsetRadian, double lateralDirection) {
+        double minLateralOffset = lateralDirection > 0 ? minBearingOffsetRadian : -maxBearingOffsetRadian;
+        double maxLateralOffset = lateralDirection > 0 ? maxBearingOffsetRadian : -minBearingOffsetRadian;
+        double minGuessFactor = reckonGuessFactor(slot, minLateralOffset);
+        double maxGuessFactor = reckonGuessFactor(slot, maxLateralOffset);
+        waveEnemyStats[slot].addGuessFactorRange(waveSegmentIndexes[slot], minGuessFactor, maxGuessFactor);
+        waveEnemyStats[slot] = null;
+        freeSlots[freeSlotsCount++] = slot;
+    }
+
+    @Override
+    public void onWaveDiscarded(int slot) {
+        waveEnemyStats[slot] = null;
+        freeSlots[freeSlotsCount++] = slot;
+    }
+
+    /**
+     * @param lateralOffset the bearing offset in the lateral direction of the wave.
+     */
+    private double reckonGuessFactor(int slot, double lateralOffset) {
+        double maxEscapeAngle = lateralOffset >= 0 ? waveMaxEscapeAngles[slot * 2] : waveMaxEscapeAngles[slot * 2 + 1];
+        return maxEscapeAngle == 0 ? 0 : Math.max(-1, Math.min(1, lateralOffset / maxEscapeAngle));
+    }
+
+    private int allocateSlot() {
+        if (freeSlotsCount > 0) {
+            return freeSlots[--freeSlotsCount];
+        }
+        if (usedSlotsCount == waveSegmentIndexes.length) {
+            int newCapacity = waveSegmentIndexes.length * 2;
+            waveSegmentIndexes = Arrays.copyOf(waveSegmentIndexes, newCapacity);
+            waveEnemyStats = Arrays.copyOf(waveEnemyStats, newCapacity);
+            waveMaxEscapeAngles = Arrays.copyOf(waveMaxEscapeAngles, newCapacity * 2);
+            freeSlots = Arrays.copyOf(freeSlots, newCapacity);
+        }
+        return usedSlotsCount++;
+    }
+
+    /**
+     * @param previousEnemyVelocity the enemy's velocity at its previous scan.
+     */
+    private int reckonSegmentIndex(double enemyDistance, double enemyVelocity, double previousEnemyVelocity) {
+        segmentationValues[0] = enemyDistance;
+        segmentationValues[1] = Math.abs(enemyVelocity);
+        segmentationValues[2] = Math.abs(previousEnemyVelocity);
+        return getGuessFactorStatistics().reckonSegmentIndex(segmentationValues);
+    }
+
+    /**
+     * @return 1 if the enemy is moving clockwise around our robot, -1 if counter-clockwise. If it's not moving, the last direction is kept.
+     */
+    private static double reckonLateralDirection(ScannedRobotEvent scannedRobotEvent, double enemyAbsoluteBearing, double lastLateralDirection) {
+        double enemyVelocity = scannedRobotEvent.getVelocity();
+        if (enemyVelocity == 0) {
+            return lastLateralDirection;
+        }
+        return GeoMathUtils.sign(enemyVelocity * Math.sin(scannedRobotEvent.getHeadingRadians() - enemyAbsoluteBearing));
+    }
+
+    private static EnemyData getEnemyData(String enemyName) {
+        EnemyData enemyData = enemiesData.get(enemyName);
+        if (enemyData == null) {
+            enemyData = new EnemyData();
+            enemiesData.put(enemyName, enemyData);
+        }
+        return enemyData;
+    }
+
+    @Override
+    public GunStrategy getGunStrategy() {
+        return GunStrategy.GFT;
+    }
+
+    /**
+     * The angle which {@link #aim(ScannedRobotEvent, double)} aims, it doesn't change any state.
+     * So it's the same angle whether it's called before or after the enemy's data was updated with this scan.<br/>
+     * It's called for every scan by {@link org.tnmk.robocode.common.gun.virtual.VirtualGunArena}, so it doesn't create any new object.
+     */
+    @Override
+    public double reckonFiringAngle(ScannedRobotEvent scannedRobotEvent, double bulletPower) {
+        double enemyAbsoluteBearing = robotState.getHeadingRadians() + scannedRobotEvent.getBearingRadians();
+        double enemyVelocity = scannedRobotEvent.getVelocity();
+        EnemyData enemyData = enemiesData.get(scannedRobotEvent.getName());
+        double enemyLateralDirection = reckonLateralDirection(scannedRobotEvent, enemyAbsoluteBearing, enemyData == null ? 1 : enemyData.lateralDirection);
+        double previousEnemyVelocity = enemyData == null ? 0 : enemyData.getPreviousVelocity(robotState.getTime());
+        EnemyGuessFactorStats enemyStats = getGuessFactorStatistics().getEnemyStats(scannedRobotEvent.getName());
+        int segmentIndex = reckonSegmentIndex(scannedRobotEvent.getDistance(), enemyVelocity, previousEnemyVelocity);
+        double gunX = robotState.getX();
+        double gunY = robotState.getY();
+        double targetX = gunX + Math.sin(enemyAbsoluteBearing) * scannedRobotEvent.getDistance();
+        double targetY = gunY + Math.cos(enemyAbsoluteBearing) * scannedRobotEvent.getDistance();
+        reckonMaxEscapeAngles(gunX, gunY, targetX, targetY, bulletPower, enemyLateralDirection, maxEscapeAngles);
+        return enemyAbsoluteBearing + reckonBearingOffset(enemyStats.mostVisitedGuessFactor(segmentIndex), enemyLateralDirection, maxEscapeAngles);
+    }
+
+    /**
+     * The movement data of an enemy, the same as the one of {@link org.tnmk.robocode.common.gun.knn.KnnGun}.
+     */
+    private static class EnemyData {
+        /**
+         * The velocity at the scan before the latest one.
+         */
+        private double previousVelocity = 0;
+        private double velocity = 0;
+        private double lateralDirection = 1;
+        private long updatedTime = -1;
+
+        private void update(double newLateralDirection, double newVelocity, long time) {
+            if (time == updatedTime) {
+                return;
             }
+            updatedTime = time;
+            lateralDirection = newLateralDirection;
+            previousVelocity = velocity;
+            velocity = newVelocity;
+        }
+
+        /**
+         * @return the velocity at the scan before the one at the time, no matter whether the scan at the time was already updated or not.
+         */
+        private double getPreviousVelocity(long time) {
+            return time == updatedTime ? previousVelocity : velocity;
         }
     }
-}
\ No newline at end of file
+}
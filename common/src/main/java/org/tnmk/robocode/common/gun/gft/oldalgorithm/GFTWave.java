@@ -6,6 +6,10 @@ import robocode.util.Utils;
 
 import java.awt.geom.Point2D;
 
+/**
+ * Only used by the deprecated {@link GFTargetingBot}.
+ * {@link GFTAimGun} uses {@link org.tnmk.robocode.common.gun.wave.WaveTracker} and {@link org.tnmk.robocode.common.gun.gft.GuessFactorStatistics} instead.
+ */
 class GFTWave extends Condition {
 	static Point2D targetLocation;
 
@@ -0,0 +1,350 @@
+package org.tnmk.robocode.common.gun.knn;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import org.tnmk.common.collection.KdTree;
+import org.tnmk.common.math.GeoMathUtils;
+import org.tnmk.robocode.common.gun.GunStateContext;
+import org.tnmk.robocode.common.gun.GunStrategy;
+import org.tnmk.robocode.common.gun.GunUtils;
+import org.tnmk.robocode.common.gun.MaxEscapeAngleService;
+import org.tnmk.robocode.common.gun.pattern.BulletPowerHelper;
+import org.tnmk.robocode.common.gun.virtual.VirtualGun;
+import org.tnmk.robocode.common.gun.wave.WaveBreakListener;
+import org.tnmk.robocode.common.gun.wave.WaveTracker;
+import org.tnmk.robocode.common.model.enemy.EnemyRegistry;
+import org.tnmk.robocode.common.radar.AllEnemiesObservationContext;
+import org.tnmk.robocode.common.robot.OnScannedRobotControl;
+import org.tnmk.robocode.common.robot.state.AdvanceRobotState;
+import org.tnmk.robocode.common.robotdecorator.HiTechDecorator;
+import robocode.AdvancedRobot;
+import robocode.ScannedRobotEvent;
+import robocode.util.Utils;
+
+/**
+ * A k-nearest-neighbours (dynamic clustering) guess factor gun, view http://robowiki.net/wiki/Dynamic_Clustering
+ * <p/>
+ * Each scan fires a wave (view {@link WaveTracker}) which keeps the situation of the enemy as a feature vector (view {@link #reckonFeatures(ScannedRobotEvent, EnemyData, double, double[])}).
+ * When the wave breaks, the vector and the guess factor which the enemy actually moved to are added into the {@link KdTree} of the enemy.<br/>
+ * When aiming, the {@link #NEIGHBOURS} most similar situations are found in the tree (about O(log n) instead of scanning all waves),
+ * then the guess factor with the highest kernel density among them is chosen (view {@link #reckonBestGuessFactor(KdTree, int)}).
+ * <p/>
+ * Unlike the fixed segments of {@link org.tnmk.robocode.common.gun.gft.oldalgorithm.GFTAimGun}, similar situations are found in all dimensions at once, so the data is not split into many small segments.
+ * <p/>
+ * Guess factors are relative to the precise escape angles of each wave (view {@link MaxEscapeAngleService}).
+ * <p/>
+ * The trees are static so that the data is kept through all rounds.
+ */
+public class KnnGun implements OnScannedRobotControl, VirtualGun, WaveBreakListener {
+    public static final int DIMENSIONS = 5;
+    /**
+     * The maximum number of waves which are kept for each enemy, the oldest ones are dropped.
+     */
+    public static final int MAX_WAVES_PER_ENEMY = 8000;
+    public static final int NEIGHBOURS = 32;
+    /**
+     * The weights of the features: distance, lateral velocity, acceleration, wall distance, time since direction change.<br/>
+     * Each feature is normalized into [0, 1] before multiplied by its weight.
+     */
+    private static final double[] FEATURE_WEIGHTS = {3, 4, 2, 2, 2};
+    /**
+     * For this algorithm, the bullet power should never be lower than this, view {@link org.tnmk.robocode.common.gun.gft.oldalgorithm.GFTAimGun}.
+     */
+    private static final double MIN_BULLET_POWER = 1.0d;
+    private static final double MAX_FEATURE_DISTANCE = 1000;
+    private static final double HALF_ROBOT_SIZE = 18;
+    private static final int INITIAL_WAVES_CAPACITY = 32;
+
+    private static final Map<String, EnemyData> enemiesData = new HashMap<>();
+
+    private final AdvancedRobot robot;
+    /**
+     * The per-tick snapshot of our robot, it's refilled by the robot at the beginning of each turn.
+     */
+    private final AdvanceRobotState robotState;
+    private final AllEnemiesObservationContext allEnemiesObservationContext;
+    private final GunStateContext gunStateContext;
+    private final WaveTracker waveTracker;
+    private final MaxEscapeAngleService maxEscapeAngleService;
+
+    /**
+     * Waves are pooled slots. The slot is the segmentIndex of the wave inside {@link WaveTracker}.
+     */
+    private double[] waveFeatures = new double[INITIAL_WAVES_CAPACITY * DIMENSIONS];
+    /**
+     * Index: slot * 2 for the max escape angle in the lateral direction of the wave, slot * 2 + 1 for the opposite direction.
+     */
+    private double[] waveMaxEscapeAngles = new double[INITIAL_WAVES_CAPACITY * 2];
+    private KdTree[] waveTrees = new KdTree[INITIAL_WAVES_CAPACITY];
+    private int[] freeSlots = new int[INITIAL_WAVES_CAPACITY];
+    private int freeSlotsCount = 0;
+    private int usedSlotsCount = 0;
+
+    /**
+     * Reused to avoid creating new arrays for each scan.
+     */
+    private final double[] features = new double[DIMENSIONS];
+    private final int[] neighbourIndexes = new int[NEIGHBOURS];
+    private final double[] neighbourDistancesSq = new double[NEIGHBOURS];
+    private final double[] maxEscapeAngles = new double[2];
+
+    /**
+     * @param waveTracker its {@link WaveTracker#runLoop()} must be triggered by the owner of this gun.
+     */
+    public KnnGun(AdvancedRobot robot, AdvanceRobotState robotState, AllEnemiesObservationContext allEnemiesObservationContext, GunStateContext gunStateContext, WaveTracker waveTracker, MaxEscapeAngleService maxEscapeAngleService) {
+        this.robot = robot;
+        this.robotState = robotState;
+        this.allEnemiesObservationContext = allEnemiesObservationContext;
+        this.gunStateContext = gunStateContext;
+        this.waveTracker = waveTracker;
+        this.maxEscapeAngleService = maxEscapeAngleService;
+    }
+
+    /**
+     * Record the wave of this scan, then aim and fire.
+     */
+    @Override
+    public void onScannedRobot(ScannedRobotEvent scannedRobotEvent) {
+        double bulletPower = recordWave(scannedRobotEvent);
+        if (bulletPower <= 0) {
+            return;//if bulletPower is 0 (because low energy, or too risky), don't need to aim or fire bullet.
+        }
+        aim(scannedRobotEvent, bulletPower);
+    }
+
+    /**
+     * Aim and fire if no other gun is aiming. The wave of this scan must be already recorded by {@link #recordWave(ScannedRobotEvent)}.
+     */
+    public void aim(ScannedRobotEvent scannedRobotEvent, double bulletPower) {
+        if (!gunStateContext.isAiming() || gunStateContext.isStrategy(GunStrategy.KNN)) {
+            double firingAngle = reckonFiringAngle(scannedRobotEvent, bulletPower);
+            robot.setTurnGunRightRadians(Utils.normalRelativeAngle(firingAngle - robotState.getGunHeadingRadians()));
+            robot.setBulletColor(HiTechDecorator.BULLET_COLOR);
+            if (robotState.getGunHeat() == 0) {
+                gunStateContext.saveSateAimGun(GunStrategy.KNN, bulletPower, scannedRobotEvent.getName(), allEnemiesObservationContext.getEnemyId(scannedRobotEvent.getName()));
+                gunStateContext.saveStateFiredBullet(robot.setFireBullet(bulletPower), robotState.getTime());
+            }
+            gunStateContext.saveStateFinishedAiming();
+        }
+    }
+
+    /**
+     * Update the enemy's movement data and fire a data wave without aiming, so that the gun keeps learning even when another gun is used.<br/>
+     * It must be called once for every scan, before {@link #reckonFiringAngle(ScannedRobotEvent, double)}.
+     *
+     * @return the bullet power of the wave, 0 if no wave was fired.
+     */
+    public double recordWave(ScannedRobotEvent scannedRobotEvent) {
+        String enemyName = scannedRobotEvent.getName();
+        int enemyId = allEnemiesObservationContext.getEnemyId(enemyName);
+        if (enemyId == EnemyRegistry.NO_ID) {
+            return 0;
+        }
+        double enemyAbsoluteBearing = robotState.getHeadingRadians() + scannedRobotEvent.getBearingRadians();
+        double enemyX = robotState.getX() + Math.sin(enemyAbsoluteBearing) * scannedRobotEvent.getDistance();
+        double enemyY = robotState.getY() + Math.cos(enemyAbsoluteBearing) * scannedRobotEvent.getDistance();
+        waveTracker.updateTargetPosition(enemyId, enemyX, enemyY);
+
+        EnemyData enemyData = getEnemyData(enemyName);
+        enemyData.update(scannedRobotEvent, reckonLateralDirection(scannedRobotEvent, enemyData), robotState.getTime());
+        double bulletPower = reckonBulletPower(scannedRobotEvent);
+        if (bulletPower > 0 && robotState.getEnergy() >= bulletPower) {
+            int slot = allocateSlot();
+            double bulletVelocity = GunUtils.reckonBulletVelocity(bulletPower);
+            reckonFeatures(scannedRobotEvent, enemyData, bulletVelocity, features);
+            System.arraycopy(features, 0, waveFeatures, slot * DIMENSIONS, DIMENSIONS);
+            reckonMaxEscapeAngles(enemyX, enemyY, bulletPower, enemyData.lateralDirection, maxEscapeAngles);
+            waveMaxEscapeAngles[slot * 2] = maxEscapeAngles[0];
+            waveMaxEscapeAngles[slot * 2 + 1] = maxEscapeAngles[1];
+            waveTrees[slot] = enemyData.tree;
+            waveTracker.addWave(enemyId, robotState.getX(), robotState.getY(), enemyAbsoluteBearing, enemyData.lateralDirection, bulletVelocity, slot, this);
+        }
+        return bulletPower;
+    }
+
+    private double reckonBulletPower(ScannedRobotEvent scannedRobotEvent) {
+        double bulletPower = BulletPowerHelper.reckonBulletPower(scannedRobotEvent.getDistance(), robotState.getOthers(), robotState.getEnergy());
+        if (bulletPower > 0 && bulletPower < MIN_BULLET_POWER) {
+            bulletPower = MIN_BULLET_POWER;
+        }
+        return bulletPower;
+    }
+
+    /**
+     * Add the wave's situation and the actual guess factor into the enemy's tree.
+     */
+    @Override
+    public void onWaveBreak(int slot, double bearingOffsetRadian, double lateralDirection) {
+        double lateralOffset = bearingOffsetRadian * lateralDirection;
+        double maxEscapeAngle = lateralOffset >= 0 ? waveMaxEscapeAngles[slot * 2] : waveMaxEscapeAngles[slot * 2 + 1];
+        double guessFactor = maxEscapeAngle == 0 ? 0 : Math.max(-1, Math.min(1, lateralOffset / maxEscapeAngle));
+        System.arraycopy(waveFeatures, slot * DIMENSIONS, features, 0, DIMENSIONS);
+        waveTrees[slot].add(features, guessFactor);
+        waveTrees[slot] = null;
+        freeSlots[freeSlotsCount++] = slot;
+    }
+
+    @Override
+    public void onWaveDiscarded(int slot) {
+        waveTrees[slot] = null;
+        freeSlots[freeSlotsCount++] = slot;
+    }
+
+    @Override
+    public GunStrategy getGunStrategy() {
+        return GunStrategy.KNN;
+    }
+
+    /**
+     * The same angle as {@link #onScannedRobot(ScannedRobotEvent)} would aim, but without changing any state.
+     */
+    @Override
+    public double reckonFiringAngle(ScannedRobotEvent scannedRobotEvent, double bulletPower) {
+        double enemyAbsoluteBearing = robotState.getHeadingRadians() + scannedRobotEvent.getBearingRadians();
+        EnemyData enemyData = enemiesData.get(scannedRobotEvent.getName());
+        if (enemyData == null || enemyData.tree.size() == 0) {
+            return enemyAbsoluteBearing;
+        }
+        double bulletVelocity = GunUtils.reckonBulletVelocity(bulletPower);
+        reckonFeatures(scannedRobotEvent, enemyData, bulletVelocity, features);
+        int count = enemyData.tree.findNearest(features, NEIGHBOURS, neighbourIndexes, neighbourDistancesSq);
+        double enemyX = robotState.getX() + Math.sin(enemyAbsoluteBearing) * scannedRobotEvent.getDistance();
+        double enemyY = robotState.getY() + Math.cos(enemyAbsoluteBearing) * scannedRobotEvent.getDistance();
+        reckonMaxEscapeAngles(enemyX, enemyY, bulletPower, enemyData.lateralDirection, maxEscapeAngles);
+        /** The two sides of the wave have different escape angles, so the bandwidth is approximated with the classic escape angle. */
+        double bandwidth = Math.atan(HALF_ROBOT_SIZE / Math.max(HALF_ROBOT_SIZE, scannedRobotEvent.getDistance())) / MaxEscapeAngleService.reckonMaxEscapeAngle(bulletVelocity);
+        double guessFactor = reckonBestGuessFactor(enemyData.tree, count, bandwidth);
+        double maxEscapeAngle = guessFactor >= 0 ? maxEscapeAngles[0] : maxEscapeAngles[1];
+        return enemyAbsoluteBearing + guessFactor * enemyData.lateralDirection * maxEscapeAngle;
+    }
+
+    /**
+     * Kernel density estimation: each neighbour votes for the guess factors around its own one (a Gaussian kernel with the width of the enemy),
+     * closer neighbours have bigger votes. The neighbour's guess factor with the highest density is chosen.
+     *
+     * @param tree
+     * @param count     the number of found neighbours in {@link #neighbourIndexes}.
+     * @param bandwidth the width of the kernel in guess factor.
+     * @return the best guess factor.
+     */
+    private double reckonBestGuessFactor(KdTree tree, int count, double bandwidth) {
+        double bestGuessFactor = 0;
+        double bestDensity = Double.NEGATIVE_INFINITY;
+        for (int i = 0; i < count; i++) {
+            double guessFactor = tree.getValue(neighbourIndexes[i]);
+            double density = 0;
+            for (int j = 0; j < count; j++) {
+                double delta = (guessFactor - tree.getValue(neighbourIndexes[j])) / bandwidth;
+                density += Math.exp(-0.5 * delta * delta) / (1 + Math.sqrt(neighbourDistancesSq[j]));
+            }
+            if (density > bestDensity) {
+                bestDensity = density;
+                bestGuessFactor = guessFactor;
+            }
+        }
+        return bestGuessFactor;
+    }
+
+    /**
+     * @param features the result: the weighted features of the enemy's current situation.
+     */
+    private void reckonFeatures(ScannedRobotEvent scannedRobotEvent, EnemyData enemyData, double bulletVelocity, double[] features) {
+        double enemyAbsoluteBearing = robotState.getHeadingRadians() + scannedRobotEvent.getBearingRadians();
+        double distance = scannedRobotEvent.getDistance();
+        double velocity = scannedRobotEvent.getVelocity();
+        double lateralVelocity = velocity * Math.sin(scannedRobotEvent.getHeadingRadians() - enemyAbsoluteBearing);
+        double acceleration = Math.abs(velocity) - Math.abs(enemyData.previousVelocity);
+        double enemyX = robotState.getX() + Math.sin(enemyAbsoluteBearing) * distance;
+        double enemyY = robotState.getY() + Math.cos(enemyAbsoluteBearing) * distance;
+        double wallDistance = Math.min(Math.min(enemyX, robotState.getBattleFieldWidth() - enemyX), Math.min(enemyY, robotState.getBattleFieldHeight() - enemyY));
+        double halfBattleFieldSize = Math.min(robotState.getBattleFieldWidth(), robotState.getBattleFieldHeight()) / 2;
+        double ticksSinceDirectionChange = robotState.getTime() - enemyData.lastDirectionChangeTime;
+        double bulletFlightTicks = distance / bulletVelocity;
+
+        features[0] = Math.min(1, distance / MAX_FEATURE_DISTANCE) * FEATURE_WEIGHTS[0];
+        features[1] = Math.min(1, Math.abs(lateralVelocity) / 8) * FEATURE_WEIGHTS[1];
+        /** From -2 (full deceleration) to 1 (full acceleration). */
+        features[2] = (Math.max(-2, Math.min(1, acceleration)) + 2) / 3 * FEATURE_WEIGHTS[2];
+        features[3] = Math.max(0, Math.min(1, wallDistance / halfBattleFieldSize)) * FEATURE_WEIGHTS[3];
+        features[4] = Math.min(1, ticksSinceDirectionChange / bulletFlightTicks) * FEATURE_WEIGHTS[4];
+    }
+
+    /**
+     * @return 1 if the enemy is moving clockwise around our robot, -1 if counter-clockwise. If it's not moving sideways, its last direction is kept.
+     */
+    private double reckonLateralDirection(ScannedRobotEvent scannedRobotEvent, EnemyData enemyData) {
+        double enemyAbsoluteBearing = robotState.getHeadingRadians() + scannedRobotEvent.getBearingRadians();
+        double lateralVelocity = scannedRobotEvent.getVelocity() * Math.sin(scannedRobotEvent.getHeadingRadians() - enemyAbsoluteBearing);
+        return lateralVelocity == 0 ? enemyData.lateralDirection : GeoMathUtils.sign(lateralVelocity);
+    }
+
+    /**
+     * @param result result[0]: the max escape angle in the lateral direction, result[1]: in the opposite direction.
+     */
+    private void reckonMaxEscapeAngles(double enemyX, double enemyY, double bulletPower, double lateralDirection, double[] result) {
+        maxEscapeAngleService.reckonMaxEscapeAngles(robotState.getX(), robotState.getY(), enemyX, enemyY, bulletPower, result);
+        if (lateralDirection < 0) {
+            double clockwiseMaxEscapeAngle = result[0];
+            result[0] = result[1];
+            result[1] = clockwiseMaxEscapeAngle;
+        }
+    }
+
+    private static EnemyData getEnemyData(String enemyName) {
+        EnemyData enemyData = enemiesData.get(enemyName);
+        if (enemyData == null) {
+            enemyData = new EnemyData();
+            enemiesData.put(enemyName, enemyData);
+        }
+        return enemyData;
+    }
+
+    private int allocateSlot() {
+        if (freeSlotsCount > 0) {
+            return freeSlots[--freeSlotsCount];
+        }
+        if (usedSlotsCount == waveTrees.length) {
+            int newCapacity = waveTrees.length * 2;
+            waveFeatures = Arrays.copyOf(waveFeatures, newCapacity * DIMENSIONS);
+            waveMaxEscapeAngles = Arrays.copyOf(waveMaxEscapeAngles, newCapacity * 2);
+            waveTrees = Arrays.copyOf(waveTrees, newCapacity);
+            freeSlots = Arrays.copyOf(freeSlots, newCapacity);
+        }
+        return usedSlotsCount++;
+    }
+
+    /**
+     * @return the number of stored waves of the enemy.
+     */
+    public static int countWaves(String enemyName) {
+        EnemyData enemyData = enemiesData.get(enemyName);
+        return enemyData == null ? 0 : enemyData.tree.size();
+    }
+
+    private static class EnemyData {
+        private final KdTree tree = new KdTree(DIMENSIONS, MAX_WAVES_PER_ENEMY);
+        /**
+         * The velocity at the scan before the latest one.
+         */
+        private double previousVelocity = 0;
+        private double velocity = 0;
+        private double lateralDirection = 1;
+        private long lastDirectionChangeTime = 0;
+        private long updatedTime = -1;
+
+        private void update(ScannedRobotEvent scannedRobotEvent, double newLateralDirection, long time) {
+            if (time == updatedTime) {
+                return;
+            }
+            if (newLateralDirection != lateralDirection || time < updatedTime) {
+                /** The time is smaller when a new round starts. */
+                lastDirectionChangeTime = time;
+            }
+            updatedTime = time;
+            lateralDirection = newLateralDirection;
+            previousVelocity = velocity;
+            velocity = scannedRobotEvent.getVelocity();
+        }
+    }
+}
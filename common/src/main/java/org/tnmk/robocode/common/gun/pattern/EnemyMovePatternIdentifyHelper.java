@@ -2,7 +2,6 @@ package org.tnmk.robocode.common.gun.pattern;
 
 import java.awt.geom.Point2D;
 import java.awt.geom.Rectangle2D;
-import java.util.List;
 import java.util.Optional;
 import org.tnmk.robocode.common.helper.BattleFieldUtils;
 import org.tnmk.robocode.common.helper.prediction.EnemyPrediction;
@@ -30,7 +29,7 @@ public class EnemyMovePatternIdentifyHelper {
      */
     public static void identifyEnemyPatternIfNecessary(long predictionTime, EnemyStatisticContext enemyStatisticContext) {
 //        if (!hasNewIdentifiedPattern(predictionTime, enemyStatisticContext) && hasEnoughReliableHistoryData(enemyStatisticContext)) {
-        if (hasEnoughReliableHistoryData(enemyStatisticContext)) {
+        if (hasEnoughReliableHistoryData(enemyStatisticContext) && hasNewScanSinceLastIdentification(enemyStatisticContext)) {
             Optional<EnemyMovePattern> historicalPatternOptional = EnemyMovePatternIdentifyHelper.predictHistoricalPattern(enemyStatisticContext);
 //            System.out.println("Historical Prediction: Enemy name: " + enemyStatisticContext.getEnemyName() + ", historicalPattern: " + historicalPatternOptional.get() + ", historySize: " + enemyStatisticContext.getEnemyHistory().countHistoryItems());
             if (historicalPatternOptional.isPresent()) {
@@ -60,6 +59,14 @@ public class EnemyMovePatternIdentifyHelper {
         }
     }
 
+    /**
+     * The identification only depends on history data, so if there's no new scan since the last identification, the result will be the same.
+     */
+    private static boolean hasNewScanSinceLastIdentification(EnemyStatisticContext enemyStatisticContext) {
+        PatternIdentification patternIdentification = enemyStatisticContext.getPatternIdentification();
+        return patternIdentification == null || enemyStatisticContext.getEnemyHistory().getLatestHistoryItem().getTime() > patternIdentification.getPredictionTime();
+    }
+
     private static boolean hasEnoughReliableHistoryData(EnemyStatisticContext enemyStatisticContext) {
         return enemyStatisticContext.getEnemyHistory().countHistoryItems() >= MIN_HISTORY_ITEMS_FOR_PREDICTION;
     }
@@ -76,7 +83,7 @@ public class EnemyMovePatternIdentifyHelper {
             return Optional.empty();
         } else {
             Rectangle2D battleField = BattleFieldUtils.constructBattleField(enemyStatisticContext.getRobot());
-            HistoricalPredictionResult historicalPredictionResult = predictAtTheTimeOfAnExpectedHistoryItem(enemyHistory, 3, 0, battleField);
+            HistoricalPredictionResult historicalPredictionResult = predictAtTheTimeOfAnExpectedHistoryItem(enemyStatisticContext, 3, 0, battleField);
 //            System.out.println("Enemy: "+enemyStatisticContext.getEnemyName()+", historicalPrediction: "+historicalPredictionResult.enemyPrediction);
             EnemyPrediction enemyPrediction = toEnemyPrediction(historicalPredictionResult);
             if (enemyPredictionHistory.isNewerCurrentHistoryItems(enemyPrediction)) {
@@ -116,25 +123,20 @@ public class EnemyMovePatternIdentifyHelper {
      * It just do prediction and return the data.
      * </pre>
      *
-     * @param enemyHistory
+     * @param enemyStatisticContext
      * @param newestHistoryIndexForPrediction the index of history item we will use to do prediction (and also include older history items).
      *                                        This number must be less than {@link #MIN_HISTORY_ITEMS_FOR_PREDICTION} - 1
      * @param expectComparisionHistoryIndex   the index of history item will be used to get the predictionTiem. Then we hope that the prediction result at that time will match with the actual recored result at that time. Of courses, this index must be less (newer) than predictSinceHistoryItemIndex.
      * @return get history items with `predictSinceHistoryItemIndex` (and older history data), do prediction and then compare result with the history item with 'compareToActualHistoryItemIndex'
      */
-    private static HistoricalPredictionResult predictAtTheTimeOfAnExpectedHistoryItem(EnemyHistory enemyHistory, int newestHistoryIndexForPrediction, int expectComparisionHistoryIndex, Rectangle2D enemyMovementArea) {
-        List<Enemy> enemyList = enemyHistory.getLatestHistoryItems(newestHistoryIndexForPrediction + IDEAL_HISTORY_ITEMS_FOR_PREDICTION);
-        List<Enemy> itemsToDoPrediction = enemyList.subList(newestHistoryIndexForPrediction, enemyList.size());
-
-        Enemy newestItemForPrediction = itemsToDoPrediction.get(0);
-        Enemy expectedEnemyData = enemyList.get(expectComparisionHistoryIndex);
-
-        long timeOfNewestItemForPrediction = newestItemForPrediction.getTime();
-        long itemOfExpectComparision = expectedEnemyData.getTime();
+    private static HistoricalPredictionResult predictAtTheTimeOfAnExpectedHistoryItem(EnemyStatisticContext enemyStatisticContext, int newestHistoryIndexForPrediction, int expectComparisionHistoryIndex, Rectangle2D enemyMovementArea) {
+        EnemyTelemetry enemyTelemetry = enemyStatisticContext.getEnemyTelemetry();
+        long timeOfNewestItemForPrediction = enemyTelemetry.getTime(newestHistoryIndexForPrediction);
+        long itemOfExpectComparision = enemyTelemetry.getTime(expectComparisionHistoryIndex);
         long deltaTimeBetweenPredictionAndActual = itemOfExpectComparision - timeOfNewestItemForPrediction;
 
-        EnemyPrediction enemyPrediction = PatternPredictionUtils.predictEnemy(itemsToDoPrediction, itemOfExpectComparision, enemyMovementArea);
-        Point2D actualEnemyPosition = expectedEnemyData.getPosition();
+        EnemyPrediction enemyPrediction = PatternPredictionUtils.predictEnemy(enemyStatisticContext.getEnemyHistory(), newestHistoryIndexForPrediction, IDEAL_HISTORY_ITEMS_FOR_PREDICTION, itemOfExpectComparision, enemyMovementArea);
+        Point2D actualEnemyPosition = new Point2D.Double(enemyTelemetry.getX(expectComparisionHistoryIndex), enemyTelemetry.getY(expectComparisionHistoryIndex));
         return new HistoricalPredictionResult(enemyPrediction, actualEnemyPosition, deltaTimeBetweenPredictionAndActual, timeOfNewestItemForPrediction);
     }
 
@@ -66,7 +66,7 @@ public class PatternGun implements LoopableRun, OnScannedRobotControl {
 
         /**Turn the gun to the correct angle**/
         robot.setTurnGunLeftRadians(aimPrediction.getGunTurnLeftRadian());
-        gunStateContext.saveSateAimGun(GunStrategy.PATTERN_PREDICTION, bulletPower, enemyHistory.getName());
+        gunStateContext.saveSateAimGun(GunStrategy.PATTERN_PREDICTION, bulletPower, enemyHistory.getName(), allEnemiesObservationContext.getEnemyId(enemyHistory.getName()));
 //                LogHelper.logSimple(robot, "AimGun(YES): enemyName: " + enemyStatisticContext.getEnemyName() + ", gunStrategy: " + gunStateContext.getGunStrategy() +
 //                        "\n\tidentifiedPattern: " + patternIdentification +
 //                        "\n\tnewPrediction: " + enemyPrediction +
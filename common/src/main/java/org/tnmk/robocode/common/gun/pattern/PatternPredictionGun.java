@@ -5,9 +5,13 @@ import java.awt.geom.Rectangle2D;
 import java.util.List;
 import org.tnmk.common.math.AngleUtils;
 import org.tnmk.robocode.common.constant.RobotPhysics;
+import org.tnmk.robocode.common.gun.EnemyTrajectory;
 import org.tnmk.robocode.common.gun.GunStateContext;
 import org.tnmk.robocode.common.gun.GunStrategy;
 import org.tnmk.robocode.common.gun.GunUtils;
+import org.tnmk.robocode.common.gun.InterceptSolution;
+import org.tnmk.robocode.common.gun.InterceptSolver;
+import org.tnmk.robocode.common.gun.virtual.VirtualGun;
 import org.tnmk.robocode.common.helper.BattleFieldUtils;
 import org.tnmk.robocode.common.helper.prediction.EnemyPrediction;
 import org.tnmk.robocode.common.helper.prediction.RobotPrediction;
@@ -18,6 +22,9 @@ import org.tnmk.robocode.common.model.enemy.*;
 import org.tnmk.robocode.common.radar.AllEnemiesObservationContext;
 import org.tnmk.robocode.common.robot.LoopableRun;
 import org.tnmk.robocode.common.robot.OnScannedRobotControl;
+import org.tnmk.robocode.common.robot.budget.CpuBudgetGovernor;
+import org.tnmk.robocode.common.robot.budget.QualityKnob;
+import org.tnmk.robocode.common.robot.state.AdvanceRobotState;
 import org.tnmk.robocode.common.robotdecorator.HiTechDecorator;
 import robocode.AdvancedRobot;
 import robocode.ScannedRobotEvent;
@@ -30,17 +37,33 @@ import robocode.ScannedRobotEvent;
  * But anyway, that's not my priority at this moment.
  * </pre>
  */
-public class PatternPredictionGun implements LoopableRun, OnScannedRobotControl {
+public class PatternPredictionGun implements LoopableRun, OnScannedRobotControl, VirtualGun {
     private static final int ENEMY_PREDICTION_TIMES = 3;
+    /**
+     * The number of latest history items which are used to predict enemy's position.
+     */
+    private static final int PREDICTION_HISTORY_ITEMS = 5;
 
     private final AdvancedRobot robot;
+    /**
+     * The per-tick snapshot of our robot, it's refilled by the robot at the beginning of each turn.
+     */
+    private final AdvanceRobotState robotState;
     private final AllEnemiesObservationContext allEnemiesObservationContext;
     private final GunStateContext gunStateContext;
+    private final CpuBudgetGovernor cpuBudgetGovernor;
+    private final InterceptSolver interceptSolver = new InterceptSolver();
+    /**
+     * The maximum number of passes to refine the time for turning the gun, view {@link #predictEnemyPositionWhenBulletReachEnemy(AdvancedRobot, EnemyStatisticContext, double)}.
+     */
+    private final QualityKnob predictionPassesKnob = new QualityKnob("patternPredictionPasses", 1, ENEMY_PREDICTION_TIMES);
 
-    public PatternPredictionGun(AdvancedRobot robot, AllEnemiesObservationContext allEnemiesObservationContext, GunStateContext gunStateContext) {
+    public PatternPredictionGun(AdvancedRobot robot, AdvanceRobotState robotState, AllEnemiesObservationContext allEnemiesObservationContext, GunStateContext gunStateContext, CpuBudgetGovernor cpuBudgetGovernor) {
         this.robot = robot;
+        this.robotState = robotState;
         this.allEnemiesObservationContext = allEnemiesObservationContext;
         this.gunStateContext = gunStateContext;
+        this.cpuBudgetGovernor = cpuBudgetGovernor;
     }
 
     @Override
@@ -49,7 +72,7 @@ public class PatternPredictionGun implements LoopableRun, OnScannedRobotControl
         EnemyStatisticContext enemyStatisticContext = allEnemiesObservationContext.getEnemyPatternPrediction(enemyName);
         Enemy enemy = enemyStatisticContext.getEnemyHistory().getLatestHistoryItem();
         double patternCertainty = enemyStatisticContext.getPatternIdentification().getCertainty();
-        double bulletPower = BulletPowerHelper.reckonBulletPower(enemy.getDistance(), patternCertainty, robot.getOthers(), robot.getEnergy());
+        double bulletPower = BulletPowerHelper.reckonBulletPower(enemy.getDistance(), patternCertainty, robotState.getOthers(), robotState.getEnergy());
         if (DebugHelper.isDebugGunStrategy()) {
             LogHelper.logSimple(robot, "Aim Pattern: " + enemyStatisticContext.getPatternIdentification() + ", enemy: " + enemyName + ", bulletPower: " + bulletPower + ", distance: " + enemy.getDistance());
         }
@@ -68,7 +91,7 @@ public class PatternPredictionGun implements LoopableRun, OnScannedRobotControl
             EnemyHistory enemyHistory = enemyStatisticContext.getEnemyHistory();
             PatternIdentification patternIdentification = enemyStatisticContext.getPatternIdentification();
 
-            AimPrediction aimPrediction= predictEnemyPositionWhenBulletReachEnemy(robot, enemyHistory, bulletPower);
+            AimPrediction aimPrediction= predictEnemyPositionWhenBulletReachEnemy(robot, enemyStatisticContext, bulletPower);
             EnemyPrediction enemyPrediction = aimPrediction.getEnemyPrediction();
 //            LogHelper.logRobotMovement(robot, "Future prediction: Enemy name: " + enemyStatisticContext.getEnemyName() + ", predictionPattern: " + enemyPrediction.getEnemyMovePattern() + ", historySize: " + enemyStatisticContext.getEnemyHistory().countHistoryItems());
 
@@ -83,7 +106,7 @@ public class PatternPredictionGun implements LoopableRun, OnScannedRobotControl
                 /**Turn the gun to the correct angle**/
                 //double gunBearing = GunUtils.reckonTurnGunLeftNormRadian(robotPosition, enemyPosition, robot.getGunHeadingRadians());
                 robot.setTurnGunLeftRadians(aimPrediction.getGunTurnLeftRadian());
-                gunStateContext.saveSateAimGun(GunStrategy.PATTERN_PREDICTION, bulletPower, enemyHistory.getName());
+                gunStateContext.saveSateAimGun(GunStrategy.PATTERN_PREDICTION, bulletPower, enemyHistory.getName(), allEnemiesObservationContext.getEnemyId(enemyHistory.getName()));
 //                LogHelper.logSimple(robot, "AimGun(YES): enemyName: " + enemyStatisticContext.getEnemyName() + ", gunStrategy: " + gunStateContext.getGunStrategy() +
 //                        "\n\tidentifiedPattern: " + patternIdentification +
 //                        "\n\tnewPrediction: " + enemyPrediction +
@@ -111,41 +134,45 @@ public class PatternPredictionGun implements LoopableRun, OnScannedRobotControl
     }
 
 
-    private AimPrediction predictEnemyPositionWhenBulletReachEnemy(AdvancedRobot robot, EnemyHistory enemyHistory, double firePower) {
-        EnemyPrediction enemyPrediction = null;
-        List<Enemy> latestHistoryItems = enemyHistory.getLatestHistoryItems(5);
-        Point2D currentRobotPosition = new Point2D.Double(robot.getX(), robot.getY());
-
-        Rectangle2D battleField = BattleFieldUtils.constructBattleField(robot);
+    /**
+     * The enemy trajectory is created only once, then {@link InterceptSolver} finds the exact time when the bullet reaches the enemy.<br/>
+     * The outer loop is only used to refine the time for turning the gun (which changes our robot position when firing), it stops as soon as that time doesn't change,
+     * or when the tick has used up its CPU budget (view {@link CpuBudgetGovernor#hasRemainingBudget()}).<br/>
+     * Our robot's state is read from {@link #robotState}, except the remaining movement which may be changed by the movement in the same tick.
+     */
+    private AimPrediction predictEnemyPositionWhenBulletReachEnemy(AdvancedRobot robot, EnemyStatisticContext enemyStatisticContext, double firePower) {
+        Point2D currentRobotPosition = robotState.getPosition();
+        Rectangle2D battleField = BattleFieldUtils.constructBattleField(robotState);
+        double distanceRemaining = robot.getDistanceRemaining();
+        double turnRemainingRadians = robot.getTurnRemainingRadians();
 //        debugPredictSelfRobot(robot);
 
-        Point2D enemyPosition = enemyHistory.getLatestHistoryItem().getPosition();
+        EnemyTrajectory enemyTrajectory = PatternPredictionUtils.createTrajectory(enemyStatisticContext.getEnemyHistory(), 0, PREDICTION_HISTORY_ITEMS, battleField);
+        double bulletVelocity = GunUtils.reckonBulletVelocity(firePower);
         long periodForTurningGun = 0;
         double gunBearing = 0;
         Point2D predictRobotPosition = currentRobotPosition;
-        for (int i = 0; i < ENEMY_PREDICTION_TIMES; i++) {//this loop is used to improve the correctness of prediction.
-            RobotPrediction robotPrediction = RobotPredictionHelper.predictPosition(periodForTurningGun, currentRobotPosition, robot.getVelocity(), robot.getDistanceRemaining(), robot.getHeadingRadians(), robot.getTurnRemainingRadians());
+        InterceptSolution interceptSolution = null;
+        int predictionPasses = predictionPassesKnob.getLevel();
+        for (int i = 0; i < predictionPasses; i++) {//this loop is used to improve the correctness of prediction.
+            if (i > 0 && !cpuBudgetGovernor.hasRemainingBudget()) {
+                break;
+            }
+            RobotPrediction robotPrediction = RobotPredictionHelper.predictPosition(periodForTurningGun, currentRobotPosition, robotState.getVelocity(), distanceRemaining, robotState.getHeadingRadians(), turnRemainingRadians);
             predictRobotPosition = robotPrediction.getPosition();
-//            String message = String.format("Predict at time %s, position {%.2f, %.2f}", (robot.getTime() + periodForTurningGun), predictRobotPosition.getX(), predictRobotPosition.getY());
-//            LogHelper.logRobotMovement(robot, message);
-
-            double distanceRobotToEnemy = predictRobotPosition.distance(enemyPosition);
-            double bulletVelocity = GunUtils.reckonBulletVelocity(firePower);
-            long periodForBulletToReachEnemy = (long) Math.ceil(Math.abs(distanceRobotToEnemy / bulletVelocity));
-
-            gunBearing = GunUtils.reckonTurnGunLeftNormRadian(predictRobotPosition, enemyPosition, robot.getGunHeadingRadians());
-            periodForTurningGun = (long) Math.ceil(Math.abs(gunBearing / AngleUtils.toRadian(RobotPhysics.GUN_TURN_VELOCITY)));
-            long totalPeriodGun = periodForTurningGun + periodForBulletToReachEnemy;
-            long timeWhenBulletReachEnemy = robot.getTime() + Math.round(totalPeriodGun);
 
-            enemyPrediction = PatternPredictionUtils.predictEnemy(latestHistoryItems, timeWhenBulletReachEnemy, battleField);
-            enemyPosition = enemyPrediction.getPredictionPosition();
+            interceptSolution = interceptSolver.solve(enemyTrajectory, predictRobotPosition, robotState.getTime() + periodForTurningGun, bulletVelocity);
+            gunBearing = GunUtils.reckonTurnGunLeftNormRadian(predictRobotPosition, interceptSolution.getInterceptPosition(), robotState.getGunHeadingRadians());
+            long newPeriodForTurningGun = (long) Math.ceil(Math.abs(gunBearing / AngleUtils.toRadian(RobotPhysics.GUN_TURN_VELOCITY)));
+            if (newPeriodForTurningGun == periodForTurningGun) {
+                break;
+            }
+            periodForTurningGun = newPeriodForTurningGun;
         }
-        if (enemyPrediction == null) {
-            throw new IllegalStateException("Enemy Prediction should never be null");
+        if (interceptSolution == null) {
+            throw new IllegalStateException("Intercept solution should never be null");
         }
-//        debugPredictEnemy(latestHistoryItems);
-
+        EnemyPrediction enemyPrediction = enemyTrajectory.predict(Math.round(interceptSolution.getInterceptTime()));
 //        String message = String.format("Final predict enemy at %s, position {%.2f, %.2f}", enemyPrediction.getTime(), enemyPrediction.getPosition().getX(), enemyPrediction.getPosition().getY());
 //        LogHelper.logRobotMovement(robot, message);
         return new AimPrediction(enemyPrediction, predictRobotPosition, gunBearing);
@@ -174,4 +201,28 @@ public class PatternPredictionGun implements LoopableRun, OnScannedRobotControl
     public void runLoop() {
         GunUtils.fireBulletWhenFinishAiming(robot, gunStateContext, HiTechDecorator.BULLET_COLOR);
     }
+
+    @Override
+    public GunStrategy getGunStrategy() {
+        return GunStrategy.PATTERN_PREDICTION;
+    }
+
+    /**
+     * Aim at the same predicted enemy position as {@link #onScannedRobot(ScannedRobotEvent)}, but without adding the prediction into the history or turning the gun.<br/>
+     * The real gun aims from our predicted position after turning the gun, but a virtual wave starts from our current position,
+     * so the angle is reckoned from our current position. Otherwise our own movement would be scored as the gun's error.
+     */
+    @Override
+    public double reckonFiringAngle(ScannedRobotEvent scannedRobotEvent, double bulletPower) {
+        EnemyStatisticContext enemyStatisticContext = allEnemiesObservationContext.getEnemyPatternPrediction(scannedRobotEvent.getName());
+        if (enemyStatisticContext == null || enemyStatisticContext.getEnemyHistory().countHistoryItems() < PREDICTION_HISTORY_ITEMS) {
+            return Double.NaN;
+        }
+        AimPrediction aimPrediction = predictEnemyPositionWhenBulletReachEnemy(robot, enemyStatisticContext, bulletPower);
+        return GunUtils.reckonAbsoluteBearingRadian(robotState.getPosition(), aimPrediction.getEnemyPrediction().getPredictionPosition());
+    }
+
+    public QualityKnob getPredictionPassesKnob() {
+        return predictionPassesKnob;
+    }
 }
@@ -1,12 +1,12 @@
 package org.tnmk.robocode.common.gun.pattern;
 
-import org.tnmk.common.math.AngleUtils;
 import org.tnmk.common.math.GeoMathUtils;
-import org.tnmk.robocode.common.helper.Move2DUtils;
+import org.tnmk.robocode.common.gun.EnemyTrajectory;
 import org.tnmk.robocode.common.helper.prediction.EnemyPrediction;
 import org.tnmk.robocode.common.log.LogHelper;
 import org.tnmk.robocode.common.model.enemy.Enemy;
 import org.tnmk.robocode.common.model.enemy.EnemyHistoryUtils;
+import org.tnmk.robocode.common.model.enemy.EnemyHistory;
 
 import java.awt.geom.Point2D;
 import java.awt.geom.Rectangle2D;
@@ -34,6 +34,23 @@ public class PatternPredictionUtils {
         return PatternPredictionUtils.predictEnemy(enemy, avgVelocity, avgChangeHeadingRadian, predictionTime, enemyMovementArea);
     }
 
+    /**
+     * The same as {@link #predictEnemy(List, long, Rectangle2D)}, but the average values are calculated in O(1) by {@link EnemyHistory#getMovementStatistics()}.
+     *
+     * @param enemyHistory      must be not empty
+     * @param newestAgeIndex    the ageIndex of the newest item used for prediction (0 is the latest item).
+     * @param itemsCount        the number of items (from newestAgeIndex to older items) used for prediction.
+     * @param predictionTime    when is the time that we think the bullet will reach the target.
+     * @param enemyMovementArea the area enemy always moving inside. It never move to outside this area (usually the battle field).
+     * @return guess new enemy's position and also identify pattern at the predictionTime.
+     */
+    public static EnemyPrediction predictEnemy(EnemyHistory enemyHistory, int newestAgeIndex, int itemsCount, long predictionTime, Rectangle2D enemyMovementArea) {
+        Enemy enemy = enemyHistory.getHistoryItem(newestAgeIndex);
+        double avgChangeHeadingRadian = EnemyHistoryUtils.averageChangeHeadingRadian(enemyHistory, newestAgeIndex, itemsCount);
+        double avgVelocity = EnemyHistoryUtils.averageVelocity(enemyHistory, newestAgeIndex, itemsCount);
+        return predictEnemy(enemy, avgVelocity, avgChangeHeadingRadian, predictionTime, enemyMovementArea);
+    }
+
     /**
      * @param enemy                  latest data in history
      * @param avgChangeHeadingRadian average changing heading of the enemy based recent history items.
@@ -42,44 +59,39 @@ public class PatternPredictionUtils {
      * @return guess new enemy's position and moving pattern at the predictionTime based on the latest enemy data and average changing heading.
      */
     public static EnemyPrediction predictEnemy(Enemy enemy, double avgVelocity, double avgChangeHeadingRadian, long predictionTime, Rectangle2D enemyMovementArea) {
-        double diff = predictionTime - enemy.getTime();
-        double newX, newY;
+        return predictEnemy(enemy.getPosition().getX(), enemy.getPosition().getY(), enemy.getHeading(), enemy.getVelocity(), enemy.getTime(), avgVelocity, avgChangeHeadingRadian, predictionTime, enemyMovementArea);
+    }
 
-        EnemyMovePattern enemyMovePattern;
-        /**if there is a significant change in heading, use circular path prediction**/
-        double enemyHeadingRadian = AngleUtils.toRadian(enemy.getHeading());
-        if (Math.abs(avgChangeHeadingRadian) > 0.00001) {
-            enemyMovePattern = EnemyMovePattern.CIRCULAR;
-            double radius = avgVelocity / avgChangeHeadingRadian;
-            double totalChangeHeadingRadian = diff * avgChangeHeadingRadian;
-            newY = enemy.getPosition().getY() +
-                    Math.sin(enemyHeadingRadian + totalChangeHeadingRadian) * radius -
-                    Math.sin(enemyHeadingRadian) * radius
-            ;
-            newX = enemy.getPosition().getX() + (Math.cos(enemyHeadingRadian) * radius) - (Math.cos(enemyHeadingRadian + totalChangeHeadingRadian) * radius);
-        }
-        /**if the change in heading is insignificant, use linear path prediction**/
-        else {
-            if (avgVelocity < 1) {
-                enemyMovePattern = EnemyMovePattern.STAY_STILL;
-                newY = enemy.getPosition().getY();
-                newX = enemy.getPosition().getX();
-            } else {
-                enemyMovePattern = EnemyMovePattern.LINEAR;
-                newY = enemy.getPosition().getY() + Math.cos(enemyHeadingRadian) * enemy.getVelocity() * diff;
-                newX = enemy.getPosition().getX() + Math.sin(enemyHeadingRadian) * enemy.getVelocity() * diff;
-            }
-        }
-        Point2D predictionPosition = new Point2D.Double(newX, newY);
-        predictionPosition = Move2DUtils.reckonMaximumDestination(enemy.getPosition(), predictionPosition, enemyMovementArea);
-        debugPredictionPositionOutsideBattleField(enemy, predictionPosition, enemyMovementArea);
-        EnemyPrediction patternPredictionResult = new EnemyPrediction(enemyMovePattern, predictionTime, predictionPosition, avgChangeHeadingRadian, avgVelocity);
+    /**
+     * @param enemyX        latest x of the enemy in history
+     * @param enemyY        latest y of the enemy in history
+     * @param enemyHeading  latest heading (degree) of the enemy in history
+     * @param enemyVelocity latest velocity of the enemy in history
+     * @param enemyTime     the time of the latest data in history
+     * @return view {@link #predictEnemy(Enemy, double, double, long, Rectangle2D)}
+     */
+    private static EnemyPrediction predictEnemy(double enemyX, double enemyY, double enemyHeading, double enemyVelocity, long enemyTime, double avgVelocity, double avgChangeHeadingRadian, long predictionTime, Rectangle2D enemyMovementArea) {
+        EnemyTrajectory enemyTrajectory = new EnemyTrajectory(enemyX, enemyY, enemyHeading, enemyVelocity, enemyTime, avgVelocity, avgChangeHeadingRadian, enemyMovementArea);
+        EnemyPrediction patternPredictionResult = enemyTrajectory.predict(predictionTime);
+        debugPredictionPositionOutsideBattleField(new Point2D.Double(enemyX, enemyY), patternPredictionResult.getPredictionPosition(), enemyMovementArea);
         return patternPredictionResult;
     }
 
-    private static void debugPredictionPositionOutsideBattleField(Enemy enemy, Point2D predictionPosition, Rectangle2D enemyMovementArea) {
+    /**
+     * Same parameters as {@link #predictEnemy(EnemyHistory, int, int, long, Rectangle2D)}.
+     *
+     * @return the trajectory of the enemy, so that its position can be predicted at many different times without recalculating average values.
+     */
+    public static EnemyTrajectory createTrajectory(EnemyHistory enemyHistory, int newestAgeIndex, int itemsCount, Rectangle2D enemyMovementArea) {
+        Enemy enemy = enemyHistory.getHistoryItem(newestAgeIndex);
+        double avgChangeHeadingRadian = EnemyHistoryUtils.averageChangeHeadingRadian(enemyHistory, newestAgeIndex, itemsCount);
+        double avgVelocity = EnemyHistoryUtils.averageVelocity(enemyHistory, newestAgeIndex, itemsCount);
+        return new EnemyTrajectory(enemy.getPosition().getX(), enemy.getPosition().getY(), enemy.getHeading(), enemy.getVelocity(), enemy.getTime(), avgVelocity, avgChangeHeadingRadian, enemyMovementArea);
+    }
+
+    private static void debugPredictionPositionOutsideBattleField(Point2D enemyPosition, Point2D predictionPosition, Rectangle2D enemyMovementArea) {
         if (!GeoMathUtils.checkInsideRectangle(predictionPosition, enemyMovementArea)) {
-            String message = String.format("This case should never happens. Predict position's outside battle field: from:" + LogHelper.toString(enemy.getPosition()) + ", to:" + LogHelper.toString(predictionPosition) + ", area:" + LogHelper.toString(enemyMovementArea));
+            String message = String.format("This case should never happens. Predict position's outside battle field: from:" + LogHelper.toString(enemyPosition) + ", to:" + LogHelper.toString(predictionPosition) + ", area:" + LogHelper.toString(enemyMovementArea));
             System.out.println(message);
         }
     }
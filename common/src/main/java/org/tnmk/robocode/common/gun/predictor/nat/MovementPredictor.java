@@ -4,12 +4,14 @@ import java.awt.geom.Point2D;
 import java.util.ArrayList;
 import java.util.List;
 
+import org.tnmk.robocode.common.helper.prediction.PhysicsKernel;
 import robocode.Rules;
 import robocode.util.Utils;
 
 /**
  * http://robowiki.net/wiki/User:Nat/Free_code#Movement_Predictor MoveController
- * Predictor, also known as Precise Predictor
+ * Predictor, also known as Precise Predictor<br/>
+ * The turn rate and velocity are calculated by {@link PhysicsKernel}.
  */
 public class MovementPredictor {
 	public static class PredictionStatus extends Point2D.Double {
@@ -181,11 +183,11 @@ public class MovementPredictor {
 		goAngle = Utils.normalRelativeAngle(goAngle);
 
 		// Max turning rate, taken from Rules class
-		double maxTurning = Math.toRadians(10d - 0.75 * velocity);
+		double maxTurning = Rules.getTurnRateRadians(velocity);
 		heading += limit(-maxTurning, goAngle, maxTurning);
 
 		// Get next velocity
-		velocity = getVelocity(velocity, maxVelocity, distanceRemaining);
+		velocity = PhysicsKernel.reckonNewVelocity(velocity, maxVelocity, distanceRemaining);
 
 		// Calculate new location
 		x += Math.sin(heading) * velocity;
@@ -197,8 +199,7 @@ public class MovementPredictor {
 
 	/**
 	 * This function return the new velocity base on the maximum velocity and
-	 * distance remaining. This is copied from internal bug-fixed Robocode
-	 * engine.
+	 * distance remaining, view {@link PhysicsKernel#reckonNewVelocity(double, double, double)}.
 	 * 
 	 * @param currentVelocity
 	 *            current velocity of the robot
@@ -209,95 +210,7 @@ public class MovementPredictor {
 	 * @return velocity for current tick
 	 */
 	public static double getVelocity(double currentVelocity, double maxVelocity, double distanceRemaining) {
-		if (distanceRemaining < 0) {
-			return -getVelocity(-currentVelocity, maxVelocity, -distanceRemaining);
-		}
-
-		double newVelocity = currentVelocity;
-
-		final double maxSpeed = Math.abs(maxVelocity);
-		final double currentSpeed = Math.abs(currentVelocity);
-
-		// Check if we are decelerating, i.e. if the velocity is negative.
-		// Note that if the speed is too high due to a new max. velocity, we
-		// must also decelerate.
-		if (currentVelocity < 0 || currentSpeed > maxSpeed) {
-			// If the velocity is negative, we are decelerating
-			newVelocity = currentSpeed - Rules.DECELERATION;
-
-			// Check if we are going from deceleration into acceleration
-			if (newVelocity < 0) {
-				// If we have decelerated to velocity = 0, then the remaining
-				// time must be used for acceleration
-				double decelTime = currentSpeed / Rules.DECELERATION;
-				double accelTime = (1 - decelTime);
-
-				// New velocity (v) = d / t, where time = 1 (i.e. 1 turn).
-				// Hence, v = d / 1 => v = d
-				// However, the new velocity must be limited by the max.
-				// velocity
-				newVelocity = Math.min(maxSpeed, Math.min(Rules.DECELERATION * decelTime * decelTime + Rules.ACCELERATION * accelTime * accelTime, distanceRemaining));
-
-				// Note: We change the sign here due to the sign check later
-				// when returning the result
-				currentVelocity *= -1;
-			}
-		} else {
-			// Else, we are not decelerating, but might need to start doing so
-			// due to the remaining distance
-
-			// Deceleration time (t) is calculated by: v = a * t => t = v / a
-			final double decelTime = currentSpeed / Rules.DECELERATION;
-
-			// Deceleration time (d) is calculated by: d = 1/2 a * t^2 + v0 * t
-			// + t
-			// Adding the extra 't' (in the end) is special for Robocode, and v0
-			// is the starting velocity = 0
-			final double decelDist = 0.5 * Rules.DECELERATION * decelTime * decelTime + decelTime;
-
-			// Check if we should start decelerating
-			if (distanceRemaining <= decelDist) {
-				// If the distance < max. deceleration distance, we must
-				// decelerate so we hit a distance = 0
-
-				// Calculate time left for deceleration to distance = 0
-				double time = distanceRemaining / (decelTime + 1); // 1 is added
-				// here due
-				// to the extra 't'
-				// for Robocode
-
-				// New velocity (v) = a * t, i.e. deceleration * time, but not
-				// greater than the current speed
-
-				if (time <= 1) {
-					// When there is only one turn left (t <= 1), we set the
-					// speed to match the remaining distance
-					newVelocity = Math.max(currentSpeed - Rules.DECELERATION, distanceRemaining);
-				} else {
-					// New velocity (v) = a * t, i.e. deceleration * time
-					newVelocity = time * Rules.DECELERATION;
-
-					if (currentSpeed < newVelocity) {
-						// If the speed is less that the new velocity we just
-						// calculated, then use the old speed instead
-						newVelocity = currentSpeed;
-					} else if (currentSpeed - newVelocity > Rules.DECELERATION) {
-						// The deceleration must not exceed the max.
-						// deceleration.
-						// Hence, we limit the velocity to the speed minus the
-						// max. deceleration.
-						newVelocity = currentSpeed - Rules.DECELERATION;
-					}
-				}
-			} else {
-				// Else, we need to accelerate, but only to max. velocity
-				newVelocity = Math.min(currentSpeed + Rules.ACCELERATION, maxSpeed);
-			}
-		}
-
-		// Return the new velocity with the correct sign. We have been working
-		// with the speed, which is always positive
-		return (currentVelocity < 0) ? -newVelocity : newVelocity;
+		return PhysicsKernel.reckonNewVelocity(currentVelocity, maxVelocity, distanceRemaining);
 	}
 
 	public static final double limit(double a, double b, double c) {
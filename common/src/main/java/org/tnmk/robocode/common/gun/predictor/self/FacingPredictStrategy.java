@@ -28,7 +28,7 @@ public class FacingPredictStrategy extends BasePredictStrategy {
 	public PredictedAimAndFireResult predictBestFirePoint(FirePredictRequest firePredictRequest) {
 		PredictedAimAndFireResult result = initResult(firePredictRequest);
 		PredictedFirePoint bestFirePoint = predictPossibleFirePointsWithSmallDifferentAngle(
-				firePredictRequest.getMaxPower(), firePredictRequest.getBeginTarget(),
+				firePredictRequest.getSimulationCache(), firePredictRequest.getMaxPower(), firePredictRequest.getBeginTarget(),
 				firePredictRequest.getAimEstimateResult().getAimedSource(),
 				firePredictRequest.getAimEstimateResult().getAimedTarget() 
 				);
@@ -37,7 +37,7 @@ public class FacingPredictStrategy extends BasePredictStrategy {
 		return result;
 	}
 
-	private PredictedFirePoint predictPossibleFirePointsWithSmallDifferentAngle(int maxPower, BaseRobotState targetState, PredictStateResult predictedAimedSource, PredictStateResult predictedAimedTarget) {
+	private PredictedFirePoint predictPossibleFirePointsWithSmallDifferentAngle(SimulationCache simulationCache, int maxPower, BaseRobotState targetState, PredictStateResult predictedAimedSource, PredictStateResult predictedAimedTarget) {
 		double sourceAndTargetDistance = GeoMathUtils.distance(predictedAimedSource.getPosition(), predictedAimedTarget.getPosition());
 		double targetMoveAngle = predictedAimedTarget.getMoveAngle();
 		double aimAngle = GeoMathUtils.absoluteBearing(predictedAimedSource.getX(), predictedAimedSource.getY(), predictedAimedTarget.getX(), predictedAimedTarget.getY());
@@ -48,17 +48,19 @@ public class FacingPredictStrategy extends BasePredictStrategy {
 		}
 
 		for (int firePower = maxPower; firePower >= GunHelper.BULLET_POWER_02; firePower--) {
-			PredictedFirePoint predictPoint = predictPossibleFirePointsByPowerWithSmallDifferentAngle(firePower, sourceAndTargetDistance, predictedAimedSource, predictedAimedTarget);
+			PredictedFirePoint predictPoint = predictPossibleFirePointsByPowerWithSmallDifferentAngle(simulationCache, firePower, sourceAndTargetDistance, predictedAimedSource, predictedAimedTarget);
 			if (GunHelper.isShouldFireBySteps(firePower, predictPoint.getFireSteps())) {
 				return predictPoint;
 			}
 		}
-		return predictPossibleFirePointsByPowerWithSmallDifferentAngle(GunHelper.BULLET_POWER_01, sourceAndTargetDistance, predictedAimedSource, predictedAimedTarget);
+		return predictPossibleFirePointsByPowerWithSmallDifferentAngle(simulationCache, GunHelper.BULLET_POWER_01, sourceAndTargetDistance, predictedAimedSource, predictedAimedTarget);
 	}
 
 	/**
 	 * If target's moving direction and our robot aiming direction is very the same, use this method
 	 * 
+	 * @param simulationCache
+	 *            shared by all strategies in the same tick
 	 * @param firePower
 	 * @param sourceAndTargetDistance
 	 *            raw estimate source and target distance. It's usally the distance of aimedSource and aimedTarget (target position when source is aimed, not target when it will get fired)
@@ -66,12 +68,12 @@ public class FacingPredictStrategy extends BasePredictStrategy {
 	 * @param predictedAimedTarget
 	 * @return
 	 */
-	private PredictedFirePoint predictPossibleFirePointsByPowerWithSmallDifferentAngle(double firePower, double sourceAndTargetDistance, PredictStateResult predictedAimedSource, PredictStateResult predictedAimedTarget) {
+	private PredictedFirePoint predictPossibleFirePointsByPowerWithSmallDifferentAngle(SimulationCache simulationCache, double firePower, double sourceAndTargetDistance, PredictStateResult predictedAimedSource, PredictStateResult predictedAimedTarget) {
 		// aim to absolutely by linear target point
 		double bulletSpeed = Rules.getBulletSpeed(firePower);
 		int estimateFireSteps = (int) Math.ceil(sourceAndTargetDistance / bulletSpeed);
 
-		PredictStateResult predictedFiredTarget = PredictWrapper.predictTargetPosition(estimateFireSteps, predictedAimedTarget);
+		PredictStateResult predictedFiredTarget = simulationCache.predictTargetPosition(estimateFireSteps, predictedAimedTarget);
 		double correctDistance;
 		int correctFireSteps;
 		if (isInsideBattleField(predictedFiredTarget.getPosition())) {
@@ -19,6 +19,10 @@ import robocode.Rules;
 
 public class PredictManager  implements Serializable{
 	private final List<PredictStrategy> predictStrategies = new ArrayList<>();
+	/**
+	 * Many simulations are the same for all strategies and all targets in the same tick.
+	 */
+	private final SimulationCache simulationCache = new SimulationCache();
 
 
 	private BattleField battleField;
@@ -42,8 +46,9 @@ public class PredictManager  implements Serializable{
 		// if the steps to cool gun down is too short, robot won't have enough steps to aim, so we must calculate aimSteps base on the estimated gunTurnAngle.
 		int aimSteps = Math.max(gunCoolTime, estimatedAimSteps);
 
-		PredictStateResult predictedAimedSource = PredictWrapper.predict(aimSteps, sourceState, battleField);
-		PredictStateResult predictedAimedTarget = PredictWrapper.predictTargetPosition(aimSteps, targetState);
+		simulationCache.startTick(time);
+		PredictStateResult predictedAimedSource = simulationCache.predict(aimSteps, sourceState, battleField);
+		PredictStateResult predictedAimedTarget = simulationCache.predictTargetPosition(aimSteps, targetState);
 	
 		RawEstimateAimResult firstAimEstimation = new RawEstimateAimResult();
 		firstAimEstimation.setGunTurnRightDirection(estimatedGunTurnRightAngle);
@@ -58,6 +63,7 @@ public class PredictManager  implements Serializable{
 		firePredictRequest.setMaxPower(maxPower);
 		firePredictRequest.setBeginSourceGunHeading(sourceGunHeading);
 		firePredictRequest.setAimEstimateResult(firstAimEstimation);
+		firePredictRequest.setSimulationCache(simulationCache);
 		
 		
 		PredictedAimAndFireResult result = null;
@@ -72,6 +78,10 @@ public class PredictManager  implements Serializable{
 	}
 
 
+	public SimulationCache getSimulationCache() {
+		return simulationCache;
+	}
+
 	public Robot getRobot() {
 	    return robot;
     }
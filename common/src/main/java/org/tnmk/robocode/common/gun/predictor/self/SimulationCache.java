@@ -0,0 +1,143 @@
+package org.tnmk.robocode.common.gun.predictor.self;
+
+import java.io.Serializable;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.tnmk.robocode.common.gun.predictor.self.model.PredictStateResult;
+import org.tnmk.robocode.common.model.BaseRobotState;
+import org.tnmk.robocode.common.model.BattleField;
+import org.tnmk.robocode.common.model.FullRobotState;
+
+/**
+ * The per-tick memoization of {@link PredictWrapper#predict(int, FullRobotState, BattleField)} and {@link PredictWrapper#predictTargetPosition(int, BaseRobotState)}.<br/>
+ * It's shared by {@link PredictManager} and all of its {@link PredictStrategy}s (view {@link org.tnmk.robocode.common.gun.predictor.self.model.FirePredictRequest#getSimulationCache()}).
+ * <p/>
+ * The keys are the values of robot states (not the state objects) because a new state object is created for each scanned target even if our robot doesn't change in the same tick.<br/>
+ * The simulation of our robot keeps all steps, so a request with fewer steps for the same state is served from the steps which were already simulated.
+ * <p/>
+ * The cached results are shared, they must not be changed by callers.
+ */
+public class SimulationCache implements Serializable {
+	private static final long serialVersionUID = 2581903412376054061L;
+
+	private long cachedTime = Long.MIN_VALUE;
+	private final Map<SimulationKey, PredictStateResult[]> sourceSimulations = new HashMap<>();
+	private final Map<SimulationKey, PredictStateResult> targetSimulations = new HashMap<>();
+
+	private long requests = 0;
+	private long hits = 0;
+	private long simulatedSteps = 0;
+	private long savedSteps = 0;
+
+	/**
+	 * Clear all cached simulations if the time is different from the time of cached simulations.
+	 *
+	 * @param time
+	 *            the current time of the battle.
+	 */
+	public void startTick(long time) {
+		if (time != cachedTime) {
+			sourceSimulations.clear();
+			targetSimulations.clear();
+			cachedTime = time;
+		}
+	}
+
+	/**
+	 * The same result as {@link PredictWrapper#predict(int, FullRobotState, BattleField)}.
+	 */
+	public PredictStateResult predict(int steps, FullRobotState robotState, BattleField battleField) {
+		if (steps == 0) {
+			return PredictWrapper.predict(steps, robotState, battleField);
+		}
+		requests++;
+		SimulationKey key = new SimulationKey(robotState.getX(), robotState.getY(), robotState.getVelocity(), robotState.getHeading(),
+				robotState.getMaxVelocity(), robotState.getDistanceRemaining(), robotState.getTurnRemaining(), robotState.getMaxTurnRate(), 0);
+		PredictStateResult[] simulatedSteps = sourceSimulations.get(key);
+		if (simulatedSteps != null && simulatedSteps.length >= steps) {
+			hits++;
+			savedSteps += steps;
+			return simulatedSteps[steps - 1];
+		}
+		simulatedSteps = PredictWrapper.predictSteps(steps, robotState, battleField.getWidth(), battleField.getHeight());
+		this.simulatedSteps += steps;
+		sourceSimulations.put(key, simulatedSteps);
+		return simulatedSteps[steps - 1];
+	}
+
+	/**
+	 * The same result as {@link PredictWrapper#predictTargetPosition(int, BaseRobotState)}.
+	 */
+	public PredictStateResult predictTargetPosition(int steps, BaseRobotState robotState) {
+		requests++;
+		SimulationKey key = new SimulationKey(robotState.getX(), robotState.getY(), robotState.getVelocity(), robotState.getHeading(),
+				robotState.getMoveAngle(), 0, 0, 0, steps);
+		PredictStateResult result = targetSimulations.get(key);
+		if (result != null) {
+			hits++;
+			savedSteps += steps;
+			return result;
+		}
+		result = PredictWrapper.predictTargetPosition(steps, robotState);
+		simulatedSteps += steps;
+		targetSimulations.put(key, result);
+		return result;
+	}
+
+	public long getRequests() {
+		return requests;
+	}
+
+	public long getHits() {
+		return hits;
+	}
+
+	/**
+	 * @return the ratio of requests which are served from the cache, 0 if there's no request yet.
+	 */
+	public double getHitRate() {
+		return requests == 0 ? 0 : (double) hits / requests;
+	}
+
+	/**
+	 * @return the total steps which were actually simulated.
+	 */
+	public long getSimulatedSteps() {
+		return simulatedSteps;
+	}
+
+	/**
+	 * @return the total steps which didn't need to be simulated thanks to the cache.
+	 */
+	public long getSavedSteps() {
+		return savedSteps;
+	}
+
+	private static final class SimulationKey implements Serializable {
+		private static final long serialVersionUID = -3372218093529410583L;
+
+		private final double[] values;
+
+		private SimulationKey(double... values) {
+			this.values = values;
+		}
+
+		@Override
+		public boolean equals(Object o) {
+			if (this == o) {
+				return true;
+			}
+			if (!(o instanceof SimulationKey)) {
+				return false;
+			}
+			return Arrays.equals(values, ((SimulationKey) o).values);
+		}
+
+		@Override
+		public int hashCode() {
+			return Arrays.hashCode(values);
+		}
+	}
+}
@@ -1,5 +1,6 @@
 package org.tnmk.robocode.common.gun.predictor.self.model;
 
+import org.tnmk.robocode.common.gun.predictor.self.SimulationCache;
 import org.tnmk.robocode.common.model.BaseRobotState;
 import org.tnmk.robocode.common.model.FullRobotState;
 /**
@@ -19,6 +20,10 @@ public class FirePredictRequest {
 	private BaseRobotState beginTarget;
 
 	private RawEstimateAimResult aimEstimateResult;
+	/**
+	 * Shared by all strategies of the same tick, so they don't repeat the same simulations.
+	 */
+	private SimulationCache simulationCache;
 
 	public long getBeginTime() {
 		return beginTime;
@@ -67,6 +72,14 @@ public class FirePredictRequest {
 	public void setBeginSourceGunHeading(double sourceGunHeading) {
 	    this.beginSourceGunHeading = sourceGunHeading;
     }
+
+	public SimulationCache getSimulationCache() {
+		return simulationCache;
+	}
+
+	public void setSimulationCache(SimulationCache simulationCache) {
+		this.simulationCache = simulationCache;
+	}
 	
 	
 }
@@ -0,0 +1,20 @@
+package org.tnmk.robocode.common.gun.virtual;
+
+import org.tnmk.robocode.common.gun.GunStrategy;
+import robocode.ScannedRobotEvent;
+
+/**
+ * A gun which can be evaluated by {@link VirtualGunArena}: it only calculates the firing angle, it doesn't turn the gun or fire any bullet.
+ */
+public interface VirtualGun {
+    GunStrategy getGunStrategy();
+
+    /**
+     * This method must not change the state of the gun or the robot.
+     *
+     * @param scannedRobotEvent the latest scanned data of the enemy.
+     * @param bulletPower       the power of the bullet which would be fired.
+     * @return the absolute firing angle (radian) from the current position of our robot. {@link Double#NaN} if this gun cannot aim the enemy at this moment.
+     */
+    double reckonFiringAngle(ScannedRobotEvent scannedRobotEvent, double bulletPower);
+}
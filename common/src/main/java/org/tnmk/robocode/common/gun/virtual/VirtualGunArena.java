@@ -0,0 +1,227 @@
+package org.tnmk.robocode.common.gun.virtual;
+
+import java.awt.geom.Point2D;
+import java.util.Arrays;
+import org.tnmk.robocode.common.gun.GunStrategy;
+import org.tnmk.robocode.common.gun.GunUtils;
+import org.tnmk.robocode.common.gun.wave.WaveBreakListener;
+import org.tnmk.robocode.common.gun.wave.WaveTracker;
+import org.tnmk.robocode.common.model.enemy.Enemy;
+import org.tnmk.robocode.common.model.enemy.EnemyRegistry;
+import org.tnmk.robocode.common.radar.AllEnemiesObservationContext;
+import org.tnmk.robocode.common.robot.budget.CpuBudgetGovernor;
+import org.tnmk.robocode.common.robot.state.AdvanceRobotState;
+import robocode.ScannedRobotEvent;
+import robocode.util.Utils;
+
+/**
+ * Measure which gun actually hits each enemy.
+ * <p/>
+ * For each scan, one virtual wave is fired to the enemy and every registered {@link VirtualGun} calculates its firing angle for that wave.
+ * All angles of a wave are kept together, so when the wave breaks (view {@link WaveTracker}), all guns are scored in one pass against the actual enemy position.<br/>
+ * So adding a gun only costs one more aim calculation per wave, not a separate set of waves.
+ * <p/>
+ * The hit rate of each gun for each enemy is a rolling average of the latest {@link #ROLLING_WAVES} waves.
+ */
+public class VirtualGunArena implements WaveBreakListener {
+    /**
+     * The hit rate is averaged on about this number of latest waves.
+     */
+    public static final int ROLLING_WAVES = 100;
+    /**
+     * Don't trust hit rates until an enemy has at least this number of scored waves.
+     */
+    public static final int MIN_SCORED_WAVES = 20;
+    /**
+     * A bullet hits the enemy if it passes within this distance from the enemy's center (a half of {@link robocode.Robot#getWidth()}).
+     */
+    private static final double HIT_HALF_WIDTH = 18;
+    private static final int INITIAL_WAVES_CAPACITY = 32;
+
+    private final AdvanceRobotState robotState;
+    private final AllEnemiesObservationContext allEnemiesObservationContext;
+    private final WaveTracker waveTracker;
+    private final CpuBudgetGovernor cpuBudgetGovernor;
+    private final VirtualGun[] virtualGuns;
+
+    /**
+     * Waves are pooled slots. The slot is the segmentIndex of the wave inside {@link WaveTracker}.
+     */
+    private int[] waveEnemyIds = new int[INITIAL_WAVES_CAPACITY];
+    private double[] waveHitToleranceRadians = new double[INITIAL_WAVES_CAPACITY];
+    /**
+     * Index: slot * guns + gunIndex. The firing angle of each gun relatively to the wave's bearing, NaN if the gun couldn't aim.
+     */
+    private double[] waveGunOffsetRadians;
+    private int[] freeSlots = new int[INITIAL_WAVES_CAPACITY];
+    private int freeSlotsCount = 0;
+    private int usedSlotsCount = 0;
+
+    /**
+     * Index: enemyId (view {@link EnemyRegistry}).
+     */
+    private String[] enemyNames = new String[0];
+    private int[] scoredWaves = new int[0];
+    /**
+     * Index: enemyId * guns + gunIndex.
+     */
+    private double[] hitRates = new double[0];
+
+    public VirtualGunArena(AdvanceRobotState robotState, AllEnemiesObservationContext allEnemiesObservationContext, WaveTracker waveTracker, CpuBudgetGovernor cpuBudgetGovernor, VirtualGun... virtualGuns) {
+        if (virtualGuns.length == 0) {
+            throw new IllegalArgumentException("There must be at least one virtual gun");
+        }
+        this.robotState = robotState;
+        this.allEnemiesObservationContext = allEnemiesObservationContext;
+        this.waveTracker = waveTracker;
+        this.cpuBudgetGovernor = cpuBudgetGovernor;
+        this.virtualGuns = virtualGuns.clone();
+        this.waveGunOffsetRadians = new double[INITIAL_WAVES_CAPACITY * virtualGuns.length];
+    }
+
+    /**
+     * Fire a virtual wave to the scanned enemy and let all guns aim it.<br/>
+     * If the tick uses up its CPU budget before all guns have aimed, the wave is dropped: scoring only some guns would bias the hit rates.
+     *
+     * @param scannedRobotEvent
+     * @param bulletPower       the power of the virtual bullets. If it's not positive, no wave is fired.
+     */
+    public void onScannedRobot(ScannedRobotEvent scannedRobotEvent, double bulletPower) {
+        String enemyName = scannedRobotEvent.getName();
+        int enemyId = allEnemiesObservationContext.getEnemyId(enemyName);
+        Enemy enemy = allEnemiesObservationContext.getEnemy(enemyName);
+        if (enemyId == EnemyRegistry.NO_ID || enemy == null || bulletPower <= 0) {
+            return;
+        }
+        ensureEnemyCapacity(enemyId);
+        if (!enemyName.equals(enemyNames[enemyId])) {
+            /** The id was used by another enemy before, so its hit rates are not correct anymore.*/
+            resetEnemy(enemyId, enemyName);
+        }
+        Point2D enemyPosition = enemy.getPosition();
+        waveTracker.updateTargetPosition(enemyId, enemyPosition.getX(), enemyPosition.getY());
+
+        /** The position inside the shared state is refilled every tick, it's only read here. */
+        Point2D robotPosition = robotState.getPosition();
+        double bearing = GunUtils.reckonAbsoluteBearingRadian(robotPosition, enemyPosition);
+        int slot = allocateSlot();
+        waveEnemyIds[slot] = enemyId;
+        waveHitToleranceRadians[slot] = Math.atan(HIT_HALF_WIDTH / Math.max(HIT_HALF_WIDTH, robotPosition.distance(enemyPosition)));
+        int gunsCount = virtualGuns.length;
+        for (int i = 0; i < gunsCount; i++) {
+            if (!cpuBudgetGovernor.hasRemainingBudget()) {
+                freeSlots[freeSlotsCount++] = slot;
+                return;
+            }
+            double firingAngle = virtualGuns[i].reckonFiringAngle(scannedRobotEvent, bulletPower);
+            waveGunOffsetRadians[slot * gunsCount + i] = Double.isNaN(firingAngle) ? Double.NaN : Utils.normalRelativeAngle(firingAngle - bearing);
+        }
+        waveTracker.addWave(enemyId, robotPosition.getX(), robotPosition.getY(), bearing, 1, GunUtils.reckonBulletVelocity(bulletPower), slot, this);
+    }
+
+    /**
+     * Score all guns of the wave: a gun hits if its firing angle is inside the enemy's width at the break moment.
+     * A gun which couldn't aim is considered missed.
+     */
+    @Override
+    public void onWaveBreak(int slot, double bearingOffsetRadian, double lateralDirection) {
+        int enemyId = waveEnemyIds[slot];
+        scoredWaves[enemyId]++;
+        double weight = 1d / Math.min(scoredWaves[enemyId], ROLLING_WAVES);
+        int gunsCount = virtualGuns.length;
+        for (int i = 0; i < gunsCount; i++) {
+            double gunOffsetRadian = waveGunOffsetRadians[slot * gunsCount + i];
+            boolean hit = !Double.isNaN(gunOffsetRadian) && Math.abs(Utils.normalRelativeAngle(bearingOffsetRadian - gunOffsetRadian)) <= waveHitToleranceRadians[slot];
+            int index = enemyId * gunsCount + i;
+            hitRates[index] += ((hit ? 1 : 0) - hitRates[index]) * weight;
+        }
+        freeSlots[freeSlotsCount++] = slot;
+    }
+
+    @Override
+    public void onWaveDiscarded(int slot) {
+        freeSlots[freeSlotsCount++] = slot;
+    }
+
+    /**
+     * @param enemyName
+     * @param defaultGunStrategy returned when there is not enough data to compare guns.
+     * @return the strategy of the gun with the best hit rate for the enemy. If the defaultGunStrategy is one of the best guns, it's preferred.
+     */
+    public GunStrategy selectGunStrategy(String enemyName, GunStrategy defaultGunStrategy) {
+        int enemyId = allEnemiesObservationContext.getEnemyId(enemyName);
+        if (enemyId == EnemyRegistry.NO_ID || enemyId >= scoredWaves.length || !enemyName.equals(enemyNames[enemyId]) || scoredWaves[enemyId] < MIN_SCORED_WAVES) {
+            return defaultGunStrategy;
+        }
+        int gunsCount = virtualGuns.length;
+        GunStrategy bestGunStrategy = defaultGunStrategy;
+        double bestHitRate = getHitRate(enemyId, defaultGunStrategy);
+        for (int i = 0; i < gunsCount; i++) {
+            double hitRate = hitRates[enemyId * gunsCount + i];
+            if (hitRate > bestHitRate) {
+                bestHitRate = hitRate;
+                bestGunStrategy = virtualGuns[i].getGunStrategy();
+            }
+        }
+        return bestGunStrategy;
+    }
+
+    /**
+     * @return the rolling hit rate of the gun for the enemy, 0 if there's no data or the gun is not registered.
+     */
+    public double getHitRate(String enemyName, GunStrategy gunStrategy) {
+        int enemyId = allEnemiesObservationContext.getEnemyId(enemyName);
+        if (enemyId == EnemyRegistry.NO_ID || enemyId >= scoredWaves.length || !enemyName.equals(enemyNames[enemyId])) {
+            return 0;
+        }
+        return getHitRate(enemyId, gunStrategy);
+    }
+
+    private double getHitRate(int enemyId, GunStrategy gunStrategy) {
+        int gunsCount = virtualGuns.length;
+        for (int i = 0; i < gunsCount; i++) {
+            if (virtualGuns[i].getGunStrategy() == gunStrategy) {
+                return hitRates[enemyId * gunsCount + i];
+            }
+        }
+        return 0;
+    }
+
+    public int countScoredWaves(String enemyName) {
+        int enemyId = allEnemiesObservationContext.getEnemyId(enemyName);
+        if (enemyId == EnemyRegistry.NO_ID || enemyId >= scoredWaves.length || !enemyName.equals(enemyNames[enemyId])) {
+            return 0;
+        }
+        return scoredWaves[enemyId];
+    }
+
+    private int allocateSlot() {
+        if (freeSlotsCount > 0) {
+            return freeSlots[--freeSlotsCount];
+        }
+        if (usedSlotsCount == waveEnemyIds.length) {
+            int newCapacity = waveEnemyIds.length * 2;
+            waveEnemyIds = Arrays.copyOf(waveEnemyIds, newCapacity);
+            waveHitToleranceRadians = Arrays.copyOf(waveHitToleranceRadians, newCapacity);
+            waveGunOffsetRadians = Arrays.copyOf(waveGunOffsetRadians, newCapacity * virtualGuns.length);
+            freeSlots = Arrays.copyOf(freeSlots, newCapacity);
+        }
+        return usedSlotsCount++;
+    }
+
+    private void ensureEnemyCapacity(int enemyId) {
+        if (enemyId < scoredWaves.length) {
+            return;
+        }
+        int newCapacity = Math.max(enemyId + 1, scoredWaves.length * 2);
+        enemyNames = Arrays.copyOf(enemyNames, newCapacity);
+        scoredWaves = Arrays.copyOf(scoredWaves, newCapacity);
+        hitRates = Arrays.copyOf(hitRates, newCapacity * virtualGuns.length);
+    }
+
+    private void resetEnemy(int enemyId, String enemyName) {
+        enemyNames[enemyId] = enemyName;
+        scoredWaves[enemyId] = 0;
+        Arrays.fill(hitRates, enemyId * virtualGuns.length, (enemyId + 1) * virtualGuns.length, 0);
+    }
+}
@@ -0,0 +1,23 @@
+package org.tnmk.robocode.common.gun.wave;
+
+/**
+ * The owner of waves inside {@link WaveTracker} (usually a statistics buffer of a gun).<br/>
+ * It's notified when one of its waves breaks (passes the target).
+ */
+public interface WaveBreakListener {
+    /**
+     * @param segmentIndex        the index which was registered together with the wave, view {@link WaveTracker#addWave(int, double, double, double, double, double, int, WaveBreakListener)}.
+     * @param bearingOffsetRadian the normalized difference between the bearing from the wave origin to the target when the wave breaks and the bearing when the wave was fired.
+     * @param lateralDirection    the lateral direction (1 or -1) of the target when the wave was fired.
+     */
+    void onWaveBreak(int segmentIndex, double bearingOffsetRadian, double lateralDirection);
+
+    /**
+     * The wave was removed without breaking because its target was evicted (view {@link WaveTracker#onEnemyEvicted(int)}).<br/>
+     * Listeners which keep data per wave should release it here.
+     *
+     * @param segmentIndex the index which was registered together with the wave.
+     */
+    default void onWaveDiscarded(int segmentIndex) {
+    }
+}
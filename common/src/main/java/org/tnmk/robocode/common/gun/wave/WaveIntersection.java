@@ -0,0 +1,134 @@
+package org.tnmk.robocode.common.gun.wave;
+
+import org.tnmk.robocode.common.helper.prediction.PhysicsKernel;
+import robocode.util.Utils;
+
+/**
+ * The precise intersection between a wave and a robot's bounding box, view http://robowiki.net/wiki/Waves/Precise_Intersection
+ * <p/>
+ * In one tick, a wave sweeps the ring between its radius before and after moving.
+ * The part of the bounding box inside that ring covers a range of bearings: its extreme points are the box's corners inside the ring
+ * and the points where the two circles cut the box's edges.
+ * Accumulating the ranges of all ticks while the wave passes the robot gives all angles at which a bullet of the wave would hit it.
+ * <p/>
+ * All methods work on primitive values, so they never create any object.
+ */
+public final class WaveIntersection {
+    private WaveIntersection() {
+    }
+
+    /**
+     * Add the bearing range of the bounding box's part which is inside the ring [innerRadius, outerRadius] into the accumulated range.
+     *
+     * @param originX      the origin of the wave.
+     * @param originY
+     * @param bearing      the bearing (radian) of the wave, the result offsets are relative to it.
+     * @param innerRadius  the radius of the wave before moving in this tick.
+     * @param outerRadius  the radius of the wave after moving in this tick.
+     * @param centerX      the center of the robot.
+     * @param centerY
+     * @param offsetRange  the accumulator: offsetRange[0] is the min bearing offset, offsetRange[1] is the max bearing offset (radian).
+     *                     Initialize with {@link Double#POSITIVE_INFINITY} and {@link Double#NEGATIVE_INFINITY} before the first tick.
+     * @return true if the ring intersects the bounding box in this tick.
+     */
+    public static boolean accumulate(double originX, double originY, double bearing, double innerRadius, double outerRadius,
+                                     double centerX, double centerY, double[] offsetRange) {
+        double minX = centerX - PhysicsKernel.HALF_ROBOT_SIZE - originX;
+        double maxX = centerX + PhysicsKernel.HALF_ROBOT_SIZE - originX;
+        double minY = centerY - PhysicsKernel.HALF_ROBOT_SIZE - originY;
+        double maxY = centerY + PhysicsKernel.HALF_ROBOT_SIZE - originY;
+        double innerRadiusSq = innerRadius * innerRadius;
+        double outerRadiusSq = outerRadius * outerRadius;
+        boolean intersected = false;
+
+        /** Corners inside the ring. */
+        intersected |= addCorner(minX, minY, bearing, innerRadiusSq, outerRadiusSq, offsetRange);
+        intersected |= addCorner(minX, maxY, bearing, innerRadiusSq, outerRadiusSq, offsetRange);
+        intersected |= addCorner(maxX, minY, bearing, innerRadiusSq, outerRadiusSq, offsetRange);
+        intersected |= addCorner(maxX, maxY, bearing, innerRadiusSq, outerRadiusSq, offsetRange);
+
+        /** Points where the circles cut the edges. */
+        intersected |= addCircleCuts(innerRadius, minX, maxX, minY, maxY, bearing, offsetRange);
+        intersected |= addCircleCuts(outerRadius, minX, maxX, minY, maxY, bearing, offsetRange);
+        return intersected;
+    }
+
+    /**
+     * @return the distance from the origin to the farthest corner of the robot's bounding box. When a wave is further than this, it has passed the robot.
+     */
+    public static double reckonFarthestDistance(double originX, double originY, double centerX, double centerY) {
+        double deltaX = Math.abs(centerX - originX) + PhysicsKernel.HALF_ROBOT_SIZE;
+        double deltaY = Math.abs(centerY - originY) + PhysicsKernel.HALF_ROBOT_SIZE;
+        return Math.sqrt(deltaX * deltaX + deltaY * deltaY);
+    }
+
+    private static boolean addCorner(double x, double y, double bearing, double innerRadiusSq, double outerRadiusSq, double[] offsetRange) {
+        double distanceSq = x * x + y * y;
+        if (distanceSq < innerRadiusSq || distanceSq > outerRadiusSq) {
+            return false;
+        }
+        addPoint(x, y, bearing, offsetRange);
+        return true;
+    }
+
+    private static boolean addCircleCuts(double radius, double minX, double maxX, double minY, double maxY, double bearing, double[] offsetRange) {
+        boolean intersected = false;
+        intersected |= addHorizontalEdgeCuts(radius, minY, minX, maxX, bearing, offsetRange);
+        intersected |= addHorizontalEdgeCuts(radius, maxY, minX, maxX, bearing, offsetRange);
+        intersected |= addVerticalEdgeCuts(radius, minX, minY, maxY, bearing, offsetRange);
+        intersected |= addVerticalEdgeCuts(radius, maxX, minY, maxY, bearing, offsetRange);
+        return intersected;
+    }
+
+    /**
+     * The cuts of the circle and the edge y = edgeY, x in [minX, maxX].
+     */
+    private static boolean addHorizontalEdgeCuts(double radius, double edgeY, double minX, double maxX, double bearing, double[] offsetRange) {
+        double remainSq = radius * radius - edgeY * edgeY;
+        if (remainSq < 0) {
+            return false;
+        }
+        boolean intersected = false;
+        double x = Math.sqrt(remainSq);
+        if (x >= minX && x <= maxX) {
+            addPoint(x, edgeY, bearing, offsetRange);
+            intersected = true;
+        }
+        if (-x >= minX && -x <= maxX) {
+            addPoint(-x, edgeY, bearing, offsetRange);
+            intersected = true;
+        }
+        return intersected;
+    }
+
+    /**
+     * The cuts of the circle and the edge x = edgeX, y in [minY, maxY].
+     */
+    private static boolean addVerticalEdgeCuts(double radius, double edgeX, double minY, double maxY, double bearing, double[] offsetRange) {
+        double remainSq = radius * radius - edgeX * edgeX;
+        if (remainSq < 0) {
+            return false;
+        }
+        boolean intersected = false;
+        double y = Math.sqrt(remainSq);
+        if (y >= minY && y <= maxY) {
+            addPoint(edgeX, y, bearing, offsetRange);
+            intersected = true;
+        }
+        if (-y >= minY && -y <= maxY) {
+            addPoint(edgeX, -y, bearing, offsetRange);
+            intersected = true;
+        }
+        return intersected;
+    }
+
+    /**
+     * @param x relative to the origin of the wave.
+     * @param y
+     */
+    private static void addPoint(double x, double y, double bearing, double[] offsetRange) {
+        double offset = Utils.normalRelativeAngle(Math.atan2(x, y) - bearing);
+        offsetRange[0] = Math.min(offsetRange[0], offset);
+        offsetRange[1] = Math.max(offsetRange[1], offset);
+    }
+}
@@ -0,0 +1,21 @@
+package org.tnmk.robocode.common.gun.wave;
+
+/**
+ * The owner of precise waves inside {@link WaveTracker}, view {@link WaveIntersection}.<br/>
+ * It's notified once when one of its waves has completely passed the target.
+ */
+public interface WaveIntersectionListener {
+    /**
+     * @param segmentIndex           the index which was registered together with the wave, view {@link WaveTracker#addPreciseWave(int, double, double, double, double, double, int, WaveIntersectionListener)}.
+     * @param minBearingOffsetRadian the smallest normalized difference between the bearing of a point of the target's bounding box which the wave crossed and the bearing when the wave was fired.
+     * @param maxBearingOffsetRadian the biggest one. A bullet of this wave fired at any offset in [min, max] would hit the target.
+     * @param lateralDirection       the lateral direction (1 or -1) of the target when the wave was fired.
+     */
+    void onWavePassed(int segmentIndex, double minBearingOffsetRadian, double maxBearingOffsetRadian, double lateralDirection);
+
+    /**
+     * View {@link WaveBreakListener#onWaveDiscarded(int)}.
+     */
+    default void onWaveDiscarded(int segmentIndex) {
+    }
+}
@@ -0,0 +1,294 @@
+package org.tnmk.robocode.common.gun.wave;
+
+import java.util.Arrays;
+import org.tnmk.robocode.common.model.enemy.EnemyEvictionListener;
+import org.tnmk.robocode.common.model.enemy.EnemyRegistry;
+import org.tnmk.robocode.common.robot.LoopableRun;
+import robocode.util.Utils;
+
+/**
+ * Track all waves of our robot in one place.
+ * <p/>
+ * Previously, each wave was a {@link robocode.Condition} registered by {@link robocode.AdvancedRobot#addCustomEvent(robocode.Condition)},
+ * so Robocode tested every wave separately and each wave had to remove itself when it broke.<br/>
+ * Now waves are primitive records inside pooled arrays: {@link #runLoop()} advances all of them once per tick,
+ * and a broken wave's slot is reused by the next added wave, so no object is created per wave.
+ * <p/>
+ * Waves are compared with the latest position of their targets, view {@link #updateTargetPosition(int, double, double)}.
+ * A precise wave only accumulates the ticks when its target's position was updated, because the position between 2 scans is stale.<br/>
+ * When a target's id is evicted, its waves are discarded (view {@link #onEnemyEvicted(int)}), so they are not scored against another enemy which reuses that id.
+ * <p/>
+ * There are 2 kinds of waves:
+ * <ul>
+ * <li>{@link #addWave(int, double, double, double, double, double, int, WaveBreakListener)}: breaks at one tick and reports one bearing offset of the target's center.</li>
+ * <li>{@link #addPreciseWave(int, double, double, double, double, double, int, WaveIntersectionListener)}: accumulates the bearing range of the target's bounding box over all ticks the wave crosses it (view {@link WaveIntersection}),
+ * and reports the range once when the wave has passed the target, so the listener can update all its bins in one batch.</li>
+ * </ul>
+ */
+public class WaveTracker implements LoopableRun, EnemyEvictionListener {
+    private static final int INITIAL_CAPACITY = 16;
+    /**
+     * A wave breaks when it passes the target's position minus this distance (a half of the robot size).
+     */
+    private static final double BREAK_DISTANCE_OFFSET = 18;
+
+    /**
+     * The number of active waves. Active waves are always at the indexes [0, wavesCount).
+     */
+    private int wavesCount = 0;
+    private int[] targetIds = new int[INITIAL_CAPACITY];
+    private double[] originXs = new double[INITIAL_CAPACITY];
+    private double[] originYs = new double[INITIAL_CAPACITY];
+    private double[] bearings = new double[INITIAL_CAPACITY];
+    private double[] lateralDirections = new double[INITIAL_CAPACITY];
+    private double[] bulletVelocities = new double[INITIAL_CAPACITY];
+    private double[] distancesTraveled = new double[INITIAL_CAPACITY];
+    private int[] segmentIndexes = new int[INITIAL_CAPACITY];
+    private WaveBreakListener[] listeners = new WaveBreakListener[INITIAL_CAPACITY];
+    /**
+     * Only for precise waves, the listener of a precise wave is in this array instead of {@link #listeners}.
+     */
+    private WaveIntersectionListener[] intersectionListeners = new WaveIntersectionListener[INITIAL_CAPACITY];
+    private double[] minBearingOffsets = new double[INITIAL_CAPACITY];
+    private double[] maxBearingOffsets = new double[INITIAL_CAPACITY];
+    /**
+     * Reused accumulator for {@link WaveIntersection#accumulate(double, double, double, double, double, double, double, double[])}.
+     */
+    private final double[] offsetRange = new double[2];
+
+    /**
+     * The number of times {@link #runLoop()} was called, it's increased once per tick.
+     */
+    private long tick = 0;
+    /**
+     * Index: targetId. The value is NaN if the target's position is still unknown.
+     */
+    private double[] targetXs = new double[0];
+    private double[] targetYs = new double[0];
+    /**
+     * Index: targetId. The {@link #tick} when the target's position was updated.
+     */
+    private long[] targetUpdateTicks = new long[0];
+
+    /**
+     * @param targetId usually the enemy id from {@link EnemyRegistry}. Nothing happens if it's {@link EnemyRegistry#NO_ID}.
+     * @param x        the latest x of the target.
+     * @param y        the latest y of the target.
+     *                 It should be called in the same tick before {@link #runLoop()} (e.g. when the target is scanned), so the position is current for that tick.
+     */
+    public void updateTargetPosition(int targetId, double x, double y) {
+        if (targetId == EnemyRegistry.NO_ID) {
+            return;
+        }
+        if (targetId < 0) {
+            throw new IllegalArgumentException("Invalid targetId " + targetId);
+        }
+        if (targetId >= targetXs.length) {
+            int oldLength = targetXs.length;
+            int newLength = Math.max(targetId + 1, oldLength * 2);
+            targetXs = Arrays.copyOf(targetXs, newLength);
+            targetYs = Arrays.copyOf(targetYs, newLength);
+            targetUpdateTicks = Arrays.copyOf(targetUpdateTicks, newLength);
+            Arrays.fill(targetXs, oldLength, newLength, Double.NaN);
+            Arrays.fill(targetYs, oldLength, newLength, Double.NaN);
+        }
+        targetXs[targetId] = x;
+        targetYs[targetId] = y;
+        targetUpdateTicks[targetId] = tick;
+    }
+
+    /**
+     * @param targetId         the target's position must be updated before, view {@link #updateTargetPosition(int, double, double)}.
+     * @param originX          the x of our gun when firing.
+     * @param originY          the y of our gun when firing.
+     * @param bearing          the absolute bearing (radian) from our gun to the target when firing.
+     * @param lateralDirection the lateral direction (1 or -1) of the target when firing.
+     * @param bulletVelocity   the velocity of the wave.
+     * @param segmentIndex     any value which the listener uses to identify its statistics when the wave breaks.
+     * @param listener         the owner of this wave, it's notified when the wave breaks.
+     */
+    public void addWave(int targetId, double originX, double originY, double bearing, double lateralDirection, double bulletVelocity, int segmentIndex, WaveBreakListener listener) {
+        addWave(targetId, originX, originY, bearing, lateralDirection, bulletVelocity, segmentIndex, listener, null);
+    }
+
+    /**
+     * The same as {@link #addWave(int, double, double, double, double, double, int, WaveBreakListener)}, but the listener is notified with the precise bearing range of the target.
+     */
+    public void addPreciseWave(int targetId, double originX, double originY, double bearing, double lateralDirection, double bulletVelocity, int segmentIndex, WaveIntersectionListener listener) {
+        addWave(targetId, originX, originY, bearing, lateralDirection, bulletVelocity, segmentIndex, null, listener);
+    }
+
+    private void addWave(int targetId, double originX, double originY, double bearing, double lateralDirection, double bulletVelocity, int segmentIndex,
+                         WaveBreakListener listener, WaveIntersectionListener intersectionListener) {
+        if (targetId < 0 || targetId >= targetXs.length || Double.isNaN(targetXs[targetId])) {
+            throw new IllegalArgumentException("The position of target " + targetId + " must be updated before adding waves");
+        }
+        ensureCapacity(wavesCount + 1);
+        int index = wavesCount;
+        targetIds[index] = targetId;
+        originXs[index] = originX;
+        originYs[index] = originY;
+        bearings[index] = bearing;
+        lateralDirections[index] = lateralDirection;
+        bulletVelocities[index] = bulletVelocity;
+        distancesTraveled[index] = 0;
+        segmentIndexes[index] = segmentIndex;
+        listeners[index] = listener;
+        intersectionListeners[index] = intersectionListener;
+        minBearingOffsets[index] = Double.POSITIVE_INFINITY;
+        maxBearingOffsets[index] = Double.NEGATIVE_INFINITY;
+        wavesCount++;
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (capacity <= targetIds.length) {
+            return;
+        }
+        int newCapacity = Math.max(capacity, targetIds.length * 2);
+        targetIds = Arrays.copyOf(targetIds, newCapacity);
+        originXs = Arrays.copyOf(originXs, newCapacity);
+        originYs = Arrays.copyOf(originYs, newCapacity);
+        bearings = Arrays.copyOf(bearings, newCapacity);
+        lateralDirections = Arrays.copyOf(lateralDirections, newCapacity);
+        bulletVelocities = Arrays.copyOf(bulletVelocities, newCapacity);
+        distancesTraveled = Arrays.copyOf(distancesTraveled, newCapacity);
+        segmentIndexes = Arrays.copyOf(segmentIndexes, newCapacity);
+        listeners = Arrays.copyOf(listeners, newCapacity);
+        intersectionListeners = Arrays.copyOf(intersectionListeners, newCapacity);
+        minBearingOffsets = Arrays.copyOf(minBearingOffsets, newCapacity);
+        maxBearingOffsets = Arrays.copyOf(maxBearingOffsets, newCapacity);
+    }
+
+    /**
+     * Advance all waves by one tick, then notify and remove the waves which break (or have passed their targets for precise waves).
+     */
+    @Override
+    public void runLoop() {
+        int index = 0;
+        while (index < wavesCount) {
+            boolean finished;
+            if (intersectionListeners[index] != null) {
+                finished = advancePreciseWave(index);
+            } else {
+                finished = advanceWave(index);
+            }
+            if (finished) {
+                removeWave(index);
+                /** The last wave was moved into this index, so check this index again.*/
+            } else {
+                index++;
+            }
+        }
+        tick++;
+    }
+
+    /**
+     * @return true if the wave breaks.
+     */
+    private boolean advanceWave(int index) {
+        distancesTraveled[index] += bulletVelocities[index];
+        int targetId = targetIds[index];
+        double dx = targetXs[targetId] - originXs[index];
+        double dy = targetYs[targetId] - originYs[index];
+        if (distancesTraveled[index] > Math.sqrt(dx * dx + dy * dy) - BREAK_DISTANCE_OFFSET) {
+            double bearingOffsetRadian = Utils.normalRelativeAngle(Math.atan2(dx, dy) - bearings[index]);
+            listeners[index].onWaveBreak(segmentIndexes[index], bearingOffsetRadian, lateralDirections[index]);
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * The bounding box of the target is only accumulated if its position was updated in this tick.
+     * Otherwise, the stale position would widen the range with places where the target was not at that tick.
+     *
+     * @return true if the wave has passed the target.
+     */
+    private boolean advancePreciseWave(int index) {
+        double innerRadius = distancesTraveled[index];
+        double outerRadius = innerRadius + bulletVelocities[index];
+        distancesTraveled[index] = outerRadius;
+        int targetId = targetIds[index];
+        double targetX = targetXs[targetId];
+        double targetY = targetYs[targetId];
+        double originX = originXs[index];
+        double originY = originYs[index];
+        offsetRange[0] = minBearingOffsets[index];
+        offsetRange[1] = maxBearingOffsets[index];
+        if (targetUpdateTicks[targetId] == tick) {
+            WaveIntersection.accumulate(originX, originY, bearings[index], innerRadius, outerRadius, targetX, targetY, offsetRange);
+            minBearingOffsets[index] = offsetRange[0];
+            maxBearingOffsets[index] = offsetRange[1];
+        }
+        if (outerRadius <= WaveIntersection.reckonFarthestDistance(originX, originY, targetX, targetY)) {
+            return false;
+        }
+        if (offsetRange[0] > offsetRange[1]) {
+            /** The wave never crossed the target at a tick when its position was updated (e.g. it was not scanned while the wave was passing), so use the latest center of the target. */
+            double bearingOffsetRadian = Utils.normalRelativeAngle(Math.atan2(targetX - originX, targetY - originY) - bearings[index]);
+            offsetRange[0] = bearingOffsetRadian;
+            offsetRange[1] = bearingOffsetRadian;
+        }
+        intersectionListeners[index].onWavePassed(segmentIndexes[index], offsetRange[0], offsetRange[1], lateralDirections[index]);
+        return true;
+    }
+
+    /**
+     * Discard all waves of the target without notifying their breaks, and forget the target's position.
+     *
+     * @param enemyId the evicted id, it may be reused by another enemy later.
+     */
+    @Override
+    public void onEnemyEvicted(int enemyId) {
+        int index = 0;
+        while (index < wavesCount) {
+            if (targetIds[index] == enemyId) {
+                if (intersectionListeners[index] != null) {
+                    intersectionListeners[index].onWaveDiscarded(segmentIndexes[index]);
+                } else {
+                    listeners[index].onWaveDiscarded(segmentIndexes[index]);
+                }
+                removeWave(index);
+            } else {
+                index++;
+            }
+        }
+        if (enemyId < targetXs.length) {
+            targetXs[enemyId] = Double.NaN;
+            targetYs[enemyId] = Double.NaN;
+        }
+    }
+
+    /**
+     * Move the last wave into the removed slot so that active waves are always continuous.
+     */
+    private void removeWave(int index) {
+        int lastIndex = wavesCount - 1;
+        targetIds[index] = targetIds[lastIndex];
+        originXs[index] = originXs[lastIndex];
+        originYs[index] = originYs[lastIndex];
+        bearings[index] = bearings[lastIndex];
+        lateralDirections[index] = lateralDirections[lastIndex];
+        bulletVelocities[index] = bulletVelocities[lastIndex];
+        distancesTraveled[index] = distancesTraveled[lastIndex];
+        segmentIndexes[index] = segmentIndexes[lastIndex];
+        listeners[index] = listeners[lastIndex];
+        intersectionListeners[index] = intersectionListeners[lastIndex];
+        minBearingOffsets[index] = minBearingOffsets[lastIndex];
+        maxBearingOffsets[index] = maxBearingOffsets[lastIndex];
+        listeners[lastIndex] = null;
+        intersectionListeners[lastIndex] = null;
+        wavesCount = lastIndex;
+    }
+
+    public int countWaves() {
+        return wavesCount;
+    }
+
+    /**
+     * @return the number of waves which can be tracked without growing internal arrays.
+     */
+    public int capacity() {
+        return targetIds.length;
+    }
+}
@@ -2,6 +2,7 @@ package org.tnmk.robocode.common.helper;
 
 import java.awt.geom.Point2D;
 import java.awt.geom.Rectangle2D;
+import org.tnmk.robocode.common.robot.state.AdvanceRobotState;
 import robocode.Robot;
 
 public class BattleFieldUtils {
@@ -9,6 +10,10 @@ public class BattleFieldUtils {
         return new Rectangle2D.Double(0, 0, robot.getBattleFieldWidth(), robot.getBattleFieldHeight());
     }
 
+    public static Rectangle2D constructBattleField(AdvanceRobotState robotState) {
+        return new Rectangle2D.Double(0, 0, robotState.getBattleFieldWidth(), robotState.getBattleFieldHeight());
+    }
+
     public static Point2D constructRobotPosition(Robot robot) {
         return new Point2D.Double(robot.getX(), robot.getY());
     }
@@ -6,6 +6,7 @@ import org.tnmk.common.math.AngleUtils;
 import org.tnmk.common.math.CircleMathUtils;
 import org.tnmk.common.math.GeoMathUtils;
 import org.tnmk.robocode.common.movement.strategy.antigravity.AntiGravityMoveController;
+import org.tnmk.robocode.common.robot.state.AdvanceRobotState;
 import robocode.*;
 import robocode.util.Utils;
 
@@ -52,8 +53,23 @@ public class Move2DUtils {
      * @param destination
      */
     public static void setMoveToDestinationWithCurrentDirectionButDontStopAtDestination(AdvancedRobot robot, Point2D destination) {
-        Point2D currentPosition = new Point2D.Double(robot.getX(), robot.getY());
-        double moveAngle = GeoMathUtils.calculateTurnRightDirectionToTarget(robot.getHeading(), currentPosition.getX(), currentPosition.getY(), destination.getX(), destination.getY());
+        setMoveToDestinationWithCurrentDirectionButDontStopAtDestination(robot, robot.getX(), robot.getY(), robot.getHeading(), destination);
+    }
+
+    /**
+     * The same as {@link #setMoveToDestinationWithCurrentDirectionButDontStopAtDestination(AdvancedRobot, Point2D)},
+     * but the position and heading are read from the per-tick snapshot instead of the robot.
+     *
+     * @param robot      only used to set the movement.
+     * @param robotState the snapshot of robot at the current tick.
+     * @param destination
+     */
+    public static void setMoveToDestinationWithCurrentDirectionButDontStopAtDestination(AdvancedRobot robot, AdvanceRobotState robotState, Point2D destination) {
+        setMoveToDestinationWithCurrentDirectionButDontStopAtDestination(robot, robotState.getX(), robotState.getY(), robotState.getHeading(), destination);
+    }
+
+    private static void setMoveToDestinationWithCurrentDirectionButDontStopAtDestination(AdvancedRobot robot, double robotX, double robotY, double robotHeading, Point2D destination) {
+        double moveAngle = GeoMathUtils.calculateTurnRightDirectionToTarget(robotHeading, robotX, robotY, destination.getX(), destination.getY());
         robot.setTurnRight(moveAngle);
         robot.setAhead(Double.POSITIVE_INFINITY);//if you want it to reset at the destination, use setAhead(distance to destination + some additional distance for turning direction)
     }
@@ -71,15 +87,31 @@ public class Move2DUtils {
      * @param destination
      */
     public static void setMoveToDestinationWithShortestPath(AdvancedRobot robot, Point2D destination) {
+        setMoveToDestinationWithShortestPath(robot, robot.getX(), robot.getY(), robot.getHeadingRadians(), destination);
+    }
+
+    /**
+     * The same as {@link #setMoveToDestinationWithShortestPath(AdvancedRobot, Point2D)},
+     * but the position and heading are read from the per-tick snapshot instead of the robot.
+     *
+     * @param robot      only used to set the movement.
+     * @param robotState the snapshot of robot at the current tick.
+     * @param destination
+     */
+    public static void setMoveToDestinationWithShortestPath(AdvancedRobot robot, AdvanceRobotState robotState, Point2D destination) {
+        setMoveToDestinationWithShortestPath(robot, robotState.getX(), robotState.getY(), robotState.getHeadingRadians(), destination);
+    }
+
+    private static void setMoveToDestinationWithShortestPath(AdvancedRobot robot, double robotX, double robotY, double robotHeadingRadians, Point2D destination) {
         double destX = destination.getX();
         double destY = destination.getY();
 
         /* Calculate the difference bettwen the current position and the target position. */
-        destX = destX - robot.getX();
-        destY = destY - robot.getY();
+        destX = destX - robotX;
+        destY = destY - robotY;
 
         /* Calculate the angle relative to the current heading. */
-        double goAngle = Utils.normalRelativeAngle(Math.atan2(destX, destY) - robot.getHeadingRadians());
+        double goAngle = Utils.normalRelativeAngle(Math.atan2(destX, destY) - robotHeadingRadians);
 
         /*
          * Apply a tangent to the turn this is a cheap way of achieving back to front turn angle as tangents period is PI.
@@ -180,4 +212,11 @@ public class Move2DUtils {
         double moveAngle = GeoMathUtils.calculateTurnRightDirectionToTarget(robot.getHeading(), currentPosition.getX(), currentPosition.getY(), destination.getX(), destination.getY());
         return moveAngle;
     }
+
+    /**
+     * The same as {@link #reckonMoveAngleDegree(AdvancedRobot, Point2D)}, but the position and heading are read from the per-tick snapshot.
+     */
+    public static double reckonMoveAngleDegree(AdvanceRobotState robotState, Point2D destination) {
+        return GeoMathUtils.calculateTurnRightDirectionToTarget(robotState.getHeading(), robotState.getX(), robotState.getY(), destination.getX(), destination.getY());
+    }
 }
@@ -0,0 +1,146 @@
+package org.tnmk.robocode.common.helper.prediction;
+
+import robocode.Rules;
+
+/**
+ * The mutable movement state of a robot, it's stepped in place by {@link PhysicsKernel} so that predicting many ticks doesn't create any object.<br/>
+ * Angles are in-game radians (0 is north, clockwise).
+ */
+public class MotionState {
+    private double x;
+    private double y;
+    private double headingRadian;
+    private double velocity;
+    /**
+     * It could be {@link Double#POSITIVE_INFINITY} or {@link Double#NEGATIVE_INFINITY} when moving without stopping.
+     */
+    private double distanceRemaining;
+    private double turnRemainingRadian;
+    /**
+     * The value of {@link robocode.AdvancedRobot#setMaxVelocity(double)}.
+     */
+    private double maxVelocity = Rules.MAX_VELOCITY;
+    /**
+     * The value of {@link robocode.AdvancedRobot#setMaxTurnRate(double)} in radian.
+     */
+    private double maxTurnRateRadian = Rules.MAX_TURN_RATE_RADIANS;
+    /**
+     * Robocode keeps this flag when the robot cannot stop before the remaining distance, view {@link PhysicsKernel#step(MotionState)}.
+     */
+    private boolean overDriving;
+    private long time;
+
+    public MotionState() {
+    }
+
+    public MotionState(double x, double y, double headingRadian, double velocity, double distanceRemaining, double turnRemainingRadian, long time) {
+        set(x, y, headingRadian, velocity, distanceRemaining, turnRemainingRadian, time);
+    }
+
+    /**
+     * Reset the movement state, {@link #maxVelocity} and {@link #maxTurnRateRadian} are not changed.
+     */
+    public void set(double x, double y, double headingRadian, double velocity, double distanceRemaining, double turnRemainingRadian, long time) {
+        this.x = x;
+        this.y = y;
+        this.headingRadian = headingRadian;
+        this.velocity = velocity;
+        this.distanceRemaining = distanceRemaining;
+        this.turnRemainingRadian = turnRemainingRadian;
+        this.overDriving = false;
+        this.time = time;
+    }
+
+    public void copyFrom(MotionState other) {
+        this.x = other.x;
+        this.y = other.y;
+        this.headingRadian = other.headingRadian;
+        this.velocity = other.velocity;
+        this.distanceRemaining = other.distanceRemaining;
+        this.turnRemainingRadian = other.turnRemainingRadian;
+        this.maxVelocity = other.maxVelocity;
+        this.maxTurnRateRadian = other.maxTurnRateRadian;
+        this.overDriving = other.overDriving;
+        this.time = other.time;
+    }
+
+    public double getX() {
+        return x;
+    }
+
+    public void setX(double x) {
+        this.x = x;
+    }
+
+    public double getY() {
+        return y;
+    }
+
+    public void setY(double y) {
+        this.y = y;
+    }
+
+    public double getHeadingRadian() {
+        return headingRadian;
+    }
+
+    public void setHeadingRadian(double headingRadian) {
+        this.headingRadian = headingRadian;
+    }
+
+    public double getVelocity() {
+        return velocity;
+    }
+
+    public void setVelocity(double velocity) {
+        this.velocity = velocity;
+    }
+
+    public double getDistanceRemaining() {
+        return distanceRemaining;
+    }
+
+    public void setDistanceRemaining(double distanceRemaining) {
+        this.distanceRemaining = distanceRemaining;
+    }
+
+    public double getTurnRemainingRadian() {
+        return turnRemainingRadian;
+    }
+
+    public void setTurnRemainingRadian(double turnRemainingRadian) {
+        this.turnRemainingRadian = turnRemainingRadian;
+    }
+
+    public double getMaxVelocity() {
+        return maxVelocity;
+    }
+
+    public void setMaxVelocity(double maxVelocity) {
+        this.maxVelocity = maxVelocity;
+    }
+
+    public double getMaxTurnRateRadian() {
+        return maxTurnRateRadian;
+    }
+
+    public void setMaxTurnRateRadian(double maxTurnRateRadian) {
+        this.maxTurnRateRadian = maxTurnRateRadian;
+    }
+
+    public boolean isOverDriving() {
+        return overDriving;
+    }
+
+    public void setOverDriving(boolean overDriving) {
+        this.overDriving = overDriving;
+    }
+
+    public long getTime() {
+        return time;
+    }
+
+    public void setTime(long time) {
+        this.time = time;
+    }
+}
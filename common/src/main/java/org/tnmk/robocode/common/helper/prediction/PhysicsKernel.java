@@ -0,0 +1,227 @@
+package org.tnmk.robocode.common.helper.prediction;
+
+import robocode.Rules;
+import robocode.util.Utils;
+
+/**
+ * The movement physics of Robocode 1.9 (view RobotPeer.updateHeading(), updateMovement() and checkWallCollision() in the Robocode engine).<br/>
+ * In each tick, the heading is turned first (the turn rate depends on the velocity of the previous tick), then the velocity is changed, then the robot moves along the new heading.
+ * <p/>
+ * All methods work on primitive values and step a {@link MotionState} in place, so they never create any object.<br/>
+ * It's the only implementation of robot physics, other predictors ({@link RobotPredictionHelper}, {@link org.tnmk.robocode.common.gun.predictor.albert.MoveSim},
+ * {@link org.tnmk.robocode.common.gun.predictor.nat.MovementPredictor}) delegate to it.
+ */
+public class PhysicsKernel {
+    /**
+     * Half of the robot's bounding box ({@link robocode.Robot#getWidth()} is 36).
+     */
+    public static final double HALF_ROBOT_SIZE = 18;
+
+    /**
+     * Step one tick without walls.
+     *
+     * @param state it will be changed to the state of the next tick.
+     */
+    public static void step(MotionState state) {
+        stepHeading(state);
+        stepMovement(state);
+        state.setTime(state.getTime() + 1);
+    }
+
+    /**
+     * Step one tick, the robot stops when hitting a wall (like Robocode, it loses the remaining distance and the velocity becomes 0).
+     *
+     * @param state             it will be changed to the state of the next tick.
+     * @param battleFieldWidth
+     * @param battleFieldHeight
+     * @return true if the robot hit a wall in this tick.
+     */
+    public static boolean step(MotionState state, double battleFieldWidth, double battleFieldHeight) {
+        step(state);
+        return stopAtWalls(state, battleFieldWidth, battleFieldHeight);
+    }
+
+    /**
+     * Predict many ticks and write the result of each tick into caller-supplied arrays (index 0 is the state after the first tick).<br/>
+     * Any array could be null if the caller doesn't need it.
+     *
+     * @param state             the current state, it will be changed to the state of the last tick.
+     * @param steps             the number of ticks, must not be greater than the length of the non-null arrays.
+     * @param stopAtWalls       if false, the battle field size is ignored.
+     * @param battleFieldWidth
+     * @param battleFieldHeight
+     * @param xs
+     * @param ys
+     * @param headingRadians
+     * @param velocities
+     */
+    public static void predictSteps(MotionState state, int steps, boolean stopAtWalls, double battleFieldWidth, double battleFieldHeight,
+                                    double[] xs, double[] ys, double[] headingRadians, double[] velocities) {
+        for (int i = 0; i < steps; i++) {
+            if (stopAtWalls) {
+                step(state, battleFieldWidth, battleFieldHeight);
+            } else {
+                step(state);
+            }
+            if (xs != null) {
+                xs[i] = state.getX();
+            }
+            if (ys != null) {
+                ys[i] = state.getY();
+            }
+            if (headingRadians != null) {
+                headingRadians[i] = state.getHeadingRadian();
+            }
+            if (velocities != null) {
+                velocities[i] = state.getVelocity();
+            }
+        }
+    }
+
+    private static void stepHeading(MotionState state) {
+        double turnRemainingRadian = state.getTurnRemainingRadian();
+        if (turnRemainingRadian == 0) {
+            return;
+        }
+        double turnRateRadian = Math.min(state.getMaxTurnRateRadian(), Rules.getTurnRateRadians(state.getVelocity()));
+        double turnRadian;
+        if (turnRemainingRadian > 0) {
+            turnRadian = Math.min(turnRemainingRadian, turnRateRadian);
+        } else {
+            turnRadian = Math.max(turnRemainingRadian, -turnRateRadian);
+        }
+        state.setHeadingRadian(Utils.normalAbsoluteAngle(state.getHeadingRadian() + turnRadian));
+        state.setTurnRemainingRadian(turnRemainingRadian - turnRadian);
+    }
+
+    private static void stepMovement(MotionState state) {
+        double distance = state.getDistanceRemaining();
+        if (Double.isNaN(distance)) {
+            distance = 0;
+        }
+        double velocity = reckonNewVelocity(state.getVelocity(), state.getMaxVelocity(), distance);
+
+        /** If we are over-driving our distance and we are now at velocity = 0 then we stopped. */
+        if (Utils.isNear(velocity, 0) && state.isOverDriving()) {
+            distance = 0;
+            state.setOverDriving(false);
+        }
+        /** If we are moving normally and the breaking distance is more than the remaining distance, enable the over-driving flag. */
+        if (Math.signum(distance * velocity) != -1) {
+            state.setOverDriving(reckonDistanceUntilStop(velocity) > Math.abs(distance));
+        }
+        state.setDistanceRemaining(distance - velocity);
+        state.setVelocity(velocity);
+        if (velocity != 0) {
+            double headingRadian = state.getHeadingRadian();
+            state.setX(state.getX() + velocity * Math.sin(headingRadian));
+            state.setY(state.getY() + velocity * Math.cos(headingRadian));
+        }
+    }
+
+    /**
+     * @return true if the robot hit a wall.
+     */
+    private static boolean stopAtWalls(MotionState state, double battleFieldWidth, double battleFieldHeight) {
+        double x = state.getX();
+        double y = state.getY();
+        double minX = HALF_ROBOT_SIZE;
+        double minY = HALF_ROBOT_SIZE;
+        double maxX = battleFieldWidth - HALF_ROBOT_SIZE;
+        double maxY = battleFieldHeight - HALF_ROBOT_SIZE;
+        double adjustX = 0;
+        double adjustY = 0;
+        if (x < minX) {
+            adjustX = minX - x;
+        } else if (x > maxX) {
+            adjustX = maxX - x;
+        }
+        if (y < minY) {
+            adjustY = minY - y;
+        } else if (y > maxY) {
+            adjustY = maxY - y;
+        }
+        if (adjustX == 0 && adjustY == 0) {
+            return false;
+        }
+        /** Move back along the heading, only when the heading is not 0/90/180/270 degree. */
+        double headingRadian = state.getHeadingRadian();
+        if (headingRadian % (Math.PI / 2) != 0) {
+            double tanHeading = Math.tan(headingRadian);
+            if (adjustX == 0) {
+                adjustX = adjustY * tanHeading;
+            } else if (adjustY == 0) {
+                adjustY = adjustX / tanHeading;
+            } else if (Math.abs(adjustX / tanHeading) > Math.abs(adjustY)) {
+                adjustY = adjustX / tanHeading;
+            } else if (Math.abs(adjustY * tanHeading) > Math.abs(adjustX)) {
+                adjustX = adjustY * tanHeading;
+            }
+        }
+        state.setX(Math.max(minX, Math.min(maxX, x + adjustX)));
+        state.setY(Math.max(minY, Math.min(maxY, y + adjustY)));
+        state.setDistanceRemaining(0);
+        state.setVelocity(0);
+        state.setOverDriving(false);
+        return true;
+    }
+
+    /**
+     * @param velocity          the velocity of the previous tick.
+     * @param maxVelocity       view {@link robocode.AdvancedRobot#setMaxVelocity(double)}
+     * @param distanceRemaining could be negative (moving back) or infinity.
+     * @return the velocity of the next tick.
+     */
+    public static double reckonNewVelocity(double velocity, double maxVelocity, double distanceRemaining) {
+        if (distanceRemaining < 0) {
+            return -reckonNewVelocity(-velocity, maxVelocity, -distanceRemaining);
+        }
+        double goalVelocity;
+        if (distanceRemaining == Double.POSITIVE_INFINITY) {
+            goalVelocity = maxVelocity;
+        } else {
+            goalVelocity = Math.min(reckonMaxVelocity(distanceRemaining), maxVelocity);
+        }
+        if (velocity >= 0) {
+            return Math.max(velocity - Rules.DECELERATION, Math.min(goalVelocity, velocity + Rules.ACCELERATION));
+        } else {
+            return Math.max(velocity - Rules.ACCELERATION, Math.min(goalVelocity, velocity + reckonMaxDeceleration(-velocity)));
+        }
+    }
+
+    /**
+     * @param distance must not be negative.
+     * @return the maximum velocity so that the robot still can stop exactly after the distance.
+     */
+    public static double reckonMaxVelocity(double distance) {
+        double decelerationTime = Math.max(1, Math.ceil((Math.sqrt((4 * 2 / Rules.DECELERATION) * distance + 1) - 1) / 2));
+        if (decelerationTime == Double.POSITIVE_INFINITY) {
+            return Rules.MAX_VELOCITY;
+        }
+        double decelerationDistance = (decelerationTime / 2.0) * (decelerationTime - 1) * Rules.DECELERATION;
+        return ((decelerationTime - 1) * Rules.DECELERATION) + ((distance - decelerationDistance) / decelerationTime);
+    }
+
+    /**
+     * @param speed the absolute value of velocity when moving against the wanted direction.
+     * @return the maximum velocity change when reversing: decelerate to 0 in a fraction of the tick, then accelerate in the rest of the tick.
+     */
+    private static double reckonMaxDeceleration(double speed) {
+        double decelerationTime = speed / Rules.DECELERATION;
+        double accelerationTime = 1 - decelerationTime;
+        return Math.min(1, decelerationTime) * Rules.DECELERATION + Math.max(0, accelerationTime) * Rules.ACCELERATION;
+    }
+
+    /**
+     * @return the distance which the robot still moves when stopping from the velocity.
+     */
+    public static double reckonDistanceUntilStop(double velocity) {
+        double distance = 0;
+        double speed = Math.abs(velocity);
+        while (speed > 0) {
+            speed = Math.max(0, speed - Rules.DECELERATION);
+            distance += speed;
+        }
+        return distance;
+    }
+}
@@ -1,14 +1,11 @@
 package org.tnmk.robocode.common.helper.prediction;
 
 import java.awt.geom.Point2D;
-import org.tnmk.common.math.AngleUtils;
-import org.tnmk.common.math.GeoMathUtils;
-import org.tnmk.common.number.DoubleUtils;
-import org.tnmk.robocode.common.constant.RobotPhysics;
 import robocode.Rules;
 
 /**
- * This class helps to predict our own robot position. Not predict enemy position.
+ * This class helps to predict our own robot position. Not predict enemy position.<br/>
+ * The movement physics is calculated by {@link PhysicsKernel}.
  */
 public class RobotPredictionHelper {
     /**
@@ -17,11 +14,9 @@ public class RobotPredictionHelper {
      * @return based on currentPosition and other information, predict the future position after timePeriod.
      */
     public static RobotPrediction predictPosition(long expectPredictionTimePeriod, Point2D currentPosition, double velocity, double distanceRemaining, double headingRadian, double turnRemainingRadian) {
-        double normAcceleration = checkAccelerating(velocity, distanceRemaining);
-
         RobotPrediction robotPrediction = new RobotPrediction();
         if (expectPredictionTimePeriod == 0) {
-            robotPrediction.setNormAcceleration(normAcceleration);
+            robotPrediction.setNormAcceleration(checkAccelerating(velocity, distanceRemaining));
             robotPrediction.setTimePeriod(expectPredictionTimePeriod);
             robotPrediction.setPosition(currentPosition);
             robotPrediction.setHeadingRadian(headingRadian);
@@ -31,42 +26,19 @@ public class RobotPredictionHelper {
             return robotPrediction;
         }
 
-        double nextHeadingRadian = headingRadian;
-        double nextVelocity = velocity;
-        double nextDistanceRemaining = distanceRemaining;
-        double nextTurnRemainingRadian = turnRemainingRadian;
-        Point2D nextPosition = currentPosition;
-
-        for (int i = 0; i < expectPredictionTimePeriod || DoubleUtils.isConsideredZero(nextVelocity); i++) {
-            double movingX = nextVelocity * Math.sin(AngleUtils.normalizeRadian(nextHeadingRadian));
-            double movingY = nextVelocity * Math.cos(AngleUtils.normalizeRadian(nextHeadingRadian));
-            nextPosition = new Point2D.Double(nextPosition.getX() + movingX, nextPosition.getY() + movingY);
-
-            nextDistanceRemaining -= nextVelocity;
-            if (nextDistanceRemaining <= RobotPhysics.ROBOT_DISTANCE_TO_STOP_FROM_FULL_SPEED) {
-                normAcceleration = -Rules.DECELERATION;
-            }
-
-            nextVelocity += normAcceleration;
-
-            double normTurnRateRadian;
-            if (nextTurnRemainingRadian > 0) {
-                double turnRateRadian = Rules.getTurnRateRadians(velocity);
-                normTurnRateRadian = GeoMathUtils.sign(nextTurnRemainingRadian) * turnRateRadian;
-            }else{
-                normTurnRateRadian = 0;
-            }
-            nextHeadingRadian += normTurnRateRadian;
-            nextTurnRemainingRadian -= normTurnRateRadian;
-
-            robotPrediction.setTimePeriod(i);
-            robotPrediction.setPosition(nextPosition);
-            robotPrediction.setVelocity(nextVelocity);
-            robotPrediction.setHeadingRadian(nextHeadingRadian);
-            robotPrediction.setNormAcceleration(normAcceleration);
-            robotPrediction.setDistanceRemaining(nextDistanceRemaining);
-            robotPrediction.setTurnRemainingRadian(nextTurnRemainingRadian);
+        MotionState motionState = new MotionState(currentPosition.getX(), currentPosition.getY(), headingRadian, velocity, distanceRemaining, turnRemainingRadian, 0);
+        double previousVelocity = velocity;
+        for (long i = 0; i < expectPredictionTimePeriod; i++) {
+            previousVelocity = motionState.getVelocity();
+            PhysicsKernel.step(motionState);
         }
+        robotPrediction.setTimePeriod(expectPredictionTimePeriod);
+        robotPrediction.setPosition(new Point2D.Double(motionState.getX(), motionState.getY()));
+        robotPrediction.setVelocity(motionState.getVelocity());
+        robotPrediction.setHeadingRadian(motionState.getHeadingRadian());
+        robotPrediction.setNormAcceleration(motionState.getVelocity() - previousVelocity);
+        robotPrediction.setDistanceRemaining(motionState.getDistanceRemaining());
+        robotPrediction.setTurnRemainingRadian(motionState.getTurnRemainingRadian());
         return robotPrediction;
     }
 
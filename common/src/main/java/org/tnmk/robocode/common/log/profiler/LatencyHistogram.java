@@ -0,0 +1,85 @@
+package org.tnmk.robocode.common.log.profiler;
+
+/**
+ * A fixed-size histogram of durations (nanoseconds) with log-scaled buckets: each power of 2 is split into {@link #SUB_BUCKETS} buckets,
+ * so the error of a percentile is at most 25% while the histogram only has {@link #BUCKETS} counters.<br/>
+ * Recording a sample never creates any object.
+ */
+public class LatencyHistogram {
+    private static final int SUB_BUCKET_BITS = 2;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    private static final int BUCKETS = 64 * SUB_BUCKETS;
+
+    private final long[] bucketCounts = new long[BUCKETS];
+    private long count = 0;
+    private long totalNanos = 0;
+    private long maxNanos = 0;
+
+    public void record(long nanos) {
+        if (nanos < 0) {
+            nanos = 0;
+        }
+        bucketCounts[bucketIndex(nanos)]++;
+        count++;
+        totalNanos += nanos;
+        if (nanos > maxNanos) {
+            maxNanos = nanos;
+        }
+    }
+
+    /**
+     * Values less than {@link #SUB_BUCKETS} have their own buckets. Other values are bucketed by the highest bit and the next {@link #SUB_BUCKET_BITS} bits.
+     */
+    static int bucketIndex(long nanos) {
+        if (nanos < SUB_BUCKETS) {
+            return (int) nanos;
+        }
+        int highestBit = 63 - Long.numberOfLeadingZeros(nanos);
+        int subBucket = (int) (nanos >>> (highestBit - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+        return (highestBit - SUB_BUCKET_BITS + 1) * SUB_BUCKETS + subBucket;
+    }
+
+    /**
+     * @return the biggest value of the bucket.
+     */
+    static long bucketUpperBound(int bucketIndex) {
+        if (bucketIndex < SUB_BUCKETS) {
+            return bucketIndex;
+        }
+        int shift = bucketIndex / SUB_BUCKETS - 1;
+        long lowerBound = (long) (SUB_BUCKETS + bucketIndex % SUB_BUCKETS) << shift;
+        return lowerBound + (1L << shift) - 1;
+    }
+
+    /**
+     * @param percentile in (0, 100]
+     * @return the upper bound of the bucket which contains the percentile (never greater than the max value), 0 if there's no sample.
+     */
+    public long getPercentileNanos(double percentile) {
+        if (count == 0) {
+            return 0;
+        }
+        long rank = (long) Math.ceil(count * percentile / 100);
+        rank = Math.max(1, Math.min(count, rank));
+        long accumulatedCount = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            accumulatedCount += bucketCounts[i];
+            if (accumulatedCount >= rank) {
+                return Math.min(maxNanos, bucketUpperBound(i));
+            }
+        }
+        return maxNanos;
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public long getTotalNanos() {
+        return totalNanos;
+    }
+
+    public long getMaxNanos() {
+        return maxNanos;
+    }
+}
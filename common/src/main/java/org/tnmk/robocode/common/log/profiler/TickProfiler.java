@@ -0,0 +1,127 @@
+package org.tnmk.robocode.common.log.profiler;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.tnmk.robocode.common.error.ErrorLogger;
+import robocode.AdvancedRobot;
+import robocode.RobocodeFileWriter;
+
+/**
+ * Measure the wall time of each section (e.g. "gun.onScannedRobot") of our robot, view {@link LatencyHistogram}.<br/>
+ * Usage:
+ * <pre>
+ * long startNanos = tickProfiler.start();
+ * radar.onScannedRobot(event);
+ * startNanos = tickProfiler.stop(tickProfiler.getSectionId("radar.onScannedRobot"), startNanos);
+ * gun.onScannedRobot(event);
+ * tickProfiler.stop(tickProfiler.getSectionId("gun.onScannedRobot"), startNanos);
+ * </pre>
+ * At the end of a round, {@link #writeSummary(AdvancedRobot, String)} appends a compact summary into a file in the data directory of the robot
+ * (the same way as {@link ErrorLogger}). It's disabled by default, view {@link #enabled}.
+ */
+public class TickProfiler {
+    /**
+     * Don't write the summary when the robot's data quota is less than this size (bytes).
+     */
+    private static final long MIN_DATA_QUOTA = 20000;
+    /**
+     * When the file is bigger than this size (bytes), it's started again instead of being appended.
+     */
+    private static final long MAX_FILE_SIZE = 50000;
+
+    /**
+     * Turn it on to write summaries, the same as {@link ErrorLogger#enabled}.
+     */
+    public static boolean enabled = false;
+
+    private final Map<String, Integer> sectionIds = new HashMap<>();
+    private final List<String> sectionNames = new ArrayList<>();
+    private final List<LatencyHistogram> histograms = new ArrayList<>();
+
+    /**
+     * Sections must be registered before measuring.
+     *
+     * @param sectionName
+     * @return the id of the section.
+     */
+    public int registerSection(String sectionName) {
+        sectionNames.add(sectionName);
+        histograms.add(new LatencyHistogram());
+        int sectionId = sectionNames.size() - 1;
+        sectionIds.put(sectionName, sectionId);
+        return sectionId;
+    }
+
+    /**
+     * @param sectionName
+     * @return the id of the section, it's registered if it was not registered yet.
+     */
+    public int getSectionId(String sectionName) {
+        Integer sectionId = sectionIds.get(sectionName);
+        return sectionId == null ? registerSection(sectionName) : sectionId;
+    }
+
+    public long start() {
+        return System.nanoTime();
+    }
+
+    /**
+     * @param sectionId  view {@link #registerSection(String)}
+     * @param startNanos the result of {@link #start()} or the previous {@link #stop(int, long)}.
+     * @return the current nano time, so it can be used as the start of the next section.
+     */
+    public long stop(int sectionId, long startNanos) {
+        long now = System.nanoTime();
+        histograms.get(sectionId).record(now - startNanos);
+        return now;
+    }
+
+    public LatencyHistogram getHistogram(int sectionId) {
+        return histograms.get(sectionId);
+    }
+
+    /**
+     * @return one line per section which was called at least once: calls, p50, p99 and max (microseconds).
+     */
+    public String toSummary() {
+        StringBuilder summary = new StringBuilder();
+        for (int i = 0; i < sectionNames.size(); i++) {
+            LatencyHistogram histogram = histograms.get(i);
+            if (histogram.getCount() == 0) {
+                continue;
+            }
+            summary.append(String.format("%-28s calls=%-6d p50=%-8.1f p99=%-8.1f max=%.1f (us)%n",
+                    sectionNames.get(i), histogram.getCount(),
+                    histogram.getPercentileNanos(50) / 1000d, histogram.getPercentileNanos(99) / 1000d, histogram.getMaxNanos() / 1000d));
+        }
+        return summary.toString();
+    }
+
+    /**
+     * Nothing happens if it's not {@link #enabled}.
+     *
+     * @param robot
+     * @param fileName the file in the data directory of the robot, view {@link AdvancedRobot#getDataFile(String)}.
+     *                 When it's bigger than {@link #MAX_FILE_SIZE}, its old summaries are removed.
+     */
+    public void writeSummary(AdvancedRobot robot, String fileName) {
+        if (!enabled || robot.getDataQuotaAvailable() < MIN_DATA_QUOTA) {
+            return;
+        }
+        File outFile = robot.getDataFile(fileName);
+        try {
+            boolean append = outFile.exists() && outFile.length() < MAX_FILE_SIZE;
+            RobocodeFileWriter rfw = append ? new RobocodeFileWriter(outFile.getAbsolutePath(), true) : new RobocodeFileWriter(outFile);
+            rfw.append("Round " + robot.getRoundNum() + ", time " + robot.getTime() + "\n");
+            rfw.append(toSummary());
+            rfw.append("----\n");
+            rfw.close();
+        } catch (IOException ioe) {
+            ErrorLogger.getInstance().logException(ioe, "Cannot write the profiler summary into " + fileName);
+        }
+    }
+}
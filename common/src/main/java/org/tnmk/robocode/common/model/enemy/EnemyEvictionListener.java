@@ -0,0 +1,12 @@
+package org.tnmk.robocode.common.model.enemy;
+
+/**
+ * Client code which stores data at enemies' ids (view {@link EnemyRegistry}) should release that data when the id is evicted,
+ * because the id will be reused by another enemy.
+ */
+public interface EnemyEvictionListener {
+    /**
+     * @param enemyId the id which was just evicted.
+     */
+    void onEnemyEvicted(int enemyId);
+}
@@ -3,8 +3,12 @@ package org.tnmk.robocode.common.model.enemy;
 import java.util.List;
 
 public class EnemyHistory extends History<Enemy>{
-    private static final int HISTORY_SIZE = 20;
+    public static final int HISTORY_SIZE = 20;
     private final String name;
+    /**
+     * It's always updated together with history items.
+     */
+    private final EnemyMovementStatistics movementStatistics = new EnemyMovementStatistics(HISTORY_SIZE);
 
     public EnemyHistory(String name, Enemy historyItem) {
         super(HISTORY_SIZE);
@@ -18,7 +22,25 @@ public class EnemyHistory extends History<Enemy>{
         addToHistory(historyItems);
     }
 
+    @Override
+    public synchronized void addToHistory(Enemy historyItem) {
+        super.addToHistory(historyItem);
+        movementStatistics.record(historyItem);
+    }
+
+    @Override
+    public synchronized void addToHistory(List<Enemy> historyItems) {
+        super.addToHistory(historyItems);
+        for (Enemy historyItem : historyItems) {
+            movementStatistics.record(historyItem);
+        }
+    }
+
     public String getName() {
         return name;
     }
+
+    public EnemyMovementStatistics getMovementStatistics() {
+        return movementStatistics;
+    }
 }
@@ -6,8 +6,7 @@ import org.tnmk.common.math.AngleUtils;
 
 public class EnemyHistoryUtils {
     public static double averageChangeHeadingRadian(EnemyHistory enemyHistory, int historyItemsCount) {
-        List<Enemy> latestEnemyHistoryItems = enemyHistory.getLatestHistoryItems(historyItemsCount);
-        return averageChangeHeadingRadian(latestEnemyHistoryItems);
+        return averageChangeHeadingRadian(enemyHistory, 0, historyItemsCount);
     }
 
     public static double averageChangeHeadingRadian(List<Enemy> latestEnemyHistoryItems) {
@@ -34,4 +33,28 @@ public class EnemyHistoryUtils {
         double avgVelocity = historyItems.stream().mapToDouble(Enemy::getVelocity).average().getAsDouble();
         return avgVelocity;
     }
+
+    /**
+     * The same as {@link #averageChangeHeadingRadian(List)}, but calculated in O(1) by {@link EnemyMovementStatistics} without looping over history items.
+     *
+     * @param enemyHistory
+     * @param newestAgeIndex the ageIndex of the newest item used for calculation (0 is the latest item).
+     * @param itemsCount     the number of items (from newestAgeIndex to older items) used for calculation. If there are not enough items, use all available items.
+     * @return
+     */
+    public static double averageChangeHeadingRadian(EnemyHistory enemyHistory, int newestAgeIndex, int itemsCount) {
+        return enemyHistory.getMovementStatistics().averageTurnRateRadian(newestAgeIndex, itemsCount);
+    }
+
+    /**
+     * The same as {@link #averageVelocity(List)}, but calculated in O(1) by {@link EnemyMovementStatistics} without looping over history items.
+     *
+     * @param enemyHistory   must be not empty
+     * @param newestAgeIndex the ageIndex of the newest item used for calculation (0 is the latest item).
+     * @param itemsCount     the number of items (from newestAgeIndex to older items) used for calculation. If there are not enough items, use all available items.
+     * @return
+     */
+    public static double averageVelocity(EnemyHistory enemyHistory, int newestAgeIndex, int itemsCount) {
+        return enemyHistory.getMovementStatistics().averageVelocity(newestAgeIndex, itemsCount);
+    }
 }
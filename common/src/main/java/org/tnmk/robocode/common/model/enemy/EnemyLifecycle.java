@@ -0,0 +1,19 @@
+package org.tnmk.robocode.common.model.enemy;
+
+/**
+ * View more at {@link EnemyRegistry}
+ */
+public enum EnemyLifecycle {
+    /**
+     * The enemy is still in the battle.
+     */
+    ALIVE,
+    /**
+     * The enemy was destroyed, but its data is still kept for a while (some bullets or aiming may still refer to it).
+     */
+    DEAD,
+    /**
+     * All data of the enemy was released, its id can be reused by another enemy.
+     */
+    EVICTED
+}
@@ -2,6 +2,7 @@ package org.tnmk.robocode.common.model.enemy;
 
 import java.awt.geom.Point2D;
 import org.tnmk.robocode.common.helper.Move2DUtils;
+import org.tnmk.robocode.common.robot.state.AdvanceRobotState;
 import robocode.AdvancedRobot;
 import robocode.ScannedRobotEvent;
 
@@ -20,4 +21,38 @@ public class EnemyMapper {
         enemy.setTime(robot.getTime());
         return enemy;
     }
+
+    /**
+     * Write the scanned data directly into the columns of enemyTelemetry without creating any object.
+     *
+     * @param robotState        the state of our robot in the current tick.
+     * @param scannedRobotEvent
+     * @param enemyTelemetry    the telemetry of the scanned enemy.
+     */
+    public static void recordTelemetry(AdvanceRobotState robotState, ScannedRobotEvent scannedRobotEvent, EnemyTelemetry enemyTelemetry) {
+        double angle = robotState.getHeadingRadians() + scannedRobotEvent.getBearingRadians();
+        double distance = scannedRobotEvent.getDistance();
+        double x = robotState.getX() + Math.sin(angle) * distance;
+        double y = robotState.getY() + Math.cos(angle) * distance;
+        enemyTelemetry.record(robotState.getTime(), x, y, scannedRobotEvent.getHeading(), scannedRobotEvent.getVelocity(), scannedRobotEvent.getEnergy(), distance);
+    }
+
+    /**
+     * @param scannedRobotEvent
+     * @param enemyTelemetry    the latest item of this telemetry must be the data of the scannedRobotEvent.
+     * @return the same result as {@link #toEnemy(AdvancedRobot, ScannedRobotEvent)} but reuse the data which was already calculated in enemyTelemetry.
+     */
+    public static Enemy toEnemy(ScannedRobotEvent scannedRobotEvent, EnemyTelemetry enemyTelemetry) {
+        Enemy enemy = new Enemy();
+        enemy.setBearing(scannedRobotEvent.getBearing());
+        enemy.setDistance(enemyTelemetry.getDistance(0));
+        enemy.setEnergy(enemyTelemetry.getEnergy(0));
+        enemy.setHeading(enemyTelemetry.getHeading(0));
+        enemy.setName(scannedRobotEvent.getName());
+        enemy.setSentryRobot(scannedRobotEvent.isSentryRobot());
+        enemy.setVelocity(enemyTelemetry.getVelocity(0));
+        enemy.setPosition(new Point2D.Double(enemyTelemetry.getLatestX(), enemyTelemetry.getLatestY()));
+        enemy.setTime(enemyTelemetry.getLatestTime());
+        return enemy;
+    }
 }
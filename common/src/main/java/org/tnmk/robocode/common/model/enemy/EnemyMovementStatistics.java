@@ -0,0 +1,90 @@
+package org.tnmk.robocode.common.model.enemy;
+
+import org.tnmk.common.math.AngleUtils;
+import org.tnmk.common.math.RollingStatistics;
+
+/**
+ * The rolling statistics (mean/variance) of velocity, turn rate and acceleration of an enemy.<br/>
+ * They are updated in O(1) every time a new item is added into {@link EnemyHistory},
+ * so that we don't have to loop over history items to calculate average values on every tick.
+ * <p/>
+ * The windows are defined by history items (the same as {@link EnemyHistoryUtils}):
+ * <ul>
+ * <li>Velocity: each history item has one velocity sample.</li>
+ * <li>Turn rate and acceleration: each pair of consecutive history items has one sample (radian/tick and velocity/tick).
+ * So a window of n history items has n - 1 samples.</li>
+ * </ul>
+ */
+public class EnemyMovementStatistics {
+    private final RollingStatistics velocities;
+    /**
+     * Radian per tick. Note: the changing heading is not normalized, the same as {@link EnemyHistoryUtils#averageChangeHeadingRadian(java.util.List)}.
+     */
+    private final RollingStatistics turnRates;
+    private final RollingStatistics accelerations;
+
+    /**
+     * The previous added item, used to calculate turn rate and acceleration samples. It's null when there's no item yet.
+     */
+    private Enemy previousItem = null;
+
+    public EnemyMovementStatistics(int historySize) {
+        this.velocities = new RollingStatistics(historySize);
+        this.turnRates = new RollingStatistics(historySize);
+        this.accelerations = new RollingStatistics(historySize);
+    }
+
+    /**
+     * @param enemy the new latest history item.
+     */
+    public void record(Enemy enemy) {
+        velocities.add(enemy.getVelocity());
+        if (previousItem != null) {
+            /** If there are 2 scans in the same tick, consider they're 1 tick apart to avoid dividing by zero which would ruin all cumulative sums. */
+            double changeTime = Math.max(1, enemy.getTime() - previousItem.getTime());
+            double changeHeadingRadian = AngleUtils.toRadian(enemy.getHeading() - previousItem.getHeading());
+            turnRates.add(changeHeadingRadian / changeTime);
+            accelerations.add((enemy.getVelocity() - previousItem.getVelocity()) / changeTime);
+        }
+        previousItem = enemy;
+    }
+
+    /**
+     * @param newestAgeIndex the ageIndex of the newest history item in the window (0 is the latest item).
+     * @param itemsCount     the number of history items in the window. If there are not enough items, use all available items.
+     * @return the average velocity, 0 if there's no item in the window.
+     */
+    public double averageVelocity(int newestAgeIndex, int itemsCount) {
+        return velocities.mean(newestAgeIndex, itemsCount);
+    }
+
+    public double varianceVelocity(int newestAgeIndex, int itemsCount) {
+        return velocities.variance(newestAgeIndex, itemsCount);
+    }
+
+    /**
+     * @param newestAgeIndex view {@link #averageVelocity(int, int)}
+     * @param itemsCount     view {@link #averageVelocity(int, int)}
+     * @return the average turn rate (radian/tick), 0 if there are less than 2 items in the window.
+     */
+    public double averageTurnRateRadian(int newestAgeIndex, int itemsCount) {
+        return turnRates.mean(newestAgeIndex, itemsCount - 1);
+    }
+
+    public double varianceTurnRateRadian(int newestAgeIndex, int itemsCount) {
+        return turnRates.variance(newestAgeIndex, itemsCount - 1);
+    }
+
+    /**
+     * @param newestAgeIndex view {@link #averageVelocity(int, int)}
+     * @param itemsCount     view {@link #averageVelocity(int, int)}
+     * @return the average acceleration (velocity/tick), 0 if there are less than 2 items in the window.
+     */
+    public double averageAcceleration(int newestAgeIndex, int itemsCount) {
+        return accelerations.mean(newestAgeIndex, itemsCount - 1);
+    }
+
+    public double varianceAcceleration(int newestAgeIndex, int itemsCount) {
+        return accelerations.variance(newestAgeIndex, itemsCount - 1);
+    }
+}
@@ -1,14 +1,45 @@
 package org.tnmk.robocode.common.model.enemy;
 
+import java.util.List;
+import org.tnmk.robocode.common.gun.pattern.EnemyMovePattern;
 import org.tnmk.robocode.common.helper.prediction.EnemyPrediction;
 
 public class EnemyPredictionHistory extends History<EnemyPrediction> {
     private static final int HISTORY_SIZE = 30;
 
     private final String enemyName;
+    /**
+     * Index: {@link EnemyMovePattern#ordinal()}.<br/>
+     * They're always updated together with history items.
+     */
+    private final PatternPredictionAggregate[] patternAggregates = new PatternPredictionAggregate[EnemyMovePattern.values().length];
+
     public EnemyPredictionHistory(String enemyName) {
         super(HISTORY_SIZE);
         this.enemyName = enemyName;
+        for (int i = 0; i < patternAggregates.length; i++) {
+            patternAggregates[i] = new PatternPredictionAggregate(HISTORY_SIZE);
+        }
+    }
+
+    @Override
+    public synchronized void addToHistory(EnemyPrediction historyItem) {
+        if (historyItems.isFull()) {
+            EnemyPrediction leavingItem = historyItems.get(historyItems.size() - 1);
+            getPatternAggregate(leavingItem.getEnemyMovePattern()).remove(leavingItem);
+        }
+        super.addToHistory(historyItem);
+        getPatternAggregate(historyItem.getEnemyMovePattern()).add(historyItem);
+    }
+
+    /**
+     * Add items one by one so that the aggregates are always updated.
+     */
+    @Override
+    public synchronized void addToHistory(List<EnemyPrediction> historyItems) {
+        for (EnemyPrediction historyItem : historyItems) {
+            addToHistory(historyItem);
+        }
     }
 
     /**
@@ -19,6 +50,14 @@ public class EnemyPredictionHistory extends History<EnemyPrediction> {
         return this.historyItems == null || this.historyItems.isEmpty() || enemyPrediction.getPredictionTime() > getLatestHistoryItem().getPredictionTime();
     }
 
+    /**
+     * @param enemyMovePattern
+     * @return the aggregates of predictions with the enemyMovePattern in the current history.
+     */
+    public PatternPredictionAggregate getPatternAggregate(EnemyMovePattern enemyMovePattern) {
+        return patternAggregates[enemyMovePattern.ordinal()];
+    }
+
     public String getEnemyName() {
         return enemyName;
     }
@@ -0,0 +1,165 @@
+package org.tnmk.robocode.common.model.enemy;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Assign a dense int id to an enemy the first time its name is registered.<br/>
+ * So all per-enemy data can be stored in arrays indexed by that id, and we only need to hash the enemy's name once per event.
+ * <p/>
+ * Each enemy has a lifecycle: {@link EnemyLifecycle#ALIVE} -> {@link EnemyLifecycle#DEAD} -> {@link EnemyLifecycle#EVICTED}.<br/>
+ * The ids of evicted enemies are reused by new enemies, so the ids are always in the range [0, {@link #capacity()}) and the arrays never grow more than the number of enemies which are in the battle at the same time.
+ */
+public class EnemyRegistry {
+    public static final int NO_ID = -1;
+    private static final int INITIAL_CAPACITY = 8;
+
+    private final Map<String, Integer> idsByName = new HashMap<>();
+    private String[] names = new String[INITIAL_CAPACITY];
+    private EnemyLifecycle[] lifecycles = new EnemyLifecycle[INITIAL_CAPACITY];
+    private long[] deathTimes = new long[INITIAL_CAPACITY];
+
+    /**
+     * The ids which were never used are [usedIdsCount, capacity).
+     */
+    private int usedIdsCount = 0;
+    /**
+     * The ids of evicted enemies which can be reused (used as a stack).
+     */
+    private int[] freeIds = new int[INITIAL_CAPACITY];
+    private int freeIdsCount = 0;
+
+    private int aliveCount = 0;
+    private int deadCount = 0;
+
+    /**
+     * @param name the name of enemy
+     * @return the id of the enemy. If the enemy was not registered yet (or was evicted), a new id will be assigned.<br/>
+     * If the enemy was dead, it becomes alive again.
+     */
+    public int register(String name) {
+        Integer existingId = idsByName.get(name);
+        if (existingId != null) {
+            int id = existingId;
+            if (lifecycles[id] == EnemyLifecycle.DEAD) {
+                lifecycles[id] = EnemyLifecycle.ALIVE;
+                deadCount--;
+                aliveCount++;
+            }
+            return id;
+        }
+        int id = nextFreeId();
+        idsByName.put(name, id);
+        names[id] = name;
+        lifecycles[id] = EnemyLifecycle.ALIVE;
+        aliveCount++;
+        return id;
+    }
+
+    private int nextFreeId() {
+        if (freeIdsCount > 0) {
+            freeIdsCount--;
+            return freeIds[freeIdsCount];
+        }
+        if (usedIdsCount == names.length) {
+            int newCapacity = names.length * 2;
+            names = Arrays.copyOf(names, newCapacity);
+            lifecycles = Arrays.copyOf(lifecycles, newCapacity);
+            deathTimes = Arrays.copyOf(deathTimes, newCapacity);
+            freeIds = Arrays.copyOf(freeIds, newCapacity);
+        }
+        int id = usedIdsCount;
+        usedIdsCount++;
+        return id;
+    }
+
+    /**
+     * @param name the name of enemy
+     * @return {@link #NO_ID} if the enemy was not registered or was evicted.
+     */
+    public int getId(String name) {
+        Integer id = idsByName.get(name);
+        return id == null ? NO_ID : id;
+    }
+
+    /**
+     * @param id      the id of an alive enemy
+     * @param time    the time when the enemy was destroyed
+     * @return true if the enemy was alive and now is marked as dead.
+     */
+    public boolean markDead(int id, long time) {
+        if (id == NO_ID || lifecycles[id] != EnemyLifecycle.ALIVE) {
+            return false;
+        }
+        lifecycles[id] = EnemyLifecycle.DEAD;
+        deathTimes[id] = time;
+        aliveCount--;
+        deadCount++;
+        return true;
+    }
+
+    /**
+     * Release the id of a dead enemy so that it can be reused by another enemy.<br/>
+     * The client code must release all data which are stored at this id.
+     *
+     * @param id the id of a dead enemy
+     */
+    public void evict(int id) {
+        if (lifecycles[id] != EnemyLifecycle.DEAD) {
+            throw new IllegalStateException("Only a dead enemy can be evicted. Enemy " + names[id] + " is " + lifecycles[id]);
+        }
+        idsByName.remove(names[id]);
+        names[id] = null;
+        lifecycles[id] = EnemyLifecycle.EVICTED;
+        deadCount--;
+        freeIds[freeIdsCount] = id;
+        freeIdsCount++;
+    }
+
+    public boolean isAlive(int id) {
+        return lifecycles[id] == EnemyLifecycle.ALIVE;
+    }
+
+    public boolean isDead(int id) {
+        return lifecycles[id] == EnemyLifecycle.DEAD;
+    }
+
+    /**
+     * @param id an id in the range [0, {@link #countUsedIds()})
+     * @return null if the id was not used yet.
+     */
+    public EnemyLifecycle getLifecycle(int id) {
+        return lifecycles[id];
+    }
+
+    public long getDeathTime(int id) {
+        return deathTimes[id];
+    }
+
+    public String getName(int id) {
+        return names[id];
+    }
+
+    /**
+     * @return all ids are less than this number. It's useful to loop over all ids.
+     */
+    public int countUsedIds() {
+        return usedIdsCount;
+    }
+
+    /**
+     * @return the client code should keep its per-enemy arrays at least this size.
+     */
+    public int capacity() {
+        return names.length;
+    }
+
+    public int countAlive() {
+        return aliveCount;
+    }
+
+    public int countDead() {
+        return deadCount;
+    }
+}
@@ -18,17 +18,23 @@ public class EnemyStatisticContext {
 
     private final EnemyPredictionHistory enemyPredictionHistory;
 
+    /**
+     * This field is never null. It contains the same data as {@link #enemyHistory} but stored in primitive columns.
+     */
+    private final EnemyTelemetry enemyTelemetry;
+
 
     /**
      * If this field is null, it means there's no prediction yet.
      */
     private PatternIdentification patternIdentification = null;
 
-    public EnemyStatisticContext(AdvancedRobot robot, String enemyName, EnemyHistory enemyHistory, EnemyPredictionHistory enemyPredictionHistory) {
+    public EnemyStatisticContext(AdvancedRobot robot, String enemyName, EnemyHistory enemyHistory, EnemyPredictionHistory enemyPredictionHistory, EnemyTelemetry enemyTelemetry) {
         this.robot = robot;
         this.enemyName = enemyName;
         this.enemyHistory = enemyHistory;
         this.enemyPredictionHistory = enemyPredictionHistory;
+        this.enemyTelemetry = enemyTelemetry;
     }
 
     public PatternIdentification getPatternIdentification() {
@@ -71,6 +77,10 @@ public class EnemyStatisticContext {
         return enemyPredictionHistory;
     }
 
+    public EnemyTelemetry getEnemyTelemetry() {
+        return enemyTelemetry;
+    }
+
     public AdvancedRobot getRobot() {
         return robot;
     }
@@ -0,0 +1,135 @@
+package org.tnmk.robocode.common.model.enemy;
+
+/**
+ * The scanned data of one enemy, stored as parallel primitive columns (struct-of-arrays) instead of a list of {@link Enemy} objects.<br/>
+ * The columns are circular arrays with a fixed capacity, so recording a new scan doesn't allocate any object.
+ * <p/>
+ * Similar to {@link History}, items are accessed by ageIndex: 0 is the latest scan, {@link #size()} - 1 is the oldest one.<br/>
+ * The columns and units are the same as {@link Enemy} (heading is degree) so that both of them always give the same result.
+ * <p/>
+ * This object should be written by Radar only (via {@link org.tnmk.robocode.common.radar.AllEnemiesObservationContext}).
+ */
+public class EnemyTelemetry {
+    private final String name;
+    private final int capacity;
+
+    private final double[] xs;
+    private final double[] ys;
+    private final double[] headings;
+    private final double[] velocities;
+    private final double[] energies;
+    private final double[] distances;
+    private final long[] times;
+
+    /**
+     * The index of the slot which will be written by the next {@link #record(long, double, double, double, double, double, double)}.
+     */
+    private int head = 0;
+    private int size = 0;
+
+    public EnemyTelemetry(String name, int capacity) {
+        this.name = name;
+        this.capacity = capacity;
+        this.xs = new double[capacity];
+        this.ys = new double[capacity];
+        this.headings = new double[capacity];
+        this.velocities = new double[capacity];
+        this.energies = new double[capacity];
+        this.distances = new double[capacity];
+        this.times = new long[capacity];
+    }
+
+    /**
+     * Record a new scan as the latest item. If the columns are full, the oldest item will be overwritten.
+     *
+     * @param heading degree, the same as {@link Enemy#getHeading()}
+     */
+    public void record(long time, double x, double y, double heading, double velocity, double energy, double distance) {
+        times[head] = time;
+        xs[head] = x;
+        ys[head] = y;
+        headings[head] = heading;
+        velocities[head] = velocity;
+        energies[head] = energy;
+        distances[head] = distance;
+        head = head + 1 == capacity ? 0 : head + 1;
+        if (size < capacity) {
+            size++;
+        }
+    }
+
+    public void record(Enemy enemy) {
+        record(enemy.getTime(), enemy.getPosition().getX(), enemy.getPosition().getY(), enemy.getHeading(), enemy.getVelocity(), enemy.getEnergy(), enemy.getDistance());
+    }
+
+    /**
+     * @param ageIndex 0 is the latest item.
+     * @return the index of the slot in columns.
+     */
+    private int slot(int ageIndex) {
+        if (ageIndex < 0 || ageIndex >= size) {
+            throw new IndexOutOfBoundsException("ageIndex: " + ageIndex + ", size: " + size);
+        }
+        int index = head - 1 - ageIndex;
+        return index < 0 ? index + capacity : index;
+    }
+
+    public long getTime(int ageIndex) {
+        return times[slot(ageIndex)];
+    }
+
+    public double getX(int ageIndex) {
+        return xs[slot(ageIndex)];
+    }
+
+    public double getY(int ageIndex) {
+        return ys[slot(ageIndex)];
+    }
+
+    /**
+     * @return degree
+     */
+    public double getHeading(int ageIndex) {
+        return headings[slot(ageIndex)];
+    }
+
+    public double getVelocity(int ageIndex) {
+        return velocities[slot(ageIndex)];
+    }
+
+    public double getEnergy(int ageIndex) {
+        return energies[slot(ageIndex)];
+    }
+
+    public double getDistance(int ageIndex) {
+        return distances[slot(ageIndex)];
+    }
+
+    public long getLatestTime() {
+        return getTime(0);
+    }
+
+    public double getLatestX() {
+        return getX(0);
+    }
+
+    public double getLatestY() {
+        return getY(0);
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public int capacity() {
+        return capacity;
+    }
+
+    public String getName() {
+        return name;
+    }
+}
@@ -1,6 +1,8 @@
 package org.tnmk.robocode.common.model.enemy;
 
-import java.util.*;
+import java.util.ArrayList;
+import java.util.List;
+import org.tnmk.common.collection.RingBuffer;
 
 public class History<T> {
     protected int historySize;
@@ -10,26 +12,25 @@ public class History<T> {
      * <p/>
      * This list should never be empty, and items inside never null.<br/>
      * FIXME I think the not empty condition is weird!!! Do we really need that prerequisite for other function to run? There could be a risk in {@link #getLatestHistoryItem()} if we don't have this prerequisite.
+     * <p/>
+     * It's a fixed-size {@link RingBuffer}, so adding new items doesn't allocate memory and getting an item by index is O(1).
      */
-    protected final List<T> historyItems;
+    protected final RingBuffer<T> historyItems;
 
     public History(int historySize) {
         this.historySize = historySize;
-        this.historyItems = Collections.synchronizedList(new LinkedList<>());
+        this.historyItems = new RingBuffer<>(historySize);
     }
 
     public synchronized void addToHistory(T historyItem) {
-        historyItems.add(0, historyItem);
-        while (historyItems.size() > historySize) {
-            historyItems.remove(historyItems.size() - 1);
-        }
+        historyItems.add(historyItem);
     }
 
-    //TODO improve performance
+    /**
+     * @param historyItems the items in the order from oldest to newest: the last item in the list will become the latest history item.
+     */
     public synchronized void addToHistory(List<T> historyItems) {
-        for (T historyItem : historyItems) {
-            addToHistory(historyItem);
-        }
+        this.historyItems.addAllInOrder(historyItems);
     }
 
     public int countHistoryItems() {
@@ -64,9 +65,21 @@ public class History<T> {
         return historyItems;
     }
 
+    /**
+     * @param historyItemsCount
+     * @return a view (no copy) of the latest items, the first item is the latest one.<br/>
+     * Don't keep the result after adding new items into the history, get a new one instead.
+     */
     public List<T> getLatestHistoryItems(int historyItemsCount) {
-        int actualItemsCount = Math.min(historyItemsCount, historyItems.size());
-        return historyItems.subList(0, actualItemsCount);
+        return historyItems.latest(historyItemsCount);
+    }
+
+    /**
+     * @param ageIndex 0 is the latest item.
+     * @return get the history item at the ageIndex in O(1).
+     */
+    public T getHistoryItem(int ageIndex) {
+        return historyItems.get(ageIndex);
     }
 
     public boolean isEmpty() {
@@ -1,10 +1,11 @@
 package org.tnmk.robocode.common.model.enemy;
 
-import java.util.List;
-import java.util.stream.Collectors;
 import org.tnmk.robocode.common.gun.pattern.EnemyMovePattern;
-import org.tnmk.robocode.common.helper.prediction.EnemyPrediction;
 
+/**
+ * All calculations are based on the running aggregates in {@link EnemyPredictionHistory#getPatternAggregate(EnemyMovePattern)},
+ * so the certainty is calculated without looping over the prediction history.
+ */
 public class PatternIdentificationCertaintyCalculator {
     /**
      * @param certaintyCalculationTime
@@ -16,13 +17,11 @@ public class PatternIdentificationCertaintyCalculator {
         if (enemyPredictionHistory.countHistoryItems() == 0) {
             return new PatternIdentification(certaintyCalculationTime, enemyMovePattern, PatternIdentification.DEFAULT_CERTAINTY_WHEN_NO_PREDICTION_HISTORY);
         }
-        List<EnemyPrediction> enemyPredictionsWithSamePattern = enemyPredictionHistory.historyItems.stream()
-                .filter(item -> item.getEnemyMovePattern() == enemyMovePattern)
-                .collect(Collectors.toList());
-        long countPredictionWithSameMovePattern = enemyPredictionsWithSamePattern.size();
+        PatternPredictionAggregate predictionsWithSamePattern = enemyPredictionHistory.getPatternAggregate(enemyMovePattern);
+        long countPredictionWithSameMovePattern = predictionsWithSamePattern.getCount();
 
         double certaintyPredictionWithSameMovePattern = (double) countPredictionWithSameMovePattern / enemyPredictionHistory.countHistoryItems();
-        double certaintyPredictionWithSimilarVelocityAndHeadingChange = reckonCertaintySimilarAvgVelocityOrAvgHeadingChanges(enemyPredictionsWithSamePattern);
+        double certaintyPredictionWithSimilarVelocityAndHeadingChange = reckonCertaintySimilarAvgVelocityOrAvgHeadingChanges(predictionsWithSamePattern);
         double finalCertainty = certaintyPredictionWithSameMovePattern * certaintyPredictionWithSimilarVelocityAndHeadingChange;
 
 //        String message = String.format("Enemy: %s, \n\tPattern: %s, certaintyPattern: %.2f, certaintyVelocityAndHeadingChange: %.2f, finalCertainty: %.2f", enemyPredictionHistory.getEnemyName(), enemyMovePattern, certaintyPredictionWithSameMovePattern, certaintyPredictionWithSimilarVelocityAndHeadingChange, finalCertainty);
@@ -61,43 +60,22 @@ public class PatternIdentificationCertaintyCalculator {
      * certainty velocity: 1.0	 certainty headingChange: 0.8571428571428571	 certainty movement: 0.9285714285714286
      * </pre>
      *
-     * @param enemyPredictionsWithTheSamePattern
+     * @param predictionsWithTheSamePattern the aggregates of predictions with the same pattern.
      * @return
      */
-    private static double reckonCertaintySimilarAvgVelocityOrAvgHeadingChanges(List<EnemyPrediction> enemyPredictionsWithTheSamePattern) {
-        if (enemyPredictionsWithTheSamePattern.isEmpty()) {
+    private static double reckonCertaintySimilarAvgVelocityOrAvgHeadingChanges(PatternPredictionAggregate predictionsWithTheSamePattern) {
+        if (predictionsWithTheSamePattern.getCount() == 0) {
             return 0;
         }
-        double predictionsCount = (double) enemyPredictionsWithTheSamePattern.size();
+        double predictionsCount = (double) predictionsWithTheSamePattern.getCount();
 
-        double minAvgVelocity = Double.MAX_VALUE;
-        double maxAvgVelocity = 0;
-        double minAbsAvgHeadingChangeRadian = Double.MAX_VALUE;
-        double maxAbsAvgHeadingChangeRadian = 0;
+        double minAvgVelocity = predictionsWithTheSamePattern.getMinAvgVelocity();
+        double maxAvgVelocity = Math.max(0, predictionsWithTheSamePattern.getMaxAvgVelocity());
+        double minAbsAvgHeadingChangeRadian = predictionsWithTheSamePattern.getMinAbsAvgHeadingChangeRadian();
+        double maxAbsAvgHeadingChangeRadian = predictionsWithTheSamePattern.getMaxAbsAvgHeadingChangeRadian();
 
-        double totalAvgVelocity = 0;
-        double totalAbsAvgHeadingChangeRadian = 0;
-        for (EnemyPrediction enemyPrediction : enemyPredictionsWithTheSamePattern) {
-            double absAvgHeadingChangeRadian = Math.abs(enemyPrediction.getEnemyAvgChangeHeadingRadian());
-
-            if (minAvgVelocity > enemyPrediction.getEnemyAvgVelocity()) {
-                minAvgVelocity = enemyPrediction.getEnemyAvgVelocity();
-            }
-            if (maxAvgVelocity < enemyPrediction.getEnemyAvgVelocity()) {
-                maxAvgVelocity = enemyPrediction.getEnemyAvgVelocity();
-            }
-            totalAvgVelocity += enemyPrediction.getEnemyAvgVelocity();
-
-            if (minAbsAvgHeadingChangeRadian > absAvgHeadingChangeRadian) {
-                minAbsAvgHeadingChangeRadian = absAvgHeadingChangeRadian;
-            }
-            if (maxAbsAvgHeadingChangeRadian < absAvgHeadingChangeRadian) {
-                maxAbsAvgHeadingChangeRadian = absAvgHeadingChangeRadian;
-            }
-            totalAbsAvgHeadingChangeRadian += absAvgHeadingChangeRadian;
-        }
-        double avgAvgVelocity = totalAvgVelocity / predictionsCount;
-        double avgAbsAvgHeadingChangeRadian = totalAbsAvgHeadingChangeRadian / predictionsCount;
+        double avgAvgVelocity = predictionsWithTheSamePattern.getSumAvgVelocity() / predictionsCount;
+        double avgAbsAvgHeadingChangeRadian = predictionsWithTheSamePattern.getSumAbsAvgHeadingChangeRadian() / predictionsCount;
 
 
         double deltaAvgVelocity = maxAvgVelocity - minAvgVelocity;
@@ -107,16 +85,11 @@ public class PatternIdentificationCertaintyCalculator {
         double avgDeltaAbsAvgHeadingChangeRadian = deltaAbsAvgHeadingChangeRadian / predictionsCount;
 
         /** If velocity doesn't change more than 0.5, I think it's good enough consider most of the time velocity change from 1 to 8. */
-        long countGoodAvgVelocity = enemyPredictionsWithTheSamePattern.stream()
-                .filter(enemyPrediction ->
-                        enemyPrediction.getEnemyAvgVelocity() - avgAvgVelocity <= Math.max(avgDeltaAvgVelocity, 0.5))
-                .count();
+        long countGoodAvgVelocity = predictionsWithTheSamePattern.countAvgVelocityLessThanOrEquals(avgAvgVelocity + Math.max(avgDeltaAvgVelocity, 0.5));
         double certaintyGoodAvgVelocity = countGoodAvgVelocity / predictionsCount;
 
         /** If headingChange doesn't change more than 0.015, the usual data is around 0.09 (?) */
-        long countGoodAvgHeadingChangeRadian = enemyPredictionsWithTheSamePattern.stream()
-                .filter(enemyPrediction -> enemyPrediction.getEnemyAvgChangeHeadingRadian() - avgAbsAvgHeadingChangeRadian <= Math.max(avgDeltaAbsAvgHeadingChangeRadian, 0.0125))
-                .count();
+        long countGoodAvgHeadingChangeRadian = predictionsWithTheSamePattern.countAvgHeadingChangeRadianLessThanOrEquals(avgAbsAvgHeadingChangeRadian + Math.max(avgDeltaAbsAvgHeadingChangeRadian, 0.0125));
         double certaintyGoodAvgHeadingChangeRadian = countGoodAvgHeadingChangeRadian / predictionsCount;
         double certaintyGoodPrediction = (certaintyGoodAvgVelocity + certaintyGoodAvgHeadingChangeRadian) / 2;
 //        System.out.println("certainty velocity: " + certaintyGoodAvgVelocity +
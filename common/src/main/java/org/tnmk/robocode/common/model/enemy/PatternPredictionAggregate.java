@@ -0,0 +1,135 @@
+package org.tnmk.robocode.common.model.enemy;
+
+import java.util.Arrays;
+import org.tnmk.robocode.common.gun.pattern.EnemyMovePattern;
+import org.tnmk.robocode.common.helper.prediction.EnemyPrediction;
+
+/**
+ * The running aggregates of predictions with the same {@link EnemyMovePattern} inside {@link EnemyPredictionHistory}.<br/>
+ * They're updated when a prediction enters or leaves the history, so {@link PatternIdentificationCertaintyCalculator} doesn't need to loop over the history.
+ * <p/>
+ * Besides counters and sums, the values are also kept in sorted arrays:
+ * min/max are the first/last items and "how many values are less than or equals x" is a binary search.
+ */
+public class PatternPredictionAggregate {
+    private int count = 0;
+    private double sumAvgVelocity = 0;
+    private double sumAbsAvgHeadingChangeRadian = 0;
+
+    private final double[] sortedAvgVelocities;
+    private final double[] sortedAvgHeadingChangeRadians;
+    private final double[] sortedAbsAvgHeadingChangeRadians;
+
+    /**
+     * @param capacity the maximum number of predictions (the size of the prediction history).
+     */
+    public PatternPredictionAggregate(int capacity) {
+        this.sortedAvgVelocities = new double[capacity];
+        this.sortedAvgHeadingChangeRadians = new double[capacity];
+        this.sortedAbsAvgHeadingChangeRadians = new double[capacity];
+    }
+
+    public void add(EnemyPrediction enemyPrediction) {
+        double absAvgHeadingChangeRadian = Math.abs(enemyPrediction.getEnemyAvgChangeHeadingRadian());
+        insertSorted(sortedAvgVelocities, count, enemyPrediction.getEnemyAvgVelocity());
+        insertSorted(sortedAvgHeadingChangeRadians, count, enemyPrediction.getEnemyAvgChangeHeadingRadian());
+        insertSorted(sortedAbsAvgHeadingChangeRadians, count, absAvgHeadingChangeRadian);
+        sumAvgVelocity += enemyPrediction.getEnemyAvgVelocity();
+        sumAbsAvgHeadingChangeRadian += absAvgHeadingChangeRadian;
+        count++;
+    }
+
+    /**
+     * @param enemyPrediction must be a prediction which was added before.
+     */
+    public void remove(EnemyPrediction enemyPrediction) {
+        double absAvgHeadingChangeRadian = Math.abs(enemyPrediction.getEnemyAvgChangeHeadingRadian());
+        removeSorted(sortedAvgVelocities, count, enemyPrediction.getEnemyAvgVelocity());
+        removeSorted(sortedAvgHeadingChangeRadians, count, enemyPrediction.getEnemyAvgChangeHeadingRadian());
+        removeSorted(sortedAbsAvgHeadingChangeRadians, count, absAvgHeadingChangeRadian);
+        sumAvgVelocity -= enemyPrediction.getEnemyAvgVelocity();
+        sumAbsAvgHeadingChangeRadian -= absAvgHeadingChangeRadian;
+        count--;
+        if (count == 0) {
+            /** Avoid accumulated rounding errors. */
+            sumAvgVelocity = 0;
+            sumAbsAvgHeadingChangeRadian = 0;
+        }
+    }
+
+    /**
+     * The values are sorted by {@link Double#compare(double, double)} (the same as {@link Arrays#binarySearch(double[], int, int, double)}).
+     */
+    private static void insertSorted(double[] sortedValues, int size, double value) {
+        int index = Arrays.binarySearch(sortedValues, 0, size, value);
+        if (index < 0) {
+            index = -index - 1;
+        }
+        System.arraycopy(sortedValues, index, sortedValues, index + 1, size - index);
+        sortedValues[index] = value;
+    }
+
+    private static void removeSorted(double[] sortedValues, int size, double value) {
+        int index = Arrays.binarySearch(sortedValues, 0, size, value);
+        if (index < 0) {
+            throw new IllegalStateException("The value " + value + " was not added before");
+        }
+        System.arraycopy(sortedValues, index + 1, sortedValues, index, size - index - 1);
+    }
+
+    /**
+     * @return the number of values which are less than or equals the value.
+     */
+    private static int upperBound(double[] sortedValues, int size, double value) {
+        int low = 0;
+        int high = size;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (sortedValues[middle] <= value) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    public int getCount() {
+        return count;
+    }
+
+    public double getSumAvgVelocity() {
+        return sumAvgVelocity;
+    }
+
+    public double getSumAbsAvgHeadingChangeRadian() {
+        return sumAbsAvgHeadingChangeRadian;
+    }
+
+    /**
+     * @return must be called only when {@link #getCount()} > 0.
+     */
+    public double getMinAvgVelocity() {
+        return sortedAvgVelocities[0];
+    }
+
+    public double getMaxAvgVelocity() {
+        return sortedAvgVelocities[count - 1];
+    }
+
+    public double getMinAbsAvgHeadingChangeRadian() {
+        return sortedAbsAvgHeadingChangeRadians[0];
+    }
+
+    public double getMaxAbsAvgHeadingChangeRadian() {
+        return sortedAbsAvgHeadingChangeRadians[count - 1];
+    }
+
+    public int countAvgVelocityLessThanOrEquals(double value) {
+        return upperBound(sortedAvgVelocities, count, value);
+    }
+
+    public int countAvgHeadingChangeRadianLessThanOrEquals(double value) {
+        return upperBound(sortedAvgHeadingChangeRadians, count, value);
+    }
+}
@@ -15,6 +15,10 @@ public class AntiGravityCalculationContext {
      * Increase the movement distance for the force.
      */
     private double movementIncrement;
+    /**
+     * The precomputed force of walls and the center, it must be rebuilt after changing other values of this context.
+     */
+    private StaticForceGrid staticForceGrid;
 
     public Rectangle2D getSafeMovementArea() {
         return safeMovementArea;
@@ -63,4 +67,12 @@ public class AntiGravityCalculationContext {
     public void setMovementIncrement(double movementIncrement) {
         this.movementIncrement = movementIncrement;
     }
+
+    public StaticForceGrid getStaticForceGrid() {
+        return staticForceGrid;
+    }
+
+    public void setStaticForceGrid(StaticForceGrid staticForceGrid) {
+        this.staticForceGrid = staticForceGrid;
+    }
 }
@@ -0,0 +1,55 @@
+package org.tnmk.robocode.common.movement.strategy.antigravity;
+
+/**
+ * Compute anti-gravity forces with primitive x/y accumulators, so no object is created for each force source.
+ * <p/>
+ * The static force (walls and the center of the battle field) is read from the {@link StaticForceGrid} of the {@link AntiGravityCalculationContext},
+ * only the forces of enemies are computed live (view {@link EnemyForceAccumulator}).<br/>
+ * The direction of each force is the unit vector from the source to the position, so it doesn't need atan2/sin/cos.
+ */
+public class AntiGravityForceEngine {
+
+    /**
+     * The exact static force: the 4 closest points on walls and the center of the battle field.<br/>
+     * It's used to build {@link StaticForceGrid}, the robot should use the grid instead.
+     *
+     * @param force the accumulator: force[0] is x, force[1] is y.
+     */
+    static void addStaticForce(AntiGravityCalculationContext calculationContext, double battleFieldWidth, double battleFieldHeight, double x, double y, double[] force) {
+        /** Each wall pushes straight away from it. When the position is on/outside a wall, the distance 0 gives the maximum force. */
+        force[0] += reckonForceWeight(calculationContext, Math.max(0, x));
+        force[0] -= reckonForceWeight(calculationContext, Math.max(0, battleFieldWidth - x));
+        force[1] += reckonForceWeight(calculationContext, Math.max(0, y));
+        force[1] -= reckonForceWeight(calculationContext, Math.max(0, battleFieldHeight - y));
+        addForceOfSource(calculationContext, battleFieldWidth / 2, battleFieldHeight / 2, x, y, force);
+    }
+
+    /**
+     * Add the force which pushes the position away from the source.
+     *
+     * @param force the accumulator: force[0] is x, force[1] is y.
+     */
+    static void addForceOfSource(AntiGravityCalculationContext calculationContext, double sourceX, double sourceY, double x, double y, double[] force) {
+        double deltaX = x - sourceX;
+        double deltaY = y - sourceY;
+        double distance = Math.sqrt(deltaX * deltaX + deltaY * deltaY);
+        if (distance == 0) {
+            /** There's no direction to push. */
+            return;
+        }
+        double forceWeight = reckonForceWeight(calculationContext, distance);
+        force[0] += deltaX / distance * forceWeight;
+        force[1] += deltaY / distance * forceWeight;
+    }
+
+    /**
+     * @param distance
+     * @return
+     */
+    static double reckonForceWeight(AntiGravityCalculationContext calculationContext, double distance) {
+        double maxSafeMoveDistance = calculationContext.getMaxSafeMoveDistance();
+        double result = maxSafeMoveDistance / (distance * distance) + calculationContext.getMovementIncrement() * maxSafeMoveDistance / distance;
+        result = Math.min(result, maxSafeMoveDistance);
+        return result;
+    }
+}
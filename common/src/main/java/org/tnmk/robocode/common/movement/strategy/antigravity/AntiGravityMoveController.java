@@ -16,18 +16,16 @@ import org.tnmk.robocode.common.movement.tactic.uturn.UTurnMoveController;
 import org.tnmk.robocode.common.radar.AllEnemiesObservationContext;
 import org.tnmk.robocode.common.robot.InitiableRun;
 import org.tnmk.robocode.common.robot.LoopableRun;
+import org.tnmk.robocode.common.robot.OnRobotDeathControl;
 import org.tnmk.robocode.common.robot.OnScannedRobotControl;
+import org.tnmk.robocode.common.robot.budget.QualityKnob;
+import org.tnmk.robocode.common.robot.state.AdvanceRobotState;
 import robocode.AdvancedRobot;
-import robocode.Robot;
+import robocode.RobotDeathEvent;
 import robocode.ScannedRobotEvent;
-import robocode.util.Utils;
 
 import java.awt.geom.Point2D;
 import java.awt.geom.Rectangle2D;
-import java.util.ArrayList;
-import java.util.Arrays;
-import java.util.Collection;
-import java.util.List;
 
 /**
  * View more at http://robowiki.net/wiki/Anti-Gravity_Tutorial
@@ -36,16 +34,24 @@ import java.util.List;
  * the direction change so quickly which make robot cannot adapt. As a result, it cannot move fast and far.
  * <p/>
  * My improvement:<br/>
- * Don't move follow the direction of the force. Instead, I change the {@link #reckonForceWeight(AntiGravityCalculationContext, double)} so that we can have an appropriate destination point inside the {@link AntiGravityCalculationContext#getSafeMovementArea()}.<br/>
+ * Don't move follow the direction of the force. Instead, I change the {@link AntiGravityForceEngine#reckonForceWeight(AntiGravityCalculationContext, double)} so that we can have an appropriate destination point inside the {@link AntiGravityCalculationContext#getSafeMovementArea()}.<br/>
  * Then when moving, I use {@link Move2DUtils#setMoveToDestinationWithCurrentDirectionButDontStopAtDestination(AdvancedRobot, Point2D)} instead of {@link Move2DUtils#setMoveToDestinationWithShortestPath(AdvancedRobot, Point2D)}.<br/>
  */
-public class AntiGravityMoveController implements ResetableMoveController, InitiableRun, OnScannedRobotControl, LoopableRun {
+public class AntiGravityMoveController implements ResetableMoveController, InitiableRun, OnScannedRobotControl, OnRobotDeathControl, LoopableRun {
 
 
     private final AdvancedRobot robot;
+    /**
+     * The per-tick snapshot of our robot, it's refilled by the robot at the beginning of each turn.
+     */
+    private final AdvanceRobotState robotState;
     private final AllEnemiesObservationContext allEnemiesObservationContext;
     private final MovementContext movementContext;
     private AntiGravityCalculationContext calculationContext;
+    /**
+     * The number of levels when analyzing risk areas, view {@link RiskMap#reckonAreaRisk(double, double, double, double, int)}.
+     */
+    private final QualityKnob riskAnalysisDepthKnob = new QualityKnob("riskAnalysisDepth", 1, RiskMap.NUM_OF_LEVELS);
 
     private static final long MIN_RUN_TICKS_BEFORE_CHANGE_DESTINATION = 30;
 
@@ -53,11 +59,24 @@ public class AntiGravityMoveController implements ResetableMoveController, Initi
     private final NonStopUTurnMoveController nonStopUTurnMoveController;
 
     private Rectangle2D battleField;
+    /**
+     * The risk of enemies, it's rebuilt at most once per tick.
+     */
+    private RiskMap riskMap;
     private MoveController moveTactic = null;
     private long startTime = Long.MIN_VALUE;
+    /**
+     * The reused accumulator of {@link #reckonForce(AntiGravityCalculationContext, AdvanceRobotState)}.
+     */
+    private final double[] force = new double[2];
+    /**
+     * The force of each enemy, it's updated only for the scanned enemy, view {@link EnemyForceAccumulator}.
+     */
+    private final EnemyForceAccumulator enemyForceAccumulator = new EnemyForceAccumulator();
 
-    public AntiGravityMoveController(AdvancedRobot robot, AllEnemiesObservationContext allEnemiesObservationContext, MovementContext movementContext) {
+    public AntiGravityMoveController(AdvancedRobot robot, AdvanceRobotState robotState, AllEnemiesObservationContext allEnemiesObservationContext, MovementContext movementContext) {
         this.robot = robot;
+        this.robotState = robotState;
         this.allEnemiesObservationContext = allEnemiesObservationContext;
         this.movementContext = movementContext;
         this.uTurnMoveController = new UTurnMoveController(robot, movementContext);
@@ -67,16 +86,17 @@ public class AntiGravityMoveController implements ResetableMoveController, Initi
 
     @Override
     public void runInit() {
-        double battleWidth = robot.getBattleFieldWidth();
-        double battleHeight = robot.getBattleFieldHeight();
+        double battleWidth = robotState.getBattleFieldWidth();
+        double battleHeight = robotState.getBattleFieldHeight();
         this.battleField = new Rectangle2D.Double(0, 0, battleWidth, battleHeight);
+        this.riskMap = new RiskMap(battleWidth, battleHeight, RiskMap.DEFAULT_CELL_SIZE);
         double safePaddingMovementDistance = RobotPhysics.ROBOT_DISTANCE_TO_STOP_FROM_FULL_SPEED + RobotPhysics.ROBOT_SIZE;
 
 
         Rectangle2D safeMovementArea = new Rectangle2D.Double(safePaddingMovementDistance, safePaddingMovementDistance, battleWidth - safePaddingMovementDistance * 2, battleHeight - safePaddingMovementDistance * 2);
         double maxPossibleMoveDistance = Math.min(battleWidth, battleHeight);
         int maxPossibleEnemiesCount = 1 + (int) (maxPossibleMoveDistance / RobotPhysics.ROBOT_SIZE);
-        int maxActualEnemiesCount = robot.getOthers();
+        int maxActualEnemiesCount = robotState.getOthers();
 
         double haftMaxPossibleMoveDistance = maxPossibleMoveDistance / 2;
         double safePaddingDistance = (maxPossibleEnemiesCount / 4) * RobotPhysics.ROBOT_SIZE;
@@ -90,6 +110,7 @@ public class AntiGravityMoveController implements ResetableMoveController, Initi
         calculationContext.setMaxSafeMoveDistance(maxSafeMoveDistance);
         calculationContext.setMovementIncrement(movementIncrement);
         calculationContext.setSafeMovementArea(safeMovementArea);
+        calculationContext.setStaticForceGrid(new StaticForceGrid(calculationContext, battleWidth, battleHeight, StaticForceGrid.DEFAULT_CELL_SIZE));
 
         robot.out.println("maxPossibleMoveDistance" + maxPossibleMoveDistance);
         robot.out.println("maxPossibleEnemiesCount" + maxPossibleEnemiesCount);
@@ -102,9 +123,10 @@ public class AntiGravityMoveController implements ResetableMoveController, Initi
     //TODO it only change movement when seeing updated enemies. If radar somehow doesn't work as expected, it just stay still!!!
     @Override
     public void onScannedRobot(ScannedRobotEvent scannedRobotEvent) {
+        updateEnemyForce(scannedRobotEvent.getName());
         if (movementContext.isNone() || movementContext.is(MoveStrategy.ANTI_GRAVITY)) {
 
-            double runPeriod = robot.getTime() - startTime;
+            double runPeriod = robotState.getTime() - startTime;
             /**
              * //TODO investigate: This uTurnMovement condition combines runLoop() makes AgainstMoebiusAndOthersTest reduce from 70% to 50%!!! Why???
              * //   NOTE: Disable uTurnMovement, however, will reduce AgainstSuperSampleBots01 from 68% to 53%!!!
@@ -114,19 +136,21 @@ public class AntiGravityMoveController implements ResetableMoveController, Initi
 //                /** Just keep running to the old destination, don't need to calculate new destination */
 //                return;
 //            }
-            Point2D robotPosition = new Point2D.Double(robot.getX(), robot.getY());
-            Point2D force = reckonForce(this.calculationContext, this.robot, this.allEnemiesObservationContext);
+            Point2D robotPosition = robotState.getPosition();
+            Point2D force = reckonForce(this.calculationContext, this.robotState);
             Point2D destination = Point2DUtils.plus(robotPosition, force);
 
             destination = Move2DUtils.reckonMaximumDestination(robotPosition, destination, calculationContext.getSafeMovementArea());
-            destination = AvoidOneAreaTooLongMoveHelper.avoidMovingInOneAreaForTooLong(robot, battleField, movementContext, allEnemiesObservationContext.getEnemies(), destination);
+            riskMap.rebuild(robotState.getTime(), robotState.getX(), robotState.getY(), allEnemiesObservationContext.getSnapshot().getEnemies());
+            destination = AvoidOneAreaTooLongMoveHelper.avoidMovingInOneAreaForTooLong(robot, robotState, battleField, movementContext, riskMap, riskAnalysisDepthKnob.getLevel(),
+                    allEnemiesObservationContext.getEnemiesSpatialIndex(), destination);
 
             AntiGravityPainterUtils.paintFinalDestination(robot, destination);
             movementContext.changeMoveStrategy(MoveStrategy.ANTI_GRAVITY, this);
 
 //            decideMovementWayRandomly(finalDestination);
             decideMovementWayBySafeArea(destination);
-            this.startTime = robot.getTime();
+            this.startTime = robotState.getTime();
         }
     }
 
@@ -194,7 +218,7 @@ public class AntiGravityMoveController implements ResetableMoveController, Initi
         if (moveTactic == uTurnMoveController) {
             uTurnMoveController.reset();
         }
-        Move2DUtils.setMoveToDestinationWithShortestPath(robot, destination);
+        Move2DUtils.setMoveToDestinationWithShortestPath(robot, robotState, destination);
     }
 
     private void moveByLongPathTurning(Point2D destination) {
@@ -202,7 +226,7 @@ public class AntiGravityMoveController implements ResetableMoveController, Initi
         if (moveTactic == uTurnMoveController) {
             uTurnMoveController.reset();
         }
-        Move2DUtils.setMoveToDestinationWithCurrentDirectionButDontStopAtDestination(robot, destination);
+        Move2DUtils.setMoveToDestinationWithCurrentDirectionButDontStopAtDestination(robot, robotState, destination);
     }
 
 
@@ -222,104 +246,36 @@ public class AntiGravityMoveController implements ResetableMoveController, Initi
     }
 
     /**
-     * @param robot                        your robot
-     * @param allEnemiesObservationContext store all information of enemy robots.
-     * @return
-     */
-    private static Point2D reckonForce(AntiGravityCalculationContext calculationContext, AdvancedRobot robot, AllEnemiesObservationContext allEnemiesObservationContext) {
-        Point2D robotPosition = new Point2D.Double(robot.getX(), robot.getY());
-
-        Collection<Point2D> staticPositions = constructStaticPositions(robot);
-        ForceResult staticForceResult = reckonForceOfStaticPositions(calculationContext, robotPosition, staticPositions);
-
-        Collection<Enemy> enemies = allEnemiesObservationContext.getEnemies();
-        ForceResult enemiesForceResult = reckonForceOfEnemies(calculationContext, robotPosition, enemies);
-
-        Point2D finalForce = Point2DUtils.plus(staticForceResult.getFinalForce(), enemiesForceResult.getFinalForce());
-//        AntiGravityPainterUtils.paintForceResults(robot, staticForceResult, enemiesForceResult, finalForce);
-        return finalForce;
-    }
-
-
-    /**
-     * @param robotPosition
-     * @param enemies
-     * @return absolute vector of the force.
+     * @param enemyName the enemy which was just scanned, its latest data must already be in {@link #allEnemiesObservationContext}.
      */
-    private static ForceResult reckonForceOfEnemies(AntiGravityCalculationContext calculationContext, Point2D robotPosition, Collection<Enemy> enemies) {
-        Point2D finalForce = new Point2D.Double();
-        List<Point2D> forces = new ArrayList<>();
-
-        for (Enemy enemy : enemies) {
-            Point2D enemyPosition = enemy.getPosition();
-            double absBearing = reckonAbsoluteBearingBetweenTwoPoints(enemyPosition, robotPosition);
-            double distance = enemyPosition.distance(robotPosition);
-            double forceWeight = reckonForceWeight(calculationContext, distance);
-            Point2D force = new Point2D.Double(-(Math.sin(absBearing) * forceWeight), -(Math.cos(absBearing) * forceWeight));
-//            robot.out.println(String.format("enemy \t name %s \t forceWeight %.2f ", enemy.getName(), forceWeight));
-//            robot.out.println(String.format("enemy \t name %s \t force %s ", enemy.getName(), force));
-
-            finalForce = Point2DUtils.plus(finalForce, force);
-            forces.add(force);
+    private void updateEnemyForce(String enemyName) {
+        Enemy enemy = allEnemiesObservationContext.getEnemy(enemyName);
+        if (enemy == null) {
+            return;
         }
-        ForceResult forceResult = new ForceResult(forces, finalForce);
-        return forceResult;
-    }
-
-    private static Collection<Point2D> constructStaticPositions(Robot robot) {
-        Collection<Point2D> wallsPositions = constructWallsPositions(robot);
-        Point2D middleBattlePosition = new Point2D.Double(robot.getBattleFieldWidth() / 2, robot.getBattleFieldHeight() / 2);
-        Collection<Point2D> staticPositions = new ArrayList<>(wallsPositions);
-        staticPositions.add(middleBattlePosition);
-        return staticPositions;
-    }
-
-    private static Collection<Point2D> constructWallsPositions(Robot robot) {
-        Point2D closestHorizonTopWallPosition = new Point2D.Double(robot.getX(), robot.getBattleFieldHeight());
-        Point2D closestHorizonBottomWallPosition = new Point2D.Double(robot.getX(), 0);
-        Point2D closestVerticalLeftWallPosition = new Point2D.Double(0, robot.getY());
-        Point2D closestVerticalRightWallPosition = new Point2D.Double(robot.getBattleFieldWidth(), robot.getY());
-        Collection<Point2D> staticPositions = Arrays.asList(
-                closestHorizonBottomWallPosition
-                , closestHorizonTopWallPosition
-                , closestVerticalLeftWallPosition
-                , closestVerticalRightWallPosition
-        );
-        return staticPositions;
+        int enemyId = allEnemiesObservationContext.getEnemyId(enemyName);
+        Point2D enemyPosition = enemy.getPosition();
+        enemyForceAccumulator.updateEnemy(calculationContext, robotState.getX(), robotState.getY(), enemyId, enemyPosition.getX(), enemyPosition.getY());
     }
 
-    private static ForceResult reckonForceOfStaticPositions(AntiGravityCalculationContext calculationContext, Point2D robotPosition, Collection<Point2D> positions) {
-        Point2D finalForce = new Point2D.Double();
-        List<Point2D> forces = new ArrayList<>();
-        for (Point2D position : positions) {
-            double absBearing = reckonAbsoluteBearingBetweenTwoPoints(position, robotPosition);
-            double distance = position.distance(robotPosition);
-            double forceWeight = reckonForceWeight(calculationContext, distance);
-
-            Point2D force = new Point2D.Double(-(Math.sin(absBearing) * forceWeight), -(Math.cos(absBearing) * forceWeight));
-//            robot.out.println(String.format("wall \t wall %s \t forceWeight %.2f", position, forceWeight));
-//            robot.out.println(String.format("wall \t wall %s \t force %s ", position, force));
-
-            forces.add(force);
-            finalForce = Point2DUtils.plus(finalForce, force);
-        }
-        ForceResult forceResult = new ForceResult(forces, finalForce);
-        return forceResult;
+    @Override
+    public void onRobotDeath(RobotDeathEvent robotDeathEvent) {
+        enemyForceAccumulator.removeEnemy(allEnemiesObservationContext.getEnemyId(robotDeathEvent.getName()));
     }
 
     /**
-     * @param distance
-     * @return
+     * @param robotState the snapshot of your robot at the current tick.
+     * @return absolute vector of the final force: the static force from {@link StaticForceGrid} and the enemies' force from {@link EnemyForceAccumulator}.
      */
-    private static double reckonForceWeight(AntiGravityCalculationContext calculationContext, double distance) {
-        double result = calculationContext.getMaxSafeMoveDistance() / Math.pow(distance, 2) + calculationContext.getMovementIncrement() * calculationContext.getMaxSafeMoveDistance() / distance;
-        result = Math.min(result, calculationContext.getMaxSafeMoveDistance());
-        return result;
-    }
-
-    private static double reckonAbsoluteBearingBetweenTwoPoints(Point2D pointA, Point2D pointB) {
-        double absBearing = Utils.normalAbsoluteAngle(Math.atan2(pointA.getX() - pointB.getX(), pointA.getY() - pointB.getY()));
-        return absBearing;
+    private Point2D reckonForce(AntiGravityCalculationContext calculationContext, AdvanceRobotState robotState) {
+        force[0] = 0;
+        force[1] = 0;
+        calculationContext.getStaticForceGrid().addForce(robotState.getX(), robotState.getY(), force);
+        enemyForceAccumulator.moveOrigin(calculationContext, robotState.getX(), robotState.getY());
+        force[0] += enemyForceAccumulator.getNetForceX();
+        force[1] += enemyForceAccumulator.getNetForceY();
+//        AntiGravityPainterUtils.paintForce(robot.getGraphics(), robot, new Point2D.Double(force[0], force[1]), 3, Color.GREEN);
+        return new Point2D.Double(force[0], force[1]);
     }
 
 
@@ -341,5 +297,7 @@ public class AntiGravityMoveController implements ResetableMoveController, Initi
 //        }
     }
 
-
+    public QualityKnob getRiskAnalysisDepthKnob() {
+        return riskAnalysisDepthKnob;
+    }
 }
@@ -2,17 +2,16 @@ package org.tnmk.robocode.common.movement.strategy.antigravity;
 
 import java.awt.geom.Point2D;
 import java.awt.geom.Rectangle2D;
-import java.util.Arrays;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
-import java.util.stream.Collectors;
+import org.tnmk.common.collection.UniformGridIndex;
 import org.tnmk.common.math.GeoMathUtils;
-import org.tnmk.robocode.common.helper.BattleFieldUtils;
 import org.tnmk.robocode.common.helper.Move2DUtils;
 import org.tnmk.robocode.common.log.DebugHelper;
-import org.tnmk.robocode.common.model.enemy.Enemy;
 import org.tnmk.robocode.common.movement.MoveAreaHelper;
 import org.tnmk.robocode.common.movement.MovementContext;
+import org.tnmk.robocode.common.robot.state.AdvanceRobotState;
 import robocode.AdvancedRobot;
 import robocode.Rules;
 
@@ -25,16 +24,34 @@ public class AvoidOneAreaTooLongMoveHelper {
      */
     private static final double ONE_SMALL_AREA_DIAGONAL = 400;
 
-    public static Point2D avoidMovingInOneAreaForTooLong(AdvancedRobot robot, Rectangle2D battleField, MovementContext movementContext, Collection<Enemy> enemies, Point2D destination) {
+    /**
+     * The number of least risky areas to find, only the ones with the least risk are painted when debugging, and one of them is chosen (view {@link #chooseFurthestFromEnemies(List, UniformGridIndex)}).
+     */
+    private static final int LEAST_RISKY_AREAS_COUNT = 4;
+    /**
+     * The size of each candidate area compared to the battle field (the old analysis split each side into 4 parts).
+     */
+    private static final int AREA_PARTS_PER_SIDE = 4;
+
+    /**
+     * @param robot             used for debugging only.
+     * @param robotState        the snapshot of our robot at the current tick.
+     * @param riskMap           the risk map of the current tick, view {@link RiskMap#rebuild(long, double, double, Collection)}
+     * @param riskAnalystLevels view {@link RiskMap#reckonAreaRisk(double, double, double, double, int)}
+     * @param enemiesSpatialIndex the latest positions of alive enemies, view {@link org.tnmk.robocode.common.radar.AllEnemiesObservationContext#getEnemiesSpatialIndex()}
+     */
+    public static Point2D avoidMovingInOneAreaForTooLong(AdvancedRobot robot, AdvanceRobotState robotState, Rectangle2D battleField, MovementContext movementContext, RiskMap riskMap, int riskAnalystLevels,
+                                                         UniformGridIndex enemiesSpatialIndex, Point2D destination) {
         if (movementContext.getRobotHistory().isEmpty()) {
             return destination;
         }
-        MoveAreaHelper.MoveAreaTooLongResult moveAreaTooLongResult = MoveAreaHelper.isMoveAreaHistoryLarger(robot, movementContext.getRobotHistory(), robot.getTime(), ONE_CIRCLE_PERIOD_TICKS, ONE_SMALL_AREA_DIAGONAL).get();
+        MoveAreaHelper.MoveAreaTooLongResult moveAreaTooLongResult = MoveAreaHelper.isMoveAreaHistoryLarger(robot, movementContext.getRobotHistory(), robotState.getTime(), ONE_CIRCLE_PERIOD_TICKS, ONE_SMALL_AREA_DIAGONAL).get();
         if (moveAreaTooLongResult.isTooLong()) {
             DebugHelper.debugMovingTooLong(robot, moveAreaTooLongResult);
             Rectangle2D tooLongMoveArea = moveAreaTooLongResult.getMoveArea();
             if (GeoMathUtils.checkInsideRectangle(destination, tooLongMoveArea)) {
-                return findDestinationOutsideArea(robot, battleField, tooLongMoveArea, enemies);
+                Point2D newDestination = findDestinationOutsideArea(robot, robotState, battleField, tooLongMoveArea, riskMap, riskAnalystLevels, enemiesSpatialIndex);
+                return newDestination != null ? newDestination : destination;
             } else {
                 return destination;
             }
@@ -46,39 +63,56 @@ public class AvoidOneAreaTooLongMoveHelper {
     /**
      * @param battleField
      * @param tooLongMoveArea the area which our robot has been moving inside for too long (and we want to move to another area). This area has diagonal less than {@link #ONE_SMALL_AREA_DIAGONAL}
-     * @param enemies         latest information about our enemies
-     * @return
+     * @param riskMap         the risk of enemies at the current tick.
+     * @return null if there's no area outside the tooLongMoveArea.
      */
-    private static Point2D findDestinationOutsideArea(AdvancedRobot robot, Rectangle2D battleField, Rectangle2D tooLongMoveArea, Collection<Enemy> enemies) {
-        Point2D robotPosition = BattleFieldUtils.constructRobotPosition(robot);
-        List<RiskArea> analyzedRiskAreas = RiskAreaAnalyst.analyzeRiskAreas(battleField, enemies);
-        List<RiskArea> excludedOldAreas = RiskAreaHelper.excludeAreas(analyzedRiskAreas, tooLongMoveArea);
-        List<RiskArea> leastRiskAreas = RiskAreaAnalyst.findLeastRiskyArea(excludedOldAreas);
+    private static Point2D findDestinationOutsideArea(AdvancedRobot robot, AdvanceRobotState robotState, Rectangle2D battleField, Rectangle2D tooLongMoveArea, RiskMap riskMap, int riskAnalystLevels,
+                                                      UniformGridIndex enemiesSpatialIndex) {
+        double areaWidth = battleField.getWidth() / AREA_PARTS_PER_SIDE;
+        double areaHeight = battleField.getHeight() / AREA_PARTS_PER_SIDE;
+        int[] leastRiskyCells = new int[LEAST_RISKY_AREAS_COUNT];
+        double[] leastRisks = new double[LEAST_RISKY_AREAS_COUNT];
+        int count = riskMap.findLeastRiskyCells(LEAST_RISKY_AREAS_COUNT, areaWidth, areaHeight, riskAnalystLevels, tooLongMoveArea, robotState.getX(), robotState.getY(), leastRiskyCells, leastRisks);
+        if (count == 0) {
+            return null;
+        }
+        List<RiskArea> leastRiskAreas = new ArrayList<>(count);
+        for (int i = 0; i < count && leastRisks[i] == leastRisks[0]; i++) {
+            double centerX = riskMap.getCellCenterX(leastRiskyCells[i]);
+            double centerY = riskMap.getCellCenterY(leastRiskyCells[i]);
+            Rectangle2D area = new Rectangle2D.Double(centerX - areaWidth / 2, centerY - areaHeight / 2, areaWidth, areaHeight);
+            leastRiskAreas.add(new RiskArea(area.createIntersection(battleField), leastRisks[i]));
+        }
         DebugHelper.debugLeastRiskAreas(robot, leastRiskAreas);
-        RiskArea closestRiskArea = findClosestArea(robotPosition, leastRiskAreas);
-        DebugHelper.debugClosestRiskArea(robot, closestRiskArea);
-        Point2D destination = findBestDestinationInParts(Arrays.asList(closestRiskArea));
-        return destination;
+        RiskArea chosenRiskArea = chooseFurthestFromEnemies(leastRiskAreas, enemiesSpatialIndex);
+        DebugHelper.debugClosestRiskArea(robot, chosenRiskArea);
+        return DestinationRandomHelper.randomPointAroundCentralOfArea(chosenRiskArea.getArea());
     }
 
-    private static RiskArea findClosestArea(Point2D robotPosition, List<RiskArea> riskAreas) {
-        double closestDistance = Double.MAX_VALUE;
-        RiskArea closestRiskArea = null;
+    /**
+     * The risk map only counts whole cells, so areas with the same risk can still have an enemy right next to them.<br/>
+     * Choose the area whose center is the furthest from its nearest enemy. If they're the same (e.g. no enemy was scanned), the first one is chosen.
+     *
+     * @param riskAreas the areas with the same risk, sorted by the distance to our robot.
+     */
+    private static RiskArea chooseFurthestFromEnemies(List<RiskArea> riskAreas, UniformGridIndex enemiesSpatialIndex) {
+        int[] nearestEnemyIds = new int[1];
+        RiskArea chosenRiskArea = riskAreas.get(0);
+        double maxNearestDistanceSq = -1;
         for (RiskArea riskArea : riskAreas) {
-            Point2D centerPoint = GeoMathUtils.reckonCenter(riskArea.getArea());
-            double distance = robotPosition.distance(centerPoint);
-            if (closestDistance > distance) {
-                closestDistance = distance;
-                closestRiskArea = riskArea;
+            double centerX = riskArea.getArea().getCenterX();
+            double centerY = riskArea.getArea().getCenterY();
+            double nearestDistanceSq = Double.POSITIVE_INFINITY;
+            if (enemiesSpatialIndex.findNearest(centerX, centerY, 1, nearestEnemyIds) > 0) {
+                double deltaX = enemiesSpatialIndex.getX(nearestEnemyIds[0]) - centerX;
+                double deltaY = enemiesSpatialIndex.getY(nearestEnemyIds[0]) - centerY;
+                nearestDistanceSq = deltaX * deltaX + deltaY * deltaY;
+            }
+            if (nearestDistanceSq > maxNearestDistanceSq) {
+                maxNearestDistanceSq = nearestDistanceSq;
+                chosenRiskArea = riskArea;
             }
         }
-        return closestRiskArea;
+        return chosenRiskArea;
     }
-
-    private static Point2D findBestDestinationInParts(List<RiskArea> leastRiskAreas) {
-        List<Rectangle2D> areas = leastRiskAreas.stream().map(RiskArea::getArea).collect(Collectors.toList());
-        return DestinationRandomHelper.randomPointsAroundCentralInAreas(areas);
-    }
-
-
 }
@@ -0,0 +1,126 @@
+package org.tnmk.robocode.common.movement.strategy.antigravity;
+
+import java.util.Arrays;
+
+/**
+ * Keep the force of each enemy at our robot's position and the net force of all enemies, indexed by enemy ids (view {@link org.tnmk.robocode.common.model.enemy.EnemyRegistry}).
+ * <p/>
+ * When an enemy is scanned, only its force is updated: the old force is subtracted from the net force and the new one is added, so each scan costs O(1).<br/>
+ * Enemies' forces depend on our robot's position too, so when our robot has moved, all forces are recomputed once from the enemies' latest positions (view {@link #moveOrigin(AntiGravityCalculationContext, double, double)}).
+ * With a sweep radar in melee, it happens once per tick instead of once per scan.
+ */
+public class EnemyForceAccumulator {
+    private static final int DEFAULT_CAPACITY = 16;
+
+    private double originX = Double.NaN;
+    private double originY = Double.NaN;
+
+    private boolean[] hasEnemies = new boolean[DEFAULT_CAPACITY];
+    private double[] enemyXs = new double[DEFAULT_CAPACITY];
+    private double[] enemyYs = new double[DEFAULT_CAPACITY];
+    private double[] forceXs = new double[DEFAULT_CAPACITY];
+    private double[] forceYs = new double[DEFAULT_CAPACITY];
+    private double netForceX = 0;
+    private double netForceY = 0;
+    /**
+     * Reused accumulator for one enemy's force.
+     */
+    private final double[] force = new double[2];
+
+    /**
+     * Update the force of an enemy at its new position.
+     *
+     * @param robotX  our robot's current position.
+     * @param robotY
+     * @param enemyId
+     * @param enemyX  the enemy's latest position.
+     * @param enemyY
+     */
+    public void updateEnemy(AntiGravityCalculationContext calculationContext, double robotX, double robotY, int enemyId, double enemyX, double enemyY) {
+        moveOrigin(calculationContext, robotX, robotY);
+        ensureCapacity(enemyId + 1);
+        removeEnemy(enemyId);
+        hasEnemies[enemyId] = true;
+        enemyXs[enemyId] = enemyX;
+        enemyYs[enemyId] = enemyY;
+        addForceOfEnemy(calculationContext, enemyId);
+    }
+
+    /**
+     * Remove the force of an enemy (e.g. it's dead). Nothing happens if the enemy has no force.
+     *
+     * @param enemyId
+     */
+    public void removeEnemy(int enemyId) {
+        if (enemyId < 0 || enemyId >= hasEnemies.length || !hasEnemies[enemyId]) {
+            return;
+        }
+        netForceX -= forceXs[enemyId];
+        netForceY -= forceYs[enemyId];
+        hasEnemies[enemyId] = false;
+        forceXs[enemyId] = 0;
+        forceYs[enemyId] = 0;
+    }
+
+    /**
+     * If our robot is not at the origin of the forces anymore, recompute the forces of all enemies at the new position.<br/>
+     * The net force is summed again from scratch so that the errors of many subtractions are not accumulated.
+     *
+     * @param robotX our robot's current position.
+     * @param robotY
+     */
+    public void moveOrigin(AntiGravityCalculationContext calculationContext, double robotX, double robotY) {
+        if (robotX == originX && robotY == originY) {
+            return;
+        }
+        originX = robotX;
+        originY = robotY;
+        netForceX = 0;
+        netForceY = 0;
+        for (int enemyId = 0; enemyId < hasEnemies.length; enemyId++) {
+            if (hasEnemies[enemyId]) {
+                addForceOfEnemy(calculationContext, enemyId);
+            }
+        }
+    }
+
+    private void addForceOfEnemy(AntiGravityCalculationContext calculationContext, int enemyId) {
+        force[0] = 0;
+        force[1] = 0;
+        AntiGravityForceEngine.addForceOfSource(calculationContext, enemyXs[enemyId], enemyYs[enemyId], originX, originY, force);
+        forceXs[enemyId] = force[0];
+        forceYs[enemyId] = force[1];
+        netForceX += force[0];
+        netForceY += force[1];
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (capacity > hasEnemies.length) {
+            int newCapacity = Math.max(capacity, hasEnemies.length * 2);
+            hasEnemies = Arrays.copyOf(hasEnemies, newCapacity);
+            enemyXs = Arrays.copyOf(enemyXs, newCapacity);
+            enemyYs = Arrays.copyOf(enemyYs, newCapacity);
+            forceXs = Arrays.copyOf(forceXs, newCapacity);
+            forceYs = Arrays.copyOf(forceYs, newCapacity);
+        }
+    }
+
+    /**
+     * @return the x of the net force of all enemies at {@link #getOriginX()}, {@link #getOriginY()}.
+     */
+    public double getNetForceX() {
+        return netForceX;
+    }
+
+    public double getNetForceY() {
+        return netForceY;
+    }
+
+    public double getOriginX() {
+        return originX;
+    }
+
+    public double getOriginY() {
+        return originY;
+    }
+}
@@ -0,0 +1,212 @@
+package org.tnmk.robocode.common.movement.strategy.antigravity;
+
+import org.tnmk.robocode.common.model.enemy.Enemy;
+
+import java.awt.geom.Point2D;
+import java.awt.geom.Rectangle2D;
+import java.util.Arrays;
+import java.util.Collection;
+
+/**
+ * The risk of every area of the battle field, built from a fine grid of cells and its summed-area table (view https://en.wikipedia.org/wiki/Summed-area_table).
+ * <p/>
+ * Each enemy adds its weighted risk into the cell which contains it (view {@link #reckonEnemyRisk(Enemy, double, double, long)}).
+ * Then the summed-area table gives the total risk of any rectangle in O(1) (view {@link #getRisk(double, double, double, double)}), only the whole cells which overlap the rectangle are counted.
+ * <p/>
+ * Like the old recursive analysis, the risk of an area is combined from many levels: the area itself and bigger areas around it, a bigger area has a bigger {@link #RISK_LEVEL_COEFFICIENT} (view {@link #reckonAreaRisk(double, double, double, double, int)}).
+ * <p/>
+ * It's rebuilt at most once per tick (view {@link #rebuild(long, double, double, Collection)}).
+ */
+public class RiskMap {
+    public static final double DEFAULT_CELL_SIZE = 40;
+    public static final int NUM_OF_LEVELS = 3;
+    /**
+     * For each level, the coefficient is 10.
+     */
+    public static final double RISK_LEVEL_COEFFICIENT = 10;
+    /**
+     * An enemy at this distance has half of the extra risk of a very close enemy.
+     */
+    private static final double NEAR_DISTANCE = 300;
+    /**
+     * An enemy which was scanned this number of ticks ago has half of the risk of an enemy which was just scanned.
+     */
+    private static final double RECENCY_TICKS = 16;
+
+    private final double cellSize;
+    private final int columns;
+    private final int rows;
+    private final double[] cellRisks;
+    /**
+     * summedRisks[row * (columns + 1) + column] is the total risk of cells in columns [0, column) and rows [0, row).
+     */
+    private final double[] summedRisks;
+    private long builtTime = Long.MIN_VALUE;
+
+    public RiskMap(double battleFieldWidth, double battleFieldHeight, double cellSize) {
+        if (cellSize <= 0 || battleFieldWidth <= 0 || battleFieldHeight <= 0) {
+            throw new IllegalArgumentException("Width, height and cellSize must be greater than 0: " + battleFieldWidth + ", " + battleFieldHeight + ", " + cellSize);
+        }
+        this.cellSize = cellSize;
+        this.columns = Math.max(1, (int) Math.ceil(battleFieldWidth / cellSize));
+        this.rows = Math.max(1, (int) Math.ceil(battleFieldHeight / cellSize));
+        this.cellRisks = new double[columns * rows];
+        this.summedRisks = new double[(columns + 1) * (rows + 1)];
+    }
+
+    /**
+     * Rebuild the map from the enemies' latest data. Nothing happens if it was already built at this time.
+     *
+     * @param time    the current time.
+     * @param robotX  our robot's position.
+     * @param robotY
+     * @param enemies alive enemies.
+     */
+    public void rebuild(long time, double robotX, double robotY, Collection<Enemy> enemies) {
+        if (time == builtTime) {
+            return;
+        }
+        builtTime = time;
+        Arrays.fill(cellRisks, 0);
+        for (Enemy enemy : enemies) {
+            Point2D position = enemy.getPosition();
+            int cell = toRow(position.getY()) * columns + toColumn(position.getX());
+            cellRisks[cell] += reckonEnemyRisk(enemy, robotX, robotY, time);
+        }
+        for (int row = 0; row < rows; row++) {
+            double rowSum = 0;
+            for (int column = 0; column < columns; column++) {
+                rowSum += cellRisks[row * columns + column];
+                summedRisks[(row + 1) * (columns + 1) + column + 1] = summedRisks[row * (columns + 1) + column + 1] + rowSum;
+            }
+        }
+    }
+
+    /**
+     * The risk of an enemy is higher when it has more energy, it's closer to our robot and its data is more recent.
+     *
+     * @return a value from 0 to 4.
+     */
+    static double reckonEnemyRisk(Enemy enemy, double robotX, double robotY, long time) {
+        double energyFactor = 1 + Math.min(1, enemy.getEnergy() / 100);
+        double distance = enemy.getPosition().distance(robotX, robotY);
+        double distanceFactor = 1 + NEAR_DISTANCE / (NEAR_DISTANCE + distance);
+        double age = Math.max(0, time - enemy.getTime());
+        double recencyFactor = RECENCY_TICKS / (RECENCY_TICKS + age);
+        return energyFactor * distanceFactor * recencyFactor;
+    }
+
+    /**
+     * @return the total risk of cells which overlap the rectangle, in O(1).
+     */
+    public double getRisk(double minX, double minY, double maxX, double maxY) {
+        int minColumn = toColumn(minX);
+        int minRow = toRow(minY);
+        int maxColumn = toColumn(maxX);
+        int maxRow = toRow(maxY);
+        int width = columns + 1;
+        return summedRisks[(maxRow + 1) * width + maxColumn + 1] - summedRisks[minRow * width + maxColumn + 1]
+                - summedRisks[(maxRow + 1) * width + minColumn] + summedRisks[minRow * width + minColumn];
+    }
+
+    /**
+     * @param centerX
+     * @param centerY
+     * @param areaWidth   the size of the area at the first level, each next level doubles the size.
+     * @param areaHeight
+     * @param numOfLevels the number of levels. Fewer levels are cheaper but the risk of the surrounding is ignored.
+     * @return the risk of the area and its surrounding.
+     */
+    public double reckonAreaRisk(double centerX, double centerY, double areaWidth, double areaHeight, int numOfLevels) {
+        double risk = 0;
+        double halfWidth = areaWidth / 2;
+        double halfHeight = areaHeight / 2;
+        double levelCoefficient = RISK_LEVEL_COEFFICIENT;
+        for (int level = 0; level < numOfLevels; level++) {
+            risk += getRisk(centerX - halfWidth, centerY - halfHeight, centerX + halfWidth, centerY + halfHeight) * levelCoefficient;
+            halfWidth *= 2;
+            halfHeight *= 2;
+            levelCoefficient *= RISK_LEVEL_COEFFICIENT;
+        }
+        return risk;
+    }
+
+    /**
+     * Find the k cells which have the least risk of the area around them (view {@link #reckonAreaRisk(double, double, double, double, int)}).<br/>
+     * Cells with the same risk (e.g. many areas without any enemy) are sorted by the distance to the preferred position.
+     *
+     * @param k            the maximum number of result cells.
+     * @param areaWidth    the size of the area around each cell.
+     * @param areaHeight
+     * @param numOfLevels
+     * @param excludedArea the cells whose area intersects this area are ignored. It could be null.
+     * @param preferredX   usually our robot's position.
+     * @param preferredY
+     * @param resultCells  at least k items, the found cells, sorted from the least risk. View {@link #getCellCenterX(int)}, {@link #getCellCenterY(int)}.
+     * @param resultRisks  at least k items, the risks of found cells.
+     * @return the number of found cells.
+     */
+    public int findLeastRiskyCells(int k, double areaWidth, double areaHeight, int numOfLevels, Rectangle2D excludedArea, double preferredX, double preferredY, int[] resultCells, double[] resultRisks) {
+        if (k <= 0) {
+            return 0;
+        }
+        int count = 0;
+        double halfWidth = areaWidth / 2;
+        double halfHeight = areaHeight / 2;
+        for (int cell = 0; cell < cellRisks.length; cell++) {
+            double centerX = getCellCenterX(cell);
+            double centerY = getCellCenterY(cell);
+            if (excludedArea != null && excludedArea.intersects(centerX - halfWidth, centerY - halfHeight, areaWidth, areaHeight)) {
+                continue;
+            }
+            double risk = reckonAreaRisk(centerX, centerY, areaWidth, areaHeight, numOfLevels);
+            if (count == k && !isLessRisky(cell, risk, resultCells[k - 1], resultRisks[k - 1], preferredX, preferredY)) {
+                continue;
+            }
+            /** Insert the cell into the sorted result, the last one is dropped if the result is full. */
+            int index = Math.min(count, k - 1);
+            while (index > 0 && isLessRisky(cell, risk, resultCells[index - 1], resultRisks[index - 1], preferredX, preferredY)) {
+                resultRisks[index] = resultRisks[index - 1];
+                resultCells[index] = resultCells[index - 1];
+                index--;
+            }
+            resultRisks[index] = risk;
+            resultCells[index] = cell;
+            count = Math.min(count + 1, k);
+        }
+        return count;
+    }
+
+    private boolean isLessRisky(int cell, double risk, int otherCell, double otherRisk, double preferredX, double preferredY) {
+        if (risk != otherRisk) {
+            return risk < otherRisk;
+        }
+        return reckonDistanceSq(cell, preferredX, preferredY) < reckonDistanceSq(otherCell, preferredX, preferredY);
+    }
+
+    private double reckonDistanceSq(int cell, double x, double y) {
+        double deltaX = getCellCenterX(cell) - x;
+        double deltaY = getCellCenterY(cell) - y;
+        return deltaX * deltaX + deltaY * deltaY;
+    }
+
+    public double getCellCenterX(int cell) {
+        return (cell % columns + 0.5) * cellSize;
+    }
+
+    public double getCellCenterY(int cell) {
+        return (cell / columns + 0.5) * cellSize;
+    }
+
+    private int toColumn(double x) {
+        return Math.max(0, Math.min(columns - 1, (int) Math.floor(x / cellSize)));
+    }
+
+    private int toRow(double y) {
+        return Math.max(0, Math.min(rows - 1, (int) Math.floor(y / cellSize)));
+    }
+
+    public long getBuiltTime() {
+        return builtTime;
+    }
+}
@@ -0,0 +1,76 @@
+package org.tnmk.robocode.common.movement.strategy.antigravity;
+
+/**
+ * The precomputed static force (walls and the center of the battle field) over the whole battle field.<br/>
+ * The exact force is computed at every node of a square grid when constructing this object (view {@link AntiGravityForceEngine#addStaticForce(AntiGravityCalculationContext, double, double, double, double, double[])}),
+ * then the force at any position is the bilinear interpolation of 4 nodes around it.
+ * <p/>
+ * The static force only depends on {@link AntiGravityCalculationContext} and the battle field size, so there's one grid for each {@link AntiGravityCalculationContext}, view {@link AntiGravityCalculationContext#getStaticForceGrid()}.<br/>
+ * Note: the force of the center changes its direction suddenly at the center, the interpolation smooths it inside the cell around the center.
+ */
+public class StaticForceGrid {
+    public static final double DEFAULT_CELL_SIZE = 16;
+
+    private final double cellSize;
+    private final int columns;
+    private final int rows;
+    /**
+     * The forces of nodes, the node (column, row) is at index <code>row * (columns + 1) + column</code>.
+     */
+    private final double[] nodeForceXs;
+    private final double[] nodeForceYs;
+
+    public StaticForceGrid(AntiGravityCalculationContext calculationContext, double battleFieldWidth, double battleFieldHeight, double cellSize) {
+        if (cellSize <= 0 || battleFieldWidth <= 0 || battleFieldHeight <= 0) {
+            throw new IllegalArgumentException("Width, height and cellSize must be greater than 0: " + battleFieldWidth + ", " + battleFieldHeight + ", " + cellSize);
+        }
+        this.cellSize = cellSize;
+        this.columns = Math.max(1, (int) Math.ceil(battleFieldWidth / cellSize));
+        this.rows = Math.max(1, (int) Math.ceil(battleFieldHeight / cellSize));
+        this.nodeForceXs = new double[(columns + 1) * (rows + 1)];
+        this.nodeForceYs = new double[(columns + 1) * (rows + 1)];
+
+        double[] force = new double[2];
+        for (int row = 0; row <= rows; row++) {
+            for (int column = 0; column <= columns; column++) {
+                force[0] = 0;
+                force[1] = 0;
+                AntiGravityForceEngine.addStaticForce(calculationContext, battleFieldWidth, battleFieldHeight, column * cellSize, row * cellSize, force);
+                int nodeIndex = row * (columns + 1) + column;
+                nodeForceXs[nodeIndex] = force[0];
+                nodeForceYs[nodeIndex] = force[1];
+            }
+        }
+    }
+
+    /**
+     * Add the interpolated static force at the position into the accumulator.<br/>
+     * Positions outside the grid get the force of the nearest border.
+     *
+     * @param force the accumulator: force[0] is x, force[1] is y.
+     */
+    public void addForce(double x, double y, double[] force) {
+        double gridX = Math.max(0, Math.min(columns, x / cellSize));
+        double gridY = Math.max(0, Math.min(rows, y / cellSize));
+        int column = Math.min(columns - 1, (int) gridX);
+        int row = Math.min(rows - 1, (int) gridY);
+        double ratioX = gridX - column;
+        double ratioY = gridY - row;
+
+        int bottomLeft = row * (columns + 1) + column;
+        int topLeft = bottomLeft + columns + 1;
+        double weightBottomLeft = (1 - ratioX) * (1 - ratioY);
+        double weightBottomRight = ratioX * (1 - ratioY);
+        double weightTopLeft = (1 - ratioX) * ratioY;
+        double weightTopRight = ratioX * ratioY;
+
+        force[0] += nodeForceXs[bottomLeft] * weightBottomLeft + nodeForceXs[bottomLeft + 1] * weightBottomRight
+                + nodeForceXs[topLeft] * weightTopLeft + nodeForceXs[topLeft + 1] * weightTopRight;
+        force[1] += nodeForceYs[bottomLeft] * weightBottomLeft + nodeForceYs[bottomLeft + 1] * weightBottomRight
+                + nodeForceYs[topLeft] * weightTopLeft + nodeForceYs[topLeft + 1] * weightTopRight;
+    }
+
+    public double getCellSize() {
+        return cellSize;
+    }
+}
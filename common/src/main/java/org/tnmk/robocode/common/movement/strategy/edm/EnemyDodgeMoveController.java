@@ -45,7 +45,7 @@ public class EnemyDodgeMoveController implements MoveController, InitiableRun, O
     }
 
     private Collection<Point2D> getEnemiesPositionsFromContext() {
-        Collection<Point2D> enemiesPositions = allEnemiesObservationContext.getEnemiesMapByName().values()
+        Collection<Point2D> enemiesPositions = allEnemiesObservationContext.getEnemies()
                 .stream()
                 .map(enemy -> enemy.getPosition())
                 .collect(Collectors.toList());
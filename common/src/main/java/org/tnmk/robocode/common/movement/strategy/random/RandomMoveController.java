@@ -23,6 +23,7 @@ import org.tnmk.robocode.common.paint.PaintHelper;
 import org.tnmk.robocode.common.radar.AllEnemiesObservationContext;
 import org.tnmk.robocode.common.robot.LoopableRun;
 import org.tnmk.robocode.common.robot.OnScannedRobotControl;
+import org.tnmk.robocode.common.robot.state.AdvanceRobotState;
 import robocode.AdvancedRobot;
 import robocode.Rules;
 import robocode.ScannedRobotEvent;
@@ -77,11 +78,16 @@ public class RandomMoveController implements MoveController, LoopableRun, OnScan
     private static final long EXPIRED_PERIOD = 10;
 
     private final AdvancedRobot robot;
+    /**
+     * The per-tick snapshot of our robot, it's refilled by the robot at the beginning of each turn.
+     */
+    private final AdvanceRobotState robotState;
     private final AllEnemiesObservationContext allEnemiesObservationContext;
     private final MovementContext movementContext;
 
-    public RandomMoveController(AdvancedRobot robot, AllEnemiesObservationContext allEnemiesObservationContext, MovementContext movementContext) {
+    public RandomMoveController(AdvancedRobot robot, AdvanceRobotState robotState, AllEnemiesObservationContext allEnemiesObservationContext, MovementContext movementContext) {
         this.robot = robot;
+        this.robotState = robotState;
         this.allEnemiesObservationContext = allEnemiesObservationContext;
         this.movementContext = movementContext;
     }
@@ -99,7 +105,7 @@ public class RandomMoveController implements MoveController, LoopableRun, OnScan
         if (movementContext.isNone() && isExpiredMovement()) {
             movementContext.changeMoveStrategy(MoveStrategy.WANDERING, this);
             DebugHelper.debugMoveWandering(robot);
-            startTime = robot.getTime();
+            startTime = robotState.getTime();
             estimateFinishTime = startTime + Math.round(90d / Rules.MAX_VELOCITY);
             int direction = 1;
             if (Math.random() < 0.5) {
@@ -125,13 +131,13 @@ public class RandomMoveController implements MoveController, LoopableRun, OnScan
     }
 
     private boolean isExpiredMovement() {
-        return (robot.getTime() - estimateFinishTime) > EXPIRED_PERIOD;
+        return (robotState.getTime() - estimateFinishTime) > EXPIRED_PERIOD;
     }
 
     @Override
     public void onScannedRobot(ScannedRobotEvent scannedRobotEvent) {
-        Rectangle2D battleField = BattleFieldUtils.constructBattleField(robot);
-        Point2D robotPosition = new Point2D.Double(robot.getX(), robot.getY());
+        Rectangle2D battleField = BattleFieldUtils.constructBattleField(robotState);
+        Point2D robotPosition = robotState.getPosition();
         double oldEnemyEnergy = getOldEnemyEnergy(scannedRobotEvent.getName());
         DebugHelper.debugEnemyEnergy(robot, allEnemiesObservationContext, scannedRobotEvent.getName(), 5);
 
@@ -153,16 +159,16 @@ public class RandomMoveController implements MoveController, LoopableRun, OnScan
                 isChangeMovement = Math.random() < .2;
             }
             if (isChangeMovement) {//80% will turn direction randomly.
-                startTime = robot.getTime();
+                startTime = robotState.getTime();
 
                 Enemy enemy = allEnemiesObservationContext.getEnemy(scannedRobotEvent.getName());
                 Point2D enemyPosition = enemy.getPosition();
                 Point2D destination;
-                if (shouldAttack(robot.getEnergy(), scannedRobotEvent.getEnergy())) {
+                if (shouldAttack(robotState.getEnergy(), scannedRobotEvent.getEnergy())) {
                     destination = randomDestinationCloserToEnemy(robotPosition, enemyPosition, enemy.getDistance(), DISTANCE_2_POTENTIAL_DESTINATIONS, battleField);
                     DebugHelper.debugMoveRandomTowardEnemy(robot);
                 } else {
-                    if (scannedRobotEvent.getDistance() < Math.min(robot.getBattleFieldWidth(), robot.getBattleFieldHeight()) * 0.75) {
+                    if (scannedRobotEvent.getDistance() < Math.min(robotState.getBattleFieldWidth(), robotState.getBattleFieldHeight()) * 0.75) {
                         destination = randomDestinationFurtherFromEnemy(robotPosition, enemyPosition, enemy.getDistance(), DISTANCE_2_POTENTIAL_DESTINATIONS, battleField);
                         DebugHelper.debugMoveRandomFarAwayEnemy(robot);
                     } else {
@@ -172,20 +178,20 @@ public class RandomMoveController implements MoveController, LoopableRun, OnScan
                 }
                 double destinationDistance = robotPosition.distance(destination);
                 long estimationRunningTime = Math.min(Math.round(destinationDistance * 0.8 / Rules.MAX_VELOCITY), 15);
-                estimateFinishTime = robot.getTime() + estimationRunningTime;
-//                System.out.println(String.format("[%s] estimate running time: %s, estimate finish time: %s", robot.getTime(), estimationRunningTime, estimateFinishTime));
+                estimateFinishTime = robotState.getTime() + estimationRunningTime;
+//                System.out.println(String.format("[%s] estimate running time: %s, estimate finish time: %s", robotState.getTime(), estimationRunningTime, estimateFinishTime));
                 if (Math.random() < 0.7) {
-                    Move2DUtils.setMoveToDestinationWithShortestPath(robot, destination);
+                    Move2DUtils.setMoveToDestinationWithShortestPath(robot, robotState, destination);
                 } else {
-                    Move2DUtils.setMoveToDestinationWithCurrentDirectionButDontStopAtDestination(robot, destination);
+                    Move2DUtils.setMoveToDestinationWithCurrentDirectionButDontStopAtDestination(robot, robotState, destination);
                 }
             } else {
                 /** Keep the same movement, doesn't change anything. */
-                if (robot.getTime() >= estimateFinishTime) {
+                if (robotState.getTime() >= estimateFinishTime) {
                     movementContext.setNone();
                 }
             }
-        } else if (movementContext.is(MoveStrategy.RANDOM) && robot.getTime() >= estimateFinishTime) {
+        } else if (movementContext.is(MoveStrategy.RANDOM) && robotState.getTime() >= estimateFinishTime) {
             movementContext.setNone();
         }
     }
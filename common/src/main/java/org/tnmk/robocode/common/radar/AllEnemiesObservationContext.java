@@ -1,64 +1,188 @@
 package org.tnmk.robocode.common.radar;
 
+import java.util.AbstractCollection;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
-import java.util.Collections;
-import java.util.HashMap;
-import java.util.Map;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.function.IntFunction;
+import org.tnmk.common.collection.UniformGridIndex;
 import org.tnmk.robocode.common.gun.pattern.EnemyMovePatternIdentifyHelper;
 import org.tnmk.robocode.common.model.enemy.Enemy;
+import org.tnmk.robocode.common.model.enemy.EnemyEvictionListener;
 import org.tnmk.robocode.common.model.enemy.EnemyHistory;
+import org.tnmk.robocode.common.model.enemy.EnemyMapper;
 import org.tnmk.robocode.common.model.enemy.EnemyPredictionHistory;
+import org.tnmk.robocode.common.model.enemy.EnemyRegistry;
 import org.tnmk.robocode.common.model.enemy.EnemyStatisticContext;
+import org.tnmk.robocode.common.model.enemy.EnemyTelemetry;
+import org.tnmk.robocode.common.robot.state.AdvanceRobotState;
 import robocode.AdvancedRobot;
 import robocode.Robot;
+import robocode.ScannedRobotEvent;
 
 /**
  * This context data will be shared by implementations of Radar, MoveController and Gun.
  * However, data inside this should be changed by Radar only. It shouldn't be changed by MoveController or Gun.
+ * <p/>
+ * All per-enemy data are stored in arrays indexed by the enemy's id from {@link EnemyRegistry}.<br/>
+ * When an enemy dies, it's not included in {@link #getEnemies()} and {@link #countEnemies()} anymore,
+ * but its statistic data is still kept for {@link #DEAD_ENEMY_EVICTION_PERIOD} before being released.
+ * <p/>
+ * All events and the run loop of a robot are executed in the robot thread, so this class doesn't need any synchronization.
  */
 public class AllEnemiesObservationContext {
     /**
      * If an enemy is not updated after this period of time, it's considered outdated.
      */
     private static final long CONSIDER_OUTDATED_PERIOD = 16 * 5;//5 times of full scan.
+    /**
+     * After an enemy died, keep its data for this period because our bullets which are still flying or the gun which is still aiming may refer to it.<br/>
+     * A bullet with the lowest power (velocity 19.7) can cross a 2000px battle field in about 100 ticks.
+     */
+    private static final long DEAD_ENEMY_EVICTION_PERIOD = 100;
+    /**
+     * The cell size of {@link #enemiesSpatialIndex}: about 2.5 times of a robot's size.
+     */
+    private static final double ENEMIES_INDEX_CELL_SIZE = 100;
     private final AdvancedRobot robot;
+    /**
+     * The state of our robot in the current tick, view {@link AdvanceRobotState}.
+     */
+    private final AdvanceRobotState robotState;
 
+    private final EnemyRegistry enemyRegistry = new EnemyRegistry();
     /**
-     * Store the latest information about enemy map by name
+     * Store the latest information about enemies, indexed by enemy's id.
      */
-    private final Map<String, Enemy> enemiesMapByName = Collections.synchronizedMap(new HashMap<>());
-    private final Map<String, EnemyStatisticContext> enemiesPatternPredictionsMapByName = Collections.synchronizedMap(new HashMap<>());
+    private Enemy[] enemies = new Enemy[enemyRegistry.capacity()];
+    private EnemyStatisticContext[] enemyStatisticContexts = new EnemyStatisticContext[enemyRegistry.capacity()];
+    /**
+     * Store the scanned data of enemies in primitive columns, indexed by enemy's id.
+     * Consumers which loop over enemies (or enemy's history) on every tick should read from here to avoid creating objects.
+     */
+    private EnemyTelemetry[] enemyTelemetries = new EnemyTelemetry[enemyRegistry.capacity()];
+
+    private final List<EnemyEvictionListener> enemyEvictionListeners = new ArrayList<>();
 
-    public AllEnemiesObservationContext(AdvancedRobot robot) {
+    private final Collection<Enemy> aliveEnemiesView = new AliveEnemiesView<>(id -> enemies[id]);
+
+    /**
+     * The latest positions of alive enemies, indexed by enemy's id.<br/>
+     * It's created when the first enemy is added (the battle field's size is not available before the robot runs).
+     */
+    private UniformGridIndex enemiesSpatialIndex = null;
+
+    /**
+     * True if the data of alive enemies was changed after the latest snapshot was published.
+     */
+    private boolean changedSinceSnapshot = false;
+    /**
+     * The latest published snapshot, null if it was not created yet.
+     */
+    private ObservationSnapshot snapshot = null;
+
+    public AllEnemiesObservationContext(AdvancedRobot robot, AdvanceRobotState robotState) {
         this.robot = robot;
+        this.robotState = robotState;
     }
 
     /**
-     * @see RadarHelper#isAllEnemiesHasNewData(Collection, long, long, long)
+     * @see ObservationSnapshot#isAllEnemiesHasNewData(long)
      * @return
      */
     public boolean isAllEnemiesHasNewData() {
-        Collection<Enemy> enemies = enemiesMapByName.values();
-        long totalActualEnemies = robot.getOthers();
-        return RadarHelper.isAllEnemiesHasNewData(enemies, totalActualEnemies, robot.getTime(), CONSIDER_OUTDATED_PERIOD);
+        return getSnapshot().isAllEnemiesHasNewData(CONSIDER_OUTDATED_PERIOD);
+    }
+
+    /**
+     * Publish the snapshot of the current tick, nothing happens if it was already published in this tick and the data of alive enemies was not changed after that.<br/>
+     * It's called at the beginning of each tick (right after our robot's state is refilled),
+     * and again after the radar has handled each event of that tick, so MoveController and Gun which handle the same event read the radar's latest data.
+     */
+    public void publishSnapshot() {
+        long time = robotState.getTime();
+        if (snapshot != null && snapshot.getTime() == time && !changedSinceSnapshot) {
+            return;
+        }
+        changedSinceSnapshot = false;
+        Enemy[] aliveEnemies = aliveEnemiesView.toArray(new Enemy[enemyRegistry.countAlive()]);
+        snapshot = new ObservationSnapshot(time, robotState.getX(), robotState.getY(), robotState.getOthers(), aliveEnemies);
     }
 
+    /**
+     * @return the latest published snapshot. It's published here if there was none.
+     */
+    public ObservationSnapshot getSnapshot() {
+        if (snapshot == null) {
+            publishSnapshot();
+        }
+        return snapshot;
+    }
+
+    /**
+     * @return a view (no copy) of alive enemies.
+     */
     public Collection<Enemy> getEnemies() {
-        return enemiesMapByName.values();
+        return aliveEnemiesView;
     }
 
-    public Map<String, Enemy> getEnemiesMapByName() {
-        return enemiesMapByName;
+    /**
+     * The scanned data is written directly into the enemy's telemetry columns, then the {@link Enemy} object is created from those columns.
+     *
+     * @param scannedRobotEvent
+     * @return the enemy which was added.
+     */
+    public Enemy addEnemy(ScannedRobotEvent scannedRobotEvent) {
+        int enemyId = registerEnemy(scannedRobotEvent.getName());
+        EnemyTelemetry enemyTelemetry = enemyTelemetries[enemyId];
+        EnemyMapper.recordTelemetry(robotState, scannedRobotEvent, enemyTelemetry);
+        Enemy enemy = EnemyMapper.toEnemy(scannedRobotEvent, enemyTelemetry);
+        addEnemyStatistic(enemyId, enemy, enemyTelemetry);
+        return enemy;
     }
 
     public void addEnemy(Enemy enemy) {
-        this.enemiesMapByName.put(enemy.getName(), enemy);
-        EnemyStatisticContext enemyStatisticContext = this.enemiesPatternPredictionsMapByName.get(enemy.getName());
+        int enemyId = registerEnemy(enemy.getName());
+        EnemyTelemetry enemyTelemetry = enemyTelemetries[enemyId];
+        enemyTelemetry.record(enemy);
+        addEnemyStatistic(enemyId, enemy, enemyTelemetry);
+    }
+
+    /**
+     * @param enemyName
+     * @return the id of the enemy. Its telemetry is always available after this method.
+     */
+    private int registerEnemy(String enemyName) {
+        evictDeadEnemies(robotState.getTime());
+        int enemyId = enemyRegistry.register(enemyName);
+        ensureCapacity(enemyRegistry.capacity());
+        if (enemyTelemetries[enemyId] == null) {
+            enemyTelemetries[enemyId] = new EnemyTelemetry(enemyName, EnemyHistory.HISTORY_SIZE);
+        }
+        return enemyId;
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (enemies.length < capacity) {
+            enemies = Arrays.copyOf(enemies, capacity);
+            enemyStatisticContexts = Arrays.copyOf(enemyStatisticContexts, capacity);
+            enemyTelemetries = Arrays.copyOf(enemyTelemetries, capacity);
+        }
+    }
+
+    private void addEnemyStatistic(int enemyId, Enemy enemy, EnemyTelemetry enemyTelemetry) {
+        enemies[enemyId] = enemy;
+        getEnemiesSpatialIndex().put(enemyId, enemy.getPosition().getX(), enemy.getPosition().getY());
+        changedSinceSnapshot = true;
+        EnemyStatisticContext enemyStatisticContext = enemyStatisticContexts[enemyId];
         if (enemyStatisticContext == null) {
             EnemyHistory enemyHistory = new EnemyHistory(enemy.getName(), enemy);
             EnemyPredictionHistory enemyPredictionHistory = new EnemyPredictionHistory(enemy.getName());
-            enemyStatisticContext = new EnemyStatisticContext(robot, enemy.getName(), enemyHistory, enemyPredictionHistory);
-            enemiesPatternPredictionsMapByName.put(enemy.getName(), enemyStatisticContext);
+            enemyStatisticContext = new EnemyStatisticContext(robot, enemy.getName(), enemyHistory, enemyPredictionHistory, enemyTelemetry);
+            enemyStatisticContexts[enemyId] = enemyStatisticContext;
         } else {
             enemyStatisticContext.getEnemyHistory().addToHistory(enemy);
         }
@@ -68,26 +192,139 @@ public class AllEnemiesObservationContext {
     }
 
     /**
-     * @return This method just count scanned enemies.<br/>
+     * @return This method just count scanned enemies which are still alive.<br/>
      * To count all actual existing enemies, use {@link Robot#getOthers()}.
      */
     public int countEnemies() {
-        return this.enemiesMapByName.size();
+        return enemyRegistry.countAlive();
     }
 
+    /**
+     * @param enemyName
+     * @return {@link EnemyRegistry#NO_ID} if the enemy was never scanned (or its data was already evicted).
+     */
+    public int getEnemyId(String enemyName) {
+        return enemyRegistry.getId(enemyName);
+    }
+
+    /**
+     * @return null if the enemy was never scanned or already died.
+     */
     public Enemy getEnemy(String enemyName) {
-        return this.enemiesMapByName.get(enemyName);
+        int enemyId = enemyRegistry.getId(enemyName);
+        return enemyId == EnemyRegistry.NO_ID || !enemyRegistry.isAlive(enemyId) ? null : enemies[enemyId];
     }
 
     public EnemyHistory getEnemyHistory(String enemyName) {
-        return this.enemiesPatternPredictionsMapByName.get(enemyName).getEnemyHistory();
+        return getEnemyPatternPrediction(enemyName).getEnemyHistory();
     }
 
+    /**
+     * The enemy is marked as dead, its data will be released after {@link #DEAD_ENEMY_EVICTION_PERIOD}.
+     *
+     * @param enemyName
+     */
     public void removeEnemy(String enemyName) {
-        this.enemiesMapByName.remove(enemyName);
+        int enemyId = enemyRegistry.getId(enemyName);
+        if (enemyRegistry.markDead(enemyId, robotState.getTime())) {
+            getEnemiesSpatialIndex().remove(enemyId);
+            changedSinceSnapshot = true;
+        }
+    }
+
+    /**
+     * @return the spatial index of alive enemies' latest positions, the id of each point is the enemy's id (view {@link #getEnemyId(String)}).
+     */
+    public UniformGridIndex getEnemiesSpatialIndex() {
+        if (enemiesSpatialIndex == null) {
+            enemiesSpatialIndex = new UniformGridIndex(0, 0, robotState.getBattleFieldWidth(), robotState.getBattleFieldHeight(), ENEMIES_INDEX_CELL_SIZE);
+        }
+        return enemiesSpatialIndex;
+    }
+
+    private void evictDeadEnemies(long currentTime) {
+        if (enemyRegistry.countDead() == 0) {
+            return;
+        }
+        for (int enemyId = 0; enemyId < enemyRegistry.countUsedIds(); enemyId++) {
+            if (enemyRegistry.isDead(enemyId) && currentTime - enemyRegistry.getDeathTime(enemyId) > DEAD_ENEMY_EVICTION_PERIOD) {
+                enemyRegistry.evict(enemyId);
+                enemies[enemyId] = null;
+                enemyStatisticContexts[enemyId] = null;
+                enemyTelemetries[enemyId] = null;
+                for (EnemyEvictionListener enemyEvictionListener : enemyEvictionListeners) {
+                    enemyEvictionListener.onEnemyEvicted(enemyId);
+                }
+            }
+        }
+    }
+
+    /**
+     * @param enemyEvictionListener it's notified when an enemy's id is released, so it can release its own data at that id.
+     */
+    public void addEnemyEvictionListener(EnemyEvictionListener enemyEvictionListener) {
+        enemyEvictionListeners.add(enemyEvictionListener);
+    }
+
+    /**
+     * @return null if the enemy was never scanned or already died.
+     */
+    public EnemyTelemetry getEnemyTelemetry(String enemyName) {
+        int enemyId = enemyRegistry.getId(enemyName);
+        return enemyId == EnemyRegistry.NO_ID || !enemyRegistry.isAlive(enemyId) ? null : enemyTelemetries[enemyId];
     }
 
+    /**
+     * @return null if the enemy was never scanned or its data was already evicted.
+     */
     public EnemyStatisticContext getEnemyPatternPrediction(String enemyName) {
-        return this.enemiesPatternPredictionsMapByName.get(enemyName);
+        int enemyId = enemyRegistry.getId(enemyName);
+        return enemyId == EnemyRegistry.NO_ID ? null : enemyStatisticContexts[enemyId];
+    }
+
+    /**
+     * A view of per-enemy data of alive enemies. It always reads the current arrays, so it's still correct after the arrays grow.
+     */
+    private class AliveEnemiesView<T> extends AbstractCollection<T> {
+        private final IntFunction<T> itemById;
+
+        private AliveEnemiesView(IntFunction<T> itemById) {
+            this.itemById = itemById;
+        }
+
+        @Override
+        public Iterator<T> iterator() {
+            return new Iterator<T>() {
+                private int nextId = findAliveId(0);
+
+                @Override
+                public boolean hasNext() {
+                    return nextId < enemyRegistry.countUsedIds();
+                }
+
+                @Override
+                public T next() {
+                    if (!hasNext()) {
+                        throw new NoSuchElementException();
+                    }
+                    T item = itemById.apply(nextId);
+                    nextId = findAliveId(nextId + 1);
+                    return item;
+                }
+            };
+        }
+
+        private int findAliveId(int fromId) {
+            int id = fromId;
+            while (id < enemyRegistry.countUsedIds() && !enemyRegistry.isAlive(id)) {
+                id++;
+            }
+            return id;
+        }
+
+        @Override
+        public int size() {
+            return enemyRegistry.countAlive();
+        }
     }
 }
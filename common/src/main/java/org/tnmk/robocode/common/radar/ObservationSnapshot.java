@@ -0,0 +1,173 @@
+package org.tnmk.robocode.common.radar;
+
+import java.awt.geom.Point2D;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import org.tnmk.common.math.Point2DUtils;
+import org.tnmk.robocode.common.model.enemy.Enemy;
+import org.tnmk.robocode.common.model.enemy.EnemyUtils;
+
+/**
+ * A consistent view of the battle field at one tick: our robot's position and the latest data of alive enemies.<br/>
+ * It's published by {@link AllEnemiesObservationContext#publishSnapshot()} and never changed after that:
+ * a new snapshot is published at the beginning of each tick, and again after the radar added or removed enemies in that tick.
+ * <p/>
+ * Derived values (min/max bearing, outdated enemies...) are calculated lazily at most once per snapshot,
+ * so Radar, MoveController and Gun can read them in the same tick without recalculating them.
+ */
+public class ObservationSnapshot {
+    private static final long NOT_CALCULATED = -1;
+
+    private final long time;
+    private final double robotX;
+    private final double robotY;
+    /**
+     * The number of enemies which are actually still in the battle (view {@link robocode.Robot#getOthers()}).
+     */
+    private final int actualTotalEnemies;
+    /**
+     * Alive enemies, never contains null.
+     */
+    private final Enemy[] enemies;
+    private final Collection<Enemy> enemiesView;
+
+    private boolean minMaxPositionNormBearingCalculated = false;
+    private double minPositionNormBearing;
+    private double maxPositionNormBearing;
+
+    private int countNotNewEnemies = (int) NOT_CALCULATED;
+
+    private long outdatedPeriodOfCount = NOT_CALCULATED;
+    private int countOutdatedEnemies;
+
+    public ObservationSnapshot(long time, double robotX, double robotY, int actualTotalEnemies, Enemy[] enemies) {
+        this.time = time;
+        this.robotX = robotX;
+        this.robotY = robotY;
+        this.actualTotalEnemies = actualTotalEnemies;
+        this.enemies = enemies;
+        this.enemiesView = Collections.unmodifiableList(Arrays.asList(enemies));
+    }
+
+    /**
+     * @return view {@link #calculateMinMaxPositionNormBearing()}. If there's no enemy, return 180.
+     */
+    public double getMinPositionNormBearing() {
+        calculateMinMaxPositionNormBearing();
+        return minPositionNormBearing;
+    }
+
+    /**
+     * @return view {@link #calculateMinMaxPositionNormBearing()}. If there's no enemy, return -180.
+     */
+    public double getMaxPositionNormBearing() {
+        calculateMinMaxPositionNormBearing();
+        return maxPositionNormBearing;
+    }
+
+    /**
+     * Calculate min/max normalized bearing angles (-180 to 180) from robot's position to enemies' positions.<br/>
+     * Note: those value are calculated based on the current robot's position. So they can be different from {@link Enemy#getBearing()} which was calculated based on the old robot's position (when enemy was scanned)
+     */
+    private void calculateMinMaxPositionNormBearing() {
+        if (minMaxPositionNormBearingCalculated) {
+            return;
+        }
+        minPositionNormBearing = 180;
+        maxPositionNormBearing = -180;
+        Point2D robotPosition = getRobotPosition();
+        for (Enemy enemy : enemies) {
+            double positionNormBearing = Point2DUtils.reckonNormalizeAngle(robotPosition, enemy.getPosition());
+            if (minPositionNormBearing > positionNormBearing) {
+                minPositionNormBearing = positionNormBearing;
+            }
+            if (maxPositionNormBearing < positionNormBearing) {
+                maxPositionNormBearing = positionNormBearing;
+            }
+        }
+        minMaxPositionNormBearingCalculated = true;
+    }
+
+    /**
+     * @return the number of enemies which are not new anymore. View {@link EnemyUtils#isEnemyNew(Enemy, double)}
+     */
+    public int countNotNewEnemies() {
+        if (countNotNewEnemies == NOT_CALCULATED) {
+            int count = 0;
+            for (Enemy enemy : enemies) {
+                if (!EnemyUtils.isEnemyNew(enemy, time)) {
+                    count++;
+                }
+            }
+            countNotNewEnemies = count;
+        }
+        return countNotNewEnemies;
+    }
+
+    /**
+     * @param considerOutdatedPeriod if an enemy is not updated after this period of time, it's considered outdated.
+     * @return the number of outdated enemies. The result of the latest period is memoized.
+     */
+    public int countOutdatedEnemies(long considerOutdatedPeriod) {
+        if (outdatedPeriodOfCount != considerOutdatedPeriod) {
+            int count = 0;
+            for (Enemy enemy : enemies) {
+                if (time - enemy.getTime() > considerOutdatedPeriod) {
+                    count++;
+                }
+            }
+            countOutdatedEnemies = count;
+            outdatedPeriodOfCount = considerOutdatedPeriod;
+        }
+        return countOutdatedEnemies;
+    }
+
+    /**
+     * The same as {@link RadarHelper#isAllEnemiesHasNewData(java.util.Collection, long, long, long)}.
+     *
+     * @param considerOutdatedPeriod view {@link #countOutdatedEnemies(long)}
+     * @return
+     */
+    public boolean isAllEnemiesHasNewData(long considerOutdatedPeriod) {
+        return enemies.length >= actualTotalEnemies && countOutdatedEnemies(considerOutdatedPeriod) == 0;
+    }
+
+    public long getTime() {
+        return time;
+    }
+
+    public double getRobotX() {
+        return robotX;
+    }
+
+    public double getRobotY() {
+        return robotY;
+    }
+
+    public Point2D getRobotPosition() {
+        return new Point2D.Double(robotX, robotY);
+    }
+
+    public int countEnemies() {
+        return enemies.length;
+    }
+
+    /**
+     * @return a read-only view (no copy) of alive enemies at the time of this snapshot.
+     */
+    public Collection<Enemy> getEnemies() {
+        return enemiesView;
+    }
+
+    public boolean hasEnemies() {
+        return enemies.length > 0;
+    }
+
+    /**
+     * @param index from 0 to {@link #countEnemies()} - 1
+     */
+    public Enemy getEnemy(int index) {
+        return enemies[index];
+    }
+}
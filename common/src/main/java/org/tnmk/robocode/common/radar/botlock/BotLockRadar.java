@@ -32,8 +32,7 @@ public class BotLockRadar {
 //        Enemy enemy = EnemyMapper.toEnemy(robot, scannedRobotEvent);
 //        String message = String.format("Actual enemy at time %s, position {%.2f, %.2f}", robot.getTime(), enemy.getPosition().getX(), enemy.getPosition().getY());
 //        LogHelper.logRobotMovement(robot, message);
-        Enemy enemy = EnemyMapper.toEnemy(this.robot, scannedRobotEvent);
-        allEnemiesObservationContext.addEnemy(enemy);
+        allEnemiesObservationContext.addEnemy(scannedRobotEvent);
 
         enemyAbsoluteBearing = (robot.getHeadingRadians() + scannedRobotEvent.getBearingRadians());
         timeSinceLastSeenEnemy = 0;
@@ -1,22 +1,19 @@
 package org.tnmk.robocode.common.radar.optimalscan;
 
-import java.awt.geom.Point2D;
 import java.util.Collection;
 import java.util.List;
 import java.util.stream.Collectors;
-import javafx.util.Pair;
 import org.tnmk.common.math.AngleUtils;
 import org.tnmk.common.math.GeoMathUtils;
-import org.tnmk.common.math.Point2DUtils;
 import org.tnmk.robocode.common.log.LogHelper;
 import org.tnmk.robocode.common.model.enemy.Enemy;
-import org.tnmk.robocode.common.model.enemy.EnemyMapper;
-import org.tnmk.robocode.common.model.enemy.EnemyUtils;
 import org.tnmk.robocode.common.radar.AllEnemiesObservationContext;
+import org.tnmk.robocode.common.radar.ObservationSnapshot;
 import org.tnmk.robocode.common.robot.OnCustomEventControl;
 import org.tnmk.robocode.common.robot.InitiableRun;
 import org.tnmk.robocode.common.robot.OnRobotDeathControl;
 import org.tnmk.robocode.common.robot.OnScannedRobotControl;
+import org.tnmk.robocode.common.robot.state.AdvanceRobotState;
 import robocode.*;
 
 /**
@@ -29,14 +26,19 @@ public class OptimalScanRadar implements InitiableRun, OnScannedRobotControl, On
     private static final double SAFE_EXTRA_SCAN_DEGREE = Rules.RADAR_TURN_RATE;
 
     private final AdvancedRobot robot;
+    /**
+     * The per-tick snapshot of our robot, it's refilled by the robot at the beginning of each turn.
+     */
+    private final AdvanceRobotState robotState;
     private final AllEnemiesObservationContext allEnemiesObservationContext;
 
     private int radarDirection = 1;
     private boolean isScannedAllEnemiesAtLeastOnce = false;
     private double additionalScanDegree = SAFE_EXTRA_SCAN_DEGREE;
 
-    public OptimalScanRadar(AdvancedRobot robot, AllEnemiesObservationContext allEnemiesObservationContext) {
+    public OptimalScanRadar(AdvancedRobot robot, AdvanceRobotState robotState, AllEnemiesObservationContext allEnemiesObservationContext) {
         this.robot = robot;
+        this.robotState = robotState;
         this.allEnemiesObservationContext = allEnemiesObservationContext;
     }
 
@@ -49,8 +51,7 @@ public class OptimalScanRadar implements InitiableRun, OnScannedRobotControl, On
 
     @Override
     public void onScannedRobot(ScannedRobotEvent scannedRobotEvent) {
-        Enemy enemy = EnemyMapper.toEnemy(this.robot, scannedRobotEvent);
-        allEnemiesObservationContext.addEnemy(enemy);
+        allEnemiesObservationContext.addEnemy(scannedRobotEvent);
         setIfEverScannedAllEnemiesAtLeastOnce();
     }
 
@@ -67,38 +68,37 @@ public class OptimalScanRadar implements InitiableRun, OnScannedRobotControl, On
     }
 
     private void sweep() {
-        Collection<Enemy> enemies = this.allEnemiesObservationContext.getEnemies();
+        ObservationSnapshot snapshot = this.allEnemiesObservationContext.getSnapshot();
         double normRadarTurnRight;
-        if (enemies.isEmpty()) {
+        if (!snapshot.hasEnemies()) {
             normRadarTurnRight = 360;
         } else {
-            normRadarTurnRight = reckonSweepAngleWhenFoundSomeEnemies(robot, enemies);
+            normRadarTurnRight = reckonSweepAngleWhenFoundSomeEnemies(robot, snapshot);
         }
-        adjustAdditionalScanDegreeBasedOnNumOfOutdatedEnemies(enemies);
+        adjustAdditionalScanDegreeBasedOnNumOfOutdatedEnemies(snapshot);
         normRadarTurnRight += GeoMathUtils.sign(normRadarTurnRight) * additionalScanDegree;
         robot.setTurnRadarRight(normRadarTurnRight);
         radarDirection = -radarDirection;
-//        printSweep(robot, normRadarTurnRight, enemies);
+//        printSweep(robot, normRadarTurnRight, allEnemiesObservationContext.getEnemies());
     }
 
-    private void adjustAdditionalScanDegreeBasedOnNumOfOutdatedEnemies(Collection<Enemy> enemies) {
-        long countNotUpdatedEnemies = enemies.stream().filter(enemy -> !EnemyUtils.isEnemyNew(enemy, robot.getTime())).count();
+    private void adjustAdditionalScanDegreeBasedOnNumOfOutdatedEnemies(ObservationSnapshot snapshot) {
+        long countNotUpdatedEnemies = snapshot.countNotNewEnemies();
         if (countNotUpdatedEnemies == 0) {
             additionalScanDegree = SAFE_EXTRA_SCAN_DEGREE;
         }
         additionalScanDegree += countNotUpdatedEnemies * SAFE_EXTRA_SCAN_DEGREE;
     }
 
-    private double reckonSweepAngleWhenFoundSomeEnemies(AdvancedRobot robot, Collection<Enemy> enemies) {
+    private double reckonSweepAngleWhenFoundSomeEnemies(AdvancedRobot robot, ObservationSnapshot snapshot) {
         double normRadarTurnRight;
 
-        Pair<Double, Double> minMaxPositionNormBearing = reckonMinMaxPositionNormBearing(robot, enemies);
-        double minPositionNormBearing = minMaxPositionNormBearing.getKey();
-        double maxPositionNormBearing = minMaxPositionNormBearing.getValue();
+        double minPositionNormBearing = snapshot.getMinPositionNormBearing();
+        double maxPositionNormBearing = snapshot.getMaxPositionNormBearing();
 
         //-180 to 180
         double normMaxMin = AngleUtils.normalizeDegree(maxPositionNormBearing - minPositionNormBearing);
-        double normRadarHeading = AngleUtils.normalizeDegree(robot.getRadarHeading());
+        double normRadarHeading = AngleUtils.normalizeDegree(robotState.getRadarHeading());
         if (normMaxMin < 0) {//A: shortest path: maxBearing turn right to reach minBearing
             if (normRadarHeading < 0) {
                 if (normRadarHeading > minPositionNormBearing) {//Aa
@@ -127,7 +127,7 @@ public class OptimalScanRadar implements InitiableRun, OnScannedRobotControl, On
 
     /**
      * @param normRadarHeading       the normalized heading radar of current robot (-180 to 180)
-     * @param minPositionNormBearing the min (in enemies list) normalized bearing angle compare to root (-180 to 180). View {@link #reckonMinMaxPositionNormBearing(AdvancedRobot, Collection)}
+     * @param minPositionNormBearing the min (in enemies list) normalized bearing angle compare to root (-180 to 180). View {@link ObservationSnapshot#getMinPositionNormBearing()}
      * @param maxPositionNormBearing the similar meaning of minPositionNormBearing
      * @return reckon the nearest angel which robot's radar must turn to reach either the enemy with min bearing or max bearing(in term of angle, not distance).
      */
@@ -143,40 +143,15 @@ public class OptimalScanRadar implements InitiableRun, OnScannedRobotControl, On
         return normRadarTurnRight;
     }
 
-    /**
-     * @param robot
-     * @param enemies
-     * @return normalized bearing angles (-180 to 180) from robot's position to enemies' positions.<br/>
-     * <ul>
-     * <li>key: minPositionNormBearing</li>
-     * <li>value: maxPositionNormBearing</li>
-     * </ul>
-     * Note: those value are calculated based on the current robot's position. So they can be different from {@link Enemy#getBearing()} which was calculated based on the old robot's position (when enemy was scanned)
-     */
-    private Pair<Double, Double> reckonMinMaxPositionNormBearing(AdvancedRobot robot, Collection<Enemy> enemies) {
-        double minPositionNormBearing = 180;
-        double maxPositionNormBearing = -180;
-        for (Enemy enemy : enemies) {
-            Point2D robotPosition = new Point2D.Double(robot.getX(), robot.getY());
-            double positionNormBearing = Point2DUtils.reckonNormalizeAngle(robotPosition, enemy.getPosition());
-            if (minPositionNormBearing > positionNormBearing) {
-                minPositionNormBearing = positionNormBearing;
-            }
-            if (maxPositionNormBearing < positionNormBearing) {
-                maxPositionNormBearing = positionNormBearing;
-            }
-        }
-        return new Pair<>(minPositionNormBearing, maxPositionNormBearing);
-    }
-
     private void printSweep(AdvancedRobot robot, double radarTurn, Collection<Enemy> enemies) {
-        List<Long> enemiesUpdatedTime = enemies.stream().map(enemy -> robot.getTime() - enemy.getTime()).collect(Collectors.toList());
+        long time = robotState.getTime();
+        List<Long> enemiesUpdatedTime = enemies.stream().map(enemy -> time - enemy.getTime()).collect(Collectors.toList());
         LogHelper.logRobotMovement(robot, "New sweep " + radarTurn + ", enemies updated: " + enemiesUpdatedTime);
     }
 
     private void setIfEverScannedAllEnemiesAtLeastOnce() {
         if (!isScannedAllEnemiesAtLeastOnce) {
-            if (allEnemiesObservationContext.countEnemies() >= this.robot.getOthers()) {//Need ">" comparision in case there are some quick died enemies.
+            if (allEnemiesObservationContext.countEnemies() >= this.robotState.getOthers()) {//Need ">" comparision in case there are some quick died enemies.
                 isScannedAllEnemiesAtLeastOnce = true;
             }
         }
@@ -0,0 +1,7 @@
+package org.tnmk.robocode.common.robot;
+
+import robocode.BulletHitBulletEvent;
+
+public interface OnBulletHitBulletControl {
+    void onBulletHitBullet(BulletHitBulletEvent event);
+}
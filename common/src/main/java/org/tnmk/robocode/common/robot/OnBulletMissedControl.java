@@ -0,0 +1,7 @@
+package org.tnmk.robocode.common.robot;
+
+import robocode.BulletMissedEvent;
+
+public interface OnBulletMissedControl {
+    void onBulletMissed(BulletMissedEvent event);
+}
@@ -0,0 +1,160 @@
+package org.tnmk.robocode.common.robot.budget;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Robocode skips the turn of a robot when its processing time in one tick is longer than the CPU constant of the engine.<br/>
+ * This governor measures the processing time of each tick (radar, movement and gun) and reduces the registered {@link QualityKnob}s
+ * when a tick gets close to the budget (or when a turn was skipped), then restores them after some ticks with enough headroom.
+ * <p/>
+ * Knobs are reduced in the registration order (register the least important knob first) and restored in the reverse order.
+ * <p/>
+ * Usage: wrap each handler with {@link #startSection(long)} and {@link #endSection(long)}.
+ * Loops which can stop early (e.g. refining a prediction) should check {@link #hasRemainingBudget()} on each iteration.
+ * The CPU constant is not visible to robots, so the budget is configured by the robot.
+ */
+public class CpuBudgetGovernor {
+    /**
+     * Robocode's CPU constant is calculated on each machine, it's usually some milliseconds.
+     */
+    public static final long DEFAULT_TICK_BUDGET_NANOS = 4_000_000;
+    /**
+     * When a tick uses more than this ratio of the budget, step down one knob.
+     */
+    private static final double HIGH_USAGE_RATIO = 0.8;
+    /**
+     * Ticks which use less than this ratio of the budget have enough headroom.
+     */
+    private static final double LOW_USAGE_RATIO = 0.4;
+    /**
+     * After this number of continuous ticks with enough headroom, step up one knob.
+     */
+    private static final int HEADROOM_TICKS_TO_RESTORE = 20;
+
+    private final long tickBudgetNanos;
+    private final List<QualityKnob> qualityKnobs = new ArrayList<>();
+
+    private long currentTime = Long.MIN_VALUE;
+    private long currentTickElapsedNanos = 0;
+    /**
+     * The start nano time of the section which is running, only meaningful when {@link #sectionRunning}.
+     */
+    private long sectionStartNanos = 0;
+    private boolean sectionRunning = false;
+    private int headroomTicks = 0;
+    private int skippedTurns = 0;
+
+    public CpuBudgetGovernor() {
+        this(DEFAULT_TICK_BUDGET_NANOS);
+    }
+
+    public CpuBudgetGovernor(long tickBudgetNanos) {
+        if (tickBudgetNanos <= 0) {
+            throw new IllegalArgumentException("tickBudgetNanos must be greater than 0: " + tickBudgetNanos);
+        }
+        this.tickBudgetNanos = tickBudgetNanos;
+    }
+
+    /**
+     * @param qualityKnob register the least important knobs first.
+     */
+    public void register(QualityKnob qualityKnob) {
+        qualityKnobs.add(qualityKnob);
+    }
+
+    /**
+     * @param time the current time of the robot. When it changes, the previous tick is evaluated.
+     * @return the start nano time which must be passed to {@link #endSection(long)}.
+     */
+    public long startSection(long time) {
+        if (time != currentTime) {
+            if (currentTime != Long.MIN_VALUE) {
+                evaluateTick(currentTickElapsedNanos);
+            }
+            currentTime = time;
+            currentTickElapsedNanos = 0;
+        }
+        sectionStartNanos = System.nanoTime();
+        sectionRunning = true;
+        return sectionStartNanos;
+    }
+
+    public void endSection(long startNanos) {
+        currentTickElapsedNanos += System.nanoTime() - startNanos;
+        sectionRunning = false;
+    }
+
+    /**
+     * A turn was skipped, so the robot is already over the budget: reduce the quality immediately.
+     */
+    public void onSkippedTurn() {
+        skippedTurns++;
+        headroomTicks = 0;
+        stepDown();
+    }
+
+    /**
+     * @param tickElapsedNanos the total processing time of a finished tick.
+     */
+    void evaluateTick(long tickElapsedNanos) {
+        if (tickElapsedNanos > tickBudgetNanos * HIGH_USAGE_RATIO) {
+            headroomTicks = 0;
+            stepDown();
+        } else if (tickElapsedNanos < tickBudgetNanos * LOW_USAGE_RATIO) {
+            headroomTicks++;
+            if (headroomTicks >= HEADROOM_TICKS_TO_RESTORE) {
+                headroomTicks = 0;
+                stepUp();
+            }
+        } else {
+            headroomTicks = 0;
+        }
+    }
+
+    private void stepDown() {
+        for (QualityKnob qualityKnob : qualityKnobs) {
+            if (qualityKnob.stepDown()) {
+                return;
+            }
+        }
+    }
+
+    private void stepUp() {
+        for (int i = qualityKnobs.size() - 1; i >= 0; i--) {
+            if (qualityKnobs.get(i).stepUp()) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * @return the remaining processing time (nanoseconds) of the current tick, including the time used by the section which is running. It could be 0 but never negative.
+     */
+    public long getRemainingBudgetNanos() {
+        long elapsedNanos = currentTickElapsedNanos;
+        if (sectionRunning) {
+            elapsedNanos += System.nanoTime() - sectionStartNanos;
+        }
+        return Math.max(0, tickBudgetNanos - elapsedNanos);
+    }
+
+    /**
+     * @return false if the current tick has used up its budget: optional work should stop and use the best result found so far.
+     */
+    public boolean hasRemainingBudget() {
+        return getRemainingBudgetNanos() > 0;
+    }
+
+    public long getTickBudgetNanos() {
+        return tickBudgetNanos;
+    }
+
+    public int getSkippedTurns() {
+        return skippedTurns;
+    }
+
+    public List<QualityKnob> getQualityKnobs() {
+        return qualityKnobs;
+    }
+}
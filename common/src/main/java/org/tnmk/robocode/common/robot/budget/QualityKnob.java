@@ -0,0 +1,66 @@
+package org.tnmk.robocode.common.robot.budget;
+
+/**
+ * A quality level of some calculation (e.g. the number of prediction passes) which can be reduced to save CPU time.<br/>
+ * The component which owns the knob reads {@link #getLevel()} every time it calculates, and {@link CpuBudgetGovernor} changes the level.
+ */
+public class QualityKnob {
+    private final String name;
+    private final int minLevel;
+    private final int maxLevel;
+    private int level;
+
+    /**
+     * @param name     only used for debugging.
+     * @param minLevel the lowest quality which is still acceptable.
+     * @param maxLevel the best quality, it's also the initial level.
+     */
+    public QualityKnob(String name, int minLevel, int maxLevel) {
+        if (minLevel > maxLevel) {
+            throw new IllegalArgumentException("minLevel " + minLevel + " must not be greater than maxLevel " + maxLevel + " for knob " + name);
+        }
+        this.name = name;
+        this.minLevel = minLevel;
+        this.maxLevel = maxLevel;
+        this.level = maxLevel;
+    }
+
+    /**
+     * @return true if the level was reduced.
+     */
+    public boolean stepDown() {
+        if (level > minLevel) {
+            level--;
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * @return true if the level was increased.
+     */
+    public boolean stepUp() {
+        if (level < maxLevel) {
+            level++;
+            return true;
+        }
+        return false;
+    }
+
+    public int getLevel() {
+        return level;
+    }
+
+    public boolean isMaxLevel() {
+        return level == maxLevel;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public String toString() {
+        return name + ": " + level + "/" + maxLevel;
+    }
+}
@@ -3,9 +3,13 @@ package org.tnmk.robocode.common.robot.state;
 import java.awt.geom.Point2D;
 
 /**
- * @deprecated we should use {@link robocode.RobotStatus} instead.
+ * The state of our robot.<br/>
+ * It's also used as the per-tick snapshot of our robot: one instance is refilled at the beginning of each turn from {@link robocode.RobotStatus}
+ * (view {@link AdvanceRobotStateMapper#copyState(robocode.RobotStatus, AdvanceRobotState)}) and shared by all components,
+ * so they don't need to call robot's getXxx() methods many times per tick (Robocode limits the number of those calls without execute()).
+ * <p/>
+ * Note: the remaining values (e.g. distanceRemaining) are the values at the beginning of the turn, they don't reflect setXxx() commands of the current turn.
  */
-@Deprecated
 public class AdvanceRobotState {
     private String name;
     private long time;
@@ -15,10 +19,17 @@ public class AdvanceRobotState {
     private double energy;
     private double gunHeat;
 
+    /**
+     * Degree
+     */
     private double heading;
     private double gunHeading;
     private double radarHeading;
 
+    private double headingRadians;
+    private double gunHeadingRadians;
+    private double radarHeadingRadians;
+
     private double distanceRemaining;
     private double turnRemaining;
     private double gunTurnRemaining;
@@ -28,6 +39,12 @@ public class AdvanceRobotState {
     private int numSentries;
     private int roundNum;
 
+    /**
+     * They never change in a battle, so they're copied only once.
+     */
+    private double battleFieldWidth;
+    private double battleFieldHeight;
+
     public String getName() {
         return name;
     }
@@ -48,6 +65,14 @@ public class AdvanceRobotState {
         return position;
     }
 
+    public double getX() {
+        return position.getX();
+    }
+
+    public double getY() {
+        return position.getY();
+    }
+
     public void setPosition(Point2D position) {
         this.position = position;
     }
@@ -155,4 +180,44 @@ public class AdvanceRobotState {
     public void setRoundNum(int roundNum) {
         this.roundNum = roundNum;
     }
+
+    public double getHeadingRadians() {
+        return headingRadians;
+    }
+
+    public void setHeadingRadians(double headingRadians) {
+        this.headingRadians = headingRadians;
+    }
+
+    public double getGunHeadingRadians() {
+        return gunHeadingRadians;
+    }
+
+    public void setGunHeadingRadians(double gunHeadingRadians) {
+        this.gunHeadingRadians = gunHeadingRadians;
+    }
+
+    public double getRadarHeadingRadians() {
+        return radarHeadingRadians;
+    }
+
+    public void setRadarHeadingRadians(double radarHeadingRadians) {
+        this.radarHeadingRadians = radarHeadingRadians;
+    }
+
+    public double getBattleFieldWidth() {
+        return battleFieldWidth;
+    }
+
+    public void setBattleFieldWidth(double battleFieldWidth) {
+        this.battleFieldWidth = battleFieldWidth;
+    }
+
+    public double getBattleFieldHeight() {
+        return battleFieldHeight;
+    }
+
+    public void setBattleFieldHeight(double battleFieldHeight) {
+        this.battleFieldHeight = battleFieldHeight;
+    }
 }
@@ -2,6 +2,7 @@ package org.tnmk.robocode.common.robot.state;
 
 import java.awt.geom.Point2D;
 import robocode.AdvancedRobot;
+import robocode.RobotStatus;
 
 public class AdvanceRobotStateMapper {
     public static void copyState(AdvancedRobot robot, AdvanceRobotState state) {
@@ -14,6 +15,9 @@ public class AdvanceRobotStateMapper {
         state.setHeading(robot.getHeading());
         state.setRadarHeading(robot.getRadarHeading());
         state.setGunHeading(robot.getGunHeading());
+        state.setHeadingRadians(robot.getHeadingRadians());
+        state.setRadarHeadingRadians(robot.getRadarHeadingRadians());
+        state.setGunHeadingRadians(robot.getGunHeadingRadians());
 
         state.setDistanceRemaining(robot.getDistanceRemaining());
         state.setTurnRemaining(robot.getTurnRemaining());
@@ -24,6 +28,69 @@ public class AdvanceRobotStateMapper {
         state.setOthers(robot.getOthers());
         state.setNumSentries(robot.getNumSentries());
         state.setRoundNum(robot.getRoundNum());
+        state.setBattleFieldWidth(robot.getBattleFieldWidth());
+        state.setBattleFieldHeight(robot.getBattleFieldHeight());
+    }
+
+    /**
+     * Refill the per-tick snapshot without calling any robot's getXxx() method.<br/>
+     * The name and the battle field size are not inside {@link RobotStatus}, they must be copied by {@link #copyState(AdvancedRobot, AdvanceRobotState)} before.
+     *
+     * @param status usually from {@link robocode.StatusEvent#getStatus()} at the beginning of each turn.
+     * @param state
+     */
+    public static void copyState(RobotStatus status, AdvanceRobotState state) {
+        state.setTime(status.getTime());
+        state.setPosition(new Point2D.Double(status.getX(), status.getY()));
+        state.setEnergy(status.getEnergy());
+
+        state.setVelocity(status.getVelocity());
+        state.setHeading(status.getHeading());
+        state.setRadarHeading(status.getRadarHeading());
+        state.setGunHeading(status.getGunHeading());
+        state.setHeadingRadians(status.getHeadingRadians());
+        state.setRadarHeadingRadians(status.getRadarHeadingRadians());
+        state.setGunHeadingRadians(status.getGunHeadingRadians());
+
+        state.setDistanceRemaining(status.getDistanceRemaining());
+        state.setTurnRemaining(status.getTurnRemaining());
+        state.setRadarTurnRemaining(status.getRadarTurnRemaining());
+        state.setGunTurnRemaining(status.getGunTurnRemaining());
+
+        state.setGunHeat(status.getGunHeat());
+        state.setOthers(status.getOthers());
+        state.setNumSentries(status.getNumSentries());
+        state.setRoundNum(status.getRoundNum());
+    }
+
+    /**
+     * Copy the per-tick snapshot into another state (e.g. a history item), the position is not shared.
+     */
+    public static void copyState(AdvanceRobotState source, AdvanceRobotState state) {
+        state.setName(source.getName());
+        state.setTime(source.getTime());
+        state.setPosition(new Point2D.Double(source.getX(), source.getY()));
+        state.setEnergy(source.getEnergy());
+
+        state.setVelocity(source.getVelocity());
+        state.setHeading(source.getHeading());
+        state.setRadarHeading(source.getRadarHeading());
+        state.setGunHeading(source.getGunHeading());
+        state.setHeadingRadians(source.getHeadingRadians());
+        state.setRadarHeadingRadians(source.getRadarHeadingRadians());
+        state.setGunHeadingRadians(source.getGunHeadingRadians());
+
+        state.setDistanceRemaining(source.getDistanceRemaining());
+        state.setTurnRemaining(source.getTurnRemaining());
+        state.setRadarTurnRemaining(source.getRadarTurnRemaining());
+        state.setGunTurnRemaining(source.getGunTurnRemaining());
+
+        state.setGunHeat(source.getGunHeat());
+        state.setOthers(source.getOthers());
+        state.setNumSentries(source.getNumSentries());
+        state.setRoundNum(source.getRoundNum());
+        state.setBattleFieldWidth(source.getBattleFieldWidth());
+        state.setBattleFieldHeight(source.getBattleFieldHeight());
     }
 
     public static AdvanceRobotState toState(AdvancedRobot robot) {
@@ -36,4 +103,13 @@ public class AdvanceRobotStateMapper {
         copyState(robot, state);
         return state;
     }
+
+    /**
+     * @param robotState the per-tick snapshot, so no robot's getXxx() method is called.
+     */
+    public static AdvanceRobotFightState toFightState(AdvanceRobotState robotState) {
+        AdvanceRobotFightState state = new AdvanceRobotFightState();
+        copyState(robotState, state);
+        return state;
+    }
 }
@@ -0,0 +1,108 @@
+package org.tnmk.common.collection;
+
+import java.util.Arrays;
+import java.util.Random;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class KdTreeTest {
+    private static final double DELTA = 0.000001;
+    private static final int DIMENSIONS = 3;
+
+    @Test
+    public void testFindNearest_SameResultAsBruteForce() {
+        Random random = new Random(1);
+        KdTree tree = new KdTree(DIMENSIONS, 500);
+        double[][] points = new double[300][];
+        for (int i = 0; i < points.length; i++) {
+            points[i] = randomPoint(random);
+            tree.add(points[i], i);
+        }
+        Assert.assertEquals(points.length, tree.size());
+
+        int[] resultIndexes = new int[10];
+        double[] resultDistancesSq = new double[10];
+        for (int query = 0; query < 50; query++) {
+            double[] point = randomPoint(random);
+            int found = tree.findNearest(point, 10, resultIndexes, resultDistancesSq);
+            Assert.assertEquals(10, found);
+            double[] expectedDistancesSq = bruteForceSortedDistancesSq(points, points.length, point);
+            for (int i = 0; i < found; i++) {
+                Assert.assertEquals(expectedDistancesSq[i], resultDistancesSq[i], DELTA);
+                double[] foundPoint = points[(int) tree.getValue(resultIndexes[i])];
+                Assert.assertEquals(expectedDistancesSq[i], distanceSq(foundPoint, point), DELTA);
+            }
+        }
+    }
+
+    @Test
+    public void testAdd_WhenFull_DropOldestHalfAndRebuildBalanced() {
+        Random random = new Random(2);
+        KdTree tree = new KdTree(DIMENSIONS, 100);
+        double[][] points = new double[101][];
+        for (int i = 0; i < points.length; i++) {
+            points[i] = randomPoint(random);
+            tree.add(points[i], i);
+        }
+        /** 50 oldest points were dropped, then the last point was added. */
+        Assert.assertEquals(51, tree.size());
+        Assert.assertEquals(50, tree.getValue(0), DELTA);
+        Assert.assertEquals(100, tree.getValue(50), DELTA);
+        /** The rebuilt 50 points have the depth of 6, the last point is a new leaf. */
+        Assert.assertTrue(tree.reckonDepth() <= 7);
+
+        double[][] keptPoints = Arrays.copyOfRange(points, 50, points.length);
+        int[] resultIndexes = new int[5];
+        double[] resultDistancesSq = new double[5];
+        for (int query = 0; query < 20; query++) {
+            double[] point = randomPoint(random);
+            int found = tree.findNearest(point, 5, resultIndexes, resultDistancesSq);
+            Assert.assertEquals(5, found);
+            double[] expectedDistancesSq = bruteForceSortedDistancesSq(keptPoints, keptPoints.length, point);
+            for (int i = 0; i < found; i++) {
+                Assert.assertEquals(expectedDistancesSq[i], resultDistancesSq[i], DELTA);
+            }
+        }
+    }
+
+    @Test
+    public void testFindNearest_FewerPointsThanK() {
+        KdTree tree = new KdTree(DIMENSIONS, 10);
+        int[] resultIndexes = new int[5];
+        double[] resultDistancesSq = new double[5];
+        Assert.assertEquals(0, tree.findNearest(new double[]{0, 0, 0}, 5, resultIndexes, resultDistancesSq));
+
+        tree.add(new double[]{1, 1, 1}, 0.5);
+        tree.add(new double[]{1, 1, 1}, -0.5);
+        Assert.assertEquals(2, tree.findNearest(new double[]{0, 0, 0}, 5, resultIndexes, resultDistancesSq));
+        Assert.assertEquals(3, resultDistancesSq[0], DELTA);
+        Assert.assertEquals(3, resultDistancesSq[1], DELTA);
+    }
+
+    private static double[] randomPoint(Random random) {
+        double[] point = new double[DIMENSIONS];
+        for (int i = 0; i < DIMENSIONS; i++) {
+            /** Rounded so that there are many equal coordinates. */
+            point[i] = Math.round(random.nextDouble() * 20) / 20d;
+        }
+        return point;
+    }
+
+    private static double[] bruteForceSortedDistancesSq(double[][] points, int count, double[] point) {
+        double[] distancesSq = new double[count];
+        for (int i = 0; i < count; i++) {
+            distancesSq[i] = distanceSq(points[i], point);
+        }
+        Arrays.sort(distancesSq);
+        return distancesSq;
+    }
+
+    private static double distanceSq(double[] a, double[] b) {
+        double result = 0;
+        for (int i = 0; i < a.length; i++) {
+            double delta = a[i] - b[i];
+            result += delta * delta;
+        }
+        return result;
+    }
+}
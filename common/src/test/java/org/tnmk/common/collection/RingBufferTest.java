@@ -0,0 +1,64 @@
+package org.tnmk.common.collection;
+
+import java.util.Arrays;
+import java.util.List;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class RingBufferTest {
+
+    @Test
+    public void testAdd_NewestFirst() {
+        RingBuffer<Integer> ringBuffer = new RingBuffer<>(3);
+        ringBuffer.add(1);
+        ringBuffer.add(2);
+        Assert.assertEquals(2, ringBuffer.size());
+        Assert.assertEquals(Arrays.asList(2, 1), ringBuffer);
+    }
+
+    @Test
+    public void testAdd_OverwriteOldestWhenFull() {
+        RingBuffer<Integer> ringBuffer = new RingBuffer<>(3);
+        for (int i = 1; i <= 7; i++) {
+            ringBuffer.add(i);
+        }
+        Assert.assertTrue(ringBuffer.isFull());
+        Assert.assertEquals(Arrays.asList(7, 6, 5), ringBuffer);
+        Assert.assertEquals(7, ringBuffer.get(0).intValue());
+        Assert.assertEquals(5, ringBuffer.get(2).intValue());
+    }
+
+    @Test
+    public void testAddAllInOrder_SameResultAsAddingOneByOne() {
+        List<Integer> items = Arrays.asList(1, 2, 3, 4, 5, 6, 7, 8);
+
+        RingBuffer<Integer> oneByOne = new RingBuffer<>(5);
+        oneByOne.add(0);
+        for (Integer item : items) {
+            oneByOne.add(item);
+        }
+
+        RingBuffer<Integer> bulk = new RingBuffer<>(5);
+        bulk.add(0);
+        bulk.addAllInOrder(items);
+
+        Assert.assertEquals(oneByOne, bulk);
+        Assert.assertEquals(Arrays.asList(8, 7, 6, 5, 4), bulk);
+    }
+
+    @Test
+    public void testLatest_IsViewWithLimitedSize() {
+        RingBuffer<Integer> ringBuffer = new RingBuffer<>(10);
+        ringBuffer.addAllInOrder(Arrays.asList(1, 2, 3, 4));
+        Assert.assertEquals(Arrays.asList(4, 3), ringBuffer.latest(2));
+        Assert.assertEquals(Arrays.asList(4, 3, 2, 1), ringBuffer.latest(20));
+        Assert.assertTrue(ringBuffer.latest(0).isEmpty());
+    }
+
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void testGet_OutOfSize() {
+        RingBuffer<Integer> ringBuffer = new RingBuffer<>(10);
+        ringBuffer.add(1);
+        ringBuffer.get(1);
+    }
+}
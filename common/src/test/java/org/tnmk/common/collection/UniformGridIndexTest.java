@@ -0,0 +1,84 @@
+package org.tnmk.common.collection;
+
+import java.util.Arrays;
+import java.util.Random;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class UniformGridIndexTest {
+    private static final int POINTS_COUNT = 40;
+
+    @Test
+    public void testQueries_SameResultAsBruteForce() {
+        Random random = new Random(1);
+        UniformGridIndex index = new UniformGridIndex(0, 0, 1000, 800, 100);
+        double[] xs = new double[POINTS_COUNT];
+        double[] ys = new double[POINTS_COUNT];
+        for (int i = 0; i < POINTS_COUNT; i++) {
+            xs[i] = random.nextDouble() * 1000;
+            ys[i] = random.nextDouble() * 800;
+            index.put(i, xs[i], ys[i]);
+        }
+        //Move some points and remove some others.
+        for (int i = 0; i < 10; i++) {
+            xs[i] = random.nextDouble() * 1000;
+            ys[i] = random.nextDouble() * 800;
+            index.put(i, xs[i], ys[i]);
+        }
+        boolean[] removed = new boolean[POINTS_COUNT];
+        for (int i = 30; i < POINTS_COUNT; i++) {
+            removed[i] = index.remove(i);
+        }
+        Assert.assertEquals(30, index.size());
+
+        int[] resultIds = new int[POINTS_COUNT];
+        for (int query = 0; query < 50; query++) {
+            double x = random.nextDouble() * 1000;
+            double y = random.nextDouble() * 800;
+
+            int found = index.findNearest(x, y, 5, resultIds);
+            Assert.assertEquals(5, found);
+            double[] expectedDistances = bruteForceSortedDistances(xs, ys, removed, x, y);
+            for (int i = 0; i < found; i++) {
+                Assert.assertEquals(expectedDistances[i], Math.hypot(xs[resultIds[i]] - x, ys[resultIds[i]] - y), 0.000001);
+            }
+
+            int countInRadius = index.findInRadius(x, y, 250, resultIds);
+            Assert.assertEquals(Arrays.stream(expectedDistances).filter(distance -> distance <= 250).count(), countInRadius);
+
+            int countInRectangle = index.countInRectangle(x - 300, y - 200, x + 150, y + 250);
+            int expectedCountInRectangle = 0;
+            for (int i = 0; i < POINTS_COUNT; i++) {
+                if (!removed[i] && xs[i] >= x - 300 && xs[i] <= x + 150 && ys[i] >= y - 200 && ys[i] <= y + 250) {
+                    expectedCountInRectangle++;
+                }
+            }
+            Assert.assertEquals(expectedCountInRectangle, countInRectangle);
+        }
+    }
+
+    @Test
+    public void testPointOutsideArea_StillFound() {
+        UniformGridIndex index = new UniformGridIndex(0, 0, 500, 500, 100);
+        index.put(3, -50, 600);
+        int[] resultIds = new int[1];
+        Assert.assertEquals(1, index.findNearest(250, 250, 1, resultIds));
+        Assert.assertEquals(3, resultIds[0]);
+        Assert.assertEquals(1, index.countInRectangle(-100, 0, 0, 700));
+        Assert.assertEquals(0, index.countInRectangle(0, 0, 500, 500));
+    }
+
+    private static double[] bruteForceSortedDistances(double[] xs, double[] ys, boolean[] removed, double x, double y) {
+        double[] distances = new double[xs.length];
+        int count = 0;
+        for (int i = 0; i < xs.length; i++) {
+            if (!removed[i]) {
+                distances[count] = Math.hypot(xs[i] - x, ys[i] - y);
+                count++;
+            }
+        }
+        double[] result = Arrays.copyOf(distances, count);
+        Arrays.sort(result);
+        return result;
+    }
+}
@@ -0,0 +1,49 @@
+package org.tnmk.common.math;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class RollingStatisticsTest {
+    private static final double DELTA = 0.000001;
+
+    @Test
+    public void testMeanAndVariance_LatestWindow() {
+        RollingStatistics rollingStatistics = new RollingStatistics(5);
+        for (double value : new double[]{2, 4, 4, 4, 5, 5, 7, 9}) {
+            rollingStatistics.add(value);
+        }
+        Assert.assertEquals(5, rollingStatistics.size());
+        //Latest 5 samples: 9, 7, 5, 5, 4
+        Assert.assertEquals(6, rollingStatistics.mean(5), DELTA);
+        Assert.assertEquals(3.2, rollingStatistics.variance(5), DELTA);
+        //Latest 2 samples: 9, 7
+        Assert.assertEquals(8, rollingStatistics.mean(2), DELTA);
+        Assert.assertEquals(1, rollingStatistics.variance(2), DELTA);
+    }
+
+    @Test
+    public void testMean_OlderWindowAndNotEnoughSamples() {
+        RollingStatistics rollingStatistics = new RollingStatistics(10);
+        for (double value : new double[]{1, 2, 3, 4}) {
+            rollingStatistics.add(value);
+        }
+        //Samples from ageIndex 1: 3, 2
+        Assert.assertEquals(2.5, rollingStatistics.mean(1, 2), DELTA);
+        //Only 3 samples from ageIndex 1: 3, 2, 1
+        Assert.assertEquals(3, rollingStatistics.countWindow(1, 20));
+        Assert.assertEquals(2, rollingStatistics.mean(1, 20), DELTA);
+        Assert.assertEquals(0, rollingStatistics.mean(4, 2), DELTA);
+    }
+
+    @Test
+    public void testVariance_ManySamples_KeepsPrecision() {
+        RollingStatistics rollingStatistics = new RollingStatistics(8);
+        /** The samples drift far from the first sample, so the prefix sums would be huge without rebasing. */
+        for (int i = 0; i < 1000000; i++) {
+            rollingStatistics.add(i + (i % 2 == 0 ? 0.001 : -0.001));
+        }
+        //Latest 2 samples: 999999 - 0.001, 999998 + 0.001
+        Assert.assertEquals(999998.5, rollingStatistics.mean(2), DELTA);
+        Assert.assertEquals(0.499 * 0.499, rollingStatistics.variance(2), DELTA);
+    }
+}
@@ -0,0 +1,99 @@
+package org.tnmk.robocode.common.gun;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import robocode.Bullet;
+import robocode.Rules;
+
+public class BulletLedgerTest {
+    private static final double DELTA = 0.000001;
+
+    private static Bullet createBullet(double power, int bulletId) {
+        return new Bullet(0, 0, 0, power, "me", null, true, bulletId);
+    }
+
+    @Before
+    public void clearOutcomes() {
+        BulletLedger.clearOutcomes();
+    }
+
+    @Test
+    public void testResolve_ManyFlyingBullets_EachResolvedOnceForItsStrategy() {
+        BulletLedger bulletLedger = new BulletLedger();
+        int bulletsCount = 100;
+        Bullet[] bullets = new Bullet[bulletsCount];
+        for (int i = 0; i < bulletsCount; i++) {
+            bullets[i] = createBullet(2, i);
+            GunStrategy gunStrategy = i % 2 == 0 ? GunStrategy.GFT : GunStrategy.KNN;
+            bulletLedger.recordFiredBullet(bullets[i], gunStrategy, "enemy" + (i % 3), i);
+        }
+        Assert.assertEquals(bulletsCount, bulletLedger.countFlyingBullets());
+        Assert.assertEquals(7, bulletLedger.getFireTime(bullets[7]));
+
+        /** Resolve in a different order from firing, so that removing shifts entries of many probing chains. */
+        for (int i = bulletsCount - 1; i >= 0; i -= 2) {
+            Assert.assertTrue(bulletLedger.resolveMissed(bullets[i]));
+        }
+        for (int i = 0; i < bulletsCount; i += 2) {
+            Assert.assertTrue(bulletLedger.resolveHit(bullets[i], "enemy" + (i % 3)));
+        }
+        Assert.assertEquals(0, bulletLedger.countFlyingBullets());
+        Assert.assertFalse(bulletLedger.resolveMissed(bullets[0]));
+        Assert.assertEquals(-1, bulletLedger.getFireTime(bullets[7]));
+
+        Assert.assertEquals(BulletLedger.WINDOW_SIZE, bulletLedger.countResolvedBullets(GunStrategy.GFT));
+        Assert.assertEquals(1, bulletLedger.getHitRate(GunStrategy.GFT), DELTA);
+        Assert.assertEquals(0, bulletLedger.getHitRate(GunStrategy.KNN), DELTA);
+        Assert.assertEquals(Rules.getBulletDamage(2) / 2, bulletLedger.getDamagePerEnergy(GunStrategy.GFT), DELTA);
+        Assert.assertEquals(0, bulletLedger.countResolvedBullets(GunStrategy.PATTERN_PREDICTION));
+    }
+
+    @Test
+    public void testResolve_WindowPerEnemy_OldOutcomesAreDropped() {
+        BulletLedger bulletLedger = new BulletLedger();
+        for (int i = 0; i < BulletLedger.WINDOW_SIZE * 2; i++) {
+            Bullet bullet = createBullet(1, i);
+            bulletLedger.recordFiredBullet(bullet, GunStrategy.GFT, "enemy", i);
+            /** The first half hits other robots, the second half hits the aimed enemy. */
+            bulletLedger.resolveHit(bullet, i < BulletLedger.WINDOW_SIZE ? "other" : "enemy");
+        }
+        Bullet hitBulletBullet = createBullet(1, -1);
+        bulletLedger.recordFiredBullet(hitBulletBullet, GunStrategy.GFT, "enemy", 0);
+        Assert.assertTrue(bulletLedger.resolveHitBullet(hitBulletBullet));
+
+        Assert.assertEquals(BulletLedger.WINDOW_SIZE, bulletLedger.countResolvedBullets("enemy", GunStrategy.GFT));
+        Assert.assertEquals(1, bulletLedger.getHitRate("enemy", GunStrategy.GFT), DELTA);
+        Assert.assertEquals(Rules.getBulletDamage(1), bulletLedger.getDamagePerEnergy("enemy", GunStrategy.GFT), DELTA);
+        Assert.assertEquals(0, bulletLedger.getHitRate("unknown", GunStrategy.GFT), DELTA);
+    }
+
+    @Test
+    public void testResolve_EventBulletIsAnotherInstance_FoundByBulletId() {
+        BulletLedger bulletLedger = new BulletLedger();
+        bulletLedger.recordFiredBullet(createBullet(2, 5), GunStrategy.KNN, "enemy", 0, 10);
+        Bullet eventBullet = createBullet(2, 5);
+
+        Assert.assertEquals(10, bulletLedger.getFireTime(eventBullet));
+        Assert.assertTrue(bulletLedger.resolveHit(eventBullet, "enemy"));
+        Assert.assertEquals(0, bulletLedger.countFlyingBullets());
+        Assert.assertEquals(1, bulletLedger.getHitRate("enemy", GunStrategy.KNN), DELTA);
+    }
+
+    @Test
+    public void testResolve_NewRound_OutcomesAreKeptForTheSameEnemy() {
+        BulletLedger firstRoundLedger = new BulletLedger();
+        Bullet firstBullet = createBullet(1, 0);
+        firstRoundLedger.recordFiredBullet(firstBullet, GunStrategy.GFT, "enemy", 0, 0);
+        firstRoundLedger.resolveHit(firstBullet, "enemy");
+
+        /** In the new round, the same enemy has another id. */
+        BulletLedger secondRoundLedger = new BulletLedger();
+        Bullet secondBullet = createBullet(1, 0);
+        secondRoundLedger.recordFiredBullet(secondBullet, GunStrategy.GFT, "enemy", 3, 0);
+        secondRoundLedger.resolveMissed(secondBullet);
+
+        Assert.assertEquals(2, secondRoundLedger.countResolvedBullets("enemy", GunStrategy.GFT));
+        Assert.assertEquals(0.5, secondRoundLedger.getHitRate("enemy", GunStrategy.GFT), DELTA);
+    }
+}
@@ -0,0 +1,82 @@
+package org.tnmk.robocode.common.gun;
+
+import java.awt.geom.Point2D;
+import java.util.Arrays;
+import java.util.List;
+import org.junit.Assert;
+import org.junit.Test;
+import org.tnmk.robocode.common.gun.virtual.VirtualGun;
+import org.tnmk.robocode.common.gun.virtual.VirtualGunArena;
+import org.tnmk.robocode.common.model.enemy.Enemy;
+import org.tnmk.robocode.common.radar.AllEnemiesObservationContext;
+import org.tnmk.robocode.common.robot.budget.CpuBudgetGovernor;
+import robocode.ScannedRobotEvent;
+
+public class FireSchedulerTest {
+    private static final double GUN_COOLING_RATE = 0.1;
+
+    private static FireScheduler createFireScheduler() {
+        VirtualGunArena virtualGunArena = new VirtualGunArena(null, new AllEnemiesObservationContext(null, null), null, new CpuBudgetGovernor(), new VirtualGunStub());
+        return new FireScheduler(virtualGunArena);
+    }
+
+    private static Enemy createEnemy(String name, double x, double y, double energy, long time) {
+        Enemy enemy = new Enemy();
+        enemy.setName(name);
+        enemy.setPosition(new Point2D.Double(x, y));
+        enemy.setEnergy(energy);
+        enemy.setTime(time);
+        return enemy;
+    }
+
+    @Test
+    public void testPlan_GunIsCoolSoon_CommitToTheEnemyInFrontOfTheGun() {
+        FireScheduler fireScheduler = createFireScheduler();
+        /** The gun heads north, both enemies are at the same distance. */
+        List<Enemy> enemies = Arrays.asList(
+                createEnemy("behind", 400, 100, 100, 10),
+                createEnemy("ahead", 400, 700, 100, 10));
+        fireScheduler.plan(10, 400, 400, 0, 0.3, GUN_COOLING_RATE, 100, 2, enemies);
+
+        Assert.assertTrue(fireScheduler.isCommitted());
+        Assert.assertEquals("ahead", fireScheduler.getTargetName());
+        Assert.assertTrue(fireScheduler.isTarget("ahead"));
+        Assert.assertFalse(fireScheduler.isTarget("behind"));
+        Assert.assertEquals(13, fireScheduler.getPlannedFireTime());
+    }
+
+    @Test
+    public void testPlan_CommittedTarget_KeptUntilTheGunFires() {
+        FireScheduler fireScheduler = createFireScheduler();
+        Enemy ahead = createEnemy("ahead", 400, 700, 100, 10);
+        Enemy behind = createEnemy("behind", 400, 100, 100, 10);
+        List<Enemy> enemies = Arrays.asList(behind, ahead);
+        fireScheduler.plan(10, 400, 400, 0, 0.3, GUN_COOLING_RATE, 100, 2, enemies);
+        int countPlans = fireScheduler.countPlans();
+
+        /** The gun turned to the other enemy, but the committed target is not changed before firing. */
+        ahead.setTime(11);
+        behind.setTime(11);
+        fireScheduler.plan(11, 400, 400, Math.PI, 0.2, GUN_COOLING_RATE, 100, 2, enemies);
+        Assert.assertEquals("ahead", fireScheduler.getTargetName());
+        Assert.assertEquals(countPlans, fireScheduler.countPlans());
+
+        /** After firing, the gun heat increases so the target is chosen again: a bullet at the weak enemy would waste most of its damage. */
+        ahead.setEnergy(0.5);
+        fireScheduler.plan(12, 400, 400, Math.PI, 2.4, GUN_COOLING_RATE, 100, 2, enemies);
+        Assert.assertEquals("behind", fireScheduler.getTargetName());
+        Assert.assertFalse(fireScheduler.isCommitted());
+    }
+
+    private static class VirtualGunStub implements VirtualGun {
+        @Override
+        public GunStrategy getGunStrategy() {
+            return GunStrategy.GFT;
+        }
+
+        @Override
+        public double reckonFiringAngle(ScannedRobotEvent scannedRobotEvent, double bulletPower) {
+            return Double.NaN;
+        }
+    }
+}
@@ -0,0 +1,108 @@
+package org.tnmk.robocode.common.gun;
+
+import java.awt.geom.Point2D;
+import java.awt.geom.Rectangle2D;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class InterceptSolverTest {
+    private static final double DELTA = 0.000001;
+    private static final Rectangle2D BATTLE_FIELD = new Rectangle2D.Double(18, 18, 764, 564);
+
+    /**
+     * The old refinement loop of the pattern gun: flightTime = distance(enemy at fireTime + flightTime) / bulletVelocity.
+     *
+     * @return the flight time after the given passes.
+     */
+    private static double solveByFixedPoint(EnemyTrajectory enemyTrajectory, Point2D firePosition, double fireTime, double bulletVelocity, int passes) {
+        double flightTime = 0;
+        for (int i = 0; i < passes; i++) {
+            flightTime = firePosition.distance(enemyTrajectory.reckonPosition(fireTime + flightTime)) / bulletVelocity;
+        }
+        return flightTime;
+    }
+
+    /**
+     * @return the number of passes which the old loop needs until the flight time changes less than the tolerance.
+     */
+    private static int countFixedPointPasses(EnemyTrajectory enemyTrajectory, Point2D firePosition, double fireTime, double bulletVelocity) {
+        double previousFlightTime = -1;
+        double flightTime = 0;
+        int passes = 0;
+        while (Math.abs(flightTime - previousFlightTime) >= InterceptSolver.DEFAULT_TOLERANCE_TICKS) {
+            previousFlightTime = flightTime;
+            flightTime = firePosition.distance(enemyTrajectory.reckonPosition(fireTime + flightTime)) / bulletVelocity;
+            passes++;
+        }
+        return passes;
+    }
+
+    @Test
+    public void testSolve_CircularEnemy_BulletReachesEnemyAtSolvedTime() {
+        EnemyTrajectory enemyTrajectory = new EnemyTrajectory(400, 300, 90, 8, 10, 8, 0.05, BATTLE_FIELD);
+        Point2D firePosition = new Point2D.Double(100, 100);
+        double bulletVelocity = GunUtils.reckonBulletVelocity(2);
+        InterceptSolver interceptSolver = new InterceptSolver();
+
+        InterceptSolution interceptSolution = interceptSolver.solve(enemyTrajectory, firePosition, 12, bulletVelocity);
+
+        double flightTime = interceptSolution.getInterceptTime() - 12;
+        double bulletDistance = bulletVelocity * flightTime;
+        Assert.assertEquals(bulletDistance, firePosition.distance(interceptSolution.getInterceptPosition()), bulletVelocity * InterceptSolver.DEFAULT_TOLERANCE_TICKS);
+        Assert.assertTrue(interceptSolution.getIterations() < InterceptSolver.DEFAULT_MAX_ITERATIONS);
+        Assert.assertEquals(1, interceptSolver.getTotalSolves());
+    }
+
+    @Test
+    public void testSolve_LinearEnemy_SameAsClosedFormSolution() {
+        /** The enemy moves east, 200px north of our robot: (8T)^2 + 200^2 = (bulletVelocity * T)^2 */
+        EnemyTrajectory enemyTrajectory = new EnemyTrajectory(400, 300, 90, 8, 10, 8, 0, BATTLE_FIELD);
+        Point2D firePosition = new Point2D.Double(400, 100);
+        double bulletVelocity = GunUtils.reckonBulletVelocity(2);
+        InterceptSolver interceptSolver = new InterceptSolver();
+
+        InterceptSolution interceptSolution = interceptSolver.solve(enemyTrajectory, firePosition, 10, bulletVelocity);
+
+        double expectedFlightTime = 200 / Math.sqrt(bulletVelocity * bulletVelocity - 64);
+        Assert.assertEquals(10 + expectedFlightTime, interceptSolution.getInterceptTime(), InterceptSolver.DEFAULT_TOLERANCE_TICKS);
+        Assert.assertEquals(400 + 8 * expectedFlightTime, interceptSolution.getInterceptPosition().getX(), bulletVelocity * InterceptSolver.DEFAULT_TOLERANCE_TICKS);
+    }
+
+    @Test
+    public void testSolve_StationaryEnemy_OneIteration() {
+        EnemyTrajectory enemyTrajectory = new EnemyTrajectory(400, 300, 90, 0, 10, 0, 0, BATTLE_FIELD);
+        Point2D firePosition = new Point2D.Double(100, 300);
+        double bulletVelocity = GunUtils.reckonBulletVelocity(3);
+        InterceptSolver interceptSolver = new InterceptSolver();
+
+        InterceptSolution interceptSolution = interceptSolver.solve(enemyTrajectory, firePosition, 10, bulletVelocity);
+
+        Assert.assertEquals(10 + 300 / bulletVelocity, interceptSolution.getInterceptTime(), DELTA);
+        Assert.assertEquals(400, interceptSolution.getInterceptPosition().getX(), DELTA);
+        Assert.assertEquals(300, interceptSolution.getInterceptPosition().getY(), DELTA);
+        Assert.assertEquals(1, interceptSolver.getLastIterations());
+    }
+
+    /**
+     * The enemy comes straight to our robot from the other side of the battle field with the slowest bullet,
+     * so each pass of the old loop only reduces the error by 8 / 11.
+     */
+    @Test
+    public void testSolve_LongRange_AccurateWithFewerIterationsThanTheOldLoop() {
+        EnemyTrajectory enemyTrajectory = new EnemyTrajectory(750, 300, 270, 8, 10, 8, 0, BATTLE_FIELD);
+        Point2D firePosition = new Point2D.Double(50, 300);
+        double bulletVelocity = GunUtils.reckonBulletVelocity(3);
+        InterceptSolver interceptSolver = new InterceptSolver();
+
+        InterceptSolution interceptSolution = interceptSolver.solve(enemyTrajectory, firePosition, 10, bulletVelocity);
+
+        double expectedFlightTime = 700 / (bulletVelocity + 8);
+        Assert.assertEquals(10 + expectedFlightTime, interceptSolution.getInterceptTime(), InterceptSolver.DEFAULT_TOLERANCE_TICKS);
+        /** 3 passes of the old loop are far from the solution at this range. */
+        double oldFlightTime = solveByFixedPoint(enemyTrajectory, firePosition, 10, bulletVelocity, 3);
+        Assert.assertTrue("Old flight time: " + oldFlightTime, Math.abs(oldFlightTime - expectedFlightTime) > 1);
+
+        int fixedPointPasses = countFixedPointPasses(enemyTrajectory, firePosition, 10, bulletVelocity);
+        Assert.assertTrue(interceptSolver.getLastIterations() + " vs " + fixedPointPasses, interceptSolver.getLastIterations() < fixedPointPasses);
+    }
+}
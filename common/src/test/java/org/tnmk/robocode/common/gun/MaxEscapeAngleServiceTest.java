@@ -0,0 +1,51 @@
+package org.tnmk.robocode.common.gun;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class MaxEscapeAngleServiceTest {
+    private static final double DELTA = 0.000001;
+
+    @Test
+    public void testReckonMaxEscapeAngles_OpenField_CloseToClassicEscapeAngle() {
+        MaxEscapeAngleService service = new MaxEscapeAngleService(1200, 1200);
+        double[] result = new double[2];
+        service.reckonMaxEscapeAngles(600, 300, 600, 700, 2, result);
+
+        double classicEscapeAngle = MaxEscapeAngleService.reckonMaxEscapeAngle(GunUtils.reckonBulletVelocity(2));
+        Assert.assertEquals(result[0], result[1], 0.01);
+        Assert.assertTrue(result[0] <= classicEscapeAngle);
+        Assert.assertTrue(result[0] > classicEscapeAngle * 0.8);
+    }
+
+    @Test
+    public void testReckonMaxEscapeAngles_NearWall_ClippedInTheWallDirection() {
+        MaxEscapeAngleService service = new MaxEscapeAngleService(800, 600);
+        double[] result = new double[2];
+        /** The enemy is in the east, moving clockwise means moving south into the bottom wall. */
+        service.reckonMaxEscapeAngles(200, 60, 600, 60, 2, result);
+
+        Assert.assertTrue(result[0] < result[1] * 0.5);
+        Assert.assertTrue(result[1] > 0.3);
+    }
+
+    @Test
+    public void testReckonMaxEscapeAngles_SameBuckets_ServedFromCache() {
+        MaxEscapeAngleService service = new MaxEscapeAngleService(800, 600);
+        double[] result = new double[2];
+        double[] cachedResult = new double[2];
+        service.reckonMaxEscapeAngles(200, 300, 500, 300, 1.5, result);
+        service.reckonMaxEscapeAngles(200.5, 300.5, 500.5, 300.5, 1.5, cachedResult);
+
+        Assert.assertEquals(2, service.getRequests());
+        Assert.assertEquals(1, service.getHits());
+        Assert.assertEquals(0.5, service.getHitRate(), DELTA);
+        Assert.assertEquals(result[0], cachedResult[0], DELTA);
+        Assert.assertEquals(result[1], cachedResult[1], DELTA);
+
+        service.clear();
+        service.reckonMaxEscapeAngles(200, 300, 500, 300, 1.5, cachedResult);
+        Assert.assertEquals(1, service.getHits());
+        Assert.assertEquals(result[0], cachedResult[0], DELTA);
+    }
+}
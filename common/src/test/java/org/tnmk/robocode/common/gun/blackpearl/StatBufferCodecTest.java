@@ -0,0 +1,49 @@
+package org.tnmk.robocode.common.gun.blackpearl;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class StatBufferCodecTest {
+    private static final int[] DIMENSIONS = {5, 5, 5, 5, 5, 23};
+
+    @Test
+    public void testEncodeRead_SparseBuffer() throws IOException {
+        int[][][][][][] statBuffer = new int[5][5][5][5][5][23];
+        statBuffer[0][0][0][0][0][0] = 1;
+        statBuffer[1][2][3][4][0][11] = 300;
+        statBuffer[4][4][4][4][4][22] = 70000;
+
+        byte[] bytes = StatBufferCodec.encode(statBuffer, Integer.MAX_VALUE);
+        Assert.assertTrue("Encoded bytes: " + bytes.length, bytes.length < 64);
+
+        int[][][][][][] readBuffer = StatBufferCodec.read(new ByteArrayInputStream(bytes), DIMENSIONS);
+        Assert.assertArrayEquals(statBuffer, readBuffer);
+    }
+
+    @Test
+    public void testEncode_HalveCountsOfACopyToFitBudget() throws IOException {
+        int[][][][][][] statBuffer = new int[5][5][5][5][5][23];
+        for (int i = 0; i < 5; i++) {
+            statBuffer[i][0][0][0][0][11] = 1;
+            statBuffer[i][1][0][0][0][11] = 1000;
+        }
+        int fullBytes = StatBufferCodec.encode(statBuffer).length;
+
+        byte[] bytes = StatBufferCodec.encode(statBuffer, fullBytes - 1);
+        Assert.assertTrue(bytes.length < fullBytes);
+        int[][][][][][] readBuffer = StatBufferCodec.read(new ByteArrayInputStream(bytes), DIMENSIONS);
+        Assert.assertEquals(0, readBuffer[0][0][0][0][0][11]);
+        Assert.assertEquals(500, readBuffer[0][1][0][0][0][11]);
+        /** The live stat buffer is not changed. */
+        Assert.assertEquals(1, statBuffer[0][0][0][0][0][11]);
+        Assert.assertEquals(1000, statBuffer[0][1][0][0][0][11]);
+    }
+
+    @Test(expected = IOException.class)
+    public void testRead_RejectOtherDimensions() throws IOException {
+        byte[] bytes = StatBufferCodec.encode(new int[5][5][5][5][5][23], Integer.MAX_VALUE);
+        StatBufferCodec.read(new ByteArrayInputStream(bytes), 5, 5, 5, 5, 5, 31);
+    }
+}
@@ -0,0 +1,41 @@
+package org.tnmk.robocode.common.gun.gft;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class GuessFactorStatisticsTest {
+    private static final double DELTA = 0.000001;
+
+    @Test
+    public void testReckonSegmentIndex_DistanceFurtherThanBattleFieldDiagonal_FallsIntoLastBucket() {
+        GuessFactorSegmentation segmentation = GuessFactorSegmentation.ofBattleField(3000, 4000, 5);//diagonal 5000
+        Assert.assertEquals(125, segmentation.countSegments());
+        Assert.assertEquals(0, segmentation.reckonSegmentIndex(new double[]{999, 0, 0}));
+        Assert.assertEquals(25, segmentation.reckonSegmentIndex(new double[]{1000, 0, 0}));
+        Assert.assertEquals(4 * 25 + 4 * 5 + 1, segmentation.reckonSegmentIndex(new double[]{9000, 8, 3}));
+    }
+
+    @Test
+    public void testGetEnemyStats_EvictLeastRecentlyUsedEnemy_WhenReachingMaxTotalCells() {
+        GuessFactorSegmentation segmentation = new GuessFactorSegmentation(new double[]{100});
+        GuessFactorStatistics statistics = new GuessFactorStatistics(segmentation, 5, 0.8, 0.5, 20);
+
+        EnemyGuessFactorStats enemyA = statistics.getEnemyStats("A");
+        EnemyGuessFactorStats enemyB = statistics.getEnemyStats("B");
+        enemyA.onWaveBreak(1, 0.4, 1);
+        enemyA.onWaveBreak(1, 0.4, 1);
+        Assert.assertEquals(1.5, enemyA.getVisits(1, 3), DELTA);
+        Assert.assertEquals(0.4, enemyA.mostVisitedBearingOffset(1, 1), DELTA);
+        Assert.assertEquals(-0.4, enemyA.mostVisitedBearingOffset(1, -1), DELTA);
+
+        statistics.getEnemyStats("A");
+        EnemyGuessFactorStats enemyC = statistics.getEnemyStats("C");
+        Assert.assertTrue(enemyB.isEvicted());
+        Assert.assertFalse(enemyA.isEvicted());
+        Assert.assertEquals(0, enemyC.getVisits(1, 3), DELTA);
+        Assert.assertEquals(2, statistics.countEnemies());
+        Assert.assertEquals(20, statistics.getTotalCells());
+        enemyB.onWaveBreak(1, 0.4, 1);//ignored
+        Assert.assertEquals(0, enemyC.getVisits(1, 3), DELTA);
+    }
+}
@@ -0,0 +1,45 @@
+package org.tnmk.robocode.common.gun.predictor.self;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.tnmk.robocode.common.gun.predictor.self.model.PredictStateResult;
+import org.tnmk.robocode.common.model.BattleField;
+import org.tnmk.robocode.common.model.FullRobotState;
+
+public class SimulationCacheTest {
+    private static final double DELTA = 0.000001;
+
+    @Test
+    public void testPredict_FewerStepsOfTheSameStateAreServedFromCache() {
+        BattleField battleField = new BattleField(800, 600);
+        SimulationCache simulationCache = new SimulationCache();
+        simulationCache.startTick(1);
+        simulationCache.predict(10, createState(), battleField);
+        PredictStateResult cachedResult = simulationCache.predict(6, createState(), battleField);
+
+        PredictStateResult expectedResult = PredictWrapper.predict(6, createState(), battleField);
+        Assert.assertEquals(expectedResult.getX(), cachedResult.getX(), DELTA);
+        Assert.assertEquals(expectedResult.getY(), cachedResult.getY(), DELTA);
+        Assert.assertEquals(expectedResult.getHeading(), cachedResult.getHeading(), DELTA);
+        Assert.assertEquals(0.5, simulationCache.getHitRate(), DELTA);
+        Assert.assertEquals(10, simulationCache.getSimulatedSteps());
+        Assert.assertEquals(6, simulationCache.getSavedSteps());
+
+        simulationCache.startTick(2);
+        simulationCache.predict(6, createState(), battleField);
+        Assert.assertEquals(16, simulationCache.getSimulatedSteps());
+    }
+
+    private static FullRobotState createState() {
+        FullRobotState robotState = new FullRobotState();
+        robotState.setX(400);
+        robotState.setY(300);
+        robotState.setHeading(30);
+        robotState.setVelocity(6);
+        robotState.setMaxVelocity(8);
+        robotState.setMaxTurnRate(10);
+        robotState.setDistanceRemaining(100);
+        robotState.setTurnRemaining(45);
+        return robotState;
+    }
+}
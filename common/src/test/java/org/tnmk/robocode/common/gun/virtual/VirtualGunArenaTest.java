@@ -0,0 +1,104 @@
+package org.tnmk.robocode.common.gun.virtual;
+
+import java.awt.geom.Point2D;
+import org.junit.Assert;
+import org.junit.Test;
+import org.tnmk.robocode.common.gun.GunStrategy;
+import org.tnmk.robocode.common.gun.wave.WaveTracker;
+import org.tnmk.robocode.common.model.enemy.Enemy;
+import org.tnmk.robocode.common.radar.AllEnemiesObservationContext;
+import org.tnmk.robocode.common.robot.budget.CpuBudgetGovernor;
+import org.tnmk.robocode.common.robot.state.AdvanceRobotState;
+import org.tnmk.robocode.common.robot.state.MockAdvanceRobotPeer;
+import robocode.AdvancedRobot;
+import robocode.ScannedRobotEvent;
+
+public class VirtualGunArenaTest {
+    private static final double DELTA = 0.000001;
+    private static final String ENEMY_NAME = "enemy";
+
+    private final MockAdvanceRobotPeer peer = new MockAdvanceRobotPeer();
+    private final AdvancedRobot robot = new AdvancedRobot();
+    private final AdvanceRobotState robotState = new AdvanceRobotState();
+    private final WaveTracker waveTracker = new WaveTracker();
+    private final AllEnemiesObservationContext allEnemiesObservationContext;
+
+    public VirtualGunArenaTest() {
+        robot.setPeer(peer);
+        robotState.setPosition(new Point2D.Double(400, 400));
+        robotState.setBattleFieldWidth(800);
+        robotState.setBattleFieldHeight(800);
+        allEnemiesObservationContext = new AllEnemiesObservationContext(robot, robotState);
+    }
+
+    /**
+     * The enemy stays 200px north of our robot, so the head-on gun always hits and the other gun always misses.
+     */
+    private void fireAndBreakWaves(VirtualGunArena virtualGunArena, int wavesCount) {
+        ScannedRobotEvent scannedRobotEvent = new ScannedRobotEvent(ENEMY_NAME, 100, 0, 200, 0, 0);
+        for (int i = 0; i < wavesCount; i++) {
+            robotState.setTime(robotState.getTime() + 1);
+            peer.setTime(robotState.getTime());
+            Enemy enemy = new Enemy();
+            enemy.setName(ENEMY_NAME);
+            enemy.setPosition(new Point2D.Double(400, 600));
+            enemy.setEnergy(100);
+            enemy.setTime(robotState.getTime());
+            allEnemiesObservationContext.addEnemy(enemy);
+            virtualGunArena.onScannedRobot(scannedRobotEvent, 3);
+        }
+        while (waveTracker.countWaves() > 0) {
+            waveTracker.runLoop();
+        }
+    }
+
+    @Test
+    public void testOnWaveBreak_OnlyTheGunAimingAtTheEnemyHits() {
+        VirtualGunArena virtualGunArena = new VirtualGunArena(robotState, allEnemiesObservationContext, waveTracker, new CpuBudgetGovernor(),
+                new FixedAngleGun(GunStrategy.GFT, 0), new FixedAngleGun(GunStrategy.KNN, 0.5), new FixedAngleGun(GunStrategy.PATTERN_PREDICTION, Double.NaN));
+        fireAndBreakWaves(virtualGunArena, 10);
+
+        Assert.assertEquals(10, virtualGunArena.countScoredWaves(ENEMY_NAME));
+        Assert.assertEquals(1, virtualGunArena.getHitRate(ENEMY_NAME, GunStrategy.GFT), DELTA);
+        Assert.assertEquals(0, virtualGunArena.getHitRate(ENEMY_NAME, GunStrategy.KNN), DELTA);
+        /** A gun which couldn't aim is considered missed. */
+        Assert.assertEquals(0, virtualGunArena.getHitRate(ENEMY_NAME, GunStrategy.PATTERN_PREDICTION), DELTA);
+        Assert.assertEquals(0, virtualGunArena.getHitRate("unknown", GunStrategy.GFT), DELTA);
+    }
+
+    @Test
+    public void testSelectGunStrategy_DefaultUntilEnoughWaves_ThenTheBestGun() {
+        VirtualGunArena virtualGunArena = new VirtualGunArena(robotState, allEnemiesObservationContext, waveTracker, new CpuBudgetGovernor(),
+                new FixedAngleGun(GunStrategy.KNN, 0.5), new FixedAngleGun(GunStrategy.GFT, 0), new FixedAngleGun(GunStrategy.BLACK_PEARL, 0));
+        fireAndBreakWaves(virtualGunArena, VirtualGunArena.MIN_SCORED_WAVES - 1);
+        Assert.assertEquals(GunStrategy.KNN, virtualGunArena.selectGunStrategy(ENEMY_NAME, GunStrategy.KNN));
+
+        fireAndBreakWaves(virtualGunArena, 1);
+        Assert.assertEquals(GunStrategy.GFT, virtualGunArena.selectGunStrategy(ENEMY_NAME, GunStrategy.KNN));
+        /** Both GFT and BLACK_PEARL hit every wave, the default one is preferred. */
+        Assert.assertEquals(GunStrategy.BLACK_PEARL, virtualGunArena.selectGunStrategy(ENEMY_NAME, GunStrategy.BLACK_PEARL));
+    }
+
+    /**
+     * Always fire at the same absolute angle.
+     */
+    private static class FixedAngleGun implements VirtualGun {
+        private final GunStrategy gunStrategy;
+        private final double firingAngle;
+
+        private FixedAngleGun(GunStrategy gunStrategy, double firingAngle) {
+            this.gunStrategy = gunStrategy;
+            this.firingAngle = firingAngle;
+        }
+
+        @Override
+        public GunStrategy getGunStrategy() {
+            return gunStrategy;
+        }
+
+        @Override
+        public double reckonFiringAngle(ScannedRobotEvent scannedRobotEvent, double bulletPower) {
+            return firingAngle;
+        }
+    }
+}
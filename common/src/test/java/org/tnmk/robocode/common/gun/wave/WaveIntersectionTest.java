@@ -0,0 +1,50 @@
+package org.tnmk.robocode.common.gun.wave;
+
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class WaveIntersectionTest {
+    private static final double DELTA = 0.000001;
+
+    @Test
+    public void testAccumulate_OnlyThePartOfBoundingBoxInsideTheRingIsCounted() {
+        double[] offsetRange = {Double.POSITIVE_INFINITY, Double.NEGATIVE_INFINITY};
+        Assert.assertFalse(WaveIntersection.accumulate(0, 0, 0, 50, 60, 0, 100, offsetRange));
+        Assert.assertEquals(Double.POSITIVE_INFINITY, offsetRange[0], DELTA);
+
+        /** The ring [70, 83] only cuts the bottom edge (y = 82) of the box, its nearest corners are at the distance ~83.95. */
+        Assert.assertTrue(WaveIntersection.accumulate(0, 0, 0, 70, 83, 0, 100, offsetRange));
+        double cutX = Math.sqrt(83 * 83 - 82 * 82);
+        Assert.assertEquals(-Math.atan2(cutX, 82), offsetRange[0], DELTA);
+        Assert.assertEquals(Math.atan2(cutX, 82), offsetRange[1], DELTA);
+    }
+
+    @Test
+    public void testAddPreciseWave_StationaryTarget_RangeOfTheWholeBoundingBox() {
+        WaveTracker waveTracker = new WaveTracker();
+        List<double[]> passedRanges = new ArrayList<>();
+        WaveIntersectionListener listener = (segmentIndex, minBearingOffsetRadian, maxBearingOffsetRadian, lateralDirection) ->
+                passedRanges.add(new double[]{segmentIndex, minBearingOffsetRadian, maxBearingOffsetRadian});
+        waveTracker.updateTargetPosition(0, 0, 100);
+        waveTracker.addPreciseWave(0, 0, 0, 0, 1, 11, 7, listener);
+
+        /** The target is scanned every tick. The farthest corner is at the distance ~119.4, so the wave passes it at the 11th tick. */
+        for (int tick = 0; tick < 10; tick++) {
+            waveTracker.updateTargetPosition(0, 0, 100);
+            waveTracker.runLoop();
+        }
+        Assert.assertTrue(passedRanges.isEmpty());
+        waveTracker.updateTargetPosition(0, 0, 100);
+        waveTracker.runLoop();
+        Assert.assertEquals(1, passedRanges.size());
+        Assert.assertEquals(0, waveTracker.countWaves());
+
+        /** The widest angles are at the 2 nearest corners (-18, 82) and (18, 82). */
+        double[] passedRange = passedRanges.get(0);
+        Assert.assertEquals(7, passedRange[0], DELTA);
+        Assert.assertEquals(-Math.atan2(18, 82), passedRange[1], DELTA);
+        Assert.assertEquals(Math.atan2(18, 82), passedRange[2], DELTA);
+    }
+}
@@ -0,0 +1,125 @@
+package org.tnmk.robocode.common.gun.wave;
+
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.Assert;
+import org.junit.Test;
+import org.tnmk.robocode.common.model.enemy.EnemyRegistry;
+
+public class WaveTrackerTest {
+    private static final double DELTA = 0.000001;
+
+    @Test
+    public void testRunLoop_WavesBreakWhenPassingTarget_AndSlotsAreReused() {
+        WaveTracker waveTracker = new WaveTracker();
+        List<Integer> brokenSegments = new ArrayList<>();
+        List<Double> brokenBearingOffsets = new ArrayList<>();
+        WaveBreakListener listener = (segmentIndex, bearingOffsetRadian, lateralDirection) -> {
+            brokenSegments.add(segmentIndex);
+            brokenBearingOffsets.add(bearingOffsetRadian);
+        };
+        waveTracker.updateTargetPosition(0, 0, 118);//distance 118, breaks when traveled > 100.
+        waveTracker.updateTargetPosition(3, 218, 0);//distance 218, breaks when traveled > 200.
+        waveTracker.addWave(3, 0, 0, Math.PI / 2, 1, 20, 30, listener);
+        waveTracker.addWave(0, 0, 0, 0, 1, 20, 10, listener);
+
+        for (int tick = 0; tick < 5; tick++) {
+            waveTracker.runLoop();
+        }
+        Assert.assertTrue(brokenSegments.isEmpty());
+        waveTracker.updateTargetPosition(0, 118, 0);//the target moved 90 degrees clockwise.
+        waveTracker.runLoop();
+        Assert.assertEquals(1, brokenSegments.size());
+        Assert.assertEquals(10, brokenSegments.get(0).intValue());
+        Assert.assertEquals(Math.PI / 2, brokenBearingOffsets.get(0), DELTA);
+        Assert.assertEquals(1, waveTracker.countWaves());
+
+        for (int tick = 0; tick < 5; tick++) {
+            waveTracker.runLoop();
+        }
+        Assert.assertEquals(2, brokenSegments.size());
+        Assert.assertEquals(30, brokenSegments.get(1).intValue());
+        Assert.assertEquals(0, waveTracker.countWaves());
+        Assert.assertEquals(16, waveTracker.capacity());
+    }
+
+    @Test
+    public void testOnEnemyEvicted_WavesOfTheIdAreDiscarded_AndNoIdIsIgnored() {
+        WaveTracker waveTracker = new WaveTracker();
+        List<Integer> brokenSegments = new ArrayList<>();
+        List<Integer> discardedSegments = new ArrayList<>();
+        WaveBreakListener listener = new WaveBreakListener() {
+            @Override
+            public void onWaveBreak(int segmentIndex, double bearingOffsetRadian, double lateralDirection) {
+                brokenSegments.add(segmentIndex);
+            }
+
+            @Override
+            public void onWaveDiscarded(int segmentIndex) {
+                discardedSegments.add(segmentIndex);
+            }
+        };
+        waveTracker.updateTargetPosition(EnemyRegistry.NO_ID, 0, 100);
+        waveTracker.updateTargetPosition(0, 0, 118);
+        waveTracker.updateTargetPosition(1, 118, 0);
+        waveTracker.addWave(0, 0, 0, 0, 1, 20, 10, listener);
+        waveTracker.addWave(1, 0, 0, Math.PI / 2, 1, 20, 20, listener);
+        waveTracker.addWave(0, 0, 0, 0, 1, 20, 30, listener);
+
+        waveTracker.onEnemyEvicted(0);
+        Assert.assertEquals(2, discardedSegments.size());
+        Assert.assertTrue(discardedSegments.contains(10));
+        Assert.assertTrue(discardedSegments.contains(30));
+        Assert.assertEquals(1, waveTracker.countWaves());
+
+        /** The evicted id is reused by another enemy: the old waves are not scored against it. */
+        waveTracker.updateTargetPosition(0, 0, 50);
+        for (int tick = 0; tick < 6; tick++) {
+            waveTracker.runLoop();
+        }
+        Assert.assertEquals(1, brokenSegments.size());
+        Assert.assertEquals(20, brokenSegments.get(0).intValue());
+    }
+
+    @Test
+    public void testAddPreciseWave_TargetUpdatedEveryFewTicks_OnlyUpdatedTicksAreAccumulated() {
+        WaveTracker waveTracker = new WaveTracker();
+        List<double[]> passedRanges = new ArrayList<>();
+        WaveIntersectionListener listener = (segmentIndex, minBearingOffsetRadian, maxBearingOffsetRadian, lateralDirection) ->
+                passedRanges.add(new double[]{minBearingOffsetRadian, maxBearingOffsetRadian});
+        waveTracker.updateTargetPosition(0, 0, 100);
+        waveTracker.addPreciseWave(0, 0, 0, 0, 1, 11, 7, listener);
+
+        /** The target is scanned every 3 ticks. The wave crosses its bounding box from the 8th tick, but only the 9th tick (the ring [99, 110]) has a current position. */
+        for (int tick = 0; tick < 11 && passedRanges.isEmpty(); tick++) {
+            if (tick % 3 == 0) {
+                waveTracker.updateTargetPosition(0, 0, 100);
+            }
+            waveTracker.runLoop();
+        }
+        Assert.assertEquals(1, passedRanges.size());
+        double[] expectedRange = {Double.POSITIVE_INFINITY, Double.NEGATIVE_INFINITY};
+        WaveIntersection.accumulate(0, 0, 0, 99, 110, 0, 100, expectedRange);
+        Assert.assertEquals(expectedRange[0], passedRanges.get(0)[0], DELTA);
+        Assert.assertEquals(expectedRange[1], passedRanges.get(0)[1], DELTA);
+        /** The nearest corners (-18, 82) and (18, 82) were crossed at stale ticks, so they're not counted. */
+        Assert.assertTrue(passedRanges.get(0)[1] < Math.atan2(18, 82));
+    }
+
+    @Test
+    public void testAddPreciseWave_TargetNotUpdatedWhileCrossing_CenterIsUsed() {
+        WaveTracker waveTracker = new WaveTracker();
+        List<double[]> passedRanges = new ArrayList<>();
+        WaveIntersectionListener listener = (segmentIndex, minBearingOffsetRadian, maxBearingOffsetRadian, lateralDirection) ->
+                passedRanges.add(new double[]{minBearingOffsetRadian, maxBearingOffsetRadian});
+        waveTracker.updateTargetPosition(0, 0, 100);
+        waveTracker.addPreciseWave(0, 0, 0, 0, 1, 11, 7, listener);
+
+        for (int tick = 0; tick < 11; tick++) {
+            waveTracker.runLoop();
+        }
+        Assert.assertEquals(1, passedRanges.size());
+        Assert.assertEquals(0, passedRanges.get(0)[0], DELTA);
+        Assert.assertEquals(0, passedRanges.get(0)[1], DELTA);
+    }
+}
@@ -0,0 +1,32 @@
+package org.tnmk.robocode.common.helper.prediction;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class PhysicsKernelTest {
+    private static final double DELTA = 0.000001;
+
+    @Test
+    public void testPredictSteps_AccelerateThenStopExactlyAtDistance() {
+        MotionState motionState = new MotionState(100, 100, 0, 0, 56, 0, 0);
+        double[] velocities = new double[13];
+        double[] ys = new double[13];
+        PhysicsKernel.predictSteps(motionState, 13, false, 0, 0, null, ys, null, velocities);
+
+        Assert.assertArrayEquals(new double[]{1, 2, 3, 4, 5, 6, 7, 8, 8, 6, 4, 2, 0}, velocities, DELTA);
+        Assert.assertEquals(156, ys[12], DELTA);
+        Assert.assertEquals(0, motionState.getDistanceRemaining(), DELTA);
+        Assert.assertEquals(13, motionState.getTime());
+    }
+
+    @Test
+    public void testStep_StopAtWall() {
+        MotionState motionState = new MotionState(776, 300, Math.PI / 2, 8, Double.POSITIVE_INFINITY, 0, 0);
+        boolean hitWall = PhysicsKernel.step(motionState, 800, 600);
+
+        Assert.assertTrue(hitWall);
+        Assert.assertEquals(782, motionState.getX(), DELTA);
+        Assert.assertEquals(0, motionState.getVelocity(), DELTA);
+        Assert.assertEquals(0, motionState.getDistanceRemaining(), DELTA);
+    }
+}
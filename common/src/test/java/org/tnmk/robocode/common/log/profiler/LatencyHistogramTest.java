@@ -0,0 +1,36 @@
+package org.tnmk.robocode.common.log.profiler;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class LatencyHistogramTest {
+
+    @Test
+    public void testBucketIndex_ValueIsInsideItsBucket() {
+        long previousUpperBound = -1;
+        for (long nanos = 0; nanos < 100000; nanos++) {
+            int bucketIndex = LatencyHistogram.bucketIndex(nanos);
+            long upperBound = LatencyHistogram.bucketUpperBound(bucketIndex);
+            Assert.assertTrue(nanos <= upperBound);
+            Assert.assertTrue(bucketIndex == 0 || nanos > LatencyHistogram.bucketUpperBound(bucketIndex - 1));
+            Assert.assertTrue(upperBound >= previousUpperBound);
+            previousUpperBound = upperBound;
+        }
+        Assert.assertTrue(LatencyHistogram.bucketIndex(Long.MAX_VALUE) < 256);
+    }
+
+    @Test
+    public void testGetPercentileNanos() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (int i = 1; i <= 100; i++) {
+            histogram.record(i * 1000);
+        }
+        Assert.assertEquals(100, histogram.getCount());
+        Assert.assertEquals(100000, histogram.getMaxNanos());
+        long p50 = histogram.getPercentileNanos(50);
+        Assert.assertTrue(p50 >= 50000 && p50 <= 50000 * 1.25);
+        long p99 = histogram.getPercentileNanos(99);
+        Assert.assertTrue(p99 >= 99000 && p99 <= 100000);
+        Assert.assertEquals(100000, histogram.getPercentileNanos(100));
+    }
+}
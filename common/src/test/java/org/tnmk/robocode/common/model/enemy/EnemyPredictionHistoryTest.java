@@ -0,0 +1,33 @@
+package org.tnmk.robocode.common.model.enemy;
+
+import java.awt.geom.Point2D;
+import org.junit.Assert;
+import org.junit.Test;
+import org.tnmk.robocode.common.gun.pattern.EnemyMovePattern;
+import org.tnmk.robocode.common.helper.prediction.EnemyPrediction;
+
+public class EnemyPredictionHistoryTest {
+    private static final double DELTA = 0.000001;
+
+    @Test
+    public void testPatternAggregate_UpdatedWhenPredictionsLeaveHistory() {
+        EnemyPredictionHistory enemyPredictionHistory = new EnemyPredictionHistory("enemy");
+        for (int time = 0; time < 40; time++) {
+            EnemyMovePattern pattern = time < 20 ? EnemyMovePattern.LINEAR : EnemyMovePattern.CIRCULAR;
+            enemyPredictionHistory.addToHistory(new EnemyPrediction(pattern, time, new Point2D.Double(), -0.01 * time, time));
+        }
+        int historySize = enemyPredictionHistory.countHistoryItems();
+        //The oldest predictions (time 0 to 9) left the history.
+        PatternPredictionAggregate linear = enemyPredictionHistory.getPatternAggregate(EnemyMovePattern.LINEAR);
+        PatternPredictionAggregate circular = enemyPredictionHistory.getPatternAggregate(EnemyMovePattern.CIRCULAR);
+        Assert.assertEquals(historySize, linear.getCount() + circular.getCount());
+        Assert.assertEquals(10, linear.getCount());
+        Assert.assertEquals(10, linear.getMinAvgVelocity(), DELTA);
+        Assert.assertEquals(19, linear.getMaxAvgVelocity(), DELTA);
+        Assert.assertEquals(145, linear.getSumAvgVelocity(), DELTA);
+        Assert.assertEquals(0.10, linear.getMinAbsAvgHeadingChangeRadian(), DELTA);
+        Assert.assertEquals(0.19, linear.getMaxAbsAvgHeadingChangeRadian(), DELTA);
+        Assert.assertEquals(5, linear.countAvgVelocityLessThanOrEquals(14));
+        Assert.assertEquals(0, enemyPredictionHistory.getPatternAggregate(EnemyMovePattern.STAY_STILL).getCount());
+    }
+}
@@ -0,0 +1,45 @@
+package org.tnmk.robocode.common.model.enemy;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class EnemyRegistryTest {
+
+    @Test
+    public void testRegister_DenseIds() {
+        EnemyRegistry enemyRegistry = new EnemyRegistry();
+        for (int i = 0; i < 20; i++) {
+            Assert.assertEquals(i, enemyRegistry.register("enemy" + i));
+        }
+        Assert.assertEquals(3, enemyRegistry.register("enemy3"));
+        Assert.assertEquals(20, enemyRegistry.countAlive());
+        Assert.assertTrue(enemyRegistry.capacity() >= 20);
+        Assert.assertEquals(EnemyRegistry.NO_ID, enemyRegistry.getId("unknown"));
+    }
+
+    @Test
+    public void testLifecycle_EvictedIdIsReused() {
+        EnemyRegistry enemyRegistry = new EnemyRegistry();
+        int id0 = enemyRegistry.register("enemy0");
+        int id1 = enemyRegistry.register("enemy1");
+
+        Assert.assertTrue(enemyRegistry.markDead(id0, 10));
+        Assert.assertEquals(EnemyLifecycle.DEAD, enemyRegistry.getLifecycle(id0));
+        Assert.assertEquals(id0, enemyRegistry.getId("enemy0"));
+        Assert.assertEquals(1, enemyRegistry.countAlive());
+
+        enemyRegistry.evict(id0);
+        Assert.assertEquals(EnemyLifecycle.EVICTED, enemyRegistry.getLifecycle(id0));
+        Assert.assertEquals(EnemyRegistry.NO_ID, enemyRegistry.getId("enemy0"));
+
+        Assert.assertEquals(id0, enemyRegistry.register("enemy2"));
+        Assert.assertEquals(2, enemyRegistry.countUsedIds());
+        Assert.assertTrue(enemyRegistry.isAlive(id1));
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testEvict_AliveEnemy() {
+        EnemyRegistry enemyRegistry = new EnemyRegistry();
+        enemyRegistry.evict(enemyRegistry.register("enemy0"));
+    }
+}
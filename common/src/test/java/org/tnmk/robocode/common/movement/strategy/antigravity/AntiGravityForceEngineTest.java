@@ -0,0 +1,53 @@
+package org.tnmk.robocode.common.movement.strategy.antigravity;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class AntiGravityForceEngineTest {
+    private static final double DELTA = 0.000001;
+
+    @Test
+    public void testStaticForceGrid_ExactAtNodesAndCloseBetweenNodes() {
+        AntiGravityCalculationContext calculationContext = createCalculationContext(800, 600);
+        StaticForceGrid staticForceGrid = calculationContext.getStaticForceGrid();
+
+        double[] exactForce = new double[2];
+        double[] gridForce = new double[2];
+        AntiGravityForceEngine.addStaticForce(calculationContext, 800, 600, 160, 320, exactForce);
+        staticForceGrid.addForce(160, 320, gridForce);
+        Assert.assertEquals(exactForce[0], gridForce[0], DELTA);
+        Assert.assertEquals(exactForce[1], gridForce[1], DELTA);
+
+        exactForce = new double[2];
+        gridForce = new double[2];
+        AntiGravityForceEngine.addStaticForce(calculationContext, 800, 600, 203.5, 117.25, exactForce);
+        staticForceGrid.addForce(203.5, 117.25, gridForce);
+        Assert.assertEquals(exactForce[0], gridForce[0], Math.abs(exactForce[0]) * 0.05);
+        Assert.assertEquals(exactForce[1], gridForce[1], Math.abs(exactForce[1]) * 0.05);
+    }
+
+    @Test
+    public void testAddForceOfSource_PushAwayFromTheSource() {
+        AntiGravityCalculationContext calculationContext = createCalculationContext(800, 600);
+        double[] force = new double[2];
+        /** The source at bottom-left pushes the position to top-right. */
+        AntiGravityForceEngine.addForceOfSource(calculationContext, 100, 100, 200, 150, force);
+        Assert.assertTrue(force[0] > 0);
+        Assert.assertTrue(force[1] > 0);
+        Assert.assertEquals(2, force[0] / force[1], DELTA);
+
+        /** The same position as the source has no direction to push. */
+        double[] noForce = new double[2];
+        AntiGravityForceEngine.addForceOfSource(calculationContext, 200, 150, 200, 150, noForce);
+        Assert.assertEquals(0, noForce[0], DELTA);
+        Assert.assertEquals(0, noForce[1], DELTA);
+    }
+
+    private static AntiGravityCalculationContext createCalculationContext(double battleFieldWidth, double battleFieldHeight) {
+        AntiGravityCalculationContext calculationContext = new AntiGravityCalculationContext();
+        calculationContext.setMaxSafeMoveDistance(500);
+        calculationContext.setMovementIncrement(10);
+        calculationContext.setStaticForceGrid(new StaticForceGrid(calculationContext, battleFieldWidth, battleFieldHeight, StaticForceGrid.DEFAULT_CELL_SIZE));
+        return calculationContext;
+    }
+}
@@ -0,0 +1,36 @@
+package org.tnmk.robocode.common.movement.strategy.antigravity;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class EnemyForceAccumulatorTest {
+    private static final double DELTA = 0.000001;
+
+    @Test
+    public void testUpdateRemoveMoveOrigin_SameAsComputingAllForces() {
+        AntiGravityCalculationContext calculationContext = new AntiGravityCalculationContext();
+        calculationContext.setMaxSafeMoveDistance(500);
+        calculationContext.setMovementIncrement(10);
+        EnemyForceAccumulator enemyForceAccumulator = new EnemyForceAccumulator();
+
+        enemyForceAccumulator.updateEnemy(calculationContext, 400, 300, 0, 100, 100);
+        enemyForceAccumulator.updateEnemy(calculationContext, 400, 300, 1, 700, 500);
+        enemyForceAccumulator.updateEnemy(calculationContext, 400, 300, 0, 150, 120);
+        assertNetForce(calculationContext, enemyForceAccumulator, 400, 300, new double[][]{{150, 120}, {700, 500}});
+
+        enemyForceAccumulator.removeEnemy(1);
+        assertNetForce(calculationContext, enemyForceAccumulator, 400, 300, new double[][]{{150, 120}});
+
+        enemyForceAccumulator.updateEnemy(calculationContext, 410, 305, 20, 600, 100);
+        assertNetForce(calculationContext, enemyForceAccumulator, 410, 305, new double[][]{{150, 120}, {600, 100}});
+    }
+
+    private static void assertNetForce(AntiGravityCalculationContext calculationContext, EnemyForceAccumulator enemyForceAccumulator, double robotX, double robotY, double[][] enemyPositions) {
+        double[] expectedForce = new double[2];
+        for (double[] enemyPosition : enemyPositions) {
+            AntiGravityForceEngine.addForceOfSource(calculationContext, enemyPosition[0], enemyPosition[1], robotX, robotY, expectedForce);
+        }
+        Assert.assertEquals(expectedForce[0], enemyForceAccumulator.getNetForceX(), DELTA);
+        Assert.assertEquals(expectedForce[1], enemyForceAccumulator.getNetForceY(), DELTA);
+    }
+}
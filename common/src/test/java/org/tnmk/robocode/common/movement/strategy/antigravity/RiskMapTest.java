@@ -0,0 +1,54 @@
+package org.tnmk.robocode.common.movement.strategy.antigravity;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.tnmk.robocode.common.model.enemy.Enemy;
+
+import java.awt.geom.Point2D;
+import java.awt.geom.Rectangle2D;
+import java.util.Arrays;
+import java.util.List;
+
+public class RiskMapTest {
+    private static final double DELTA = 0.000001;
+
+    @Test
+    public void testGetRisk_SumOfEnemiesInsideRectangle() {
+        RiskMap riskMap = new RiskMap(800, 600, 40);
+        Enemy enemyA = createEnemy(100, 100, 10);
+        Enemy enemyB = createEnemy(700, 500, 10);
+        List<Enemy> enemies = Arrays.asList(enemyA, enemyB);
+        riskMap.rebuild(10, 400, 300, enemies);
+
+        double riskA = RiskMap.reckonEnemyRisk(enemyA, 400, 300, 10);
+        double riskB = RiskMap.reckonEnemyRisk(enemyB, 400, 300, 10);
+        Assert.assertEquals(riskA, riskMap.getRisk(0, 0, 399, 299), DELTA);
+        Assert.assertEquals(riskB, riskMap.getRisk(400, 300, 800, 600), DELTA);
+        Assert.assertEquals(riskA + riskB, riskMap.getRisk(0, 0, 800, 600), DELTA);
+        Assert.assertEquals(0, riskMap.getRisk(400, 0, 800, 299), DELTA);
+    }
+
+    @Test
+    public void testFindLeastRiskyCells_FarFromEnemiesAndClosestFirst() {
+        RiskMap riskMap = new RiskMap(800, 600, 40);
+        riskMap.rebuild(10, 400, 300, Arrays.asList(createEnemy(100, 100, 10), createEnemy(700, 100, 10)));
+
+        int[] cells = new int[3];
+        double[] risks = new double[3];
+        Rectangle2D excludedArea = new Rectangle2D.Double(600, 400, 200, 200);
+        int count = riskMap.findLeastRiskyCells(3, 200, 150, RiskMap.NUM_OF_LEVELS, excludedArea, 0, 600, cells, risks);
+
+        Assert.assertEquals(3, count);
+        Assert.assertTrue(risks[0] <= risks[1] && risks[1] <= risks[2]);
+        Assert.assertTrue(riskMap.getCellCenterY(cells[0]) > 300);
+        Assert.assertFalse(excludedArea.intersects(riskMap.getCellCenterX(cells[0]) - 100, riskMap.getCellCenterY(cells[0]) - 75, 200, 150));
+    }
+
+    private static Enemy createEnemy(double x, double y, long time) {
+        Enemy enemy = new Enemy();
+        enemy.setPosition(new Point2D.Double(x, y));
+        enemy.setEnergy(100);
+        enemy.setTime(time);
+        return enemy;
+    }
+}
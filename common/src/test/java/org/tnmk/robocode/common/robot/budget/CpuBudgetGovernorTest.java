@@ -0,0 +1,53 @@
+package org.tnmk.robocode.common.robot.budget;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class CpuBudgetGovernorTest {
+
+    @Test
+    public void testEvaluateTick_StepDownLeastImportantKnobFirst_AndRestoreInReverseOrder() {
+        CpuBudgetGovernor governor = new CpuBudgetGovernor(1000);
+        QualityKnob secondaryKnob = new QualityKnob("secondary", 0, 1);
+        QualityKnob primaryKnob = new QualityKnob("primary", 1, 3);
+        governor.register(secondaryKnob);
+        governor.register(primaryKnob);
+
+        governor.evaluateTick(900);
+        Assert.assertEquals(0, secondaryKnob.getLevel());
+        Assert.assertEquals(3, primaryKnob.getLevel());
+        governor.onSkippedTurn();
+        governor.evaluateTick(2000);
+        governor.evaluateTick(2000);//all knobs are already at min levels.
+        Assert.assertEquals(1, primaryKnob.getLevel());
+        Assert.assertEquals(1, governor.getSkippedTurns());
+
+        for (int i = 0; i < 20; i++) {
+            governor.evaluateTick(100);
+        }
+        Assert.assertEquals(2, primaryKnob.getLevel());
+        Assert.assertEquals(0, secondaryKnob.getLevel());
+        for (int i = 0; i < 19; i++) {
+            governor.evaluateTick(100);
+        }
+        governor.evaluateTick(500);//not enough headroom, restart counting.
+        for (int i = 0; i < 40; i++) {
+            governor.evaluateTick(100);
+        }
+        Assert.assertEquals(3, primaryKnob.getLevel());
+        Assert.assertEquals(1, secondaryKnob.getLevel());
+    }
+
+    @Test
+    public void testHasRemainingBudget_IncludesTheRunningSection() {
+        CpuBudgetGovernor governor = new CpuBudgetGovernor(1);
+        Assert.assertTrue(governor.hasRemainingBudget());
+        long startNanos = governor.startSection(1);
+        while (System.nanoTime() == startNanos) {
+            //wait until the running section has used up the 1 nanosecond budget.
+        }
+        Assert.assertFalse(governor.hasRemainingBudget());
+        governor.endSection(startNanos);
+        Assert.assertFalse(governor.hasRemainingBudget());
+    }
+}
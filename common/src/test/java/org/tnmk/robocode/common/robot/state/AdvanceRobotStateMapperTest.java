@@ -27,6 +27,18 @@ public class AdvanceRobotStateMapperTest {
         Assert.assertFalse(state.isHitByEnemy());
     }
 
+    @Test
+    public void testFightStateMapper_FromSnapshot() {
+        AdvancedRobot robot = AdvanceRobotFactory.constructAdvanceRobot();
+        AdvanceRobotState snapshot = AdvanceRobotStateMapper.toState(robot);
+
+        AdvanceRobotFightState state = AdvanceRobotStateMapper.toFightState(snapshot);
+
+        assertEqualsState(robot, state);
+        Assert.assertNotSame(snapshot.getPosition(), state.getPosition());
+        Assert.assertEquals(robot.getBattleFieldWidth(), state.getBattleFieldWidth(), DOUBLE_COMPARE_PRECISION);
+    }
+
     private void assertEqualsState(AdvancedRobot robot, AdvanceRobotState state) {
         Assert.assertEquals(robot.getName(), state.getName());
         Assert.assertEquals(robot.getTime(), state.getTime(), DOUBLE_COMPARE_PRECISION);
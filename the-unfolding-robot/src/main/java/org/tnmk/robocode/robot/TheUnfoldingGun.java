@@ -1,31 +1,40 @@
 package org.tnmk.robocode.robot;
 
+import org.tnmk.robocode.common.gun.BulletLedger;
+import org.tnmk.robocode.common.gun.FireScheduler;
 import org.tnmk.robocode.common.gun.GunStateContext;
+import org.tnmk.robocode.common.gun.GunStrategy;
+import org.tnmk.robocode.common.gun.GunUtils;
+import org.tnmk.robocode.common.gun.MaxEscapeAngleService;
 import org.tnmk.robocode.common.gun.blackpearl.BlackPearlGun;
 import org.tnmk.robocode.common.gun.briareos.BriareosGun;
 import org.tnmk.robocode.common.gun.finishoff.FinishOffGun;
 import org.tnmk.robocode.common.gun.gft.oldalgorithm.GFTAimGun;
+import org.tnmk.robocode.common.gun.knn.KnnGun;
 import org.tnmk.robocode.common.gun.mobius.MobiusGun;
+import org.tnmk.robocode.common.gun.pattern.BulletPowerHelper;
 import org.tnmk.robocode.common.gun.pattern.PatternPredictionGun;
+import org.tnmk.robocode.common.gun.virtual.VirtualGunArena;
+import org.tnmk.robocode.common.gun.wave.WaveTracker;
 import org.tnmk.robocode.common.log.DebugHelper;
+import org.tnmk.robocode.common.log.LogHelper;
+import org.tnmk.robocode.common.model.enemy.Enemy;
 import org.tnmk.robocode.common.model.enemy.EnemyStatisticContext;
 import org.tnmk.robocode.common.radar.AllEnemiesObservationContext;
 import org.tnmk.robocode.common.robot.*;
+import org.tnmk.robocode.common.robot.budget.CpuBudgetGovernor;
+import org.tnmk.robocode.common.robot.budget.QualityKnob;
+import org.tnmk.robocode.common.robot.state.AdvanceRobotState;
 import org.tnmk.robocode.robot.helper.EnemyHealthHelper;
 import robocode.*;
+import robocode.util.Utils;
 
-public class TheUnfoldingGun implements InitiableRun, LoopableRun, OnScannedRobotControl, OnCustomEventControl, OnHitBulletControl, OnWinControl, OnBulletHitControl {
-    /**
-     * The furthest distance which we should fire on target in one-on-one fights.
-     * Note: this distance should never be lower than {@link TheUnfoldingMovement#IDEAL_ENEMY_OSCILLATOR_DISTANCE}
-     */
-    public static final double FURTHEST_DISTANCE_TO_FIRE_ONE_ON_ONE = 300;
+public class TheUnfoldingGun implements InitiableRun, LoopableRun, OnScannedRobotControl, OnCustomEventControl, OnHitBulletControl, OnWinControl, OnBulletHitControl, OnBulletMissedControl, OnBulletHitBulletControl {
+    private final AdvancedRobot robot;
     /**
-     * For each additional enemies, increase the fire distance by this percentage.
+     * The per-tick snapshot of our robot, it's refilled by the robot at the beginning of each turn.
      */
-    private static final double PERCENTAGE_INCREASING_DISTANCE_FOR_EACH_ADDITIONAL_ENEMY = 0.25;
-
-    private final AdvancedRobot robot;
+    private final AdvanceRobotState robotState;
     private final AllEnemiesObservationContext allEnemiesObservationContext;
 
     private final BriareosGun briareosGun;
@@ -34,21 +43,53 @@ public class TheUnfoldingGun implements InitiableRun, LoopableRun, OnScannedRobo
     private final FinishOffGun finishOffGun;
     private final MobiusGun mobiusGun;
     private final BlackPearlGun blackPearlGun;
+    private final KnnGun knnGun;
 
     private final GunStateContext gunStateContext;
+    /**
+     * All waves of our guns, they're advanced together in {@link #runLoop()}.
+     */
+    private final WaveTracker waveTracker;
+    /**
+     * The wall-aware escape angles which are shared by all guess factor guns.
+     */
+    private final MaxEscapeAngleService maxEscapeAngleService;
+    /**
+     * Measure the hit rates of guns for each enemy so that we can choose the best gun.
+     */
+    private final VirtualGunArena virtualGunArena;
+    /**
+     * In melee, choose the enemy which the real gun aims at, so that the gun doesn't switch targets on every scan before it's cool.
+     */
+    private final FireScheduler fireScheduler;
+    /**
+     * 1: virtual guns aim every scan, 0: stop firing virtual waves (the collected hit rates are still used).
+     */
+    private final QualityKnob virtualGunsKnob = new QualityKnob("virtualGuns", 0, 1);
+    /**
+     * It never changes during a battle, so it's read only once in {@link #runInit()}.
+     */
+    private double gunCoolingRate;
 
 
-    public TheUnfoldingGun(AdvancedRobot robot, AllEnemiesObservationContext allEnemiesObservationContext) {
+    public TheUnfoldingGun(AdvancedRobot robot, AdvanceRobotState robotState, AllEnemiesObservationContext allEnemiesObservationContext, CpuBudgetGovernor cpuBudgetGovernor) {
         this.robot = robot;
+        this.robotState = robotState;
         this.allEnemiesObservationContext = allEnemiesObservationContext;
         this.gunStateContext = new GunStateContext();
+        this.waveTracker = new WaveTracker();
+        allEnemiesObservationContext.addEnemyEvictionListener(waveTracker);
+        this.maxEscapeAngleService = new MaxEscapeAngleService();
 
         this.briareosGun = new BriareosGun(robot);
         this.mobiusGun = new MobiusGun(robot);
-        this.gftAimGun = new GFTAimGun(robot, gunStateContext);
+        this.gftAimGun = new GFTAimGun(robot, robotState, allEnemiesObservationContext, gunStateContext, waveTracker, maxEscapeAngleService);
         this.blackPearlGun = new BlackPearlGun(robot, gunStateContext);
-        this.patternPredictionGun = new PatternPredictionGun(robot, allEnemiesObservationContext, gunStateContext);
+        this.patternPredictionGun = new PatternPredictionGun(robot, robotState, allEnemiesObservationContext, gunStateContext, cpuBudgetGovernor);
         this.finishOffGun = new FinishOffGun(robot, allEnemiesObservationContext, gunStateContext);
+        this.knnGun = new KnnGun(robot, robotState, allEnemiesObservationContext, gunStateContext, waveTracker, maxEscapeAngleService);
+        this.virtualGunArena = new VirtualGunArena(robotState, allEnemiesObservationContext, waveTracker, cpuBudgetGovernor, patternPredictionGun, gftAimGun, knnGun);
+        this.fireScheduler = new FireScheduler(virtualGunArena);
     }
 
     @Override
@@ -58,10 +99,31 @@ public class TheUnfoldingGun implements InitiableRun, LoopableRun, OnScannedRobo
         } else {
             EnemyStatisticContext enemyStatisticContext = allEnemiesObservationContext.getEnemyPatternPrediction(scannedRobotEvent.getName());
             DebugHelper.debugEnemyStatisticContext(robot, scannedRobotEvent.getName(), enemyStatisticContext);
-            if (enemyStatisticContext != null && enemyStatisticContext.hasCertainPattern()) {
+            /** The kNN and GFT guns always collect data of all enemies, even when it's not the chosen gun or the target. It must be done before the virtual guns aim.*/
+            double knnBulletPower = knnGun.recordWave(scannedRobotEvent);
+            double gftBulletPower = gftAimGun.recordWave(scannedRobotEvent);
+            /** Virtual guns must aim before the real guns change their states with this scan.*/
+            double virtualBulletPower = BulletPowerHelper.reckonBulletPower(scannedRobotEvent.getDistance(), robotState.getOthers(), robotState.getEnergy());
+            if (virtualGunsKnob.getLevel() > 0) {
+                virtualGunArena.onScannedRobot(scannedRobotEvent, virtualBulletPower);
+            }
+            /** Data of all enemies were collected above, but the real gun only aims at the scheduled target.*/
+            fireScheduler.plan(robotState.getTime(), robotState.getX(), robotState.getY(), robotState.getGunHeadingRadians(), robotState.getGunHeat(),
+                    gunCoolingRate, robotState.getEnergy(), robotState.getOthers(), allEnemiesObservationContext.getSnapshot().getEnemies());
+            if (!fireScheduler.isTarget(scannedRobotEvent.getName())) {
+                return;
+            }
+
+            boolean hasCertainPattern = enemyStatisticContext != null && enemyStatisticContext.hasCertainPattern();
+            GunStrategy defaultGunStrategy = hasCertainPattern ? GunStrategy.PATTERN_PREDICTION : GunStrategy.GFT;
+            GunStrategy gunStrategy = virtualGunArena.selectGunStrategy(scannedRobotEvent.getName(), defaultGunStrategy);
+            if (gunStrategy == GunStrategy.PATTERN_PREDICTION && enemyStatisticContext != null && enemyStatisticContext.getPatternIdentification() != null) {
                 patternPredictionGun.onScannedRobot(scannedRobotEvent);
-            } else {
-                aimGFTGunWhenPropriate(scannedRobotEvent);
+            } else if (gunStrategy == GunStrategy.KNN && knnBulletPower > 0) {
+                knnGun.aim(scannedRobotEvent, knnBulletPower);
+            } else if (gftBulletPower > 0) {
+                /** The statistics are segmented based on the battle field size, so GFT can aim at any distance. */
+                gftAimGun.aim(scannedRobotEvent, gftBulletPower);
 //            blackPearlGun.onScannedRobot(scannedRobotEvent);
 //            mobiusGun.onScannedRobot(scannedRobotEvent);
 //            briareosGun.onScannedRobot(scannedRobotEvent);
@@ -69,32 +131,6 @@ public class TheUnfoldingGun implements InitiableRun, LoopableRun, OnScannedRobo
         }
     }
 
-    private void aimGFTGunWhenPropriate(ScannedRobotEvent scannedRobotEvent) {
-        if (shouldApplyGFTGun(scannedRobotEvent.getDistance(), robot.getOthers())) {
-            gftAimGun.onScannedRobot(scannedRobotEvent);
-            DebugHelper.debugGFTGunInRange(robot);
-        } else {
-            DebugHelper.debugGFTGunNotInRange(robot);
-            /** Don't fire, both GFT and MoebiusGun work badly in this case*/
-        }
-    }
-
-    /**
-     * When the distance is too far, don't fire.
-     * However, if there's so many enemies, fire bullets even if the distance is far because there could be a change we hit other enemies accidentally.
-     * <p/>
-     * NOTE: Actually, without this condition, GFTGun still works, but it works very badly.
-     *
-     * @param aimedEnemyDistance the current distance between our robot and a target enemy.
-     * @param enemiesCount       the total of remain enemies.
-     * @return
-     */
-    private boolean shouldApplyGFTGun(double aimedEnemyDistance, int enemiesCount) {
-        double totalIncreasePercentageDistance = enemiesCount * PERCENTAGE_INCREASING_DISTANCE_FOR_EACH_ADDITIONAL_ENEMY;
-        boolean result = aimedEnemyDistance <= FURTHEST_DISTANCE_TO_FIRE_ONE_ON_ONE * (1 + totalIncreasePercentageDistance);
-        return result;
-    }
-
     @Override
     public void onCustomEvent(CustomEvent customEvent) {
         //Nothing at this moment.
@@ -102,6 +138,8 @@ public class TheUnfoldingGun implements InitiableRun, LoopableRun, OnScannedRobo
 
     @Override
     public void runInit() {
+        maxEscapeAngleService.setBattleFieldSize(robot.getBattleFieldWidth(), robot.getBattleFieldHeight());
+        gunCoolingRate = robot.getGunCoolingRate();
 //        blackPearlGun.runInit();
 //        briareosGun.runInit();
         //Nothing at this moment.
@@ -110,8 +148,27 @@ public class TheUnfoldingGun implements InitiableRun, LoopableRun, OnScannedRobo
     @Override
     public void runLoop() {
 //        briareosGun.runLoop();
+        waveTracker.runLoop();
         patternPredictionGun.runLoop();
         finishOffGun.runLoop();
+        turnGunToCommittedTarget();
+    }
+
+    /**
+     * When the committed target is not scanned in this tick, nothing aims at it.
+     * So the gun keeps turning to the target's last known position, then it's already aligned when the gun is cool.
+     */
+    private void turnGunToCommittedTarget() {
+        if (!fireScheduler.isCommitted() || fireScheduler.getTargetName() == null) {
+            return;
+        }
+        Enemy target = allEnemiesObservationContext.getEnemy(fireScheduler.getTargetName());
+        if (target == null || target.getTime() == robotState.getTime()) {
+            /** If the target was scanned in this tick, the chosen gun has already aimed at it more precisely. */
+            return;
+        }
+        double bearing = GunUtils.reckonAbsoluteBearingRadian(robotState.getPosition(), target.getPosition());
+        robot.setTurnGunRightRadians(Utils.normalRelativeAngle(bearing - robotState.getGunHeadingRadians()));
     }
 
     @Override
@@ -129,6 +186,38 @@ public class TheUnfoldingGun implements InitiableRun, LoopableRun, OnScannedRobo
 
     @Override
     public void onBulletHit(BulletHitEvent event) {
+        gunStateContext.getBulletLedger().resolveHit(event.getBullet(), event.getName());
         finishOffGun.onBulletHit(event);
     }
+
+    @Override
+    public void onBulletMissed(BulletMissedEvent event) {
+        gunStateContext.getBulletLedger().resolveMissed(event.getBullet());
+    }
+
+    @Override
+    public void onBulletHitBullet(BulletHitBulletEvent event) {
+        gunStateContext.getBulletLedger().resolveHitBullet(event.getBullet());
+    }
+
+    public void onRoundEnded(RoundEndedEvent roundEndedEvent) {
+        if (DebugHelper.isDebugGunStrategy()) {
+            LogHelper.logSimple(robot, String.format("Max escape angle cache: hit rate %.2f of %d requests", maxEscapeAngleService.getHitRate(), maxEscapeAngleService.getRequests()));
+        }
+    }
+
+    /**
+     * @return the real hit rates and damage per energy of each gun strategy, view {@link BulletLedger}.
+     */
+    public BulletLedger getBulletLedger() {
+        return gunStateContext.getBulletLedger();
+    }
+
+    public QualityKnob getVirtualGunsKnob() {
+        return virtualGunsKnob;
+    }
+
+    public QualityKnob getPredictionPassesKnob() {
+        return patternPredictionGun.getPredictionPassesKnob();
+    }
 }
@@ -13,15 +13,21 @@ import org.tnmk.robocode.common.movement.strategy.wallsmooth.WallSmoothMoveContr
 import org.tnmk.robocode.common.paint.PaintHelper;
 import org.tnmk.robocode.common.radar.AllEnemiesObservationContext;
 import org.tnmk.robocode.common.robot.*;
+import org.tnmk.robocode.common.robot.budget.QualityKnob;
 import org.tnmk.robocode.common.robot.state.AdvanceRobotFightState;
+import org.tnmk.robocode.common.robot.state.AdvanceRobotState;
 import org.tnmk.robocode.common.robot.state.AdvanceRobotStateMapper;
 import org.tnmk.robocode.common.robotdecorator.HiTechDecorator;
 import robocode.*;
 
-public class TheUnfoldingMovement implements InitiableRun, LoopableRun, OnScannedRobotControl, OnHitRobotControl, OnStatusControl, OnCustomEventControl, OnBulletHitControl {
+public class TheUnfoldingMovement implements InitiableRun, LoopableRun, OnScannedRobotControl, OnRobotDeathControl, OnHitRobotControl, OnStatusControl, OnCustomEventControl, OnBulletHitControl {
     public static final double IDEAL_ENEMY_OSCILLATOR_DISTANCE = 150;
 
     private final AdvancedRobot robot;
+    /**
+     * The per-tick snapshot of our robot, it's refilled by the robot at the beginning of each turn.
+     */
+    private final AdvanceRobotState robotState;
     private final AllEnemiesObservationContext allEnemiesObservationContext;
     private final MovementContext movementContext;
 
@@ -31,16 +37,17 @@ public class TheUnfoldingMovement implements InitiableRun, LoopableRun, OnScanne
     private final AntiGravityMoveController antiGravityMoveController;
     private final RandomMoveController randomMoveController;
 
-    public TheUnfoldingMovement(AdvancedRobot robot, AllEnemiesObservationContext allEnemiesObservationContext) {
+    public TheUnfoldingMovement(AdvancedRobot robot, AdvanceRobotState robotState, AllEnemiesObservationContext allEnemiesObservationContext) {
         this.robot = robot;
+        this.robotState = robotState;
         this.allEnemiesObservationContext = allEnemiesObservationContext;
 
         movementContext = new MovementContext(robot);
         oscillatorMoveController = new OscillatorMoveController(robot, movementContext);
-        antiGravityMoveController = new AntiGravityMoveController(robot, allEnemiesObservationContext, movementContext);
+        antiGravityMoveController = new AntiGravityMoveController(robot, robotState, allEnemiesObservationContext, movementContext);
         runAwayMoveController = new RunAwayMoveController(robot, movementContext);
         wallSmoothMoveController = new WallSmoothMoveController(robot, movementContext);
-        randomMoveController = new RandomMoveController(robot, allEnemiesObservationContext, movementContext);
+        randomMoveController = new RandomMoveController(robot, robotState, allEnemiesObservationContext, movementContext);
     }
 
     @Override
@@ -58,7 +65,7 @@ public class TheUnfoldingMovement implements InitiableRun, LoopableRun, OnScanne
 
     @Override
     public void onScannedRobot(ScannedRobotEvent scannedRobotEvent) {
-        int totalExistingEnemies = robot.getOthers();
+        int totalExistingEnemies = robotState.getOthers();
         if (totalExistingEnemies <= 1) {
             randomMoveController.onScannedRobot(scannedRobotEvent);
 //            moveOscillatorWithIdealDistance(scannedRobotEvent);
@@ -67,6 +74,10 @@ public class TheUnfoldingMovement implements InitiableRun, LoopableRun, OnScanne
         }
     }
 
+    @Override
+    public void onRobotDeath(RobotDeathEvent robotDeathEvent) {
+        antiGravityMoveController.onRobotDeath(robotDeathEvent);
+    }
 
     @Override
     public void onHitRobot(HitRobotEvent hitRobotEvent) {
@@ -79,7 +90,7 @@ public class TheUnfoldingMovement implements InitiableRun, LoopableRun, OnScanne
     }
 
     private double calculateSuitableEnemyDistance(double idealDistance) {
-        double battleFieldSize = Math.min(robot.getBattleFieldWidth(), robot.getBattleFieldHeight());
+        double battleFieldSize = Math.min(robotState.getBattleFieldWidth(), robotState.getBattleFieldHeight());
         double haftBattleFieldSize = battleFieldSize * 0.1;
         double thirdFourBattleFieldSize = battleFieldSize * 0.75;
         double idealEnemyDistance = calculateSuitableEnemyDistanceInAppropriateLimit(idealDistance, haftBattleFieldSize, thirdFourBattleFieldSize);
@@ -94,7 +105,7 @@ public class TheUnfoldingMovement implements InitiableRun, LoopableRun, OnScanne
     @Override
     public void onStatus(StatusEvent statusEvent) {
         DebugHelper.debugStateMoveStrategy(robot, movementContext);
-        saveRobotStatus(robot, movementContext);
+        saveRobotStatus(movementContext);
 //        LogHelper.logRobotMovement(robot, "current movement state");
         RobotStatus status = statusEvent.getStatus();
         Point2D robotPosition = new Point2D.Double(status.getX(), status.getY());
@@ -119,11 +130,11 @@ public class TheUnfoldingMovement implements InitiableRun, LoopableRun, OnScanne
     }
 
 
-    private void saveRobotStatus(AdvancedRobot robot, MovementContext movementContext) {
-        if (isLatestStateHistorySameAtThisTime(movementContext, robot.getTime())) {
+    private void saveRobotStatus(MovementContext movementContext) {
+        if (isLatestStateHistorySameAtThisTime(movementContext, robotState.getTime())) {
             return;//We already added it, don't need to add anymore.
         }
-        AdvanceRobotFightState advanceRobotFightState = AdvanceRobotStateMapper.toFightState(robot);
+        AdvanceRobotFightState advanceRobotFightState = AdvanceRobotStateMapper.toFightState(robotState);
         movementContext.getRobotHistory().addToHistory(advanceRobotFightState);
     }
 
@@ -148,12 +159,16 @@ public class TheUnfoldingMovement implements InitiableRun, LoopableRun, OnScanne
     @Override
     public void onBulletHit(BulletHitEvent event) {
         AdvanceRobotFightState latestState;
-        if (isLatestStateHistorySameAtThisTime(movementContext, robot.getTime())) {
+        if (isLatestStateHistorySameAtThisTime(movementContext, robotState.getTime())) {
             latestState = movementContext.getRobotHistory().getLatestHistoryItem();
         } else {
-            latestState = AdvanceRobotStateMapper.toFightState(robot);
+            latestState = AdvanceRobotStateMapper.toFightState(robotState);
             movementContext.getRobotHistory().addToHistory(latestState);
         }
         latestState.setHitByBullet(true);
     }
+
+    public QualityKnob getRiskAnalysisDepthKnob() {
+        return antiGravityMoveController.getRiskAnalysisDepthKnob();
+    }
 }
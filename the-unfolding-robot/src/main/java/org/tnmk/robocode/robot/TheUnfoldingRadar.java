@@ -7,6 +7,7 @@ import org.tnmk.robocode.common.robot.OnCustomEventControl;
 import org.tnmk.robocode.common.robot.InitiableRun;
 import org.tnmk.robocode.common.robot.OnRobotDeathControl;
 import org.tnmk.robocode.common.robot.OnScannedRobotControl;
+import org.tnmk.robocode.common.robot.state.AdvanceRobotState;
 import org.tnmk.robocode.robot.helper.EnemyHealthHelper;
 import robocode.AdvancedRobot;
 import robocode.CustomEvent;
@@ -17,17 +18,22 @@ public class TheUnfoldingRadar implements OnScannedRobotControl, OnRobotDeathCon
     private static final double ENEMY_CLOSE_DISTANCE = 400;
 
     private final AdvancedRobot robot;
+    /**
+     * The per-tick snapshot of our robot, it's refilled by the robot at the beginning of each turn.
+     */
+    private final AdvanceRobotState robotState;
     private final AllEnemiesObservationContext allEnemiesObservationContext;
 
     private final BotLockRadar botLockRadar;
     private OptimalScanRadar allEnemiesScanRadar;
 
-    public TheUnfoldingRadar(AdvancedRobot robot, AllEnemiesObservationContext allEnemiesObservationContext) {
+    public TheUnfoldingRadar(AdvancedRobot robot, AdvanceRobotState robotState, AllEnemiesObservationContext allEnemiesObservationContext) {
         this.robot = robot;
+        this.robotState = robotState;
         this.allEnemiesObservationContext = allEnemiesObservationContext;
 
         this.botLockRadar = new BotLockRadar(robot, allEnemiesObservationContext);
-        this.allEnemiesScanRadar = new OptimalScanRadar(robot, allEnemiesObservationContext);
+        this.allEnemiesScanRadar = new OptimalScanRadar(robot, robotState, allEnemiesObservationContext);
     }
 
 //    @Override
@@ -59,7 +65,7 @@ public class TheUnfoldingRadar implements OnScannedRobotControl, OnRobotDeathCon
                 allEnemiesScanRadar.onScannedRobot(scannedRobotEvent);
             }
         } else {
-            int totalExistingEnemies = robot.getOthers();
+            int totalExistingEnemies = robotState.getOthers();
             if (allEnemiesScanRadar.isScannedAllEnemiesAtLeastOnce() && totalExistingEnemies <= 1) {
                 botLockRadar.onScannedRobot(scannedRobotEvent);
             } else {
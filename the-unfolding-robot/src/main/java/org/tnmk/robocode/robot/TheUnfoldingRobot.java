@@ -1,7 +1,10 @@
 package org.tnmk.robocode.robot;
 
+import java.util.function.Consumer;
 import org.tnmk.robocode.common.error.ErrorLogger;
+import org.tnmk.robocode.common.log.profiler.TickProfiler;
 import org.tnmk.robocode.common.radar.AllEnemiesObservationContext;
+import org.tnmk.robocode.common.robot.budget.CpuBudgetGovernor;
 import org.tnmk.robocode.common.robot.state.AdvanceRobotFightState;
 import org.tnmk.robocode.common.robot.state.AdvanceRobotState;
 import org.tnmk.robocode.common.robot.state.AdvanceRobotStateMapper;
@@ -14,11 +17,28 @@ import robocode.*;
  * http://mark.random-article.com/weber/java/robocode/lesson3.html
  */
 public class TheUnfoldingRobot extends AdvancedRobot {
+    /**
+     * The profiler summary will be written into {YOUR_ROBOT_MODULE_SOURCE_CODE}/target/classes/org/tnmk/robocode/robot/TheUnfoldingRobot.data/profiler.log
+     */
+    private static final String PROFILER_LOG = "profiler.log";
     private static int loopIndex = 0;
-    private AllEnemiesObservationContext allEnemiesObservationContext = new AllEnemiesObservationContext(this);
-    private TheUnfoldingMovement theUnfoldingMovement = new TheUnfoldingMovement(this, allEnemiesObservationContext);
-    private TheUnfoldingRadar theUnfoldingRadar = new TheUnfoldingRadar(this, allEnemiesObservationContext);
-    private TheUnfoldingGun theUnfoldingGun = new TheUnfoldingGun(this, allEnemiesObservationContext);
+    /**
+     * The snapshot of this robot which is refilled once at the beginning of each turn (view {@link #onStatus(StatusEvent)}) and shared by all components.
+     */
+    private final AdvanceRobotState robotState = new AdvanceRobotState();
+    private AllEnemiesObservationContext allEnemiesObservationContext = new AllEnemiesObservationContext(this, robotState);
+    private TheUnfoldingMovement theUnfoldingMovement = new TheUnfoldingMovement(this, robotState, allEnemiesObservationContext);
+    private TheUnfoldingRadar theUnfoldingRadar = new TheUnfoldingRadar(this, robotState, allEnemiesObservationContext);
+    /**
+     * Measure the processing time of each tick and reduce the quality of some calculations to avoid skipped turns.
+     */
+    private CpuBudgetGovernor cpuBudgetGovernor = new CpuBudgetGovernor();
+    private TheUnfoldingGun theUnfoldingGun = new TheUnfoldingGun(this, robotState, allEnemiesObservationContext, cpuBudgetGovernor);
+    /**
+     * Measure each dispatch to radar, movement and gun, view {@link #dispatch(Object, String, Consumer, String, Consumer, String, Consumer)}.
+     * The summary is written at the end of each round when {@link TickProfiler#enabled}.
+     */
+    private TickProfiler tickProfiler = new TickProfiler();
 
 
     @Override
@@ -31,15 +51,22 @@ public class TheUnfoldingRobot extends AdvancedRobot {
             setAdjustGunForRobotTurn(true);
             setAdjustRadarForGunTurn(true);
             setAdjustRadarForRobotTurn(true);
-
-            theUnfoldingRadar.runInit();
-            theUnfoldingGun.runInit();
-            theUnfoldingMovement.runInit();
+            /** The name and the battle field size are copied only here, {@link RobotStatus} doesn't have them. */
+            AdvanceRobotStateMapper.copyState(this, robotState);
+
+            /** The least important knobs are registered first, they're reduced first.*/
+            cpuBudgetGovernor.register(theUnfoldingGun.getVirtualGunsKnob());
+            cpuBudgetGovernor.register(theUnfoldingMovement.getRiskAnalysisDepthKnob());
+            cpuBudgetGovernor.register(theUnfoldingGun.getPredictionPassesKnob());
+
+            long startNanos = tickProfiler.start();
+            startNanos = runSection(null, "radar.runInit", ignored -> theUnfoldingRadar.runInit(), startNanos);
+            startNanos = runSection(null, "gun.runInit", ignored -> theUnfoldingGun.runInit(), startNanos);
+            runSection(null, "movement.runInit", ignored -> theUnfoldingMovement.runInit(), startNanos);
             execute();
 
             while (true) {
-                theUnfoldingGun.runLoop();
-                theUnfoldingMovement.runLoop();
+                dispatch(null, "gun.runLoop", ignored -> theUnfoldingGun.runLoop(), "movement.runLoop", ignored -> theUnfoldingMovement.runLoop());
                 execute();
                 loopIndex++;
             }
@@ -48,99 +75,133 @@ public class TheUnfoldingRobot extends AdvancedRobot {
         }
     }
 
+    /**
+     * Radar must be executed before other things so that it can update the latest information.
+     * The snapshot is refreshed right after that, so movement and gun read the data of this scan.
+     */
     @Override
     public void onScannedRobot(ScannedRobotEvent scannedRobotEvent) {
-        try {
-            /** Radar must be executed before other things so that it can update the latest information. */
-            theUnfoldingRadar.onScannedRobot(scannedRobotEvent);
-            theUnfoldingMovement.onScannedRobot(scannedRobotEvent);
-            theUnfoldingGun.onScannedRobot(scannedRobotEvent);
-            //Note don't execute() in robotEvents, otherwise, the actions inside loopRun() will not be triggered.
-            //All of event should trigger robot.setXxx() methods only, they will be triggered in loopRun()
-        } catch (RuntimeException e) {
-            logAndRethrowException(e);
-        }
+        dispatch(scannedRobotEvent, "radar.onScannedRobot", event -> {
+                    theUnfoldingRadar.onScannedRobot(event);
+                    allEnemiesObservationContext.publishSnapshot();
+                },
+                "movement.onScannedRobot", theUnfoldingMovement::onScannedRobot,
+                "gun.onScannedRobot", theUnfoldingGun::onScannedRobot);
     }
 
     @Override
     public void onRobotDeath(RobotDeathEvent robotDeathEvent) {
-        try {
-            theUnfoldingRadar.onRobotDeath(robotDeathEvent);
-            //Note don't execute() in robotEvents, otherwise, the actions inside loopRun() will not be triggered.
-            //All of event should trigger robot.setXxx() methods only, they will be triggered in loopRun()
-        } catch (RuntimeException e) {
-            logAndRethrowException(e);
-        }
+        dispatch(robotDeathEvent, "radar.onRobotDeath", event -> {
+                    theUnfoldingRadar.onRobotDeath(event);
+                    allEnemiesObservationContext.publishSnapshot();
+                },
+                "movement.onRobotDeath", theUnfoldingMovement::onRobotDeath);
+    }
+
+    @Override
+    public void onSkippedTurn(SkippedTurnEvent skippedTurnEvent) {
+        cpuBudgetGovernor.onSkippedTurn();
     }
 
     @Override
     public void onCustomEvent(CustomEvent customEvent) {
-        try {
-            theUnfoldingRadar.onCustomEvent(customEvent);
-            theUnfoldingGun.onCustomEvent(customEvent);
-            theUnfoldingMovement.onCustomEvent(customEvent);
-            //Note don't execute() in robotEvents, otherwise, the actions inside loopRun() will not be triggered.
-            //All of event should trigger robot.setXxx() methods only, they will be triggered in loopRun()
-        } catch (RuntimeException e) {
-            logAndRethrowException(e);
-        }
+        dispatch(customEvent, "radar.onCustomEvent", theUnfoldingRadar::onCustomEvent,
+                "gun.onCustomEvent", theUnfoldingGun::onCustomEvent,
+                "movement.onCustomEvent", theUnfoldingMovement::onCustomEvent);
     }
 
     @Override
     public void onHitRobot(HitRobotEvent hitRobotEvent) {
-        try {
-            theUnfoldingMovement.onHitRobot(hitRobotEvent);
-        } catch (RuntimeException e) {
-            logAndRethrowException(e);
-        }
+        dispatch(hitRobotEvent, "movement.onHitRobot", theUnfoldingMovement::onHitRobot);
     }
 
+    /**
+     * StatusEvent has the highest priority, so the snapshot is refilled before any other event of this turn.
+     * The observation snapshot of this tick is published from it at the same time (the radar will refresh it after each scan).
+     */
     @Override
     public void onStatus(StatusEvent statusEvent) {
-        try {
-            theUnfoldingMovement.onStatus(statusEvent);
-        } catch (RuntimeException e) {
-            logAndRethrowException(e);
-        }
+        AdvanceRobotStateMapper.copyState(statusEvent.getStatus(), robotState);
+        allEnemiesObservationContext.publishSnapshot();
+        dispatch(statusEvent, "movement.onStatus", theUnfoldingMovement::onStatus);
     }
 
     @Override
     public void onHitWall(HitWallEvent hitWallEvent) {
-        try {
-            theUnfoldingMovement.onHitWall(hitWallEvent);
-        } catch (RuntimeException e) {
-            logAndRethrowException(e);
-        }
+        dispatch(hitWallEvent, "movement.onHitWall", theUnfoldingMovement::onHitWall);
     }
 
     @Override
     public void onHitByBullet(HitByBulletEvent hitByBulletEvent) {
-        try {
-            theUnfoldingGun.onHitByBullet(hitByBulletEvent);
-        } catch (RuntimeException e) {
-            logAndRethrowException(e);
-        }
+        dispatch(hitByBulletEvent, "gun.onHitByBullet", theUnfoldingGun::onHitByBullet);
     }
 
     @Override
     public void onWin(WinEvent winEvent) {
-        try {
-            theUnfoldingGun.onWin(winEvent);
-        } catch (RuntimeException e) {
-            logAndRethrowException(e);
-        }
+        dispatch(winEvent, "gun.onWin", theUnfoldingGun::onWin);
     }
 
     @Override
     public void onBulletHit(BulletHitEvent event) {
+        dispatch(event, "gun.onBulletHit", theUnfoldingGun::onBulletHit, "movement.onBulletHit", theUnfoldingMovement::onBulletHit);
+    }
+
+    @Override
+    public void onBulletMissed(BulletMissedEvent event) {
+        dispatch(event, "gun.onBulletMissed", theUnfoldingGun::onBulletMissed);
+    }
+
+    @Override
+    public void onBulletHitBullet(BulletHitBulletEvent event) {
+        dispatch(event, "gun.onBulletHitBullet", theUnfoldingGun::onBulletHitBullet);
+    }
+
+    @Override
+    public void onRoundEnded(RoundEndedEvent roundEndedEvent) {
+        dispatch(roundEndedEvent, "gun.onRoundEnded", theUnfoldingGun::onRoundEnded);
+        tickProfiler.writeSummary(this, PROFILER_LOG);
+    }
+
+    private <E> void dispatch(E event, String sectionName, Consumer<E> handler) {
+        dispatch(event, sectionName, handler, null, null, null, null);
+    }
+
+    private <E> void dispatch(E event, String firstSectionName, Consumer<E> firstHandler, String secondSectionName, Consumer<E> secondHandler) {
+        dispatch(event, firstSectionName, firstHandler, secondSectionName, secondHandler, null, null);
+    }
+
+    /**
+     * Run the handlers in order. Each handler is measured as a section of {@link #tickProfiler}, and all of them are measured as one section of {@link #cpuBudgetGovernor}.<br/>
+     * Note: handlers must not execute(), otherwise, the actions inside runLoop() will not be triggered.
+     * All of events should trigger robot.setXxx() methods only, they will be triggered in runLoop().
+     *
+     * @param event         the event which is passed to all handlers (null for the run loop).
+     * @param secondHandler could be null, so could thirdHandler.
+     */
+    private <E> void dispatch(E event, String firstSectionName, Consumer<E> firstHandler, String secondSectionName, Consumer<E> secondHandler,
+                              String thirdSectionName, Consumer<E> thirdHandler) {
         try {
-            theUnfoldingGun.onBulletHit(event);
-            theUnfoldingMovement.onBulletHit(event);
+            long startNanos = cpuBudgetGovernor.startSection(robotState.getTime());
+            long sectionStartNanos = runSection(event, firstSectionName, firstHandler, startNanos);
+            sectionStartNanos = runSection(event, secondSectionName, secondHandler, sectionStartNanos);
+            runSection(event, thirdSectionName, thirdHandler, sectionStartNanos);
+            cpuBudgetGovernor.endSection(startNanos);
         } catch (RuntimeException e) {
             logAndRethrowException(e);
         }
     }
 
+    /**
+     * @return the end nano time of the section, so it can be used as the start of the next section.
+     */
+    private <E> long runSection(E event, String sectionName, Consumer<E> handler, long startNanos) {
+        if (handler == null) {
+            return startNanos;
+        }
+        handler.accept(event);
+        return tickProfiler.stop(tickProfiler.getSectionId(sectionName), startNanos);
+    }
+
     protected void logAndRethrowException(RuntimeException e) {
         AdvanceRobotState state = AdvanceRobotStateMapper.toState(this);
         String errorMessage = String.format("[%s] \n\tState: %s\n\tenemiesContext: %s", getTime(), state, allEnemiesObservationContext);